@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+/**
+ * The implementation of {@link QueueBuffer} used by every channel of {@link Channels}.
+ */
+public enum BufferType {
+    /**
+     * Choose the implementation by {@link BufferStrategy}. {@link BufferStrategy#BLOCKING} uses {@link
+     * ArrayBlockingQueueBuffer}, others use {@link Buffer}.
+     */
+    DEFAULT,
+    /**
+     * Use {@link RingBuffer}, the sequence-numbered lock-free multiple producers single consumer ring queue. Both
+     * {@link BufferStrategy} are supported.
+     */
+    RING
+}
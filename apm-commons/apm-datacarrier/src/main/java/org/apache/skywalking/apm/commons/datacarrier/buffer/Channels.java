@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.apm.commons.datacarrier.buffer;
 
+import java.util.Arrays;
 import org.apache.skywalking.apm.commons.datacarrier.partition.IDataPartitioner;
 
 /**
@@ -31,20 +32,35 @@ public class Channels<T> {
     private IDataPartitioner<T> dataPartitioner;
     private final BufferStrategy strategy;
     private final long size;
+    /**
+     * Notified after the data is saved, used to wake up the consumers waiting for new data.
+     */
+    private volatile Runnable[] produceNotifiers = new Runnable[0];
 
     public Channels(int channelSize, int bufferSize, IDataPartitioner<T> partitioner, BufferStrategy strategy) {
+        this(channelSize, bufferSize, partitioner, strategy, BufferType.DEFAULT);
+    }
+
+    public Channels(int channelSize, int bufferSize, IDataPartitioner<T> partitioner, BufferStrategy strategy,
+                    BufferType type) {
         this.dataPartitioner = partitioner;
         this.strategy = strategy;
         bufferChannels = new QueueBuffer[channelSize];
         for (int i = 0; i < channelSize; i++) {
-            if (BufferStrategy.BLOCKING.equals(strategy)) {
+            if (BufferType.RING.equals(type)) {
+                bufferChannels[i] = new RingBuffer<>(bufferSize, strategy);
+            } else if (BufferStrategy.BLOCKING.equals(strategy)) {
                 bufferChannels[i] = new ArrayBlockingQueueBuffer<>(bufferSize, strategy);
             } else {
                 bufferChannels[i] = new Buffer<>(bufferSize, strategy);
             }
         }
-        // noinspection PointlessArithmeticExpression
-        size = 1L * channelSize * bufferSize; // it's not pointless, it prevents numeric overflow before assigning an integer to a long
+        // The real capacity of every buffer, e.g. RingBuffer rounds it up to the power of 2.
+        long totalSize = 0;
+        for (QueueBuffer<T> buffer : bufferChannels) {
+            totalSize += buffer.getBufferSize();
+        }
+        size = totalSize;
     }
 
     public boolean save(T data) {
@@ -59,12 +75,40 @@ public class Channels<T> {
         }
         for (; retryCountDown > 0; retryCountDown--) {
             if (bufferChannels[index].save(data)) {
+                for (Runnable notifier : produceNotifiers) {
+                    notifier.run();
+                }
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Add a notifier, which is called in the producer thread after every successful save.
+     */
+    public synchronized void addProduceNotifier(Runnable notifier) {
+        Runnable[] notifiers = Arrays.copyOf(produceNotifiers, produceNotifiers.length + 1);
+        notifiers[notifiers.length - 1] = notifier;
+        produceNotifiers = notifiers;
+    }
+
+    /**
+     * Remove a notifier added by {@link #addProduceNotifier(Runnable)}, it is matched by the reference.
+     */
+    public synchronized void removeProduceNotifier(Runnable notifier) {
+        Runnable[] notifiers = produceNotifiers;
+        for (int i = 0; i < notifiers.length; i++) {
+            if (notifiers[i] == notifier) {
+                Runnable[] newNotifiers = new Runnable[notifiers.length - 1];
+                System.arraycopy(notifiers, 0, newNotifiers, 0, i);
+                System.arraycopy(notifiers, i + 1, newNotifiers, i, notifiers.length - i - 1);
+                produceNotifiers = newNotifiers;
+                return;
+            }
+        }
+    }
+
     public void setPartitioner(IDataPartitioner<T> dataPartitioner) {
         this.dataPartitioner = dataPartitioner;
     }
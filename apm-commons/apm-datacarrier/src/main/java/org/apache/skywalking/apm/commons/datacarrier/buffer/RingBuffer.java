@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sequence-numbered lock-free ring queue, supporting multiple producers and a single consumer.
+ * <p>
+ * Every slot holds a sequence besides the data. A producer claims the next position through CAS on the padded producer
+ * cursor, only when the sequence of the target slot says it has been released by the consumer, then writes the data
+ * and publishes it by setting the sequence. So, unlike {@link Buffer}, a slot is never overridden before it is
+ * consumed, and {@link #obtain(List)} stops at the first unpublished slot instead of scanning the whole array.
+ * <p>
+ * The capacity is rounded up to the power of 2. {@link #obtain(List)} must be called by one thread only, which is
+ * guaranteed by {@link org.apache.skywalking.apm.commons.datacarrier.consumer.ConsumeDriver} and {@link
+ * org.apache.skywalking.apm.commons.datacarrier.consumer.BulkConsumePool}, as every channel belongs to one consumer
+ * thread.
+ */
+public class RingBuffer<T> implements QueueBuffer<T> {
+    /**
+     * Same as {@link org.apache.skywalking.apm.commons.datacarrier.common.AtomicRangeInteger}, the cursor is placed
+     * in the middle of the array to avoid false sharing with other hot fields.
+     */
+    private static final int CURSOR_OFFSET = 15;
+    private static final int MAX_SPIN_TIMES = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray producerCursor;
+    private final int mask;
+    /**
+     * Only read and written by the consumer thread.
+     */
+    private long consumerCursor;
+    private BufferStrategy strategy;
+
+    RingBuffer(int bufferSize, BufferStrategy strategy) {
+        int capacity = ceilingPowerOfTwo(bufferSize);
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.producerCursor = new AtomicLongArray(31);
+        this.mask = capacity - 1;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public boolean save(T data) {
+        int waitTimes = 0;
+        long position = producerCursor.get(CURSOR_OFFSET);
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (producerCursor.compareAndSet(CURSOR_OFFSET, position, position + 1)) {
+                    buffer[index] = data;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The slot of the last round hasn't been consumed, the queue is full.
+                if (BufferStrategy.IF_POSSIBLE.equals(strategy)) {
+                    return false;
+                }
+                waitTimes = waitForConsumer(waitTimes);
+            }
+            position = producerCursor.get(CURSOR_OFFSET);
+        }
+    }
+
+    /**
+     * Spin first, then yield, at last park with exponential backoff, until the consumer releases the slot.
+     */
+    private static int waitForConsumer(int waitTimes) {
+        if (waitTimes < MAX_SPIN_TIMES) {
+            return waitTimes + 1;
+        }
+        if (waitTimes < MAX_SPIN_TIMES * 2) {
+            Thread.yield();
+            return waitTimes + 1;
+        }
+        int shift = Math.min(waitTimes - MAX_SPIN_TIMES * 2, 20);
+        LockSupport.parkNanos(Math.min(1L << shift, MAX_PARK_NANOS));
+        return waitTimes + 1;
+    }
+
+    @Override
+    public void setStrategy(BufferStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void obtain(List<T> consumeList) {
+        long position = consumerCursor;
+        while (true) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            consumeList.add((T) buffer[index]);
+            buffer[index] = null;
+            // Release the slot for the producers of the next round.
+            sequences.set(index, position + buffer.length);
+            position++;
+        }
+        consumerCursor = position;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return buffer.length;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Busy spin first, then yield, at last park with exponential backoff up to the consume cycle. The consumer hands off
+ * in sub-millisecond under load, and costs nearly nothing when idle, as the park time quickly grows to the cycle.
+ */
+public class BackoffWaitStrategy implements IWaitStrategy {
+    private static final int SPIN_TIMES = 100;
+    private static final int YIELD_TIMES = 100;
+    private static final long MIN_PARK_NANOS = 1_000L;
+
+    private final long maxParkNanos;
+    private int idleTimes;
+    private long parkNanos;
+
+    public BackoffWaitStrategy(long consumeCycle) {
+        this.maxParkNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(consumeCycle), MIN_PARK_NANOS);
+        reset();
+    }
+
+    @Override
+    public void idle() {
+        if (idleTimes < SPIN_TIMES) {
+            idleTimes++;
+        } else if (idleTimes < SPIN_TIMES + YIELD_TIMES) {
+            idleTimes++;
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        }
+    }
+
+    @Override
+    public void reset() {
+        idleTimes = 0;
+        parkNanos = MIN_PARK_NANOS;
+    }
+}
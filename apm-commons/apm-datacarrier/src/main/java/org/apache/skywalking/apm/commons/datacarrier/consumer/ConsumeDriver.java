@@ -19,6 +19,8 @@
 package org.apache.skywalking.apm.commons.datacarrier.consumer;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.Channels;
 
@@ -30,6 +32,7 @@ public class ConsumeDriver<T> implements IDriver {
     private ConsumerThread[] consumerThreads;
     private Channels<T> channels;
     private ReentrantLock lock;
+    private final List<Runnable> produceNotifiers = new ArrayList<>();
 
     public ConsumeDriver(String name, Channels<T> channels, Class<? extends IConsumer<T>> consumerClass, int num,
         long consumeCycle) {
@@ -41,10 +44,16 @@ public class ConsumeDriver<T> implements IDriver {
     }
 
     public ConsumeDriver(String name, Channels<T> channels, IConsumer<T> prototype, int num, long consumeCycle) {
+        this(name, channels, prototype, num, consumeCycle, WaitStrategyType.SLEEP);
+    }
+
+    public ConsumeDriver(String name, Channels<T> channels, IConsumer<T> prototype, int num, long consumeCycle,
+                         WaitStrategyType waitStrategyType) {
         this(channels, num);
         prototype.init();
         for (int i = 0; i < num; i++) {
-            consumerThreads[i] = new ConsumerThread("DataCarrier." + name + ".Consumer." + i + ".Thread", prototype, consumeCycle);
+            consumerThreads[i] = new ConsumerThread(
+                "DataCarrier." + name + ".Consumer." + i + ".Thread", prototype, waitStrategyType.create(consumeCycle));
             consumerThreads[i].setDaemon(true);
         }
 
@@ -112,6 +121,15 @@ public class ConsumeDriver<T> implements IDriver {
             consumerThreads[consumerIndex].addDataSource(channels.getBuffer(channelIndex));
         }
 
+        for (ConsumerThread consumerThread : consumerThreads) {
+            IWaitStrategy waitStrategy = consumerThread.getWaitStrategy();
+            if (consumerThread.hasDataSource() && waitStrategy.requireSignal()) {
+                Runnable notifier = waitStrategy::signal;
+                channels.addProduceNotifier(notifier);
+                produceNotifiers.add(notifier);
+            }
+        }
+
     }
 
     @Override
@@ -119,6 +137,10 @@ public class ConsumeDriver<T> implements IDriver {
         lock.lock();
         try {
             this.running = false;
+            for (Runnable notifier : produceNotifiers) {
+                this.channels.removeProduceNotifier(notifier);
+            }
+            produceNotifiers.clear();
             for (ConsumerThread consumerThread : consumerThreads) {
                 consumerThread.shutdown();
             }
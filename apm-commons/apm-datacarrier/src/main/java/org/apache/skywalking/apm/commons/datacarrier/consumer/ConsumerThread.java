@@ -27,15 +27,18 @@ public class ConsumerThread<T> extends Thread {
     private volatile boolean running;
     private IConsumer<T> consumer;
     private List<DataSource> dataSources;
-    // 本次消费没有取到数据时,线程sleep的时间
-    private long consumeCycle;
+    private final IWaitStrategy waitStrategy;
 
     ConsumerThread(String threadName, IConsumer<T> consumer, long consumeCycle) {
+        this(threadName, consumer, new SleepWaitStrategy(consumeCycle));
+    }
+
+    ConsumerThread(String threadName, IConsumer<T> consumer, IWaitStrategy waitStrategy) {
         super(threadName);
         this.consumer = consumer;
         running = false;
         dataSources = new ArrayList<DataSource>(1);
-        this.consumeCycle = consumeCycle;
+        this.waitStrategy = waitStrategy;
     }
 
     /**
@@ -45,17 +48,24 @@ public class ConsumerThread<T> extends Thread {
         this.dataSources.add(new DataSource(sourceBuffer));
     }
 
+    boolean hasDataSource() {
+        return !dataSources.isEmpty();
+    }
+
+    IWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
     @Override
     public void run() {
         running = true;
 
         final List<T> consumeList = new ArrayList<T>(1500);
         while (running) {
-            if (!consume(consumeList)) {
-                try {
-                    Thread.sleep(consumeCycle);
-                } catch (InterruptedException e) {
-                }
+            if (consume(consumeList)) {
+                waitStrategy.reset();
+            } else {
+                waitStrategy.idle();
             }
         }
 
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+/**
+ * IWaitStrategy decides how the consumer thread waits when nothing is consumed in the last round. Every consumer thread
+ * owns one instance, so the implementation could keep the state of the current thread.
+ */
+public interface IWaitStrategy {
+    /**
+     * Wait because there is nothing consumed in the last round.
+     */
+    void idle();
+
+    /**
+     * Something has been consumed in the last round, reset the state.
+     */
+    void reset();
+
+    /**
+     * @return true if the strategy requires {@link #signal()} from the producer when the data is saved.
+     */
+    default boolean requireSignal() {
+        return false;
+    }
+
+    /**
+     * Notify the waiting consumer thread, called by the producer threads after the data is saved.
+     */
+    default void signal() {
+    }
+}
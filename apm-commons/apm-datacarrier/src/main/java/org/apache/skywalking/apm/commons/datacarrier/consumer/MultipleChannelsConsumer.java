@@ -33,12 +33,16 @@ public class MultipleChannelsConsumer extends Thread {
     private volatile ArrayList<Group> consumeTargets;
     @SuppressWarnings("NonAtomicVolatileUpdate")
     private volatile long size;
-    private final long consumeCycle;
+    private final IWaitStrategy waitStrategy;
 
     public MultipleChannelsConsumer(String threadName, long consumeCycle) {
+        this(threadName, new SleepWaitStrategy(consumeCycle));
+    }
+
+    public MultipleChannelsConsumer(String threadName, IWaitStrategy waitStrategy) {
         super(threadName);
         this.consumeTargets = new ArrayList<Group>();
-        this.consumeCycle = consumeCycle;
+        this.waitStrategy = waitStrategy;
     }
 
     @Override
@@ -53,11 +57,10 @@ public class MultipleChannelsConsumer extends Thread {
                 hasData = hasData || consume;
             }
 
-            if (!hasData) {
-                try {
-                    Thread.sleep(consumeCycle);
-                } catch (InterruptedException e) {
-                }
+            if (hasData) {
+                waitStrategy.reset();
+            } else {
+                waitStrategy.idle();
             }
         }
 
@@ -96,7 +99,7 @@ public class MultipleChannelsConsumer extends Thread {
      * Add a new target channels.
      */
     public void addNewTarget(Channels channels, IConsumer consumer) {
-        Group group = new Group(channels, consumer);
+        Group group = new Group(channels, consumer, waitStrategy.requireSignal() ? waitStrategy::signal : null);
         // Recreate the new list to avoid change list while the list is used in consuming.
         ArrayList<Group> newList = new ArrayList<Group>();
         for (Group target : consumeTargets) {
@@ -105,6 +108,9 @@ public class MultipleChannelsConsumer extends Thread {
         newList.add(group);
         consumeTargets = newList;
         size += channels.size();
+        if (group.produceNotifier != null) {
+            channels.addProduceNotifier(group.produceNotifier);
+        }
     }
 
     public long size() {
@@ -113,6 +119,11 @@ public class MultipleChannelsConsumer extends Thread {
 
     void shutdown() {
         running = false;
+        for (Group target : consumeTargets) {
+            if (target.produceNotifier != null) {
+                target.channels.removeProduceNotifier(target.produceNotifier);
+            }
+        }
     }
     // 一个Group中包含一个Consumer和一个Channels，一个Channels包含多个Buffer，Consumer会消费Channels中所有的Buffer
     private static class Group {
@@ -120,10 +131,13 @@ public class MultipleChannelsConsumer extends Thread {
         private Channels channels;
         // consumer会消费channels中所有的buffer
         private IConsumer consumer;
+        // wakes up the consumer thread after producing, null if the wait strategy doesn't require signal
+        private Runnable produceNotifier;
 
-        public Group(Channels channels, IConsumer consumer) {
+        public Group(Channels channels, IConsumer consumer, Runnable produceNotifier) {
             this.channels = channels;
             this.consumer = consumer;
+            this.produceNotifier = produceNotifier;
         }
     }
 }
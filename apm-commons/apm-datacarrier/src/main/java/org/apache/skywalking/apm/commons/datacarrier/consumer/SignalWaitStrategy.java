@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Park the consumer thread until the producer signals new data, or the consume cycle elapses. The consumer is woken up
+ * right after the data is saved, and never wakes up more than once per cycle when idle.
+ */
+public class SignalWaitStrategy implements IWaitStrategy {
+    private final long parkNanos;
+    private volatile Thread waiter;
+    private volatile boolean signalled;
+
+    public SignalWaitStrategy(long consumeCycle) {
+        this.parkNanos = TimeUnit.MILLISECONDS.toNanos(consumeCycle);
+    }
+
+    @Override
+    public void idle() {
+        waiter = Thread.currentThread();
+        // Data saved after the last consuming round has set the flag, don't park.
+        if (!signalled) {
+            LockSupport.parkNanos(this, parkNanos);
+        }
+        waiter = null;
+        signalled = false;
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public boolean requireSignal() {
+        return true;
+    }
+
+    @Override
+    public void signal() {
+        if (!signalled) {
+            signalled = true;
+        }
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
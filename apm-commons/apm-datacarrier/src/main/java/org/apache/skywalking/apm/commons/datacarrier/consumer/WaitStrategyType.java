@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.Arrays;
+
+/**
+ * The types of {@link IWaitStrategy}, used to create a new strategy for every consumer thread.
+ */
+public enum WaitStrategyType {
+    /**
+     * {@link SleepWaitStrategy}
+     */
+    SLEEP,
+    /**
+     * {@link BackoffWaitStrategy}
+     */
+    BACKOFF,
+    /**
+     * {@link SignalWaitStrategy}
+     */
+    SIGNAL;
+
+    public IWaitStrategy create(long consumeCycle) {
+        switch (this) {
+            case BACKOFF:
+                return new BackoffWaitStrategy(consumeCycle);
+            case SIGNAL:
+                return new SignalWaitStrategy(consumeCycle);
+            default:
+                return new SleepWaitStrategy(consumeCycle);
+        }
+    }
+
+    public static WaitStrategyType fromName(String name) {
+        for (WaitStrategyType type : WaitStrategyType.values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Unknown wait strategy: " + name + ", available ones are " + Arrays.toString(WaitStrategyType.values()));
+    }
+}
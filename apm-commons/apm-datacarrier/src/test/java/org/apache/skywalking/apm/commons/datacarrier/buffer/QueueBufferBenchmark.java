@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare {@link RingBuffer} with {@link Buffer} and {@link ArrayBlockingQueueBuffer}. Every invocation pushes {@link
+ * #TOTAL} elements through one buffer from the given number of producer threads, while the benchmark thread works as
+ * the single consumer. The score is the average time per element.
+ * <p>
+ * {@link Buffer} may lose elements in wrap-around races, the number of lost elements is consumed by the black hole
+ * instead of failing the benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class QueueBufferBenchmark {
+    private static final int TOTAL = 1 << 20;
+    private static final int BUFFER_SIZE = 10000;
+
+    @Param({
+        "1",
+        "4",
+        "16",
+        "64"
+    })
+    private int producers;
+
+    @Param({
+        "RING",
+        "BUFFER",
+        "ARRAY_BLOCKING_QUEUE"
+    })
+    private String type;
+
+    private ExecutorService executor;
+    private final Object element = new Object();
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(producers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private QueueBuffer<Object> newBuffer() {
+        switch (type) {
+            case "RING":
+                return new RingBuffer<>(BUFFER_SIZE, BufferStrategy.BLOCKING);
+            case "BUFFER":
+                return new Buffer<>(BUFFER_SIZE, BufferStrategy.IF_POSSIBLE);
+            default:
+                return new ArrayBlockingQueueBuffer<>(BUFFER_SIZE, BufferStrategy.BLOCKING);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void produceAndConsume(Blackhole blackhole) throws InterruptedException {
+        final QueueBuffer<Object> buffer = newBuffer();
+        final CountDownLatch finished = new CountDownLatch(producers);
+        final int countPerProducer = TOTAL / producers;
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 0; i < countPerProducer; i++) {
+                    while (!buffer.save(element)) {
+                        Thread.yield();
+                    }
+                }
+                finished.countDown();
+            });
+        }
+
+        List<Object> consumeList = new ArrayList<>(BUFFER_SIZE);
+        long consumed = 0;
+        while (finished.getCount() > 0) {
+            buffer.obtain(consumeList);
+            consumed += consumeList.size();
+            consumeList.clear();
+        }
+        buffer.obtain(consumeList);
+        consumed += consumeList.size();
+        blackhole.consume(TOTAL - consumed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(QueueBufferBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
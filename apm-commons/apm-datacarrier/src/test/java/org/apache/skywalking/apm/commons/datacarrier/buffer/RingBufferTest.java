@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.apm.commons.datacarrier.partition.SimpleRollingPartitioner;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RingBufferTest {
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(128, new RingBuffer<Integer>(100, BufferStrategy.IF_POSSIBLE).getBufferSize());
+        Assert.assertEquals(256, new RingBuffer<Integer>(256, BufferStrategy.IF_POSSIBLE).getBufferSize());
+        Assert.assertEquals(1, new RingBuffer<Integer>(1, BufferStrategy.IF_POSSIBLE).getBufferSize());
+    }
+
+    @Test
+    public void testIfPossibleWhenFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4, BufferStrategy.IF_POSSIBLE);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.save(i));
+        }
+        Assert.assertFalse(buffer.save(4));
+
+        List<Integer> result = new ArrayList<>();
+        buffer.obtain(result);
+        Assert.assertEquals(4, result.size());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(i, result.get(i).intValue());
+        }
+
+        // The slots are released, the next round wraps around.
+        Assert.assertTrue(buffer.save(5));
+        result.clear();
+        buffer.obtain(result);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(5, result.get(0).intValue());
+    }
+
+    @Test
+    public void testMultipleProducersWithoutLoss() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(64, BufferStrategy.BLOCKING);
+        final int producerNum = 4;
+        final int countPerProducer = 10000;
+        Thread[] producers = new Thread[producerNum];
+        for (int p = 0; p < producerNum; p++) {
+            final int base = p * countPerProducer;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < countPerProducer; i++) {
+                    buffer.save(base + i);
+                }
+            });
+            producers[p].start();
+        }
+
+        Set<Integer> consumed = new HashSet<>();
+        List<Integer> consumeList = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (consumed.size() < producerNum * countPerProducer && System.currentTimeMillis() < deadline) {
+            buffer.obtain(consumeList);
+            consumed.addAll(consumeList);
+            consumeList.clear();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        Assert.assertEquals(producerNum * countPerProducer, consumed.size());
+    }
+
+    @Test
+    public void testCreateRingChannels() {
+        Channels<Integer> channels = new Channels<>(
+            2, 100, new SimpleRollingPartitioner<>(), BufferStrategy.IF_POSSIBLE, BufferType.RING);
+        Assert.assertTrue(channels.getBuffer(0) instanceof RingBuffer);
+        Assert.assertTrue(channels.getBuffer(1) instanceof RingBuffer);
+        // The capacity is rounded up to 128 in every channel.
+        Assert.assertEquals(256, channels.size());
+        Assert.assertTrue(channels.save(1));
+        Assert.assertTrue(channels.save(2));
+
+        List<Integer> result = new ArrayList<>();
+        channels.getBuffer(0).obtain(result);
+        channels.getBuffer(1).obtain(result);
+        Assert.assertEquals(2, result.size());
+    }
+}
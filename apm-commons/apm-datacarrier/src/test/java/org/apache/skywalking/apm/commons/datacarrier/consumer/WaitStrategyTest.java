@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
+import org.apache.skywalking.apm.commons.datacarrier.SampleData;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.Channels;
+import org.apache.skywalking.apm.commons.datacarrier.partition.SimpleRollingPartitioner;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WaitStrategyTest {
+    @Test
+    public void testCreate() {
+        Assert.assertTrue(WaitStrategyType.SLEEP.create(20) instanceof SleepWaitStrategy);
+        Assert.assertTrue(WaitStrategyType.BACKOFF.create(20) instanceof BackoffWaitStrategy);
+        Assert.assertTrue(WaitStrategyType.SIGNAL.create(20) instanceof SignalWaitStrategy);
+        Assert.assertEquals(WaitStrategyType.SIGNAL, WaitStrategyType.fromName("signal"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownName() {
+        WaitStrategyType.fromName("unknown");
+    }
+
+    @Test
+    public void testRemoveProduceNotifier() {
+        Channels<SampleData> channels = new Channels<>(
+            1, 10, new SimpleRollingPartitioner<>(), BufferStrategy.IF_POSSIBLE);
+        AtomicInteger counter = new AtomicInteger();
+        Runnable notifier = counter::incrementAndGet;
+        channels.addProduceNotifier(notifier);
+        channels.save(new SampleData().setName("a"));
+        channels.removeProduceNotifier(notifier);
+        channels.save(new SampleData().setName("b"));
+        Assert.assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testSignalBeforeIdle() {
+        SignalWaitStrategy strategy = new SignalWaitStrategy(TimeUnit.MINUTES.toMillis(1));
+        strategy.signal();
+        long start = System.nanoTime();
+        strategy.idle();
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testBulkConsumePoolSignalOnProduce() throws Exception {
+        // The consume cycle is much longer than the test timeout, only the signal could wake up the consumer.
+        ConsumerPool pool = new BulkConsumePool.Creator(
+            "WaitStrategyTest", 1, TimeUnit.MINUTES.toMillis(1), WaitStrategyType.SIGNAL).call();
+        DataCarrier<SampleData> carrier = new DataCarrier<>("WaitStrategyTest", 1, 100);
+        CountDownLatch latch = new CountDownLatch(2);
+        carrier.consume(pool, new LatchConsumer(latch));
+        // Let the consumer thread go into waiting.
+        Thread.sleep(200);
+
+        carrier.produce(new SampleData().setName("a"));
+        Thread.sleep(200);
+        carrier.produce(new SampleData().setName("b"));
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        carrier.shutdownConsumers();
+    }
+
+    @Test
+    public void testConsumeDriverBackoff() throws Exception {
+        DataCarrier<SampleData> carrier = new DataCarrier<>("WaitStrategyTest", 2, 100);
+        CountDownLatch latch = new CountDownLatch(100);
+        carrier.consume(new LatchConsumer(latch), 2, 20, WaitStrategyType.BACKOFF);
+
+        for (int i = 0; i < 100; i++) {
+            carrier.produce(new SampleData().setName("data" + i));
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        carrier.shutdownConsumers();
+    }
+
+    private static class LatchConsumer implements IConsumer<SampleData> {
+        private final CountDownLatch latch;
+
+        private LatchConsumer(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void consume(List<SampleData> data) {
+            data.forEach(d -> latch.countDown());
+        }
+
+        @Override
+        public void onError(List<SampleData> data, Throwable t) {
+        }
+
+        @Override
+        public void onExit() {
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 public final class Base64 {
     private static final java.util.Base64.Decoder DECODER = java.util.Base64.getDecoder();
     private static final java.util.Base64.Encoder ENCODER = java.util.Base64.getEncoder();
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
 
     private Base64() {
     }
@@ -39,4 +40,38 @@ public final class Base64 {
         return ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * Append the Base64 of the text, starting from the given index, to the output. Pure ASCII text, such as the ids
+     * generated by {@link org.apache.skywalking.apm.agent.core.context.ids.GlobalIdGenerator}, is encoded char by
+     * char, without the intermediate byte array and string.
+     */
+    public static void encode(String text, int beginIndex, StringBuilder output) {
+        final int length = text.length();
+        for (int i = beginIndex; i < length; i++) {
+            if (text.charAt(i) >= 0x80) {
+                output.append(encode(text.substring(beginIndex)));
+                return;
+            }
+        }
+        int i = beginIndex;
+        for (; i + 2 < length; i += 3) {
+            final int bits = text.charAt(i) << 16 | text.charAt(i + 1) << 8 | text.charAt(i + 2);
+            output.append(ALPHABET[bits >>> 18])
+                  .append(ALPHABET[(bits >>> 12) & 0x3f])
+                  .append(ALPHABET[(bits >>> 6) & 0x3f])
+                  .append(ALPHABET[bits & 0x3f]);
+        }
+        final int remaining = length - i;
+        if (remaining == 1) {
+            final int bits = text.charAt(i) << 16;
+            output.append(ALPHABET[bits >>> 18]).append(ALPHABET[(bits >>> 12) & 0x3f]).append("==");
+        } else if (remaining == 2) {
+            final int bits = text.charAt(i) << 16 | text.charAt(i + 1) << 8;
+            output.append(ALPHABET[bits >>> 18])
+                  .append(ALPHABET[(bits >>> 12) & 0x3f])
+                  .append(ALPHABET[(bits >>> 6) & 0x3f])
+                  .append('=');
+        }
+    }
+
 }
@@ -28,6 +28,7 @@ import org.apache.skywalking.apm.agent.core.logging.core.LogOutput;
 import org.apache.skywalking.apm.agent.core.logging.core.ResolverType;
 import org.apache.skywalking.apm.agent.core.logging.core.WriterFactory;
 import org.apache.skywalking.apm.agent.core.plugin.bytebuddy.ClassCacheMode;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferType;
 import org.apache.skywalking.apm.util.Length;
 
 /**
@@ -61,6 +62,13 @@ public class Config {
          */
         public static int SAMPLE_N_PER_3_SECS = -1;
 
+        /**
+         * Negative or zero means off, by default. A positive value turns on the adaptive sampling, which samples this
+         * number of {@link TraceSegment}s per second tops, shared fairly by the endpoints. It takes precedence over
+         * {@link #SAMPLE_N_PER_3_SECS}.
+         */
+        public static int SAMPLE_SEGMENTS_PER_SECOND = -1;
+
         /**
          * If the operation name of the first span is included in this set, this segment should be ignored.
          * Multiple values should be separated by `,`.
@@ -78,6 +86,12 @@ public class Config {
          */
         public static int SPAN_LIMIT_PER_SEGMENT = 300;
 
+        /**
+         * The max number of every kind of finished segments and spans kept for reusing. 0 means no pooling. Only
+         * activate it when no plugin touches the spans after the segment finished.
+         */
+        public static int TRACING_OBJECT_POOL_SIZE = 0;
+
         /**
          * If true, SkyWalking agent will save all instrumented classes files in `/debugging` folder. SkyWalking team
          * may ask for these files in order to resolve compatible problem.
@@ -97,6 +111,12 @@ public class Config {
          */
         public static ClassCacheMode CLASS_CACHE_MODE = ClassCacheMode.MEMORY;
 
+        /**
+         * The folder of the persistent class cache, which remembers the classes not transformed by the agent, to skip
+         * the matching of them after restart. The relative path is relative to agent.jar. Empty means off.
+         */
+        public static String PERSISTENT_CLASS_CACHE_PATH = "";
+
         /**
          * The identifier of the instance
          */
@@ -202,6 +222,12 @@ public class Config {
          */
         public static int DUMP_MAX_STACK_DEPTH = 500;
 
+        /**
+         * If true, dump all the profiling threads through one ThreadMXBean call in every period, which stops the JVM at
+         * one safepoint only. Otherwise, dump them one by one through Thread#getStackTrace.
+         */
+        public static boolean BATCH_THREAD_DUMP = true;
+
         /**
          * Snapshot transport to backend buffer size
          */
@@ -236,6 +262,12 @@ public class Config {
         public static int CHANNEL_SIZE = 5;
 
         public static int BUFFER_SIZE = 300;
+
+        /**
+         * The implementation of the trace segment buffer. DEFAULT: the array based buffer. RING: the lock-free ring
+         * queue, which never overrides the unconsumed segments and doesn't scan the whole buffer when consuming.
+         */
+        public static BufferType TYPE = BufferType.DEFAULT;
     }
 
     public static class Logging {
@@ -184,6 +184,14 @@ public class SnifferConfigInitializer {
         return IS_INIT_COMPLETED;
     }
 
+    /**
+     * @return a copy of the loaded settings, after the placeholders are replaced and overridden by the system
+     * properties and the agent options.
+     */
+    public static Properties getAgentSettings() {
+        return AGENT_SETTINGS == null ? new Properties() : (Properties) AGENT_SETTINGS.clone();
+    }
+
     /**
      * Override the config by system properties. The property key must start with `skywalking`, the result should be as
      * same as in `agent.config`
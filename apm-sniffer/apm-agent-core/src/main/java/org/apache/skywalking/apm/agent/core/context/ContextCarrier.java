@@ -24,6 +24,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.apm.agent.core.base64.Base64;
 import org.apache.skywalking.apm.agent.core.conf.Constants;
+import org.apache.skywalking.apm.agent.core.context.ids.GlobalIdGenerator;
 import org.apache.skywalking.apm.util.StringUtil;
 
 /**
@@ -34,6 +35,18 @@ import org.apache.skywalking.apm.util.StringUtil;
 // 分布式追踪要解决的一个重要问题是跨进程调用链的连接，ContextCarrier 的就是为了解决这个问题。
 @Setter(AccessLevel.PACKAGE)
 public class ContextCarrier implements Serializable {
+    /**
+     * The ids generated by this agent share the same process id prefix. Its Base64 is cached and reused when the
+     * length is a multiple of 3, which makes the Base64 of the remaining part aligned.
+     */
+    private static final String ID_PREFIX = GlobalIdGenerator.processIdPrefix();
+    private static final String ENCODED_ID_PREFIX = ID_PREFIX.length() % 3 == 0 ? Base64.encode(ID_PREFIX) : null;
+    /**
+     * The parent service and instance are always the names of this agent, so their Base64 is cached.
+     */
+    private static volatile EncodedText ENCODED_SERVICE = new EncodedText(Constants.EMPTY_STRING);
+    private static volatile EncodedText ENCODED_SERVICE_INSTANCE = new EncodedText(Constants.EMPTY_STRING);
+
     @Getter
     private String traceId;
     /**
@@ -114,21 +127,41 @@ public class ContextCarrier implements Serializable {
      */
     String serialize(HeaderVersion version) {
         if (this.isValid(version)) {
-            return StringUtil.join(
-                '-',
-                "1",
-                Base64.encode(this.getTraceId()),
-                Base64.encode(this.getTraceSegmentId()),
-                this.getSpanId() + "",
-                Base64.encode(this.getParentService()),
-                Base64.encode(this.getParentServiceInstance()),
-                Base64.encode(this.getParentEndpoint()),
-                Base64.encode(this.getAddressUsedAtClient())
-            );
+            StringBuilder header = new StringBuilder(256);
+            header.append("1-");
+            encodeId(this.getTraceId(), header);
+            header.append('-');
+            encodeId(this.getTraceSegmentId(), header);
+            header.append('-').append(this.getSpanId()).append('-');
+
+            EncodedText service = ENCODED_SERVICE;
+            if (!service.text.equals(this.getParentService())) {
+                ENCODED_SERVICE = service = new EncodedText(this.getParentService());
+            }
+            header.append(service.encoded).append('-');
+            EncodedText serviceInstance = ENCODED_SERVICE_INSTANCE;
+            if (!serviceInstance.text.equals(this.getParentServiceInstance())) {
+                ENCODED_SERVICE_INSTANCE = serviceInstance = new EncodedText(this.getParentServiceInstance());
+            }
+            header.append(serviceInstance.encoded).append('-');
+
+            Base64.encode(this.getParentEndpoint(), 0, header);
+            header.append('-');
+            Base64.encode(this.getAddressUsedAtClient(), 0, header);
+            return header.toString();
         }
         return "";
     }
 
+    private static void encodeId(String id, StringBuilder header) {
+        if (ENCODED_ID_PREFIX != null && id.startsWith(ID_PREFIX)) {
+            header.append(ENCODED_ID_PREFIX);
+            Base64.encode(id, ID_PREFIX.length(), header);
+        } else {
+            Base64.encode(id, 0, header);
+        }
+    }
+
     /**
      * Initialize fields with the given text.
      *
@@ -183,4 +216,14 @@ public class ContextCarrier implements Serializable {
     public enum HeaderVersion {
         v3
     }
+
+    private static class EncodedText {
+        private final String text;
+        private final String encoded;
+
+        private EncodedText(String text) {
+            this.text = text;
+            this.encoded = Base64.encode(text);
+        }
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.apm.agent.core.context;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -39,6 +40,7 @@ import org.apache.skywalking.apm.agent.core.context.trace.NoopExitSpan;
 import org.apache.skywalking.apm.agent.core.context.trace.NoopSpan;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegmentRef;
+import org.apache.skywalking.apm.agent.core.context.trace.TracingObjectPool;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
 import org.apache.skywalking.apm.agent.core.profile.ProfileStatusReference;
@@ -76,13 +78,17 @@ public class TracingContext implements AbstractTracerContext {
     // 一个TracingContext对应一个TraceSegment
     private TraceSegment segment;
 
+    private static final AbstractSpan[] EMPTY_SPAN_STACK = new AbstractSpan[0];
+
     /**
-     * Active spans stored in a Stack, usually called 'ActiveSpanStack'. This {@link LinkedList} is the in-memory
-     * storage-structure. <p> I use {@link LinkedList#removeLast()}, {@link LinkedList#addLast(Object)} and {@link
-     * LinkedList#getLast()} instead of {@link #pop()}, {@link #push(AbstractSpan)}, {@link #peek()}
+     * Active spans stored in a Stack, usually called 'ActiveSpanStack'. This array is the in-memory storage-structure,
+     * and {@link #activeSpanStackDepth} is the number of the spans in it. See {@link #pop()}, {@link
+     * #push(AbstractSpan)} and {@link #peek()}. The array is borrowed from {@link TracingObjectPool}, and given back
+     * after this context finished.
      */
     // active spans存储在一个栈里,TraceSegment中所有创建的Span都会入栈到activeSpanStack中，Span finish的时候会出站，栈顶的Span就是activeSpan
-    private LinkedList<AbstractSpan> activeSpanStack = new LinkedList<>();
+    private AbstractSpan[] activeSpanStack;
+    private int activeSpanStackDepth;
     /**
      * @since 7.0.0 SkyWalking support lazy injection through {@link ExitTypeSpan#inject(ContextCarrier)}. Due to that,
      * the {@link #activeSpanStack} could be blank by then, this is a pointer forever to the first span, even the main
@@ -128,7 +134,8 @@ public class TracingContext implements AbstractTracerContext {
      * Initialize all fields with default value.
      */
     TracingContext(String firstOPName, SpanLimitWatcher spanLimitWatcher) {
-        this.segment = new TraceSegment();
+        this.segment = TracingObjectPool.newSegment();
+        this.activeSpanStack = TracingObjectPool.newSpanStack();
         this.spanIdGenerator = 0;
         isRunningInAsyncMode = false;
         createTime = System.currentTimeMillis();
@@ -300,7 +307,7 @@ public class TracingContext implements AbstractTracerContext {
             entrySpan = parentSpan;
             return entrySpan.start();
         } else {
-            entrySpan = new EntrySpan(
+            entrySpan = TracingObjectPool.newEntrySpan(
                 spanIdGenerator++, parentSpanId,
                 operationName, owner
             );
@@ -323,7 +330,7 @@ public class TracingContext implements AbstractTracerContext {
         }
         AbstractSpan parentSpan = peek();
         final int parentSpanId = parentSpan == null ? -1 : parentSpan.getSpanId();
-        AbstractTracingSpan span = new LocalSpan(spanIdGenerator++, parentSpanId, operationName, this);
+        AbstractTracingSpan span = TracingObjectPool.newLocalSpan(spanIdGenerator++, parentSpanId, operationName, this);
         span.start();
         return push(span);
     }
@@ -355,7 +362,7 @@ public class TracingContext implements AbstractTracerContext {
         } else {
             // 拿到parentSpan的id,如果parent不存在,则parentSpanId = -1
             final int parentSpanId = parentSpan == null ? -1 : parentSpan.getSpanId();
-            exitSpan = new ExitSpan(spanIdGenerator++, parentSpanId, operationName, remotePeer, owner);
+            exitSpan = TracingObjectPool.newExitSpan(spanIdGenerator++, parentSpanId, operationName, remotePeer, owner);
             push(exitSpan);
         }
         exitSpan.start();
@@ -402,7 +409,7 @@ public class TracingContext implements AbstractTracerContext {
 
         finish();
 
-        return activeSpanStack.isEmpty();
+        return activeSpanStackDepth == 0;
     }
 
     @Override
@@ -457,7 +464,7 @@ public class TracingContext implements AbstractTracerContext {
         }
         try {
             // 栈已经空了 且 当前TracingContext还在运行状态
-            boolean isFinishedInMainThread = activeSpanStack.isEmpty() && running;
+            boolean isFinishedInMainThread = activeSpanStackDepth == 0 && running;
             if (isFinishedInMainThread) {
                 /*
                  * Notify after tracing finished in the main thread.
@@ -472,6 +479,8 @@ public class TracingContext implements AbstractTracerContext {
                 TracingContext.ListenerManager.notifyFinish(finishedSegment);
                 // 修改当前TracingContext运行状态为false
                 running = false;
+                TracingObjectPool.recycleSpanStack(activeSpanStack);
+                activeSpanStack = EMPTY_SPAN_STACK;
             }
         } finally {
             if (isRunningInAsyncMode) {
@@ -543,7 +552,9 @@ public class TracingContext implements AbstractTracerContext {
      * @return the top element of 'ActiveSpanStack', and remove it.
      */
     private AbstractSpan pop() {
-        return activeSpanStack.removeLast();
+        final AbstractSpan span = activeSpanStack[--activeSpanStackDepth];
+        activeSpanStack[activeSpanStackDepth] = null;
+        return span;
     }
 
     /**
@@ -555,7 +566,10 @@ public class TracingContext implements AbstractTracerContext {
         if (firstSpan == null) {
             firstSpan = span;
         }
-        activeSpanStack.addLast(span);
+        if (activeSpanStackDepth == activeSpanStack.length) {
+            activeSpanStack = Arrays.copyOf(activeSpanStack, Math.max(8, activeSpanStackDepth * 2));
+        }
+        activeSpanStack[activeSpanStackDepth++] = span;
         this.extensionContext.handle(span);
         return span;
     }
@@ -564,10 +578,10 @@ public class TracingContext implements AbstractTracerContext {
      * @return the top element of 'ActiveSpanStack' only.
      */
     private AbstractSpan peek() {
-        if (activeSpanStack.isEmpty()) {
+        if (activeSpanStackDepth == 0) {
             return null;
         }
-        return activeSpanStack.getLast();
+        return activeSpanStack[activeSpanStackDepth - 1];
     }
 
     private AbstractSpan first() {
@@ -20,11 +20,18 @@ package org.apache.skywalking.apm.agent.core.context.ids;
 
 import java.util.UUID;
 
-import org.apache.skywalking.apm.util.StringUtil;
 // 全局ID生成器
 public final class GlobalIdGenerator {
     // PROCESS_ID使用UUID生成器
     private static final String PROCESS_ID = UUID.randomUUID().toString().replaceAll("-", "");
+    /**
+     * The shared leading part of all ids generated in this process.
+     */
+    private static final String PROCESS_ID_PREFIX = PROCESS_ID + '.';
+    /**
+     * The max decimal digits of a positive long.
+     */
+    private static final int MAX_SEQ_DIGITS = 19;
     // 用ThreadLocal作为容器，当每个线程访问这个 THREAD_ID_SEQUENCE 变量时，ThreadLocal会为每个线程提供一份变量，各个线程互不影响。
     private static final ThreadLocal<IDContext> THREAD_ID_SEQUENCE = ThreadLocal.withInitial(
         () -> new IDContext(System.currentTimeMillis(), (short) 0));
@@ -50,15 +57,24 @@ public final class GlobalIdGenerator {
      */
     // 生成新的ID,分为3个部分：应用实例ID(application instance id),线程ID(thread id),Context序列(timestamp+seq)
     public static String generate() {
-        return StringUtil.join(
-            '.',
-            PROCESS_ID,
-            String.valueOf(Thread.currentThread().getId()),
-            String.valueOf(THREAD_ID_SEQUENCE.get().nextSeq())
-        );
+        return THREAD_ID_SEQUENCE.get().nextId();
+    }
+
+    /**
+     * @return the process id and the following '.', the same leading part of all ids generated in this process.
+     */
+    public static String processIdPrefix() {
+        return PROCESS_ID_PREFIX;
     }
 
     private static class IDContext {
+        /**
+         * The process id and the thread id are fixed for the thread, so they are written into the buffer once, only
+         * the digits of the sequence are written for every id.
+         */
+        private final char[] buffer;
+        private final int prefixLength;
+
         // 上次生成sequence的时间戳
         private long lastTimestamp;
         // 线程的序列号
@@ -72,6 +88,29 @@ public final class GlobalIdGenerator {
         private IDContext(long lastTimestamp, short threadSeq) {
             this.lastTimestamp = lastTimestamp;
             this.threadSeq = threadSeq;
+            String prefix = PROCESS_ID_PREFIX + Thread.currentThread().getId() + '.';
+            this.prefixLength = prefix.length();
+            this.buffer = new char[prefixLength + MAX_SEQ_DIGITS];
+            prefix.getChars(0, prefixLength, buffer, 0);
+        }
+
+        private String nextId() {
+            long seq = nextSeq();
+            int length = prefixLength + digits(seq);
+            int position = length;
+            do {
+                buffer[--position] = (char) ('0' + seq % 10);
+                seq /= 10;
+            } while (seq != 0);
+            return new String(buffer, 0, length);
+        }
+
+        private static int digits(long value) {
+            int digits = 1;
+            for (long bound = 10; digits < MAX_SEQ_DIGITS && value >= bound; bound *= 10) {
+                digits++;
+            }
+            return digits;
         }
         // 时间戳 * 10000 + 线程的序列号
         private long nextSeq() {
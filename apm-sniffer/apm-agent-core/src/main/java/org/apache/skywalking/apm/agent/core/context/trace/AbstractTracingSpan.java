@@ -71,7 +71,7 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
      * The context to which the span belongs
      */
     // TracingContext用于管理一条链路上的segment和span
-    protected final TracingContext owner;
+    protected TracingContext owner;
 
     /**
      * The start time of this Span.
@@ -113,6 +113,34 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
         this.owner = owner;
     }
 
+    /**
+     * Reinitialize the span as a new one, the lists of tags, logs and refs are kept for reusing. Only for {@link
+     * TracingObjectPool}.
+     */
+    void reset(int spanId, int parentSpanId, String operationName, TracingContext owner) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.operationName = operationName;
+        this.owner = owner;
+        this.layer = null;
+        this.isInAsyncMode = false;
+        this.isAsyncStopped = false;
+        this.startTime = 0;
+        this.endTime = 0;
+        this.errorOccurred = false;
+        this.componentId = 0;
+        this.skipAnalysis = false;
+        if (tags != null) {
+            tags.clear();
+        }
+        if (logs != null) {
+            logs.clear();
+        }
+        if (refs != null) {
+            refs.clear();
+        }
+    }
+
     /**
      * Set a key:value tag on the Span.
      * <p>
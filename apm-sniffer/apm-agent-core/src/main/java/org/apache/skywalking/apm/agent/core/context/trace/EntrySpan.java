@@ -42,6 +42,12 @@ public class EntrySpan extends StackBasedTracingSpan {
         this.currentMaxDepth = 0;
     }
 
+    @Override
+    void reset(int spanId, int parentSpanId, String operationName, TracingContext owner) {
+        super.reset(spanId, parentSpanId, operationName, owner);
+        this.currentMaxDepth = 0;
+    }
+
     /**
      * Set the {@link #startTime}, when the first start, which means the first service provided.
      */
@@ -111,7 +117,11 @@ public class EntrySpan extends StackBasedTracingSpan {
     private void clearWhenRestart() {
         this.componentId = DictionaryUtil.nullValue();
         this.layer = null;
-        this.logs = null;
-        this.tags = null;
+        if (this.logs != null) {
+            this.logs.clear();
+        }
+        if (this.tags != null) {
+            this.tags.clear();
+        }
     }
 }
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.context.util.KeyValuePair;
+import org.apache.skywalking.apm.agent.core.context.util.TagValuePair;
+import org.apache.skywalking.apm.agent.core.dictionary.DictionaryUtil;
+import org.apache.skywalking.apm.network.language.agent.v3.RefType;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
+
+/**
+ * Serialize the {@link TraceSegment} into the wire format of {@link SegmentObject} straight from the span objects,
+ * without building the intermediate protobuf messages like {@link TraceSegment#transform()} does. The output is the
+ * same as <code>segment.transform().toByteArray()</code>.
+ * <p>
+ * The sizes of all nested messages are computed once, in the same pre-order as they are written, and kept in a
+ * reusable array, so the only allocation per segment is the exactly sized result array. The writer is not thread
+ * safe, every reporter consumer thread should hold its own instance.
+ */
+public class SegmentObjectWriter {
+    private int[] sizes = new int[64];
+    private int sizeCount;
+    private int sizeCursor;
+
+    /**
+     * @return the serialized {@link SegmentObject} of the given segment.
+     */
+    public byte[] write(TraceSegment segment) {
+        sizeCount = 0;
+        sizeCursor = 0;
+        final String traceId = segment.getRelatedGlobalTrace().getId();
+        final List<AbstractTracingSpan> spans = segment.getSpans();
+
+        int size = stringSize(1, traceId) + stringSize(2, segment.getTraceSegmentId());
+        for (int i = 0; i < spans.size(); i++) {
+            size += nestedSize(3, computeSpanSize(spans.get(i)));
+        }
+        size += stringSize(4, Config.Agent.SERVICE_NAME);
+        size += stringSize(5, Config.Agent.INSTANCE_NAME);
+        if (segment.isSizeLimited()) {
+            size += CodedOutputStream.computeBoolSize(6, true);
+        }
+
+        final byte[] result = new byte[size];
+        final CodedOutputStream output = CodedOutputStream.newInstance(result);
+        try {
+            writeString(output, 1, traceId);
+            writeString(output, 2, segment.getTraceSegmentId());
+            for (int i = 0; i < spans.size(); i++) {
+                writeSpan(output, spans.get(i));
+            }
+            writeString(output, 4, Config.Agent.SERVICE_NAME);
+            writeString(output, 5, Config.Agent.INSTANCE_NAME);
+            if (segment.isSizeLimited()) {
+                output.writeBool(6, true);
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Never happens as the array is sized exactly.
+            throw new IllegalStateException("Serializing the trace segment into the byte array failed.", e);
+        }
+        return result;
+    }
+
+    private int computeSpanSize(AbstractTracingSpan span) {
+        final int slot = reserveSize();
+        int size = 0;
+        if (span.spanId != 0) {
+            size += CodedOutputStream.computeInt32Size(1, span.spanId);
+        }
+        if (span.parentSpanId != 0) {
+            size += CodedOutputStream.computeInt32Size(2, span.parentSpanId);
+        }
+        if (span.startTime != 0) {
+            size += CodedOutputStream.computeInt64Size(3, span.startTime);
+        }
+        if (span.endTime != 0) {
+            size += CodedOutputStream.computeInt64Size(4, span.endTime);
+        }
+        if (span.refs != null) {
+            for (TraceSegmentRef ref : span.refs) {
+                size += nestedSize(5, computeRefSize(ref));
+            }
+        }
+        size += stringSize(6, span.operationName);
+        if (span instanceof StackBasedTracingSpan) {
+            size += stringSize(7, ((StackBasedTracingSpan) span).peer);
+        }
+        final int spanType = spanType(span);
+        if (spanType != 0) {
+            size += CodedOutputStream.computeEnumSize(8, spanType);
+        }
+        if (span.layer != null && span.layer.getCode() != 0) {
+            size += CodedOutputStream.computeEnumSize(9, span.layer.getCode());
+        }
+        if (span.componentId != DictionaryUtil.nullValue()) {
+            size += CodedOutputStream.computeInt32Size(10, span.componentId);
+        }
+        if (span.errorOccurred) {
+            size += CodedOutputStream.computeBoolSize(11, true);
+        }
+        if (span.tags != null) {
+            for (TagValuePair tag : span.tags) {
+                size += nestedSize(12, computeKeyValueSize(tag.getKey().key(), tag.getValue()));
+            }
+        }
+        if (span.logs != null) {
+            for (LogDataEntity log : span.logs) {
+                size += nestedSize(13, computeLogSize(log));
+            }
+        }
+        if (span.skipAnalysis) {
+            size += CodedOutputStream.computeBoolSize(14, true);
+        }
+        sizes[slot] = size;
+        return size;
+    }
+
+    private void writeSpan(CodedOutputStream output, AbstractTracingSpan span) throws IOException {
+        writeNestedHeader(output, 3);
+        if (span.spanId != 0) {
+            output.writeInt32(1, span.spanId);
+        }
+        if (span.parentSpanId != 0) {
+            output.writeInt32(2, span.parentSpanId);
+        }
+        if (span.startTime != 0) {
+            output.writeInt64(3, span.startTime);
+        }
+        if (span.endTime != 0) {
+            output.writeInt64(4, span.endTime);
+        }
+        if (span.refs != null) {
+            for (TraceSegmentRef ref : span.refs) {
+                writeRef(output, ref);
+            }
+        }
+        writeString(output, 6, span.operationName);
+        if (span instanceof StackBasedTracingSpan) {
+            writeString(output, 7, ((StackBasedTracingSpan) span).peer);
+        }
+        final int spanType = spanType(span);
+        if (spanType != 0) {
+            output.writeEnum(8, spanType);
+        }
+        if (span.layer != null && span.layer.getCode() != 0) {
+            output.writeEnum(9, span.layer.getCode());
+        }
+        if (span.componentId != DictionaryUtil.nullValue()) {
+            output.writeInt32(10, span.componentId);
+        }
+        if (span.errorOccurred) {
+            output.writeBool(11, true);
+        }
+        if (span.tags != null) {
+            for (TagValuePair tag : span.tags) {
+                writeKeyValue(output, 12, tag.getKey().key(), tag.getValue());
+            }
+        }
+        if (span.logs != null) {
+            for (LogDataEntity log : span.logs) {
+                writeLog(output, log);
+            }
+        }
+        if (span.skipAnalysis) {
+            output.writeBool(14, true);
+        }
+    }
+
+    private int computeRefSize(TraceSegmentRef ref) {
+        final int slot = reserveSize();
+        int size = 0;
+        final int refType = refType(ref);
+        if (refType != 0) {
+            size += CodedOutputStream.computeEnumSize(1, refType);
+        }
+        size += stringSize(2, ref.getTraceId());
+        size += stringSize(3, ref.getTraceSegmentId());
+        if (ref.getSpanId() != 0) {
+            size += CodedOutputStream.computeInt32Size(4, ref.getSpanId());
+        }
+        size += stringSize(5, ref.getParentService());
+        size += stringSize(6, ref.getParentServiceInstance());
+        size += stringSize(7, ref.getParentEndpoint());
+        size += stringSize(8, ref.getAddressUsedAtClient());
+        sizes[slot] = size;
+        return size;
+    }
+
+    private void writeRef(CodedOutputStream output, TraceSegmentRef ref) throws IOException {
+        writeNestedHeader(output, 5);
+        final int refType = refType(ref);
+        if (refType != 0) {
+            output.writeEnum(1, refType);
+        }
+        writeString(output, 2, ref.getTraceId());
+        writeString(output, 3, ref.getTraceSegmentId());
+        if (ref.getSpanId() != 0) {
+            output.writeInt32(4, ref.getSpanId());
+        }
+        writeString(output, 5, ref.getParentService());
+        writeString(output, 6, ref.getParentServiceInstance());
+        writeString(output, 7, ref.getParentEndpoint());
+        writeString(output, 8, ref.getAddressUsedAtClient());
+    }
+
+    private int computeLogSize(LogDataEntity log) {
+        final int slot = reserveSize();
+        int size = 0;
+        if (log.getTimestamp() != 0) {
+            size += CodedOutputStream.computeInt64Size(1, log.getTimestamp());
+        }
+        for (KeyValuePair data : log.getLogs()) {
+            size += nestedSize(2, computeKeyValueSize(data.getKey(), data.getValue()));
+        }
+        sizes[slot] = size;
+        return size;
+    }
+
+    private void writeLog(CodedOutputStream output, LogDataEntity log) throws IOException {
+        writeNestedHeader(output, 13);
+        if (log.getTimestamp() != 0) {
+            output.writeInt64(1, log.getTimestamp());
+        }
+        for (KeyValuePair data : log.getLogs()) {
+            writeKeyValue(output, 2, data.getKey(), data.getValue());
+        }
+    }
+
+    private int computeKeyValueSize(String key, String value) {
+        final int size = stringSize(1, key) + stringSize(2, value);
+        sizes[reserveSize()] = size;
+        return size;
+    }
+
+    private void writeKeyValue(CodedOutputStream output, int field, String key, String value) throws IOException {
+        writeNestedHeader(output, field);
+        writeString(output, 1, key);
+        writeString(output, 2, value);
+    }
+
+    private int reserveSize() {
+        if (sizeCount == sizes.length) {
+            sizes = Arrays.copyOf(sizes, sizes.length << 1);
+        }
+        return sizeCount++;
+    }
+
+    /**
+     * Write the tag and the length, computed by the size phase in the same order, of the next nested message.
+     */
+    private void writeNestedHeader(CodedOutputStream output, int field) throws IOException {
+        output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(sizes[sizeCursor++]);
+    }
+
+    private static int spanType(AbstractTracingSpan span) {
+        if (span.isEntry()) {
+            return SpanType.Entry_VALUE;
+        } else if (span.isExit()) {
+            return SpanType.Exit_VALUE;
+        }
+        return SpanType.Local_VALUE;
+    }
+
+    private static int refType(TraceSegmentRef ref) {
+        return TraceSegmentRef.SegmentRefType.CROSS_PROCESS.equals(ref.getType())
+            ? RefType.CrossProcess_VALUE : RefType.CrossThread_VALUE;
+    }
+
+    /**
+     * Same as the generated code of proto3, empty strings are not serialized.
+     */
+    private static int stringSize(int field, String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        return CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        output.writeString(field, value);
+    }
+
+    private static int nestedSize(int field, int size) {
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+}
@@ -45,6 +45,13 @@ public abstract class StackBasedTracingSpan extends AbstractTracingSpan {
         this.peer = peer;
     }
 
+    @Override
+    void reset(int spanId, int parentSpanId, String operationName, TracingContext owner) {
+        super.reset(spanId, parentSpanId, operationName, owner);
+        this.stackDepth = 0;
+        this.peer = null;
+    }
+
     @Override
     public SpanObject.Builder transform() {
         SpanObject.Builder spanBuilder = super.transform();
@@ -18,7 +18,7 @@
 
 package org.apache.skywalking.apm.agent.core.context.trace;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.context.ids.DistributedTraceId;
@@ -69,7 +69,7 @@ public class TraceSegment {
     // 从属于此 Trace Segment 的 Span 数量限制，初始化大小可以通过config.agent.span_limit_per_segment 参数来配置，默认长度为300。若超过配置值，在创建新的 Span 的时候，会变成 NoopSpan。NoopSpan 表示没有任何实际操作的 Span 实现，用于保持内存和GC成本尽可能低。
     private boolean isSizeLimited = false;
     // 此 Trace Segment 的创建时间。
-    private final long createTime;
+    private long createTime;
 
     /**
      * Create a default/empty trace segment, with current time as start time, and generate a new segment id.
@@ -77,11 +77,40 @@ public class TraceSegment {
     // 创建一个空的trace segment,生成一个新的segment id
     public TraceSegment() {
         this.traceSegmentId = GlobalIdGenerator.generate();
-        this.spans = new LinkedList<>();
+        this.spans = new ArrayList<>();
         this.relatedGlobalTraceId = new NewDistributedTraceId();
         this.createTime = System.currentTimeMillis();
     }
 
+    /**
+     * Reinitialize the recycled segment as a new one, with a new segment id. Only for {@link TracingObjectPool}.
+     */
+    void reset() {
+        this.traceSegmentId = GlobalIdGenerator.generate();
+        this.relatedGlobalTraceId = new NewDistributedTraceId();
+        this.createTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Release the spans and refs of the segment, before it is recycled. Only for {@link TracingObjectPool}.
+     */
+    void clear() {
+        this.traceSegmentId = null;
+        this.ref = null;
+        this.spans.clear();
+        this.relatedGlobalTraceId = null;
+        this.ignore = false;
+        this.isSizeLimited = false;
+    }
+
+    List<AbstractTracingSpan> getSpans() {
+        return spans;
+    }
+
+    boolean isSizeLimited() {
+        return isSizeLimited;
+    }
+
     /**
      * Establish the link between this segment and its parents.
      *
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.context.TracingContext;
+
+/**
+ * TracingObjectPool keeps the finished {@link TraceSegment}s, {@link EntrySpan}s, {@link ExitSpan}s, {@link
+ * LocalSpan}s and the arrays of the active span stacks for reusing, including the lists of tags, logs and refs held by
+ * the spans, to reduce the young generation GC of the traced requests.
+ * <p>
+ * The pool is activated by {@link Config.Agent#TRACING_OBJECT_POOL_SIZE}. The objects are recycled by the reporter,
+ * e.g. {@link org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient}, after the segment has been
+ * serialized. So it is only safe when no plugin or {@link org.apache.skywalking.apm.agent.core.context.TracingContextListener}
+ * touches the spans or the segment after the segment finished.
+ */
+public class TracingObjectPool {
+    /**
+     * The longer stack arrays are not pooled, as they are rare.
+     */
+    private static final int MAX_POOLED_STACK_LENGTH = 64;
+    private static final int DEFAULT_STACK_LENGTH = 8;
+
+    private static volatile TracingObjectPool INSTANCE;
+
+    private final int size;
+    private final ArrayBlockingQueue<TraceSegment> segments;
+    private final ArrayBlockingQueue<EntrySpan> entrySpans;
+    private final ArrayBlockingQueue<ExitSpan> exitSpans;
+    private final ArrayBlockingQueue<LocalSpan> localSpans;
+    private final ArrayBlockingQueue<AbstractSpan[]> spanStacks;
+
+    private TracingObjectPool(int size) {
+        this.size = size;
+        this.segments = new ArrayBlockingQueue<>(size);
+        this.entrySpans = new ArrayBlockingQueue<>(size);
+        this.exitSpans = new ArrayBlockingQueue<>(size);
+        this.localSpans = new ArrayBlockingQueue<>(size);
+        this.spanStacks = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * @return the pool of the current {@link Config.Agent#TRACING_OBJECT_POOL_SIZE}, or null if the pool is not
+     * activated.
+     */
+    private static TracingObjectPool get() {
+        final int size = Config.Agent.TRACING_OBJECT_POOL_SIZE;
+        if (size <= 0) {
+            return null;
+        }
+        TracingObjectPool pool = INSTANCE;
+        if (pool == null || pool.size != size) {
+            synchronized (TracingObjectPool.class) {
+                pool = INSTANCE;
+                if (pool == null || pool.size != size) {
+                    pool = new TracingObjectPool(size);
+                    INSTANCE = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    public static TraceSegment newSegment() {
+        final TracingObjectPool pool = get();
+        TraceSegment segment = pool == null ? null : pool.segments.poll();
+        if (segment == null) {
+            return new TraceSegment();
+        }
+        segment.reset();
+        return segment;
+    }
+
+    public static EntrySpan newEntrySpan(int spanId, int parentSpanId, String operationName, TracingContext owner) {
+        final TracingObjectPool pool = get();
+        EntrySpan span = pool == null ? null : pool.entrySpans.poll();
+        if (span == null) {
+            return new EntrySpan(spanId, parentSpanId, operationName, owner);
+        }
+        span.reset(spanId, parentSpanId, operationName, owner);
+        return span;
+    }
+
+    public static ExitSpan newExitSpan(int spanId, int parentSpanId, String operationName, String peer,
+                                       TracingContext owner) {
+        final TracingObjectPool pool = get();
+        ExitSpan span = pool == null ? null : pool.exitSpans.poll();
+        if (span == null) {
+            return new ExitSpan(spanId, parentSpanId, operationName, peer, owner);
+        }
+        span.reset(spanId, parentSpanId, operationName, owner);
+        span.peer = peer;
+        return span;
+    }
+
+    public static LocalSpan newLocalSpan(int spanId, int parentSpanId, String operationName, TracingContext owner) {
+        final TracingObjectPool pool = get();
+        LocalSpan span = pool == null ? null : pool.localSpans.poll();
+        if (span == null) {
+            return new LocalSpan(spanId, parentSpanId, operationName, owner);
+        }
+        span.reset(spanId, parentSpanId, operationName, owner);
+        return span;
+    }
+
+    /**
+     * @return an empty array for the active span stack.
+     */
+    public static AbstractSpan[] newSpanStack() {
+        final TracingObjectPool pool = get();
+        AbstractSpan[] stack = pool == null ? null : pool.spanStacks.poll();
+        return stack == null ? new AbstractSpan[DEFAULT_STACK_LENGTH] : stack;
+    }
+
+    /**
+     * Recycle the array of an empty active span stack, all elements of which must be null.
+     */
+    public static void recycleSpanStack(AbstractSpan[] stack) {
+        final TracingObjectPool pool = get();
+        if (pool != null && stack.length > 0 && stack.length <= MAX_POOLED_STACK_LENGTH) {
+            pool.spanStacks.offer(stack);
+        }
+    }
+
+    /**
+     * Recycle the segment and its spans. The segment and the spans must not be used after that.
+     */
+    public static void recycle(TraceSegment segment) {
+        final TracingObjectPool pool = get();
+        if (pool == null) {
+            return;
+        }
+        final List<AbstractTracingSpan> spans = segment.getSpans();
+        for (int i = 0; i < spans.size(); i++) {
+            pool.recycle(spans.get(i));
+        }
+        segment.clear();
+        pool.segments.offer(segment);
+    }
+
+    private void recycle(AbstractTracingSpan span) {
+        // Only the spans created by the pool could be recycled, other subclasses are ignored.
+        final Class<?> spanClass = span.getClass();
+        if (spanClass == EntrySpan.class) {
+            span.reset(0, -1, null, null);
+            entrySpans.offer((EntrySpan) span);
+        } else if (spanClass == ExitSpan.class) {
+            span.reset(0, -1, null, null);
+            exitSpans.offer((ExitSpan) span);
+        } else if (spanClass == LocalSpan.class) {
+            span.reset(0, -1, null, null);
+            localSpans.offer((LocalSpan) span);
+        }
+    }
+}
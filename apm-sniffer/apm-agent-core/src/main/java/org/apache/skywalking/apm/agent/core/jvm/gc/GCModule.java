@@ -22,7 +22,7 @@ import java.lang.management.GarbageCollectorMXBean;
 import java.util.LinkedList;
 import java.util.List;
 import org.apache.skywalking.apm.network.language.agent.v3.GC;
-import org.apache.skywalking.apm.network.language.agent.v3.GCPhrase;
+import org.apache.skywalking.apm.network.language.agent.v3.GCPhase;
 
 public abstract class GCModule implements GCMetricAccessor {
     private List<GarbageCollectorMXBean> beans;
@@ -41,11 +41,11 @@ public abstract class GCModule implements GCMetricAccessor {
         List<GC> gcList = new LinkedList<GC>();
         for (GarbageCollectorMXBean bean : beans) {
             String name = bean.getName();
-            GCPhrase phrase;
+            GCPhase phrase;
             long gcCount = 0;
             long gcTime = 0;
             if (name.equals(getNewGCName())) {
-                phrase = GCPhrase.NEW;
+                phrase = GCPhase.NEW;
                 long collectionCount = bean.getCollectionCount();
                 gcCount = collectionCount - lastYGCCount;
                 lastYGCCount = collectionCount;
@@ -54,7 +54,7 @@ public abstract class GCModule implements GCMetricAccessor {
                 gcTime = time - lastYGCCollectionTime;
                 lastYGCCollectionTime = time;
             } else if (name.equals(getOldGCName())) {
-                phrase = GCPhrase.OLD;
+                phrase = GCPhase.OLD;
                 long collectionCount = bean.getCollectionCount();
                 gcCount = collectionCount - lastOGCCount;
                 lastOGCCount = collectionCount;
@@ -66,7 +66,7 @@ public abstract class GCModule implements GCMetricAccessor {
                 continue;
             }
 
-            gcList.add(GC.newBuilder().setPhrase(phrase).setCount(gcCount).setTime(gcTime).build());
+            gcList.add(GC.newBuilder().setPhase(phrase).setCount(gcCount).setTime(gcTime).build());
         }
 
         return gcList;
@@ -59,6 +59,17 @@ public abstract class BaseMeter {
      */
     public abstract MeterData.Builder transform();
 
+    /**
+     * Transform the meter to the gRPC message used by {@link MeterSender}. The implementations could return the same
+     * message of the last report when the value hasn't changed, rather than rebuilding it.
+     *
+     * @return if dont need to transform, return null to ignore
+     */
+    public MeterData transformData() {
+        final MeterData.Builder builder = transform();
+        return builder == null ? null : builder.build();
+    }
+
     /**
      * Transform all tags to gRPC message
      */
@@ -34,6 +34,12 @@ public class Counter extends BaseMeter {
     protected final CounterMode mode;
     private final AtomicReference<Double> previous = new AtomicReference();
 
+    /**
+     * The last reported value and message, only accessed by the sender thread.
+     */
+    private double lastValue;
+    private MeterData lastData;
+
     public Counter(MeterId meterId, CounterMode mode) {
         super(meterId);
         this.count = new DoubleAdder();
@@ -50,22 +56,37 @@ public class Counter extends BaseMeter {
 
     @Override
     public MeterData.Builder transform() {
-        // using rate mode or increase
+        return build(reportValue());
+    }
+
+    @Override
+    public MeterData transformData() {
+        final double value = reportValue();
+        if (lastData == null || Double.compare(value, lastValue) != 0) {
+            lastValue = value;
+            lastData = build(value).build();
+        }
+        return lastData;
+    }
+
+    /**
+     * Using rate mode or increase
+     */
+    private double reportValue() {
         final double currentValue = get();
-        double count;
         if (Objects.equals(mode, CounterMode.RATE)) {
             final Double previousValue = previous.getAndSet(currentValue);
 
             // calculate the add count
             if (previousValue == null) {
-                count = currentValue;
-            } else {
-                count = currentValue - previousValue;
+                return currentValue;
             }
-        } else {
-            count = currentValue;
+            return currentValue - previousValue;
         }
+        return currentValue;
+    }
 
+    private MeterData.Builder build(double count) {
         final MeterData.Builder builder = MeterData.newBuilder();
         builder.setSingleValue(MeterSingleValue.newBuilder()
             .setName(getName())
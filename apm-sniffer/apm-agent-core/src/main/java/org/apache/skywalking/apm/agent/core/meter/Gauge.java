@@ -32,6 +32,12 @@ public class Gauge extends BaseMeter {
     private static final ILog LOGGER = LogManager.getLogger(Gauge.class);
     protected Supplier<Double> getter;
 
+    /**
+     * The last reported value and message, only accessed by the sender thread.
+     */
+    private double lastValue;
+    private MeterData lastData;
+
     public Gauge(MeterId meterId, Supplier<Double> getter) {
         super(meterId);
         this.getter = getter;
@@ -55,6 +61,27 @@ public class Gauge extends BaseMeter {
             return null;
         }
 
+        return build(count);
+    }
+
+    @Override
+    public MeterData transformData() {
+        double count;
+        try {
+            count = get();
+        } catch (Exception e) {
+            LOGGER.warn(e, "Cannot get the count in meter:{}", meterId.getName());
+            return null;
+        }
+
+        if (lastData == null || Double.compare(count, lastValue) != 0) {
+            lastValue = count;
+            lastData = build(count).build();
+        }
+        return lastData;
+    }
+
+    private MeterData.Builder build(double count) {
         final MeterData.Builder builder = MeterData.newBuilder();
         builder.setSingleValue(MeterSingleValue.newBuilder()
             .setName(getName())
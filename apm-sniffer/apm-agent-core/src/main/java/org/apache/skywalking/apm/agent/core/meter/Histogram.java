@@ -22,7 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import org.apache.skywalking.apm.network.language.agent.v3.MeterBucketValue;
 import org.apache.skywalking.apm.network.language.agent.v3.MeterData;
@@ -35,6 +35,16 @@ import org.apache.skywalking.apm.network.language.agent.v3.MeterHistogram;
  */
 public class Histogram extends BaseMeter {
     protected final Bucket[] buckets;
+    /**
+     * The minimal values of {@link #buckets}, searched without dereferencing the bucket objects.
+     */
+    private final double[] steps;
+
+    /**
+     * The last reported counts and message, only accessed by the sender thread.
+     */
+    private long[] lastCounts;
+    private MeterData lastData;
 
     /**
      * @param meterId as the unique id of this meter instance
@@ -43,41 +53,42 @@ public class Histogram extends BaseMeter {
     public Histogram(MeterId meterId, List<Double> steps) {
         super(meterId);
         this.buckets = initBuckets(steps);
+        this.steps = steps.stream().mapToDouble(Double::doubleValue).toArray();
     }
 
     /**
      * Add value into the histogram, automatic analyze what bucket count need to be increment [step1, step2)
      */
     public void addValue(double value) {
-        Bucket bucket = findBucket(value);
-        if (bucket == null) {
+        final int index = findBucket(value);
+        if (index < 0) {
             return;
         }
 
-        bucket.increment(1L);
+        buckets[index].increment(1L);
     }
 
     /**
      * Using binary search the bucket
+     *
+     * @return the index of the bucket, or -1 if the value is less than the min value
      */
-    private Bucket findBucket(double value) {
+    private int findBucket(double value) {
         int low = 0;
-        int high = buckets.length - 1;
+        int high = steps.length - 1;
 
         while (low <= high) {
-            int mid = (low + high) / 2;
-            if (buckets[mid].bucket < value)
+            int mid = (low + high) >>> 1;
+            if (steps[mid] < value)
                 low = mid + 1;
-            else if (buckets[mid].bucket > value)
+            else if (steps[mid] > value)
                 high = mid - 1;
             else
-                return buckets[mid];
+                return mid;
         }
 
         // because using min value as bucket, need using previous bucket
-        low -= 1;
-
-        return low < buckets.length && low >= 0 ? buckets[low] : null;
+        return low - 1;
     }
 
     private Bucket[] initBuckets(List<Double> steps) {
@@ -86,11 +97,35 @@ public class Histogram extends BaseMeter {
 
     @Override
     public MeterData.Builder transform() {
+        return build(snapshotCounts());
+    }
+
+    @Override
+    public MeterData transformData() {
+        final long[] counts = snapshotCounts();
+        if (lastData == null || !Arrays.equals(counts, lastCounts)) {
+            lastCounts = counts;
+            lastData = build(counts).build();
+        }
+        return lastData;
+    }
+
+    private long[] snapshotCounts() {
+        final long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].count.sum();
+        }
+        return counts;
+    }
+
+    private MeterData.Builder build(long[] counts) {
         final MeterData.Builder builder = MeterData.newBuilder();
 
         // get all values
-        List<MeterBucketValue> values = Arrays.stream(buckets)
-                                              .map(Histogram.Bucket::transform).collect(Collectors.toList());
+        List<MeterBucketValue> values = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            values.add(buckets[i].transform(counts[i]));
+        }
 
         return builder.setHistogram(MeterHistogram.newBuilder()
                                                   .setName(getName())
@@ -157,20 +192,24 @@ public class Histogram extends BaseMeter {
      */
     protected static class Bucket {
         protected double bucket;
-        protected AtomicLong count = new AtomicLong();
+        protected LongAdder count = new LongAdder();
 
         public Bucket(double bucket) {
             this.bucket = bucket;
         }
 
         public void increment(long count) {
-            this.count.addAndGet(count);
+            this.count.add(count);
         }
 
         public MeterBucketValue transform() {
+            return transform(count.sum());
+        }
+
+        private MeterBucketValue transform(long count) {
             return MeterBucketValue.newBuilder()
                                    .setBucket(bucket)
-                                   .setCount(count.get())
+                                   .setCount(count)
                                    .build();
         }
 
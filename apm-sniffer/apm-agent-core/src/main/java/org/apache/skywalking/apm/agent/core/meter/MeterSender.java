@@ -115,20 +115,23 @@ public class MeterSender implements BootService, GRPCChannelListener {
         // build and report meters
         boolean hasSendMachineInfo = false;
         for (BaseMeter meter : meterMap.values()) {
-            final MeterData.Builder dataBuilder = meter.transform();
-            if (dataBuilder == null) {
+            // unchanged meters give the message of the last report, which is shared and must not be modified
+            MeterData data = meter.transformData();
+            if (data == null) {
                 continue;
             }
 
             // only send the service base info at the first data
             if (!hasSendMachineInfo) {
-                dataBuilder.setService(Config.Agent.SERVICE_NAME);
-                dataBuilder.setServiceInstance(Config.Agent.INSTANCE_NAME);
-                dataBuilder.setTimestamp(System.currentTimeMillis());
+                data = data.toBuilder()
+                           .setService(Config.Agent.SERVICE_NAME)
+                           .setServiceInstance(Config.Agent.INSTANCE_NAME)
+                           .setTimestamp(System.currentTimeMillis())
+                           .build();
                 hasSendMachineInfo = true;
             }
 
-            consumer.accept(dataBuilder.build());
+            consumer.accept(data);
         }
     }
 
@@ -19,17 +19,27 @@
 package org.apache.skywalking.apm.agent.core.plugin;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import net.bytebuddy.description.NamedElement;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.annotation.AnnotationList;
+import net.bytebuddy.description.type.TypeDefinition;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 import org.apache.skywalking.apm.agent.core.plugin.bytebuddy.AbstractJunction;
+import org.apache.skywalking.apm.agent.core.plugin.match.ClassAnnotationMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.ClassMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.HierarchyMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.IndirectMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.MultiClassNameMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.NameMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.PrefixMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.ProtectiveShieldMatcher;
 
 import static net.bytebuddy.matcher.ElementMatchers.isInterface;
@@ -38,13 +48,36 @@ import static net.bytebuddy.matcher.ElementMatchers.not;
 /**
  * The <code>PluginFinder</code> represents a finder , which assist to find the one from the given {@link
  * AbstractClassEnhancePluginDefine} list.
+ * <p>
+ * Besides {@link NameMatch}, the {@link MultiClassNameMatch}, {@link PrefixMatch}, {@link ClassAnnotationMatch} and
+ * {@link HierarchyMatch} are indexed too, by class name, prefix trie, annotation name and super type name, so the cost
+ * of matching a class doesn't grow with the number of plugins. Only other {@link IndirectMatch}es are evaluated one by
+ * one.
  */
 // 插件发现者。其提供 #find(...) ⽅法，获得类增强插件定义
 public class PluginFinder {
+    private static final Comparator<IndexedDefine> PLUGIN_ORDER = Comparator.comparingInt(define -> define.order);
+
     // 按照类名精确匹配
     private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> nameMatchDefine = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
+    /**
+     * {@link MultiClassNameMatch} indexed by every class name.
+     */
+    private final Map<String, List<IndexedDefine>> multiNameMatchDefine = new HashMap<>();
+    /**
+     * {@link PrefixMatch} indexed by every prefix.
+     */
+    private final PrefixTrie<IndexedDefine> prefixMatchDefine = new PrefixTrie<>();
+    /**
+     * {@link ClassAnnotationMatch} indexed by the first required annotation.
+     */
+    private final Map<String, List<IndexedDefine>> annotationMatchDefine = new HashMap<>();
+    /**
+     * {@link HierarchyMatch} indexed by the first required super type.
+     */
+    private final Map<String, List<IndexedDefine>> hierarchyMatchDefine = new HashMap<>();
     // 通过签名/注解 或者其他条件 间接匹配
-    private final List<AbstractClassEnhancePluginDefine> signatureMatchDefine = new ArrayList<AbstractClassEnhancePluginDefine>();
+    private final List<IndexedDefine> signatureMatchDefine = new ArrayList<>();
     // 新增的bootstrap用的
     private final List<AbstractClassEnhancePluginDefine> bootstrapClassMatchDefine = new ArrayList<AbstractClassEnhancePluginDefine>();
 
@@ -54,6 +87,7 @@ public class PluginFinder {
     // bootstrapClassMatchDefine：新增的bootstrap用的
     public PluginFinder(List<AbstractClassEnhancePluginDefine> plugins) {
 
+        int indirectMatchOrder = 0;
         // 循环类增强插件定义对象数组，添加到nameMatchDefine/signatureMatchDefine属性，⽅便#find(...) ⽅法查找AbstractClassEnhancePluginDefine对象。
         for (AbstractClassEnhancePluginDefine plugin : plugins) {
             // 获取类增强插件定义对象的增强类匹配
@@ -72,9 +106,26 @@ public class PluginFinder {
                     nameMatchDefine.put(nameMatch.getClassName(), pluginDefines);
                 }
                 pluginDefines.add(plugin);
-            } else {
+            } else if (match instanceof IndirectMatch) {
                 // 处理⾮NameMatch为匹配的AbstractClassEnhancePluginDefine对象，添加到signatureMatchDefine属性。
-                signatureMatchDefine.add(plugin);
+                IndexedDefine define = new IndexedDefine(plugin, (IndirectMatch) match, indirectMatchOrder++);
+                if (match instanceof MultiClassNameMatch) {
+                    for (String className : ((MultiClassNameMatch) match).getMatchClassNames()) {
+                        addTo(multiNameMatchDefine, className, define);
+                    }
+                } else if (match instanceof PrefixMatch) {
+                    for (String prefix : ((PrefixMatch) match).getPrefixes()) {
+                        prefixMatchDefine.put(prefix, define);
+                    }
+                } else if (match instanceof ClassAnnotationMatch) {
+                    define.requiredNames = ((ClassAnnotationMatch) match).getAnnotations();
+                    addTo(annotationMatchDefine, define.requiredNames[0], define);
+                } else if (match instanceof HierarchyMatch) {
+                    define.requiredNames = ((HierarchyMatch) match).getParentTypes();
+                    addTo(hierarchyMatchDefine, define.requiredNames[0], define);
+                } else {
+                    signatureMatchDefine.add(define);
+                }
             }
 
             if (plugin.isBootstrapInstrumentation()) {
@@ -88,19 +139,127 @@ public class PluginFinder {
         // 以 nameMatchDefine 属性来匹配 AbstractClassEnhancePluginDefine 对象
         List<AbstractClassEnhancePluginDefine> matchedPlugins = new LinkedList<AbstractClassEnhancePluginDefine>();
         String typeName = typeDescription.getTypeName();
-        if (nameMatchDefine.containsKey(typeName)) {
-            matchedPlugins.addAll(nameMatchDefine.get(typeName));
+        LinkedList<AbstractClassEnhancePluginDefine> nameMatched = nameMatchDefine.get(typeName);
+        if (nameMatched != null) {
+            matchedPlugins.addAll(nameMatched);
         }
         // 以 signatureMatchDefine 属性来匹配 AbstractClassEnhancePluginDefine 对象。在这个过程中，会调⽤IndirectMatch#isMatch(TypeDescription) ⽅法，进⾏匹配。
-        for (AbstractClassEnhancePluginDefine pluginDefine : signatureMatchDefine) {
-            IndirectMatch match = (IndirectMatch) pluginDefine.enhanceClass();
-            if (match.isMatch(typeDescription)) {
-                matchedPlugins.add(pluginDefine);
+        List<IndexedDefine> indirectMatched = new ArrayList<>();
+        List<IndexedDefine> multiNameMatched = multiNameMatchDefine.get(typeName);
+        if (multiNameMatched != null) {
+            indirectMatched.addAll(multiNameMatched);
+        }
+        if (!prefixMatchDefine.isEmpty()) {
+            prefixMatchDefine.collect(typeDescription.getName(), indirectMatched);
+        }
+        matchAnnotations(typeDescription, indirectMatched);
+        matchHierarchy(typeDescription, indirectMatched);
+        for (IndexedDefine define : signatureMatchDefine) {
+            if (define.match.isMatch(typeDescription)) {
+                indirectMatched.add(define);
             }
         }
+        // Keep the order of the plugins, as they were evaluated one by one.
+        if (indirectMatched.size() > 1) {
+            indirectMatched.sort(PLUGIN_ORDER);
+        }
+        for (IndexedDefine define : indirectMatched) {
+            matchedPlugins.add(define.plugin);
+        }
 
         return matchedPlugins;
     }
+
+    /**
+     * Same as {@link ClassAnnotationMatch#isMatch(TypeDescription)}, all the required annotations must be declared.
+     */
+    private void matchAnnotations(TypeDescription typeDescription, List<IndexedDefine> matched) {
+        if (annotationMatchDefine.isEmpty()) {
+            return;
+        }
+        AnnotationList declaredAnnotations = typeDescription.getDeclaredAnnotations();
+        if (declaredAnnotations.isEmpty()) {
+            return;
+        }
+        Set<String> annotationNames = new HashSet<>();
+        for (AnnotationDescription annotation : declaredAnnotations) {
+            annotationNames.add(annotation.getAnnotationType().getActualName());
+        }
+        collectIndexed(annotationMatchDefine, annotationNames, matched);
+    }
+
+    /**
+     * Same as {@link HierarchyMatch#isMatch(TypeDescription)}, all the required super classes or interfaces must be
+     * found in the hierarchy, which is walked once for all the plugins.
+     */
+    private void matchHierarchy(TypeDescription typeDescription, List<IndexedDefine> matched) {
+        if (hierarchyMatchDefine.isEmpty()) {
+            return;
+        }
+        Set<String> superTypeNames = new HashSet<>();
+        collectSuperTypes(typeDescription, superTypeNames);
+        collectIndexed(hierarchyMatchDefine, superTypeNames, matched);
+    }
+
+    private static void collectSuperTypes(TypeDefinition type, Set<String> superTypeNames) {
+        for (TypeDescription.Generic implInterface : type.getInterfaces()) {
+            collectSuperType(implInterface, superTypeNames);
+        }
+        TypeDescription.Generic superClass = type.getSuperClass();
+        if (superClass != null) {
+            collectSuperType(superClass, superTypeNames);
+        }
+    }
+
+    private static void collectSuperType(TypeDescription.Generic clazz, Set<String> superTypeNames) {
+        if (!superTypeNames.add(clazz.asRawType().getTypeName())) {
+            // The hierarchy of this type has been walked.
+            return;
+        }
+        if (clazz.getTypeName().equals("java.lang.Object")) {
+            return;
+        }
+        collectSuperTypes(clazz, superTypeNames);
+    }
+
+    private static void collectIndexed(Map<String, List<IndexedDefine>> index,
+                                       Set<String> names,
+                                       List<IndexedDefine> matched) {
+        for (String name : names) {
+            List<IndexedDefine> defines = index.get(name);
+            if (defines == null) {
+                continue;
+            }
+            for (IndexedDefine define : defines) {
+                if (define.isRequiredIn(names)) {
+                    matched.add(define);
+                }
+            }
+        }
+    }
+
+    /**
+     * The indexed matches in {@link #buildMatch()}, keeping the semantic of their own junctions, {@link
+     * ClassAnnotationMatch} and {@link HierarchyMatch} never match interfaces.
+     */
+    private boolean matchIndexed(TypeDescription target) {
+        if (multiNameMatchDefine.containsKey(target.getTypeName())) {
+            return true;
+        }
+        if (!prefixMatchDefine.isEmpty() && prefixMatchDefine.matches(target.getName())) {
+            return true;
+        }
+        if (target.isInterface()) {
+            return false;
+        }
+        List<IndexedDefine> matched = new ArrayList<>(1);
+        matchAnnotations(target, matched);
+        if (matched.isEmpty()) {
+            matchHierarchy(target, matched);
+        }
+        return !matched.isEmpty();
+    }
+
     // 把所有需要增强的类构建成ElementMatcher，获得全部插件的类匹配，多个插件的类匹配条件以 or 分隔
     public ElementMatcher<? super TypeDescription> buildMatch() {
         ElementMatcher.Junction judge = new AbstractJunction<NamedElement>() {
@@ -110,11 +269,14 @@ public class PluginFinder {
             }
         };
         judge = judge.and(not(isInterface()));
-        for (AbstractClassEnhancePluginDefine define : signatureMatchDefine) {
-            ClassMatch match = define.enhanceClass();
-            if (match instanceof IndirectMatch) {
-                judge = judge.or(((IndirectMatch) match).buildJunction());
+        judge = judge.or(new AbstractJunction<TypeDescription>() {
+            @Override
+            public boolean matches(TypeDescription target) {
+                return matchIndexed(target);
             }
+        });
+        for (IndexedDefine define : signatureMatchDefine) {
+            judge = judge.or(define.match.buildJunction());
         }
         return new ProtectiveShieldMatcher(judge);
     }
@@ -122,4 +284,40 @@ public class PluginFinder {
     public List<AbstractClassEnhancePluginDefine> getBootstrapClassMatchDefine() {
         return bootstrapClassMatchDefine;
     }
+
+    private static void addTo(Map<String, List<IndexedDefine>> index, String key, IndexedDefine define) {
+        index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(define);
+    }
+
+    /**
+     * The plugin with its {@link IndirectMatch}, which is created once only, as {@link
+     * AbstractClassEnhancePluginDefine#enhanceClass()} builds a new one at every call.
+     */
+    private static class IndexedDefine {
+        private final AbstractClassEnhancePluginDefine plugin;
+        private final IndirectMatch match;
+        /**
+         * The order in all the plugins with {@link IndirectMatch}.
+         */
+        private final int order;
+        /**
+         * All the annotations or super types required by {@link ClassAnnotationMatch} or {@link HierarchyMatch}.
+         */
+        private String[] requiredNames;
+
+        private IndexedDefine(AbstractClassEnhancePluginDefine plugin, IndirectMatch match, int order) {
+            this.plugin = plugin;
+            this.match = match;
+            this.order = order;
+        }
+
+        private boolean isRequiredIn(Set<String> names) {
+            for (String requiredName : requiredNames) {
+                if (!names.contains(requiredName)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
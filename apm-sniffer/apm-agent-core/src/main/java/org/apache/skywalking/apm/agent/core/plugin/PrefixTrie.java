@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Character trie of name prefixes. {@link #collect(String, List)} walks the name once, whatever the number of the
+ * prefixes, instead of testing {@link String#startsWith(String)} against every prefix.
+ */
+class PrefixTrie<T> {
+    private final Node<T> root = new Node<>();
+    private boolean empty = true;
+
+    void put(String prefix, T value) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.child(prefix.charAt(i), true);
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        node.values.add(value);
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Add the values of all the prefixes of the given name to the result, each value once only.
+     */
+    void collect(String name, List<T> result) {
+        Node<T> node = root;
+        for (int i = 0; ; i++) {
+            if (node.values != null) {
+                for (T value : node.values) {
+                    if (!result.contains(value)) {
+                        result.add(value);
+                    }
+                }
+            }
+            if (i == name.length()) {
+                return;
+            }
+            node = node.child(name.charAt(i), false);
+            if (node == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if any prefix matches the given name.
+     */
+    boolean matches(String name) {
+        Node<T> node = root;
+        for (int i = 0; ; i++) {
+            if (node.values != null) {
+                return true;
+            }
+            if (i == name.length()) {
+                return false;
+            }
+            node = node.child(name.charAt(i), false);
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    private static class Node<T> {
+        private Map<Character, Node<T>> children;
+        private List<T> values;
+
+        private Node<T> child(char c, boolean create) {
+            Node<T> child = children == null ? null : children.get(c);
+            if (child == null && create) {
+                if (children == null) {
+                    children = new HashMap<>(4);
+                }
+                child = new Node<>();
+                children.put(c, child);
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin.bytebuddy;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import net.bytebuddy.utility.JavaModule;
+import net.bytebuddy.utility.RandomString;
+import org.apache.skywalking.apm.agent.core.boot.AgentPackageNotFoundException;
+import org.apache.skywalking.apm.agent.core.boot.AgentPackagePath;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.conf.SnifferConfigInitializer;
+import org.apache.skywalking.apm.agent.core.logging.api.ILog;
+import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
+
+/**
+ * Wrapper classFileTransformer of ByteBuddy, remember the classes which are not transformed in a persistent cache, and
+ * skip the matching of ByteBuddy for them in the later JVMs.
+ * <p>
+ * The cache is content-addressed. A class is identified by its name, the type of its class loader, and the length and
+ * CRC32 of its original bytes. The cache entries live in a folder named by the fingerprint of the plugin jars, the
+ * plugin definitions, the agent settings, the JVM version and the application classpath, so any change of them starts
+ * a new cache. The folder could be shared by the pods of the same application through a volume. Every JVM appends its
+ * new entries to its own index file, and the cache works read-only if the folder is not writable.
+ * <p>
+ * The matching of a class depends on its super types, annotations and the witness classes besides its own bytes. So
+ * only the classes of the JVM and of the application classpath, whose dependencies are covered by the fingerprint, are
+ * cached. The classes loaded from elsewhere, such as the web applications deployed into a servlet container, are
+ * always matched.
+ * <p>
+ * Only the results of no transformation are cached. The transformed bytes can't be replayed in another JVM, because
+ * they rely on the auxiliary classes injected and the interceptors registered by ByteBuddy during the transformation.
+ * Those classes are still cached in the current JVM by {@link CacheableTransformerDecorator} if activated.
+ */
+public class PersistentClassCacheDecorator implements AgentBuilder.TransformerDecorator {
+    private static final ILog LOGGER = LogManager.getLogger(PersistentClassCacheDecorator.class);
+
+    private static final String INDEX_FILE_PREFIX = "untransformed-";
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+    /**
+     * Merge the index files into one when more files are found.
+     */
+    private static final int MAX_INDEX_FILES = 8;
+    private static final int FLUSH_THRESHOLD = 512;
+    /**
+     * The settings identifying the instance, rather than affecting the transformation.
+     */
+    private static final List<String> IDENTITY_SETTING_PREFIXES = Arrays.asList(
+        "agent.service_name", "agent.instance_name", "agent.instance_properties", "collector.", "logging.");
+
+    private final File cacheDir;
+    private final boolean writable;
+    private final Set<String> untransformedClasses = ConcurrentHashMap.newKeySet();
+    /**
+     * The entries found in this JVM, not written into the index file yet. Guarded by itself.
+     */
+    private final List<String> pendingEntries = new ArrayList<>();
+    private final File indexFile;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    /**
+     * Set by {@link #listener()} if the transformation of the current class fails in this thread.
+     */
+    private final ThreadLocal<boolean[]> transformFailed = ThreadLocal.withInitial(() -> new boolean[1]);
+    /**
+     * The URLs of the application classpath entries, the classes loaded from them are cacheable.
+     */
+    private final List<String> classpathUrls = new ArrayList<>();
+    /**
+     * The class loaders of the JVM besides the bootstrap one, such as the extension class loader.
+     */
+    private final Set<ClassLoader> jvmClassLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param cacheRoot   the root folder of the persistent cache.
+     * @param fingerprint the fingerprint of the plugins, settings and classpath, see {@link #fingerprint(Collection)}.
+     */
+    public PersistentClassCacheDecorator(File cacheRoot, String fingerprint) {
+        this(cacheRoot, fingerprint, classpath());
+    }
+
+    PersistentClassCacheDecorator(File cacheRoot, String fingerprint, List<String> classpath) {
+        for (String entry : classpath) {
+            try {
+                classpathUrls.add(new File(entry).getAbsoluteFile().toURI().toURL().toString());
+            } catch (MalformedURLException e) {
+                LOGGER.warn(e, "Ignore the classpath entry {} in the persistent class cache.", entry);
+            }
+        }
+        for (ClassLoader loader = ClassLoader.getSystemClassLoader().getParent(); loader != null;
+             loader = loader.getParent()) {
+            jvmClassLoaders.add(loader);
+        }
+        this.cacheDir = new File(cacheRoot, fingerprint);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        this.writable = cacheDir.isDirectory() && Files.isWritable(cacheDir.toPath());
+        this.indexFile = new File(cacheDir, INDEX_FILE_PREFIX + RandomString.make() + INDEX_FILE_SUFFIX);
+        load();
+        if (!writable) {
+            LOGGER.info("Class cache folder {} is not writable, use the persistent class cache read-only.", cacheDir);
+        }
+    }
+
+    @Override
+    public ResettableClassFileTransformer decorate(ResettableClassFileTransformer classFileTransformer) {
+        return new ResettableClassFileTransformer.WithDelegation(classFileTransformer) {
+
+            @Override
+            public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+                // The bytes of the redefined classes may be changed by other agents, don't cache them.
+                if (classBeingRedefined != null || className == null || classfileBuffer == null
+                    || !isCacheable(loader, protectionDomain)) {
+                    return classFileTransformer.transform(
+                        loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+                }
+                String cacheKey = cacheKey(loader, className, classfileBuffer);
+                if (untransformedClasses.contains(cacheKey)) {
+                    hits.increment();
+                    return null;
+                }
+                misses.increment();
+
+                final boolean[] failed = transformFailed.get();
+                failed[0] = false;
+                byte[] transformed = classFileTransformer.transform(
+                    loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+                // ByteBuddy returns null for the failed transformation too, which may succeed next time.
+                if (transformed == null && !failed[0] && untransformedClasses.add(cacheKey)) {
+                    record(cacheKey);
+                }
+                return transformed;
+            }
+        };
+    }
+
+    /**
+     * The listener must be registered to the same agent builder, to keep the failed transformations out of the cache.
+     */
+    public AgentBuilder.Listener listener() {
+        return new AgentBuilder.Listener.Adapter() {
+            @Override
+            public void onError(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded,
+                                Throwable throwable) {
+                transformFailed.get()[0] = true;
+            }
+        };
+    }
+
+    /**
+     * Write the pending entries into the index file of this JVM.
+     */
+    public void flush() {
+        final List<String> entries;
+        synchronized (pendingEntries) {
+            if (pendingEntries.isEmpty()) {
+                return;
+            }
+            entries = new ArrayList<>(pendingEntries);
+            pendingEntries.clear();
+        }
+        synchronized (indexFile) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile, true), StandardCharsets.UTF_8)) {
+                write(writer, entries);
+            } catch (IOException e) {
+                LOGGER.error(e, "Failed to write the persistent class cache into {}.", indexFile);
+            }
+        }
+    }
+
+    /**
+     * @return the number of classes skipped the transformation by the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of classes not found in the cache.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return true if the class is loaded by the JVM class loaders, or from the application classpath.
+     */
+    private boolean isCacheable(ClassLoader loader, ProtectionDomain protectionDomain) {
+        if (loader == null || jvmClassLoaders.contains(loader)) {
+            return true;
+        }
+        final CodeSource codeSource = protectionDomain == null ? null : protectionDomain.getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return false;
+        }
+        final String location = codeSource.getLocation().toString();
+        for (String url : classpathUrls) {
+            if (url.endsWith("/")) {
+                // A folder of classes.
+                if (location.startsWith(url)) {
+                    return true;
+                }
+            } else if (location.equals(url) || location.startsWith("jar:" + url + "!")) {
+                // The jar itself, or a jar nested in it, such as the fat jar of Spring Boot.
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(String cacheKey) {
+        if (!writable) {
+            return;
+        }
+        final boolean full;
+        synchronized (pendingEntries) {
+            pendingEntries.add(cacheKey);
+            full = pendingEntries.size() >= FLUSH_THRESHOLD;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    private void load() {
+        File[] files = cacheDir.listFiles((dir, name) -> name.startsWith(INDEX_FILE_PREFIX) && name.endsWith(INDEX_FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        untransformedClasses.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warn(e, "Failed to read the persistent class cache from {}.", file);
+            }
+        }
+        LOGGER.info("Loaded {} untransformed classes from the persistent class cache {}.", untransformedClasses.size(), cacheDir);
+
+        if (writable && files.length > MAX_INDEX_FILES) {
+            compact(files);
+        }
+    }
+
+    /**
+     * Merge all loaded entries into one index file, and delete the merged files.
+     */
+    private void compact(File[] files) {
+        File merged = new File(cacheDir, INDEX_FILE_PREFIX + RandomString.make() + INDEX_FILE_SUFFIX);
+        File temp = new File(cacheDir, merged.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            write(writer, untransformedClasses);
+        } catch (IOException e) {
+            LOGGER.warn(e, "Failed to compact the persistent class cache {}.", cacheDir);
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(merged)) {
+            for (File file : files) {
+                file.delete();
+            }
+        } else {
+            temp.delete();
+        }
+    }
+
+    private static void write(Writer writer, Collection<String> entries) throws IOException {
+        for (String entry : entries) {
+            writer.write(entry);
+            writer.write('\n');
+        }
+    }
+
+    static String cacheKey(ClassLoader loader, String className, byte[] classfileBuffer) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(classfileBuffer, 0, classfileBuffer.length);
+        return className + ' ' + (loader == null ? "bootstrap" : loader.getClass().getName()) + ' '
+            + classfileBuffer.length + ' ' + Long.toHexString(crc32.getValue());
+    }
+
+    /**
+     * The fingerprint covers everything which may change the transformation result except the class itself, the names
+     * and sizes of the agent and plugin jars, the names of the plugin definitions, the agent settings except the ones
+     * identifying the instance, the JVM version, and the sizes and modified times of the application classpath entries,
+     * which provide the super types and witness classes.
+     *
+     * @param pluginDefineNames the class names of the loaded plugin definitions.
+     * @return the hex SHA-256 of them.
+     */
+    public static String fingerprint(Collection<String> pluginDefineNames) throws AgentPackageNotFoundException {
+        final TreeMap<String, String> items = new TreeMap<>();
+        final File agentPath = AgentPackagePath.getPath();
+        addJars(items, agentPath, "");
+        for (String mount : Config.Plugin.MOUNT) {
+            addJars(items, new File(agentPath, mount), mount + "/");
+        }
+        for (String pluginDefineName : pluginDefineNames) {
+            items.put("define:" + pluginDefineName, "");
+        }
+        items.put("jvm", System.getProperty("java.vm.vendor") + " " + System.getProperty("java.runtime.version"));
+        for (String entry : classpath()) {
+            addClasspathEntry(items, new File(entry).getAbsoluteFile());
+        }
+        final Properties settings = SnifferConfigInitializer.getAgentSettings();
+        for (String key : settings.stringPropertyNames()) {
+            if (IDENTITY_SETTING_PREFIXES.stream().noneMatch(key::startsWith)) {
+                items.put("setting:" + key, settings.getProperty(key));
+            }
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            items.forEach((key, value) -> {
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '=');
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            });
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+    }
+
+    static List<String> classpath() {
+        final String classpath = System.getProperty("java.class.path", "");
+        final List<String> entries = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static void addClasspathEntry(TreeMap<String, String> items, File entry) {
+        if (entry.isFile()) {
+            items.put("classpath:" + entry.getPath(), entry.length() + "@" + entry.lastModified());
+            return;
+        }
+        if (!entry.isDirectory()) {
+            items.put("classpath:" + entry.getPath(), "");
+            return;
+        }
+        try (Stream<Path> files = Files.walk(entry.toPath())) {
+            files.forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        items.put(
+                            "classpath:" + file,
+                            attributes.size() + "@" + attributes.lastModifiedTime().toMillis()
+                        );
+                    }
+                } catch (IOException e) {
+                    items.put("classpath:" + file, "unreadable");
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            // A random value, so the cache of this JVM is not shared.
+            items.put("classpath:" + entry.getPath(), RandomString.make());
+        }
+    }
+
+    private static void addJars(TreeMap<String, String> items, File dir, String prefix) {
+        File[] jars = dir.listFiles((d, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+            return;
+        }
+        for (File jar : jars) {
+            items.put("jar:" + prefix + jar.getName(), String.valueOf(jar.length()));
+        }
+    }
+}
@@ -20,10 +20,7 @@ package org.apache.skywalking.apm.agent.core.plugin.loader;
 
 import org.apache.skywalking.apm.agent.core.boot.AgentPackageNotFoundException;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The <code>InterceptorInstanceLoader</code> is a classes finder and container.
@@ -31,12 +28,14 @@ import java.util.concurrent.locks.ReentrantLock;
  * This is a very important class in sky-walking's auto-instrumentation mechanism. If you want to fully understand why
  * need this, and how it works, you need have knowledge about Classloader appointment mechanism.
  * <p>
+ * The instances are cached in two levels, by the target class loader, then by the interceptor class name, so the hit
+ * path is two lookups in {@link ConcurrentHashMap}s without any string building or lock. The static method
+ * interceptors look up here at every call. Only the creation of the {@link AgentClassLoader} locks, on the target class
+ * loader's own cache.
  */
 public class InterceptorInstanceLoader {
 
-    private static ConcurrentHashMap<String, Object> INSTANCE_CACHE = new ConcurrentHashMap<String, Object>();
-    private static ReentrantLock INSTANCE_LOAD_LOCK = new ReentrantLock();
-    private static Map<ClassLoader, ClassLoader> EXTEND_PLUGIN_CLASSLOADERS = new HashMap<ClassLoader, ClassLoader>();
+    private static final ConcurrentHashMap<ClassLoader, LoaderCache> LOADER_CACHES = new ConcurrentHashMap<>();
 
     /**
      * Load an instance of interceptor, and keep it singleton. Create {@link AgentClassLoader} for each
@@ -52,28 +51,47 @@ public class InterceptorInstanceLoader {
         if (targetClassLoader == null) {
             targetClassLoader = InterceptorInstanceLoader.class.getClassLoader();
         }
-        String instanceKey = className + "_OF_" + targetClassLoader.getClass()
-                                                                   .getName() + "@" + Integer.toHexString(targetClassLoader
-            .hashCode());
-        Object inst = INSTANCE_CACHE.get(instanceKey);
+        LoaderCache loaderCache = LOADER_CACHES.get(targetClassLoader);
+        if (loaderCache == null) {
+            loaderCache = LOADER_CACHES.computeIfAbsent(targetClassLoader, LoaderCache::new);
+        }
+        Object inst = loaderCache.instances.get(className);
         if (inst == null) {
-            INSTANCE_LOAD_LOCK.lock();
-            ClassLoader pluginLoader;
-            try {
-                pluginLoader = EXTEND_PLUGIN_CLASSLOADERS.get(targetClassLoader);
-                if (pluginLoader == null) {
-                    pluginLoader = new AgentClassLoader(targetClassLoader);
-                    EXTEND_PLUGIN_CLASSLOADERS.put(targetClassLoader, pluginLoader);
-                }
-            } finally {
-                INSTANCE_LOAD_LOCK.unlock();
-            }
-            inst = Class.forName(className, true, pluginLoader).newInstance();
-            if (inst != null) {
-                INSTANCE_CACHE.put(instanceKey, inst);
+            inst = Class.forName(className, true, loaderCache.getPluginLoader()).newInstance();
+            Object previous = loaderCache.instances.putIfAbsent(className, inst);
+            if (previous != null) {
+                // Another thread created it at the same time, keep the instance singleton.
+                inst = previous;
             }
         }
 
         return (T) inst;
     }
+
+    /**
+     * The extend {@link AgentClassLoader} of a target class loader, and the interceptor instances loaded by it.
+     */
+    private static class LoaderCache {
+        private final ClassLoader targetClassLoader;
+        private final ConcurrentHashMap<String, Object> instances = new ConcurrentHashMap<>();
+        private volatile ClassLoader pluginLoader;
+
+        private LoaderCache(ClassLoader targetClassLoader) {
+            this.targetClassLoader = targetClassLoader;
+        }
+
+        private ClassLoader getPluginLoader() throws AgentPackageNotFoundException {
+            ClassLoader loader = pluginLoader;
+            if (loader == null) {
+                synchronized (this) {
+                    loader = pluginLoader;
+                    if (loader == null) {
+                        loader = new AgentClassLoader(targetClassLoader);
+                        pluginLoader = loader;
+                    }
+                }
+            }
+            return loader;
+        }
+    }
 }
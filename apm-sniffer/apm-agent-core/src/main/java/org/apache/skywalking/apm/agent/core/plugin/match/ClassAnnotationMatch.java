@@ -73,6 +73,10 @@ public class ClassAnnotationMatch implements IndirectMatch {
         return isAnnotatedWith(named(annotationName));
     }
 
+    public String[] getAnnotations() {
+        return annotations;
+    }
+
     public static ClassAnnotationMatch byClassAnnotationMatch(String... annotations) {
         return new ClassAnnotationMatch(annotations);
     }
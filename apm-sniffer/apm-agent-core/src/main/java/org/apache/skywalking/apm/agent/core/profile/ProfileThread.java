@@ -19,17 +19,26 @@
 package org.apache.skywalking.apm.agent.core.profile;
 
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Profile task process thread, dump the executing thread stack.
+ * <p>
+ * {@link Thread#getStackTrace()} of another thread stops the JVM at a safepoint for every thread. If {@link
+ * Config.Profile#BATCH_THREAD_DUMP} is true, all the profiling threads are dumped through one {@link
+ * ThreadMXBean#getThreadInfo(long[], int)} in every period, which takes one safepoint only.
  */
 public class ProfileThread implements Runnable {
 
     private static final ILog LOGGER = LogManager.getLogger(ProfileThread.class);
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
 
     // profiling task context
     private final ProfileTaskExecutionContext taskExecutionContext;
@@ -37,6 +46,11 @@ public class ProfileThread implements Runnable {
     private final ProfileTaskExecutionService profileTaskExecutionService;
     private final ProfileTaskChannelService profileTaskChannelService;
 
+    // the profilers and their thread ids dumped together, indexed by the count of the profiling threads
+    private ThreadProfiler[] batchProfilers;
+    private long[][] batchThreadIds;
+    private boolean batchThreadDump = Config.Profile.BATCH_THREAD_DUMP;
+
     public ProfileThread(ProfileTaskExecutionContext taskExecutionContext) {
         this.taskExecutionContext = taskExecutionContext;
         profileTaskExecutionService = ServiceManager.INSTANCE.findService(ProfileTaskExecutionService.class);
@@ -75,6 +89,11 @@ public class ProfileThread implements Runnable {
             // each all slot
             AtomicReferenceArray<ThreadProfiler> profilers = executionContext.threadProfilerSlots();
             int profilerCount = profilers.length();
+            int batchCount = 0;
+            if (batchProfilers == null) {
+                batchProfilers = new ThreadProfiler[profilerCount];
+                batchThreadIds = new long[profilerCount + 1][];
+            }
             for (int slot = 0; slot < profilerCount; slot++) {
                 ThreadProfiler currentProfiler = profilers.get(slot);
                 if (currentProfiler == null) {
@@ -89,18 +108,20 @@ public class ProfileThread implements Runnable {
                         break;
 
                     case PROFILING:
-                        // dump stack
-                        TracingThreadSnapshot snapshot = currentProfiler.buildSnapshot();
-                        if (snapshot != null) {
-                            profileTaskChannelService.addProfilingSnapshot(snapshot);
-                        } else {
-                            // tell execution context current tracing thread dump failed, stop it
-                            executionContext.stopTracingProfile(currentProfiler.tracingContext());
+                        if (batchThreadDump) {
+                            // dump stack later, together with others
+                            batchProfilers[batchCount++] = currentProfiler;
+                            break;
                         }
+                        // dump stack
+                        addSnapshot(executionContext, currentProfiler, currentProfiler.buildSnapshot());
                         break;
 
                 }
             }
+            if (batchCount > 0) {
+                batchDump(executionContext, batchCount);
+            }
 
             // sleep to next period
             // if out of period, sleep one period
@@ -110,4 +131,54 @@ public class ProfileThread implements Runnable {
         }
     }
 
+    /**
+     * dump the stacks of the first batchCount profilers of {@link #batchProfilers} in one call
+     */
+    private void batchDump(ProfileTaskExecutionContext executionContext, int batchCount) {
+        long[] threadIds = batchThreadIds[batchCount];
+        if (threadIds == null) {
+            threadIds = new long[batchCount];
+            batchThreadIds[batchCount] = threadIds;
+        }
+        for (int i = 0; i < batchCount; i++) {
+            threadIds[i] = batchProfilers[i].profilingThread().getId();
+        }
+
+        ThreadInfo[] threadInfos = null;
+        try {
+            threadInfos = ManagementFactory.getThreadMXBean()
+                                           .getThreadInfo(threadIds, Config.Profile.DUMP_MAX_STACK_DEPTH);
+        } catch (Exception e) {
+            LOGGER.warn(e, "Dump threads by ThreadMXBean fail, dump them one by one instead.");
+            batchThreadDump = false;
+        }
+
+        long currentTime = System.currentTimeMillis();
+        for (int i = 0; i < batchCount; i++) {
+            ThreadProfiler profiler = batchProfilers[i];
+            batchProfilers[i] = null;
+            TracingThreadSnapshot snapshot;
+            if (threadInfos == null) {
+                snapshot = profiler.buildSnapshot();
+            } else {
+                // no thread info means the thread is not alive
+                ThreadInfo threadInfo = threadInfos[i];
+                snapshot = profiler.buildSnapshot(
+                    threadInfo == null ? NO_STACK_TRACE : threadInfo.getStackTrace(), currentTime);
+            }
+            addSnapshot(executionContext, profiler, snapshot);
+        }
+    }
+
+    private void addSnapshot(ProfileTaskExecutionContext executionContext,
+                             ThreadProfiler profiler,
+                             TracingThreadSnapshot snapshot) {
+        if (snapshot != null) {
+            profileTaskChannelService.addProfilingSnapshot(snapshot);
+        } else {
+            // tell execution context current tracing thread dump failed, stop it
+            executionContext.stopTracingProfile(profiler.tracingContext());
+        }
+    }
+
 }
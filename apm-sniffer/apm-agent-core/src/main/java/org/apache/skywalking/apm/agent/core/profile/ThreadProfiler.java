@@ -44,6 +44,13 @@ public class ThreadProfiler {
     // thread dump sequence
     private int dumpSequence = 0;
 
+    /**
+     * The last dumped stack and its code signatures, consecutive dumps of a waiting or looping thread usually share
+     * most frames.
+     */
+    private StackTraceElement[] lastStackTrace;
+    private ArrayList<String> lastStackList;
+
     public ThreadProfiler(TracingContext tracingContext, String traceSegmentId, Thread profilingThread,
         ProfileTaskExecutionContext executionContext) {
         this.tracingContext = tracingContext;
@@ -92,31 +99,66 @@ public class ThreadProfiler {
         StackTraceElement[] stackTrace;
         try {
             stackTrace = profilingThread.getStackTrace();
-
-            // stack depth is zero, means thread is already run finished
-            if (stackTrace.length == 0) {
-                return null;
-            }
         } catch (Exception e) {
             // dump error ignore and make this profiler stop
             return null;
         }
+        return buildSnapshot(stackTrace, currentTime);
+    }
+
+    /**
+     * build thread snapshot from the stack dumped with other profiling threads together
+     *
+     * @param stackTrace  the stack of {@link #profilingThread()}, empty if the thread is not alive
+     * @param currentTime the dump time
+     * @return snapshot, if null means dump snapshot error, should stop it
+     */
+    public TracingThreadSnapshot buildSnapshot(StackTraceElement[] stackTrace, long currentTime) {
+        if (!isProfilingContinuable()) {
+            return null;
+        }
+
+        // stack depth is zero, means thread is already run finished
+        if (stackTrace.length == 0) {
+            return null;
+        }
 
         // if is first dump, check is can start profiling
         if (dumpSequence == 0 && (!executionContext.isStartProfileable())) {
             return null;
         }
 
+        String taskId = executionContext.getTask().getTaskId();
+        return new TracingThreadSnapshot(taskId, traceSegmentId, dumpSequence++, currentTime, buildStackList(stackTrace));
+    }
+
+    /**
+     * Build the code signatures in inverted order, because thread dump is start with bottom. The signature of a frame
+     * same as the one at the same depth of the last dump is reused, and the whole list is reused if the stack doesn't
+     * change.
+     */
+    private ArrayList<String> buildStackList(StackTraceElement[] stackTrace) {
         int dumpElementCount = Math.min(stackTrace.length, Config.Profile.DUMP_MAX_STACK_DEPTH);
+        StackTraceElement[] lastStack = lastStackTrace;
+        int lastCount = lastStack == null ? 0 : lastStackList.size();
 
-        // use inverted order, because thread dump is start with bottom
         final ArrayList<String> stackList = new ArrayList<>(dumpElementCount);
-        for (int i = dumpElementCount - 1; i >= 0; i--) {
-            stackList.add(buildStackElementCodeSignature(stackTrace[i]));
+        boolean changed = dumpElementCount != lastCount;
+        for (int depth = 0; depth < dumpElementCount; depth++) {
+            StackTraceElement element = stackTrace[dumpElementCount - 1 - depth];
+            if (depth < lastCount && element.equals(lastStack[lastCount - 1 - depth])) {
+                stackList.add(lastStackList.get(depth));
+            } else {
+                stackList.add(buildStackElementCodeSignature(element));
+                changed = true;
+            }
         }
-
-        String taskId = executionContext.getTask().getTaskId();
-        return new TracingThreadSnapshot(taskId, traceSegmentId, dumpSequence++, currentTime, stackList);
+        if (!changed) {
+            return lastStackList;
+        }
+        lastStackTrace = stackTrace;
+        lastStackList = stackList;
+        return stackList;
     }
 
     /**
@@ -145,6 +187,10 @@ public class ThreadProfiler {
         return System.currentTimeMillis() - profilingStartTime < profilingMaxTimeMills;
     }
 
+    public Thread profilingThread() {
+        return profilingThread;
+    }
+
     public TracingContext tracingContext() {
         return tracingContext;
     }
@@ -19,7 +19,15 @@
 package org.apache.skywalking.apm.agent.core.remote;
 
 import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
 import io.grpc.stub.StreamObserver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.apm.agent.core.boot.BootService;
@@ -29,7 +37,9 @@ import org.apache.skywalking.apm.agent.core.commands.CommandService;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.context.TracingContext;
 import org.apache.skywalking.apm.agent.core.context.TracingContextListener;
+import org.apache.skywalking.apm.agent.core.context.trace.SegmentObjectWriter;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
+import org.apache.skywalking.apm.agent.core.context.trace.TracingObjectPool;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
@@ -41,11 +51,23 @@ import org.apache.skywalking.apm.network.language.agent.v3.TraceSegmentReportSer
 
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.BUFFER_SIZE;
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.CHANNEL_SIZE;
+import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.TYPE;
 import static org.apache.skywalking.apm.agent.core.remote.GRPCChannelStatus.CONNECTED;
 
 @DefaultImplementor
 public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSegment>, TracingContextListener, GRPCChannelListener {
     private static final ILog LOGGER = LogManager.getLogger(TraceSegmentServiceClient.class);
+    /**
+     * Same as {@link TraceSegmentReportServiceGrpc#getCollectMethod()}, but takes the segments which have been
+     * serialized by {@link SegmentObjectWriter}, rather than {@link SegmentObject}s.
+     */
+    private static final MethodDescriptor<byte[], Commands> COLLECT_SERIALIZED_METHOD =
+        TraceSegmentReportServiceGrpc.getCollectMethod()
+                                     .toBuilder(
+                                         new ByteArrayMarshaller(),
+                                         ProtoUtils.marshaller(Commands.getDefaultInstance())
+                                     )
+                                     .build();
 
     private long lastLogTime;
     private long segmentUplinkedCounter;
@@ -53,6 +75,10 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     private volatile DataCarrier<TraceSegment> carrier;
     private volatile TraceSegmentReportServiceGrpc.TraceSegmentReportServiceStub serviceStub;
     private volatile GRPCChannelStatus status = GRPCChannelStatus.DISCONNECT;
+    /**
+     * Only used by the consumer thread.
+     */
+    private final SegmentObjectWriter segmentWriter = new SegmentObjectWriter();
 
     @Override
     public void prepare() {
@@ -64,7 +90,7 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
         lastLogTime = System.currentTimeMillis();
         segmentUplinkedCounter = 0;
         segmentAbandonedCounter = 0;
-        carrier = new DataCarrier<>(CHANNEL_SIZE, BUFFER_SIZE, BufferStrategy.IF_POSSIBLE);
+        carrier = new DataCarrier<>(CHANNEL_SIZE, BUFFER_SIZE, BufferStrategy.IF_POSSIBLE, TYPE);
         carrier.consume(this, 1);
     }
 
@@ -88,43 +114,46 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     public void consume(List<TraceSegment> data) {
         if (CONNECTED.equals(status)) {
             final GRPCStreamServiceStatus status = new GRPCStreamServiceStatus(false);
-            StreamObserver<SegmentObject> upstreamSegmentStreamObserver = serviceStub.withDeadlineAfter(
+            final TraceSegmentReportServiceGrpc.TraceSegmentReportServiceStub stub = serviceStub.withDeadlineAfter(
                 Config.Collector.GRPC_UPSTREAM_TIMEOUT, TimeUnit.SECONDS
-            ).collect(new StreamObserver<Commands>() {
-                @Override
-                public void onNext(Commands commands) {
-                    ServiceManager.INSTANCE.findService(CommandService.class)
-                                           .receiveCommand(commands);
-                }
+            );
+            StreamObserver<byte[]> upstreamSegmentStreamObserver = ClientCalls.asyncClientStreamingCall(
+                stub.getChannel().newCall(COLLECT_SERIALIZED_METHOD, stub.getCallOptions()),
+                new StreamObserver<Commands>() {
+                    @Override
+                    public void onNext(Commands commands) {
+                        ServiceManager.INSTANCE.findService(CommandService.class)
+                                               .receiveCommand(commands);
+                    }
 
-                @Override
-                public void onError(
-                    Throwable throwable) {
-                    status.finished();
-                    if (LOGGER.isErrorEnable()) {
-                        LOGGER.error(
-                            throwable,
-                            "Send UpstreamSegment to collector fail with a grpc internal exception."
-                        );
+                    @Override
+                    public void onError(
+                        Throwable throwable) {
+                        status.finished();
+                        if (LOGGER.isErrorEnable()) {
+                            LOGGER.error(
+                                throwable,
+                                "Send UpstreamSegment to collector fail with a grpc internal exception."
+                            );
+                        }
+                        ServiceManager.INSTANCE
+                            .findService(GRPCChannelManager.class)
+                            .reportError(throwable);
                     }
-                    ServiceManager.INSTANCE
-                        .findService(GRPCChannelManager.class)
-                        .reportError(throwable);
-                }
 
-                @Override
-                public void onCompleted() {
-                    status.finished();
+                    @Override
+                    public void onCompleted() {
+                        status.finished();
+                    }
                 }
-            });
+            );
 
             try {
                 for (TraceSegment segment : data) {
-                    SegmentObject upstreamSegment = segment.transform();
-                    upstreamSegmentStreamObserver.onNext(upstreamSegment);
+                    upstreamSegmentStreamObserver.onNext(segmentWriter.write(segment));
                 }
             } catch (Throwable t) {
-                LOGGER.error(t, "Transform and send UpstreamSegment to collector fail.");
+                LOGGER.error(t, "Serialize and send UpstreamSegment to collector fail.");
             }
 
             upstreamSegmentStreamObserver.onCompleted();
@@ -134,6 +163,9 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
         } else {
             segmentAbandonedCounter += data.size();
         }
+        for (TraceSegment segment : data) {
+            TracingObjectPool.recycle(segment);
+        }
 
         printUplinkStatus();
     }
@@ -167,9 +199,11 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     @Override
     public void afterFinished(TraceSegment traceSegment) {
         if (traceSegment.isIgnore()) {
+            TracingObjectPool.recycle(traceSegment);
             return;
         }
         if (!carrier.produce(traceSegment)) {
+            TracingObjectPool.recycle(traceSegment);
             if (LOGGER.isDebugEnable()) {
                 LOGGER.debug("One trace segment has been abandoned, cause by buffer is full.");
             }
@@ -184,4 +218,29 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
         }
         this.status = status;
     }
+
+    /**
+     * Pass through the serialized message, as the bytes are already in the wire format of the original method.
+     */
+    private static class ByteArrayMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+        @Override
+        public InputStream stream(byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+                return output.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Head-based sampler targeting a budget of sampled segments per second, shared by all endpoints.
+ * <p>
+ * Every endpoint owns a token bucket refilled at its fair share of the budget, and the whole budget is guarded by a
+ * global bucket. A segment is sampled if its endpoint has a token of the fair share, or else, if the global bucket is
+ * still more than half full, which means the budget is not used up by the other endpoints. So a busy endpoint takes
+ * the spare budget in quiet time, but can't starve the other endpoints during spikes.
+ * <p>
+ * The fair shares are rebalanced, and the endpoints idle for more than {@link #ENDPOINT_IDLE_TIMEOUT} are evicted, by
+ * {@link #refresh()}, which is called periodically by {@link SamplingService}.
+ */
+public class AdaptiveSampler {
+    /**
+     * The max number of endpoints having their own buckets. The others share one overflow bucket, which has the same
+     * fair share as one endpoint, to keep the memory bounded when the endpoint names are not well grouped.
+     */
+    static final int MAX_ENDPOINTS = 1000;
+    static final long ENDPOINT_IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentHashMap<String, TokenBucket> endpointBuckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflowBucket;
+    private final TokenBucket globalBucket;
+    private final LongAdder sampledCounter = new LongAdder();
+    private volatile double segmentsPerSecond;
+    private volatile double effectiveRate;
+    private long lastRefreshTime;
+
+    public AdaptiveSampler(double segmentsPerSecond) {
+        final long now = System.nanoTime();
+        this.segmentsPerSecond = segmentsPerSecond;
+        this.globalBucket = new TokenBucket(segmentsPerSecond, segmentsPerSecond, now);
+        this.overflowBucket = new TokenBucket(segmentsPerSecond, segmentsPerSecond, now);
+        this.lastRefreshTime = now;
+    }
+
+    /**
+     * @param endpoint the first operation name of the new tracing context.
+     * @return true if the segment should be sampled.
+     */
+    public boolean trySampling(String endpoint) {
+        final long now = System.nanoTime();
+        final boolean sampled;
+        if (endpointBucket(endpoint, now).tryAcquire(now)) {
+            // The fair share is always granted, even if the global bucket has been drained by borrowing.
+            globalBucket.forceAcquire(now);
+            sampled = true;
+        } else {
+            sampled = globalBucket.tryAcquireAboveHalf(now);
+        }
+        if (sampled) {
+            sampledCounter.increment();
+        }
+        return sampled;
+    }
+
+    /**
+     * The segment is sampled by the upstream, take its token from the global budget.
+     */
+    public void forceSampled() {
+        globalBucket.forceAcquire(System.nanoTime());
+        sampledCounter.increment();
+    }
+
+    /**
+     * Change the budget, synchronized with {@link #refresh()}, which rebalances the fair shares from the budget too.
+     */
+    public synchronized void setSegmentsPerSecond(double segmentsPerSecond) {
+        this.segmentsPerSecond = segmentsPerSecond;
+        globalBucket.setRate(segmentsPerSecond, segmentsPerSecond);
+        rebalance();
+    }
+
+    /**
+     * Evict the idle endpoints, rebalance the fair shares, and calculate the effective rate since the last refresh.
+     */
+    public synchronized void refresh() {
+        final long now = System.nanoTime();
+        Iterator<Map.Entry<String, TokenBucket>> iterator = endpointBuckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getValue().getLastAccessTime() > ENDPOINT_IDLE_TIMEOUT) {
+                iterator.remove();
+            }
+        }
+        rebalance();
+
+        final long elapsed = now - lastRefreshTime;
+        if (elapsed > 0) {
+            effectiveRate = sampledCounter.sumThenReset() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            lastRefreshTime = now;
+        }
+    }
+
+    /**
+     * @return the sampled segments per second, calculated by the last {@link #refresh()}.
+     */
+    public double getEffectiveRate() {
+        return effectiveRate;
+    }
+
+    int getEndpointCount() {
+        return endpointBuckets.size();
+    }
+
+    private TokenBucket endpointBucket(String endpoint, long now) {
+        TokenBucket bucket = endpointBuckets.get(endpoint);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (endpointBuckets.size() >= MAX_ENDPOINTS) {
+            return overflowBucket;
+        }
+        // Assume one more endpoint, the shares of the others are adjusted in the next refresh.
+        final double share = fairShare(endpointBuckets.size() + 1);
+        bucket = endpointBuckets.computeIfAbsent(endpoint, key -> new TokenBucket(share, share, now));
+        return bucket;
+    }
+
+    private void rebalance() {
+        final double share = fairShare(Math.max(1, endpointBuckets.size()));
+        for (TokenBucket bucket : endpointBuckets.values()) {
+            bucket.setRate(share, share);
+        }
+        overflowBucket.setRate(share, share);
+    }
+
+    private double fairShare(int endpointCount) {
+        return segmentsPerSecond / endpointCount;
+    }
+}
@@ -29,10 +29,12 @@ import org.apache.skywalking.apm.agent.core.boot.DefaultNamedThreadFactory;
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.dynamic.ConfigurationDiscoveryService;
+import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.AdaptiveSamplingWatcher;
 import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.SamplingRateWatcher;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
+import org.apache.skywalking.apm.agent.core.meter.MeterFactory;
 import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
 
 /**
@@ -41,16 +43,26 @@ import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
  * send all of them to collector, if SAMPLING is on.
  * <p>
  * By default, SAMPLING is on, and  {@link Config.Agent#SAMPLE_N_PER_3_SECS }
+ * <p>
+ * If {@link Config.Agent#SAMPLE_SEGMENTS_PER_SECOND} is positive, the {@link AdaptiveSampler} is used instead of the
+ * fixed counter, and the sampled segments per second are reported through the meter <code>{@value
+ * #EFFECTIVE_RATE_METER}</code>.
  */
 @DefaultImplementor
 public class SamplingService implements BootService {
     private static final ILog LOGGER = LogManager.getLogger(SamplingService.class);
+    static final String EFFECTIVE_RATE_METER = "sampling_effective_rate";
 
     private volatile boolean on = false;
     private volatile AtomicInteger samplingFactorHolder;
     private volatile ScheduledFuture<?> scheduledFuture;
+    /**
+     * Not null only when the adaptive sampling is on.
+     */
+    private volatile AdaptiveSampler adaptiveSampler;
 
     private SamplingRateWatcher samplingRateWatcher;
+    private AdaptiveSamplingWatcher adaptiveSamplingWatcher;
 
     @Override
     public void prepare() {
@@ -61,6 +73,9 @@ public class SamplingService implements BootService {
         samplingRateWatcher = new SamplingRateWatcher("agent.sample_n_per_3_secs", this);
         ServiceManager.INSTANCE.findService(ConfigurationDiscoveryService.class)
                                .registerAgentConfigChangeWatcher(samplingRateWatcher);
+        adaptiveSamplingWatcher = new AdaptiveSamplingWatcher("agent.sample_segments_per_second", this);
+        ServiceManager.INSTANCE.findService(ConfigurationDiscoveryService.class)
+                               .registerAgentConfigChangeWatcher(adaptiveSamplingWatcher);
 
         handleSamplingRateChanged();
     }
@@ -83,6 +98,10 @@ public class SamplingService implements BootService {
      */
     public boolean trySampling(String operationName) {
         if (on) {
+            AdaptiveSampler sampler = adaptiveSampler;
+            if (sampler != null) {
+                return sampler.trySampling(operationName);
+            }
             int factor = samplingFactorHolder.get();
             if (factor < samplingRateWatcher.getSamplingRate()) {
                 return samplingFactorHolder.compareAndSet(factor, factor + 1);
@@ -99,6 +118,11 @@ public class SamplingService implements BootService {
      */
     public void forceSampled() {
         if (on) {
+            AdaptiveSampler sampler = adaptiveSampler;
+            if (sampler != null) {
+                sampler.forceSampled();
+                return;
+            }
             samplingFactorHolder.incrementAndGet();
         }
     }
@@ -107,18 +131,46 @@ public class SamplingService implements BootService {
         samplingFactorHolder = new AtomicInteger(0);
     }
 
+    /**
+     * Reset the counter of the fixed sampling, or refresh the adaptive sampler, every 3 seconds.
+     */
+    private void refresh() {
+        AdaptiveSampler sampler = adaptiveSampler;
+        if (sampler != null) {
+            sampler.refresh();
+        } else {
+            resetSamplingFactor();
+        }
+    }
+
     /**
      * Handle the samplingRate changed.
      */
-    public void handleSamplingRateChanged() {
-        if (samplingRateWatcher.getSamplingRate() > 0) {
+    public synchronized void handleSamplingRateChanged() {
+        final int segmentsPerSecond = adaptiveSamplingWatcher.getSegmentsPerSecond();
+        if (segmentsPerSecond > 0) {
+            if (adaptiveSampler == null) {
+                AdaptiveSampler sampler = new AdaptiveSampler(segmentsPerSecond);
+                MeterFactory.gauge(EFFECTIVE_RATE_METER, () -> {
+                    AdaptiveSampler current = adaptiveSampler;
+                    return current == null ? 0 : current.getEffectiveRate();
+                }).build();
+                adaptiveSampler = sampler;
+            } else {
+                adaptiveSampler.setSegmentsPerSecond(segmentsPerSecond);
+            }
+            LOGGER.debug("Agent adaptive sampling mechanism started. Sample {} traces per second.", segmentsPerSecond);
+        } else {
+            adaptiveSampler = null;
+        }
+        if (segmentsPerSecond > 0 || samplingRateWatcher.getSamplingRate() > 0) {
             if (!on) {
                 on = true;
                 this.resetSamplingFactor();
                 ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(
                     new DefaultNamedThreadFactory("SamplingService"));
                 scheduledFuture = service.scheduleAtFixedRate(new RunnableWithExceptionProtection(
-                    this::resetSamplingFactor, t -> LOGGER.error("unexpected exception.", t)), 0, 3, TimeUnit.SECONDS);
+                    this::refresh, t -> LOGGER.error("unexpected exception.", t)), 0, 3, TimeUnit.SECONDS);
                 LOGGER.debug(
                     "Agent sampling mechanism started. Sample {} traces in 3 seconds.",
                     samplingRateWatcher.getSamplingRate()
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, implemented as the generic cell rate algorithm. Rather than counting the tokens, it keeps
+ * the theoretical time when the bucket becomes full again. Acquiring a token moves that time forward by the emission
+ * interval of one token, and is only allowed when the time doesn't go beyond the burst tolerance, which is the
+ * capacity of the bucket in nanoseconds.
+ */
+class TokenBucket {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong theoreticalArrivalTime;
+    private volatile long emissionInterval;
+    private volatile long burstTolerance;
+    private volatile long lastAccessTime;
+
+    /**
+     * Create a full bucket.
+     */
+    TokenBucket(double tokensPerSecond, double capacity, long now) {
+        this.theoreticalArrivalTime = new AtomicLong(now);
+        this.lastAccessTime = now;
+        setRate(tokensPerSecond, capacity);
+    }
+
+    void setRate(double tokensPerSecond, double capacity) {
+        long interval = Math.max(1, (long) (NANOS_PER_SECOND / tokensPerSecond));
+        this.emissionInterval = interval;
+        this.burstTolerance = (long) (interval * Math.max(1, capacity));
+    }
+
+    /**
+     * @return true if a token is acquired.
+     */
+    boolean tryAcquire(long now) {
+        return tryAcquire(now, burstTolerance);
+    }
+
+    /**
+     * @return true if a token is acquired, and the bucket was more than half full before that.
+     */
+    boolean tryAcquireAboveHalf(long now) {
+        return tryAcquire(now, burstTolerance / 2);
+    }
+
+    /**
+     * Take a token even if the bucket is empty. The debt is capped at one more bucket, so it is paid back within the
+     * time of refilling the bucket.
+     */
+    void forceAcquire(long now) {
+        lastAccessTime = now;
+        final long interval = emissionInterval;
+        final long maxArrivalTime = now + 2 * burstTolerance;
+        while (true) {
+            long arrivalTime = theoreticalArrivalTime.get();
+            long next = Math.min(Math.max(arrivalTime, now) + interval, maxArrivalTime);
+            if (theoreticalArrivalTime.compareAndSet(arrivalTime, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquire(long now, long tolerance) {
+        lastAccessTime = now;
+        final long interval = emissionInterval;
+        while (true) {
+            long arrivalTime = theoreticalArrivalTime.get();
+            long next = Math.max(arrivalTime, now) + interval;
+            if (next - now > tolerance) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(arrivalTime, next)) {
+                return true;
+            }
+        }
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+}
@@ -33,4 +33,16 @@ public class Base64Test {
     public void testEncode() {
         assertEquals(Base64.encode("SkyWalking"), "U2t5V2Fsa2luZw==");
     }
+
+    @Test
+    public void testEncodeToBuilder() {
+        String[] texts = {"", "S", "Sk", "Sky", "SkyWalking", "/api/\u6d4b\u8bd5", "a.b.1623456789000"};
+        for (String text : texts) {
+            for (int beginIndex = 0; beginIndex <= text.length(); beginIndex++) {
+                StringBuilder output = new StringBuilder("-");
+                Base64.encode(text, beginIndex, output);
+                assertEquals("-" + Base64.encode(text.substring(beginIndex)), output.toString());
+            }
+        }
+    }
 }
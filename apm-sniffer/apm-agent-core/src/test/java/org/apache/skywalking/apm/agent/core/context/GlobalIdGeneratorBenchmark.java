@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.SpanLimitWatcher;
+import org.apache.skywalking.apm.agent.core.context.ids.GlobalIdGenerator;
+import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
+import org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure {@link GlobalIdGenerator#generate()}, and a traced request which creates an entry span and injects the sw8
+ * header through an exit span. The request generates the trace id and the segment id, and serializes the {@link
+ * ContextCarrier}. See {@code gc.alloc.rate.norm} of the {@link GCProfiler} result for the bytes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GlobalIdGeneratorBenchmark {
+    private SpanLimitWatcher spanLimitWatcher;
+
+    @Setup
+    public void setup() {
+        Config.Agent.SERVICE_NAME = "user-service";
+        Config.Agent.INSTANCE_NAME = "d9d7f8d1e1e44b8c8d4e7a3b0f2c1a77@10.0.0.1";
+        ServiceManager.INSTANCE.boot();
+        TracingContext.ListenerManager.remove(ServiceManager.INSTANCE.findService(TraceSegmentServiceClient.class));
+        spanLimitWatcher = new SpanLimitWatcher("agent.span_limit_per_segment");
+    }
+
+    @TearDown
+    public void tearDown() {
+        ServiceManager.INSTANCE.shutdown();
+    }
+
+    @Benchmark
+    public String generate() {
+        return GlobalIdGenerator.generate();
+    }
+
+    @Benchmark
+    public String entrySpanAndInject() {
+        TracingContext context = new TracingContext("/api/users/{id}", spanLimitWatcher);
+        AbstractSpan entrySpan = context.createEntrySpan("/api/users/{id}");
+        AbstractSpan exitSpan = context.createExitSpan("/api/orders", "order-service:8080");
+        ContextCarrier carrier = new ContextCarrier();
+        context.inject(carrier);
+        String header = carrier.serialize(ContextCarrier.HeaderVersion.v3);
+        context.stopSpan(exitSpan);
+        context.stopSpan(entrySpan);
+        return header;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(GlobalIdGeneratorBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.SpanLimitWatcher;
+import org.apache.skywalking.apm.agent.core.context.tag.Tags;
+import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
+import org.apache.skywalking.apm.agent.core.context.trace.SegmentObjectWriter;
+import org.apache.skywalking.apm.agent.core.context.trace.SpanLayer;
+import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
+import org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient;
+import org.apache.skywalking.apm.agent.core.test.tools.AgentServiceRule;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.trace.component.ComponentsDefine;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SegmentObjectWriterTest {
+    @Rule
+    public AgentServiceRule serviceRule = new AgentServiceRule();
+
+    private final SpanLimitWatcher spanLimitWatcher = new SpanLimitWatcher("agent.span_limit_per_segment");
+    private final List<TraceSegment> finishedSegments = new ArrayList<>();
+    private final TracingContextListener listener = finishedSegments::add;
+    private final SegmentObjectWriter writer = new SegmentObjectWriter();
+
+    @Before
+    public void setUp() {
+        TracingContext.ListenerManager.remove(ServiceManager.INSTANCE.findService(TraceSegmentServiceClient.class));
+        TracingContext.ListenerManager.add(listener);
+    }
+
+    @After
+    public void tearDown() {
+        TracingContext.ListenerManager.remove(listener);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        ServiceManager.INSTANCE.shutdown();
+    }
+
+    @Test
+    public void testSameAsTransform() throws Exception {
+        TracingContext client = new TracingContext("/client", spanLimitWatcher);
+        AbstractSpan clientEntry = client.createEntrySpan("/client");
+        clientEntry.setComponent(ComponentsDefine.TOMCAT).setLayer(SpanLayer.HTTP);
+        Tags.URL.set(clientEntry, "http://localhost:8080/client");
+        Tags.STATUS_CODE.set(clientEntry, "200");
+        AbstractSpan exitSpan = client.createExitSpan("/server", "127.0.0.1:8080");
+        exitSpan.setComponent(ComponentsDefine.HTTPCLIENT).setLayer(SpanLayer.HTTP);
+        ContextCarrier carrier = new ContextCarrier();
+        client.inject(carrier);
+        exitSpan.log(new IllegalStateException("mock \u6d4b\u8bd5"));
+        exitSpan.errorOccurred();
+        ContextSnapshot snapshot = client.capture();
+        client.stopSpan(exitSpan);
+        client.stopSpan(clientEntry);
+
+        TracingContext server = new TracingContext("/server", spanLimitWatcher);
+        AbstractSpan serverEntry = server.createEntrySpan("/server");
+        server.extract(carrier);
+        serverEntry.skipAnalysis();
+        server.stopSpan(server.createLocalSpan("/local"));
+        server.stopSpan(serverEntry);
+
+        TracingContext async = new TracingContext("/async", spanLimitWatcher);
+        AbstractSpan asyncSpan = async.createLocalSpan("/async");
+        async.continued(snapshot);
+        async.stopSpan(asyncSpan);
+
+        Assert.assertEquals(3, finishedSegments.size());
+        for (TraceSegment segment : finishedSegments) {
+            byte[] bytes = writer.write(segment);
+            Assert.assertArrayEquals(segment.transform().toByteArray(), bytes);
+            Assert.assertEquals(segment.transform(), SegmentObject.parseFrom(bytes));
+        }
+        SegmentObject serverSegment = SegmentObject.parseFrom(writer.write(finishedSegments.get(1)));
+        Assert.assertEquals(1, serverSegment.getSpans(1).getRefsCount());
+        Assert.assertTrue(serverSegment.getSpans(1).getSkipAnalysis());
+        SegmentObject asyncSegment = SegmentObject.parseFrom(writer.write(finishedSegments.get(2)));
+        Assert.assertEquals(1, asyncSegment.getSpans(0).getRefsCount());
+    }
+
+    @Test
+    public void testSizeLimitedSegment() throws Exception {
+        TracingContext context = new TracingContext("/limited", spanLimitWatcher);
+        List<AbstractSpan> spans = new ArrayList<>();
+        spans.add(context.createEntrySpan("/limited"));
+        for (int i = 0; i < 500; i++) {
+            spans.add(context.createLocalSpan("/local-" + i));
+        }
+        for (int i = spans.size() - 1; i >= 0; i--) {
+            context.stopSpan(spans.get(i));
+        }
+
+        TraceSegment segment = finishedSegments.get(0);
+        SegmentObject segmentObject = SegmentObject.parseFrom(writer.write(segment));
+        Assert.assertTrue(segmentObject.getIsSizeLimited());
+        Assert.assertArrayEquals(segment.transform().toByteArray(), writer.write(segment));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.SpanLimitWatcher;
+import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
+import org.apache.skywalking.apm.agent.core.context.trace.TracingObjectPool;
+import org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the bytes allocated by one traced request, with and without {@link TracingObjectPool}. Every request creates
+ * an entry span, a local span and two exit spans with tags. The finished segment is recycled directly, instead of being
+ * serialized by {@link TraceSegmentServiceClient}, so only the allocation of the tracing context is measured.
+ * <p>
+ * See {@code gc.alloc.rate.norm} of the {@link GCProfiler} result, in bytes per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TracingContextAllocationBenchmark {
+    @Param({
+        "0",
+        "1024"
+    })
+    private int poolSize;
+
+    private SpanLimitWatcher spanLimitWatcher;
+    private TracingContextListener recycler;
+
+    @Setup
+    public void setup() {
+        Config.Agent.TRACING_OBJECT_POOL_SIZE = poolSize;
+        ServiceManager.INSTANCE.boot();
+        TracingContext.ListenerManager.remove(ServiceManager.INSTANCE.findService(TraceSegmentServiceClient.class));
+        recycler = TracingObjectPool::recycle;
+        TracingContext.ListenerManager.add(recycler);
+        spanLimitWatcher = new SpanLimitWatcher("agent.span_limit_per_segment");
+    }
+
+    @TearDown
+    public void tearDown() {
+        TracingContext.ListenerManager.remove(recycler);
+        ServiceManager.INSTANCE.shutdown();
+    }
+
+    @Benchmark
+    public boolean tracedRequest() {
+        TracingContext context = new TracingContext("/api/users/{id}", spanLimitWatcher);
+        AbstractSpan entrySpan = context.createEntrySpan("/api/users/{id}");
+        entrySpan.tag("http.method", "GET");
+        AbstractSpan localSpan = context.createLocalSpan("UserService.get");
+        for (int i = 0; i < 2; i++) {
+            AbstractSpan exitSpan = context.createExitSpan("Mysql/JDBI/PreparedStatement/executeQuery", "db:3306");
+            exitSpan.tag("db.statement", "select * from users where id = ?");
+            context.stopSpan(exitSpan);
+        }
+        context.stopSpan(localSpan);
+        return context.stopSpan(entrySpan);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(TracingContextAllocationBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.conf.dynamic.watcher.SpanLimitWatcher;
+import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
+import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
+import org.apache.skywalking.apm.agent.core.context.trace.TracingObjectPool;
+import org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient;
+import org.apache.skywalking.apm.agent.core.test.tools.AgentServiceRule;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TracingObjectPoolTest {
+    @Rule
+    public AgentServiceRule serviceRule = new AgentServiceRule();
+
+    private final SpanLimitWatcher spanLimitWatcher = new SpanLimitWatcher("agent.span_limit_per_segment");
+    private final List<TraceSegment> finishedSegments = new ArrayList<>();
+    private final TracingContextListener listener = finishedSegments::add;
+
+    @Before
+    public void setUp() {
+        Config.Agent.TRACING_OBJECT_POOL_SIZE = 16;
+        // The segments are recycled by the test, rather than the reporter.
+        TracingContext.ListenerManager.remove(ServiceManager.INSTANCE.findService(TraceSegmentServiceClient.class));
+        TracingContext.ListenerManager.add(listener);
+    }
+
+    @After
+    public void tearDown() {
+        Config.Agent.TRACING_OBJECT_POOL_SIZE = 0;
+        TracingContext.ListenerManager.remove(listener);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        ServiceManager.INSTANCE.shutdown();
+    }
+
+    @Test
+    public void testReuseRecycledSpans() {
+        AbstractSpan[] firstSpans = trace("/first", true);
+        TraceSegment first = finishedSegments.get(0);
+        SegmentObject firstObject = first.transform();
+        Assert.assertEquals(3, firstObject.getSpansCount());
+        Assert.assertEquals(1, firstObject.getSpans(2).getTagsCount());
+        Assert.assertEquals(1, firstObject.getSpans(2).getLogsCount());
+        TracingObjectPool.recycle(first);
+
+        AbstractSpan[] secondSpans = trace("/second", false);
+        TraceSegment second = finishedSegments.get(1);
+        Assert.assertSame(first, second);
+        for (int i = 0; i < firstSpans.length; i++) {
+            Assert.assertSame(firstSpans[i], secondSpans[i]);
+        }
+
+        SegmentObject secondObject = second.transform();
+        Assert.assertNotEquals(firstObject.getTraceSegmentId(), secondObject.getTraceSegmentId());
+        Assert.assertNotEquals(firstObject.getTraceId(), secondObject.getTraceId());
+        Assert.assertEquals(3, secondObject.getSpansCount());
+        for (SpanObject span : secondObject.getSpansList()) {
+            Assert.assertEquals(0, span.getTagsCount());
+            Assert.assertEquals(0, span.getLogsCount());
+            Assert.assertFalse(span.getIsError());
+        }
+        Assert.assertEquals("/second", secondObject.getSpans(2).getOperationName());
+        Assert.assertEquals("127.0.0.2:8080", secondObject.getSpans(0).getPeer());
+    }
+
+    @Test
+    public void testDeepSpanStack() {
+        TracingContext context = new TracingContext("/deep", spanLimitWatcher);
+        List<AbstractSpan> spans = new ArrayList<>();
+        spans.add(context.createEntrySpan("/deep"));
+        for (int i = 0; i < 20; i++) {
+            spans.add(context.createLocalSpan("/local-" + i));
+            Assert.assertSame(spans.get(spans.size() - 1), context.activeSpan());
+        }
+        for (int i = spans.size() - 1; i > 0; i--) {
+            Assert.assertFalse(context.stopSpan(spans.get(i)));
+            Assert.assertSame(spans.get(i - 1), context.activeSpan());
+        }
+        Assert.assertTrue(context.stopSpan(spans.get(0)));
+        Assert.assertEquals(21, finishedSegments.get(0).transform().getSpansCount());
+    }
+
+    /**
+     * Create an entry span, a local span and an exit span in order, and finish them.
+     *
+     * @return the exit, local and entry spans, in the finished order.
+     */
+    private AbstractSpan[] trace(String operationName, boolean withTagAndLog) {
+        TracingContext context = new TracingContext(operationName, spanLimitWatcher);
+        AbstractSpan entrySpan = context.createEntrySpan(operationName);
+        if (withTagAndLog) {
+            entrySpan.tag("key", "value");
+            entrySpan.log(new RuntimeException("mock"));
+        }
+        AbstractSpan localSpan = context.createLocalSpan("/local");
+        AbstractSpan exitSpan = context.createExitSpan("/exit", withTagAndLog ? "127.0.0.1:8080" : "127.0.0.2:8080");
+        context.stopSpan(exitSpan);
+        context.stopSpan(localSpan);
+        context.stopSpan(entrySpan);
+        return new AbstractSpan[] {
+            exitSpan,
+            localSpan,
+            entrySpan
+        };
+    }
+}
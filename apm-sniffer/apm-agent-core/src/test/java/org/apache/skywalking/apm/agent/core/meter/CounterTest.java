@@ -86,6 +86,25 @@ public class CounterTest {
         validateMeterData("test", Arrays.asList(Label.newBuilder().setName("k1").setValue("v1").build()), -1d, counter.transform());
     }
 
+    @Test
+    public void testTransformDataReusesUnchangedMessage() {
+        final Counter counter = MeterFactory.counter("test").tag("k1", "v1").mode(CounterMode.RATE).build();
+        final List<Label> labels = Arrays.asList(Label.newBuilder().setName("k1").setValue("v1").build());
+
+        counter.increment(2d);
+        final MeterData first = counter.transformData();
+        validateMeterData("test", labels, 2d, first.toBuilder());
+
+        counter.increment(1d);
+        final MeterData second = counter.transformData();
+        validateMeterData("test", labels, 1d, second.toBuilder());
+        Assert.assertNotSame(first, second);
+
+        // Same rate as the last report
+        counter.increment(1d);
+        Assert.assertSame(second, counter.transformData());
+    }
+
     /**
      * Check the single value message
      */
@@ -80,6 +80,42 @@ public class HistogramTest {
         verifyHistogram("test", labels, Arrays.asList(1d, 2d, 5d), Arrays.asList(1L, 2L, 2L), histogram.transform());
     }
 
+    @Test
+    public void testAddValueOutOfRange() {
+        final List<Label> labels = Arrays.asList(Label.newBuilder().setName("k1").setValue("v1").build());
+        final Histogram histogram = MeterFactory.histogram("test")
+                                                .steps(Arrays.asList(2d, 5d, 10d))
+                                                .minValue(1d)
+                                                .tag("k1", "v1")
+                                                .build();
+        histogram.addValue(0.5);
+        histogram.addValue(1);
+        histogram.addValue(5);
+        histogram.addValue(9.99);
+        histogram.addValue(100);
+        verifyHistogram("test", labels, Arrays.asList(1d, 2d, 5d, 10d), Arrays.asList(1L, 0L, 2L, 1L),
+                        histogram.transform());
+    }
+
+    @Test
+    public void testTransformDataReusesUnchangedMessage() {
+        final List<Label> labels = Arrays.asList(Label.newBuilder().setName("k1").setValue("v1").build());
+        final Histogram histogram = MeterFactory.histogram("test")
+                                                .steps(Arrays.asList(2d, 5d))
+                                                .minValue(1d)
+                                                .tag("k1", "v1")
+                                                .build();
+        histogram.addValue(3);
+        final MeterData first = histogram.transformData();
+        verifyHistogram("test", labels, Arrays.asList(1d, 2d, 5d), Arrays.asList(0L, 1L, 0L), first.toBuilder());
+        Assert.assertSame(first, histogram.transformData());
+
+        histogram.addValue(6);
+        final MeterData second = histogram.transformData();
+        Assert.assertNotSame(first, second);
+        verifyHistogram("test", labels, Arrays.asList(1d, 2d, 5d), Arrays.asList(0L, 1L, 1L), second.toBuilder());
+    }
+
     /**
      * Check histogram message
      */
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.meter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.apm.network.language.agent.v3.MeterData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure {@link Counter#increment(double)} and {@link Histogram#addValue(double)} updated by many threads at the
+ * same time, with a single {@link AtomicLong} as the contended baseline, and the report of an unchanged meter through
+ * {@link BaseMeter#transformData()} compared with rebuilding the message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MeterBenchmark {
+    private static final int THREADS = 16;
+
+    private final Counter counter = new Counter(
+        new MeterId("counter", MeterType.COUNTER, Collections.emptyList()), CounterMode.INCREMENT);
+    private final Histogram histogram = new Histogram(
+        new MeterId("histogram", MeterType.HISTOGRAM, Collections.emptyList()),
+        Arrays.asList(0d, 5d, 10d, 20d, 50d, 100d, 200d, 500d, 1000d, 2000d, 5000d, 10000d)
+    );
+    private final AtomicLong atomicLong = new AtomicLong();
+
+    @Benchmark
+    @Threads(THREADS)
+    public void counterIncrement() {
+        counter.increment(1d);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public void histogramAddValue() {
+        histogram.addValue(ThreadLocalRandom.current().nextInt(12000));
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public long atomicLongIncrement() {
+        return atomicLong.incrementAndGet();
+    }
+
+    @Benchmark
+    public MeterData histogramTransformData() {
+        return histogram.transformData();
+    }
+
+    @Benchmark
+    public MeterData histogramTransformAndBuild() {
+        return histogram.transform().build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(MeterBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
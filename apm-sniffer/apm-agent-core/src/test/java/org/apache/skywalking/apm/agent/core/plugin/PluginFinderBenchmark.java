@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.pool.TypePool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.apache.skywalking.apm.agent.core.plugin.match.ClassAnnotationMatch.byClassAnnotationMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.HierarchyMatch.byHierarchyMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.MultiClassNameMatch.byMultiClassMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.NameMatch.byName;
+import static org.apache.skywalking.apm.agent.core.plugin.match.PrefixMatch.nameStartsWith;
+import static org.apache.skywalking.apm.agent.core.plugin.match.RegexMatch.byRegexMatch;
+
+/**
+ * Startup harness of the plugin matching. The synthetic classpath is made of {@link #CLASS_COUNT} classes read from the
+ * jars of the test classpath through a {@link TypePool}, like the types seen by the agent at transform, and the
+ * synthetic plugin set picks its matches from the same classes, in the mix of the official plugins. The score is the
+ * time per class.
+ * <ul>
+ *     <li>{@link #match()}: {@link PluginFinder#buildMatch()}, evaluated by ByteBuddy for every loaded class.</li>
+ *     <li>{@link #find()}: {@link PluginFinder#find(TypeDescription)}, evaluated at transform.</li>
+ *     <li>{@link #findOneByOne()}: evaluate every plugin, as the finder did before the plugins were indexed.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PluginFinderBenchmark {
+    private static final int CLASS_COUNT = 5000;
+
+    private final List<TypeDescription> types = new ArrayList<>(CLASS_COUNT);
+    private final List<AbstractClassEnhancePluginDefine> plugins = new ArrayList<>();
+    private PluginFinder finder;
+    private ElementMatcher<? super TypeDescription> matcher;
+
+    @Setup
+    public void setup() throws IOException {
+        TypePool typePool = TypePool.Default.of(ClassFileLocator.ForClassLoader.ofSystemLoader());
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!path.endsWith(".jar")) {
+                continue;
+            }
+            try (JarFile jar = new JarFile(path)) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements() && types.size() < CLASS_COUNT) {
+                    String name = entries.nextElement().getName();
+                    if (!name.endsWith(".class") || name.endsWith("module-info.class") || name.endsWith(
+                        "package-info.class")) {
+                        continue;
+                    }
+                    TypePool.Resolution resolution = typePool.describe(
+                        name.substring(0, name.length() - 6).replace('/', '.'));
+                    if (resolution.isResolved() && isFullyResolvable(resolution.resolve())) {
+                        types.add(resolution.resolve());
+                    }
+                }
+            }
+        }
+        if (types.size() < CLASS_COUNT) {
+            throw new IllegalStateException("Only " + types.size() + " classes found in the classpath");
+        }
+
+        List<String> interfaces = new ArrayList<>();
+        List<String> annotations = new ArrayList<>();
+        for (TypeDescription type : types) {
+            if (type.isAnnotation()) {
+                annotations.add(type.getName());
+            } else if (type.isInterface()) {
+                interfaces.add(type.getName());
+            }
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 300; i++) {
+            plugins.add(new PluginFinderTest.TestPluginDefine(byName(randomName(random))));
+        }
+        for (int i = 0; i < 30; i++) {
+            plugins.add(new PluginFinderTest.TestPluginDefine(byMultiClassMatch(
+                randomName(random), randomName(random))));
+        }
+        for (int i = 0; i < 30; i++) {
+            String name = randomName(random);
+            plugins.add(new PluginFinderTest.TestPluginDefine(
+                nameStartsWith(name.substring(0, name.lastIndexOf('.') + 1) + "Abstract")));
+        }
+        for (int i = 0; i < 80; i++) {
+            plugins.add(new PluginFinderTest.TestPluginDefine(
+                byHierarchyMatch(interfaces.get(random.nextInt(interfaces.size())))));
+        }
+        for (int i = 0; i < 20; i++) {
+            plugins.add(new PluginFinderTest.TestPluginDefine(
+                byClassAnnotationMatch(annotations.get(random.nextInt(annotations.size())))));
+        }
+        for (int i = 0; i < 2; i++) {
+            plugins.add(new PluginFinderTest.TestPluginDefine(byRegexMatch(".*Test" + i + "Controller")));
+        }
+        finder = new PluginFinder(plugins);
+        matcher = finder.buildMatch();
+    }
+
+    /**
+     * Skip the classes referring to the types absent from the classpath.
+     */
+    private static boolean isFullyResolvable(TypeDescription type) {
+        try {
+            byHierarchyMatch(Object.class.getName() + "$Absent").isMatch(type);
+            byClassAnnotationMatch(Object.class.getName() + "$Absent").isMatch(type);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private String randomName(Random random) {
+        return types.get(random.nextInt(types.size())).getName();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLASS_COUNT)
+    public void match(Blackhole blackhole) {
+        for (TypeDescription type : types) {
+            blackhole.consume(matcher.matches(type));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLASS_COUNT)
+    public void find(Blackhole blackhole) {
+        for (TypeDescription type : types) {
+            blackhole.consume(finder.find(type));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLASS_COUNT)
+    public void findOneByOne(Blackhole blackhole) {
+        for (TypeDescription type : types) {
+            blackhole.consume(PluginFinderTest.findOneByOne(plugins, type));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(PluginFinderBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
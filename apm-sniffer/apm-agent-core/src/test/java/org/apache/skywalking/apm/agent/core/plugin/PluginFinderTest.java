@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.apache.skywalking.apm.agent.core.plugin.interceptor.ConstructorInterceptPoint;
+import org.apache.skywalking.apm.agent.core.plugin.interceptor.InstanceMethodsInterceptPoint;
+import org.apache.skywalking.apm.agent.core.plugin.interceptor.enhance.ClassInstanceMethodsEnhancePluginDefine;
+import org.apache.skywalking.apm.agent.core.plugin.match.ClassMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.IndirectMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.NameMatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.apache.skywalking.apm.agent.core.plugin.match.ClassAnnotationMatch.byClassAnnotationMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.HierarchyMatch.byHierarchyMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.MultiClassNameMatch.byMultiClassMatch;
+import static org.apache.skywalking.apm.agent.core.plugin.match.NameMatch.byName;
+import static org.apache.skywalking.apm.agent.core.plugin.match.PrefixMatch.nameStartsWith;
+import static org.apache.skywalking.apm.agent.core.plugin.match.RegexMatch.byRegexMatch;
+
+public class PluginFinderTest {
+    private static final String PACKAGE = PluginFinderTest.class.getPackage().getName();
+
+    private static final List<AbstractClassEnhancePluginDefine> PLUGINS = Arrays.asList(
+        new TestPluginDefine(byHierarchyMatch(Runnable.class.getName())),
+        new TestPluginDefine(byName(TestTask.class.getName())),
+        new TestPluginDefine(nameStartsWith(PACKAGE + ".PluginFinderTest$Test", PACKAGE + ".PluginFinderTest")),
+        new TestPluginDefine(byClassAnnotationMatch(TestAnnotation.class.getName())),
+        new TestPluginDefine(byClassAnnotationMatch(
+            TestAnnotation.class.getName(), AnotherTestAnnotation.class.getName())),
+        new TestPluginDefine(byHierarchyMatch(Runnable.class.getName(), Callable.class.getName())),
+        new TestPluginDefine(byHierarchyMatch(Thread.class.getName())),
+        new TestPluginDefine(byMultiClassMatch(TestTask.class.getName(), TestThread.class.getName())),
+        new TestPluginDefine(byRegexMatch(".*Callable.*")),
+        new TestPluginDefine(nameStartsWith("java.lang.Thr")),
+        new TestPluginDefine(byHierarchyMatch(AbstractTask.class.getName()))
+    );
+
+    private static final Class<?>[] CLASSES = new Class<?>[] {
+        TestTask.class,
+        TestThread.class,
+        TestCallableTask.class,
+        TestAnnotated.class,
+        TestBothAnnotated.class,
+        Thread.class,
+        Runnable.class,
+        Object.class,
+        String.class
+    };
+
+    @Test
+    public void testFindSameAsEvaluatingEveryPlugin() {
+        PluginFinder finder = new PluginFinder(PLUGINS);
+        for (Class<?> clazz : CLASSES) {
+            TypeDescription typeDescription = TypeDescription.ForLoadedType.of(clazz);
+            Assert.assertEquals(clazz.getName(), findOneByOne(typeDescription), finder.find(typeDescription));
+        }
+    }
+
+    @Test
+    public void testFind() {
+        PluginFinder finder = new PluginFinder(PLUGINS);
+        Assert.assertEquals(
+            Arrays.asList(PLUGINS.get(1), PLUGINS.get(0), PLUGINS.get(2), PLUGINS.get(7), PLUGINS.get(10)),
+            finder.find(TypeDescription.ForLoadedType.of(TestTask.class))
+        );
+        Assert.assertEquals(
+            Arrays.asList(PLUGINS.get(0), PLUGINS.get(2), PLUGINS.get(6), PLUGINS.get(7)),
+            finder.find(TypeDescription.ForLoadedType.of(TestThread.class))
+        );
+        Assert.assertEquals(
+            Arrays.asList(PLUGINS.get(0), PLUGINS.get(2), PLUGINS.get(5), PLUGINS.get(8), PLUGINS.get(10)),
+            finder.find(TypeDescription.ForLoadedType.of(TestCallableTask.class))
+        );
+        Assert.assertEquals(
+            Arrays.asList(PLUGINS.get(2), PLUGINS.get(3), PLUGINS.get(4)),
+            finder.find(TypeDescription.ForLoadedType.of(TestBothAnnotated.class))
+        );
+        Assert.assertTrue(finder.find(TypeDescription.ForLoadedType.of(String.class)).isEmpty());
+    }
+
+    @Test
+    public void testBuildMatch() {
+        ElementMatcher<? super TypeDescription> matcher = new PluginFinder(PLUGINS).buildMatch();
+        Assert.assertTrue(matcher.matches(TypeDescription.ForLoadedType.of(TestAnnotated.class)));
+        Assert.assertTrue(matcher.matches(TypeDescription.ForLoadedType.of(Thread.class)));
+        Assert.assertTrue(matcher.matches(TypeDescription.ForLoadedType.of(TestThread.class)));
+        // The interfaces are matched by the prefix only.
+        Assert.assertTrue(matcher.matches(TypeDescription.ForLoadedType.of(TestRunnable.class)));
+        Assert.assertFalse(matcher.matches(TypeDescription.ForLoadedType.of(Runnable.class)));
+        Assert.assertFalse(matcher.matches(TypeDescription.ForLoadedType.of(String.class)));
+    }
+
+    @Test
+    public void testPrefixTrie() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        Assert.assertTrue(trie.isEmpty());
+        trie.put("org.apache.", "a");
+        trie.put("org.apache.skywalking.", "b");
+        trie.put("org.apache.skywalking.", "a");
+        trie.put("com.", "c");
+        Assert.assertFalse(trie.isEmpty());
+
+        List<String> result = new ArrayList<>();
+        trie.collect("org.apache.skywalking.Test", result);
+        Assert.assertEquals(Arrays.asList("a", "b"), result);
+        result.clear();
+        trie.collect("org.apache.", result);
+        Assert.assertEquals(Arrays.asList("a"), result);
+        result.clear();
+        trie.collect("org.apach", result);
+        Assert.assertTrue(result.isEmpty());
+
+        Assert.assertTrue(trie.matches("com.Test"));
+        Assert.assertFalse(trie.matches("co"));
+    }
+
+    /**
+     * The way of finding before the plugins were indexed.
+     */
+    static List<AbstractClassEnhancePluginDefine> findOneByOne(List<AbstractClassEnhancePluginDefine> plugins,
+                                                                TypeDescription typeDescription) {
+        List<AbstractClassEnhancePluginDefine> matched = new ArrayList<>();
+        for (AbstractClassEnhancePluginDefine plugin : plugins) {
+            ClassMatch match = plugin.enhanceClass();
+            if (match instanceof NameMatch && ((NameMatch) match).getClassName().equals(typeDescription.getTypeName())) {
+                matched.add(plugin);
+            }
+        }
+        for (AbstractClassEnhancePluginDefine plugin : plugins) {
+            ClassMatch match = plugin.enhanceClass();
+            if (match instanceof IndirectMatch && ((IndirectMatch) match).isMatch(typeDescription)) {
+                matched.add(plugin);
+            }
+        }
+        return matched;
+    }
+
+    private static List<AbstractClassEnhancePluginDefine> findOneByOne(TypeDescription typeDescription) {
+        return findOneByOne(PLUGINS, typeDescription);
+    }
+
+    static class TestPluginDefine extends ClassInstanceMethodsEnhancePluginDefine {
+        private final ClassMatch match;
+
+        TestPluginDefine(ClassMatch match) {
+            this.match = match;
+        }
+
+        @Override
+        protected ClassMatch enhanceClass() {
+            return match;
+        }
+
+        @Override
+        public ConstructorInterceptPoint[] getConstructorsInterceptPoints() {
+            return new ConstructorInterceptPoint[0];
+        }
+
+        @Override
+        public InstanceMethodsInterceptPoint[] getInstanceMethodsInterceptPoints() {
+            return new InstanceMethodsInterceptPoint[0];
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface TestAnnotation {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface AnotherTestAnnotation {
+    }
+
+    public interface TestRunnable extends Runnable {
+    }
+
+    public abstract static class AbstractTask implements TestRunnable {
+    }
+
+    public static class TestTask extends AbstractTask {
+        @Override
+        public void run() {
+        }
+    }
+
+    public static class TestThread extends Thread {
+    }
+
+    public static class TestCallableTask extends TestTask implements Callable<String> {
+        @Override
+        public String call() {
+            return null;
+        }
+    }
+
+    @TestAnnotation
+    public static class TestAnnotated {
+    }
+
+    @TestAnnotation
+    @AnotherTestAnnotation
+    public static class TestBothAnnotated {
+    }
+}
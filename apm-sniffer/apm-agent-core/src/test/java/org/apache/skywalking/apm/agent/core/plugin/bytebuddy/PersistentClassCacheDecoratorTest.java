@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin.bytebuddy;
+
+import java.io.File;
+import java.lang.instrument.ClassFileTransformer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.agent.builder.ResettableClassFileTransformer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PersistentClassCacheDecoratorTest {
+    private static final byte[] UNTRANSFORMED = {1, 2, 3};
+    private static final byte[] ENHANCED = {4, 5, 6};
+    private static final byte[] TRANSFORMED = {7, 8, 9};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReuseAcrossRestarts() throws Exception {
+        File root = temporaryFolder.getRoot();
+        ResettableClassFileTransformer delegate = mockTransformer();
+        PersistentClassCacheDecorator first = new PersistentClassCacheDecorator(root, "fingerprint");
+        ClassFileTransformer transformer = first.decorate(delegate);
+        Assert.assertNull(transform(transformer, "a/Plain", UNTRANSFORMED));
+        Assert.assertArrayEquals(TRANSFORMED, transform(transformer, "a/Enhanced", ENHANCED));
+        // Found in the memory of the same JVM.
+        Assert.assertNull(transform(transformer, "a/Plain", UNTRANSFORMED));
+        Assert.assertEquals(1, first.getHits());
+        Assert.assertEquals(2, first.getMisses());
+        first.flush();
+
+        // Simulate the restart.
+        ResettableClassFileTransformer restartedDelegate = mockTransformer();
+        PersistentClassCacheDecorator second = new PersistentClassCacheDecorator(root, "fingerprint");
+        transformer = second.decorate(restartedDelegate);
+        Assert.assertNull(transform(transformer, "a/Plain", UNTRANSFORMED));
+        Assert.assertArrayEquals(TRANSFORMED, transform(transformer, "a/Enhanced", ENHANCED));
+        verify(restartedDelegate, never()).transform(any(), eq("a/Plain"), any(), any(), any());
+        Assert.assertEquals(1, second.getHits());
+
+        // The changed class bytes are not matched.
+        Assert.assertNull(transform(transformer, "a/Plain", new byte[] {1, 2, 3, 4}));
+        verify(restartedDelegate, times(1)).transform(any(), eq("a/Plain"), any(), any(), any());
+
+        // Another fingerprint starts a new cache.
+        PersistentClassCacheDecorator other = new PersistentClassCacheDecorator(root, "other");
+        transformer = other.decorate(mockTransformer());
+        Assert.assertNull(transform(transformer, "a/Plain", UNTRANSFORMED));
+        Assert.assertEquals(0, other.getHits());
+    }
+
+    @Test
+    public void testFailedTransformationNotCached() throws Exception {
+        PersistentClassCacheDecorator decorator = new PersistentClassCacheDecorator(
+            temporaryFolder.getRoot(), "fingerprint");
+        AgentBuilder.Listener listener = decorator.listener();
+        ResettableClassFileTransformer delegate = mock(ResettableClassFileTransformer.class);
+        when(delegate.transform(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            listener.onError(invocation.getArgument(1), null, null, false, new IllegalStateException());
+            return null;
+        });
+        ClassFileTransformer transformer = decorator.decorate(delegate);
+        Assert.assertNull(transform(transformer, "a/Failed", UNTRANSFORMED));
+        Assert.assertNull(transform(transformer, "a/Failed", UNTRANSFORMED));
+        Assert.assertEquals(0, decorator.getHits());
+        verify(delegate, times(2)).transform(any(), eq("a/Failed"), any(), any(), any());
+    }
+
+    @Test
+    public void testRedefinitionBypassesCache() throws Exception {
+        ResettableClassFileTransformer delegate = mockTransformer();
+        PersistentClassCacheDecorator decorator = new PersistentClassCacheDecorator(
+            temporaryFolder.getRoot(), "fingerprint");
+        ClassFileTransformer transformer = decorator.decorate(delegate);
+        Assert.assertNull(transform(transformer, "a/Plain", UNTRANSFORMED));
+        Assert.assertNull(transformer.transform(null, "a/Plain", String.class, null, UNTRANSFORMED));
+        verify(delegate, times(2)).transform(any(), eq("a/Plain"), any(), any(), any());
+    }
+
+    @Test
+    public void testOnlyClasspathClassesCached() throws Exception {
+        File appJar = temporaryFolder.newFile("app.jar");
+        File webappJar = temporaryFolder.newFile("webapp.jar");
+        ResettableClassFileTransformer delegate = mockTransformer();
+        PersistentClassCacheDecorator decorator = new PersistentClassCacheDecorator(
+            temporaryFolder.newFolder("cache"), "fingerprint", Collections.singletonList(appJar.getPath()));
+        ClassFileTransformer transformer = decorator.decorate(delegate);
+        ClassLoader loader = new URLClassLoader(new URL[0], null);
+
+        // The class of a nested jar in the fat jar on the classpath.
+        ProtectionDomain nested = protectionDomain(new URL("jar:" + appJar.toURI().toURL() + "!/lib/a.jar!/"));
+        transformer.transform(loader, "a/Nested", null, nested, UNTRANSFORMED);
+        transformer.transform(loader, "a/Nested", null, nested, UNTRANSFORMED);
+        verify(delegate, times(1)).transform(any(), eq("a/Nested"), any(), any(), any());
+
+        // The super types of the class deployed out of the classpath are not covered by the fingerprint.
+        ProtectionDomain webapp = protectionDomain(webappJar.toURI().toURL());
+        transformer.transform(loader, "a/Webapp", null, webapp, UNTRANSFORMED);
+        transformer.transform(loader, "a/Webapp", null, webapp, UNTRANSFORMED);
+        verify(delegate, times(2)).transform(any(), eq("a/Webapp"), any(), any(), any());
+        Assert.assertEquals(1, decorator.getHits());
+    }
+
+    private static ProtectionDomain protectionDomain(URL location) {
+        return new ProtectionDomain(new CodeSource(location, (Certificate[]) null), null);
+    }
+
+    private static byte[] transform(ClassFileTransformer transformer, String className,
+                                    byte[] classfileBuffer) throws Exception {
+        return transformer.transform(null, className, null, null, classfileBuffer);
+    }
+
+    private static ResettableClassFileTransformer mockTransformer() throws Exception {
+        ResettableClassFileTransformer delegate = mock(ResettableClassFileTransformer.class);
+        when(delegate.transform(any(), any(), any(), any(), any())).thenAnswer(
+            invocation -> invocation.getArgument(1).equals("a/Enhanced") ? TRANSFORMED : null);
+        return delegate;
+    }
+}
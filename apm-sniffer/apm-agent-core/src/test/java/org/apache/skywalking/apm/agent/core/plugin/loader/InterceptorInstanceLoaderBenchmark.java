@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin.loader;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare {@link InterceptorInstanceLoader} with the string keyed cache it used to be, looking up the interceptors of
+ * {@link #LOADER_COUNT} class loaders, like web applications in one container, from 4 threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+public class InterceptorInstanceLoaderBenchmark {
+    private static final int LOADER_COUNT = 50;
+    private static final String[] INTERCEPTORS = new String[] {
+        InterceptorInstanceLoaderTest.TestInterceptor.class.getName(),
+        InterceptorInstanceLoaderTest.AnotherTestInterceptor.class.getName()
+    };
+
+    @State(Scope.Benchmark)
+    public static class ClassLoaders {
+        private final ClassLoader[] loaders = new ClassLoader[LOADER_COUNT];
+
+        @Setup
+        public void setup() throws Exception {
+            for (int i = 0; i < LOADER_COUNT; i++) {
+                loaders[i] = new URLClassLoader(new URL[0], InterceptorInstanceLoaderBenchmark.class.getClassLoader());
+                for (String interceptor : INTERCEPTORS) {
+                    InterceptorInstanceLoader.load(interceptor, loaders[i]);
+                    StringKeyedLoader.load(interceptor, loaders[i]);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public Object load(ClassLoaders classLoaders, Cursor cursor) throws Exception {
+        int next = cursor.next++;
+        return InterceptorInstanceLoader.load(
+            INTERCEPTORS[next & 1], classLoaders.loaders[(next >>> 1) % LOADER_COUNT]);
+    }
+
+    @Benchmark
+    public Object loadByStringKey(ClassLoaders classLoaders, Cursor cursor) throws Exception {
+        int next = cursor.next++;
+        return StringKeyedLoader.load(INTERCEPTORS[next & 1], classLoaders.loaders[(next >>> 1) % LOADER_COUNT]);
+    }
+
+    /**
+     * The previous implementation of {@link InterceptorInstanceLoader#load(String, ClassLoader)}.
+     */
+    private static class StringKeyedLoader {
+        private static final ConcurrentHashMap<String, Object> INSTANCE_CACHE = new ConcurrentHashMap<>();
+        private static final ReentrantLock INSTANCE_LOAD_LOCK = new ReentrantLock();
+        private static final Map<ClassLoader, ClassLoader> EXTEND_PLUGIN_CLASSLOADERS = new HashMap<>();
+
+        private static Object load(String className, ClassLoader targetClassLoader) throws Exception {
+            String instanceKey = className + "_OF_" + targetClassLoader.getClass()
+                                                                       .getName() + "@" + Integer.toHexString(
+                targetClassLoader.hashCode());
+            Object inst = INSTANCE_CACHE.get(instanceKey);
+            if (inst == null) {
+                INSTANCE_LOAD_LOCK.lock();
+                ClassLoader pluginLoader;
+                try {
+                    pluginLoader = EXTEND_PLUGIN_CLASSLOADERS.get(targetClassLoader);
+                    if (pluginLoader == null) {
+                        pluginLoader = new AgentClassLoader(targetClassLoader);
+                        EXTEND_PLUGIN_CLASSLOADERS.put(targetClassLoader, pluginLoader);
+                    }
+                } finally {
+                    INSTANCE_LOAD_LOCK.unlock();
+                }
+                inst = Class.forName(className, true, pluginLoader).newInstance();
+                INSTANCE_CACHE.put(instanceKey, inst);
+            }
+            return inst;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(InterceptorInstanceLoaderBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
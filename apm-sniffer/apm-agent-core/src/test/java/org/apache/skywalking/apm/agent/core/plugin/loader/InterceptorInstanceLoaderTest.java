@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.plugin.loader;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InterceptorInstanceLoaderTest {
+    @Test
+    public void testSingletonPerClassLoader() throws Exception {
+        ClassLoader loader1 = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ClassLoader loader2 = new URLClassLoader(new URL[0], getClass().getClassLoader());
+
+        Object instance = InterceptorInstanceLoader.load(TestInterceptor.class.getName(), loader1);
+        Assert.assertTrue(instance instanceof TestInterceptor);
+        Assert.assertSame(instance, InterceptorInstanceLoader.load(TestInterceptor.class.getName(), loader1));
+        Assert.assertNotSame(instance, InterceptorInstanceLoader.load(TestInterceptor.class.getName(), loader2));
+        Assert.assertNotSame(instance, InterceptorInstanceLoader.load(AnotherTestInterceptor.class.getName(), loader1));
+    }
+
+    @Test
+    public void testBootstrapClassLoader() throws Exception {
+        Object instance = InterceptorInstanceLoader.load(TestInterceptor.class.getName(), null);
+        ClassLoader agentClassLoader = InterceptorInstanceLoader.class.getClassLoader();
+        Assert.assertSame(instance, InterceptorInstanceLoader.load(TestInterceptor.class.getName(), agentClassLoader));
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        final ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit((Callable<Object>) () -> {
+                    start.await();
+                    return InterceptorInstanceLoader.load(TestInterceptor.class.getName(), loader);
+                }));
+            }
+            start.countDown();
+            Object instance = futures.get(0).get();
+            for (Future<Object> future : futures) {
+                Assert.assertSame(instance, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testClassNotFound() throws Exception {
+        InterceptorInstanceLoader.load("org.apache.skywalking.NotExistInterceptor", getClass().getClassLoader());
+    }
+
+    public static class TestInterceptor {
+    }
+
+    public static class AnotherTestInterceptor {
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.profile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The cost of one dump period of {@link ProfileThread}, with {@link #THREAD_COUNT} profiling threads waiting at the
+ * depth of {@link #STACK_DEPTH}, the default max parallel of the profiling.
+ * <ul>
+ *     <li>{@link #dumpOneByOneWithoutReuse()}: {@link Thread#getStackTrace()} of every thread, and build all the code
+ *     signatures, as the profiler did before the batch dump.</li>
+ *     <li>{@link #dumpOneByOne()}: {@link ThreadProfiler#buildSnapshot()} of every thread.</li>
+ *     <li>{@link #dumpInBatch()}: one {@link ThreadMXBean#getThreadInfo(long[], int)} for all the threads.</li>
+ * </ul>
+ * Every {@link Thread#getStackTrace()} is a safepoint, so the time of the one by one dumps is mostly spent with all the
+ * application threads stopped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ThreadDumpBenchmark {
+    private static final int THREAD_COUNT = 5;
+    private static final int STACK_DEPTH = 100;
+
+    private final Thread[] threads = new Thread[THREAD_COUNT];
+    private final ThreadProfiler[] profilers = new ThreadProfiler[THREAD_COUNT];
+    private final long[] threadIds = new long[THREAD_COUNT];
+    private final CountDownLatch stop = new CountDownLatch(1);
+    private ThreadMXBean threadMXBean;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            threads[i] = new Thread(() -> waitAtDepth(STACK_DEPTH, started));
+            threads[i].setDaemon(true);
+            threads[i].start();
+            threadIds[i] = threads[i].getId();
+            profilers[i] = ThreadProfilerTest.newProfiler(threads[i]);
+        }
+        started.await();
+        threadMXBean = ManagementFactory.getThreadMXBean();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stop.countDown();
+    }
+
+    private void waitAtDepth(int depth, CountDownLatch started) {
+        if (depth > 0) {
+            waitAtDepth(depth - 1, started);
+            return;
+        }
+        started.countDown();
+        try {
+            stop.await();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @Benchmark
+    public void dumpOneByOneWithoutReuse(Blackhole blackhole) {
+        for (Thread thread : threads) {
+            StackTraceElement[] stackTrace = thread.getStackTrace();
+            int dumpElementCount = Math.min(stackTrace.length, Config.Profile.DUMP_MAX_STACK_DEPTH);
+            ArrayList<String> stackList = new ArrayList<>(dumpElementCount);
+            for (int i = dumpElementCount - 1; i >= 0; i--) {
+                StackTraceElement element = stackTrace[i];
+                stackList.add(element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber());
+            }
+            blackhole.consume(stackList);
+        }
+    }
+
+    @Benchmark
+    public void dumpOneByOne(Blackhole blackhole) {
+        for (ThreadProfiler profiler : profilers) {
+            blackhole.consume(profiler.buildSnapshot());
+        }
+    }
+
+    @Benchmark
+    public void dumpInBatch(Blackhole blackhole) {
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, Config.Profile.DUMP_MAX_STACK_DEPTH);
+        long currentTime = System.currentTimeMillis();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            blackhole.consume(profilers[i].buildSnapshot(threadInfos[i].getStackTrace(), currentTime));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(ThreadDumpBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
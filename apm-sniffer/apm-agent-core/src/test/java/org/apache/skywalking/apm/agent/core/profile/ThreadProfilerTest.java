@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.profile;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.context.TracingContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ThreadProfilerTest {
+    private static final StackTraceElement MAIN = new StackTraceElement("org.Main", "main", "Main.java", 10);
+    private static final StackTraceElement SERVICE = new StackTraceElement("org.Service", "call", "Service.java", 20);
+    private static final StackTraceElement DAO = new StackTraceElement("org.Dao", "query", "Dao.java", 30);
+    private static final StackTraceElement CACHE = new StackTraceElement("org.Cache", "get", "Cache.java", 40);
+
+    private final int dumpMaxStackDepth = Config.Profile.DUMP_MAX_STACK_DEPTH;
+
+    @After
+    public void tearDown() {
+        Config.Profile.DUMP_MAX_STACK_DEPTH = dumpMaxStackDepth;
+    }
+
+    @Test
+    public void testBuildSnapshot() {
+        ThreadProfiler profiler = newProfiler(Thread.currentThread());
+        TracingThreadSnapshot snapshot = profiler.buildSnapshot(new StackTraceElement[] {DAO, SERVICE, MAIN}, 100);
+
+        Assert.assertEquals(0, snapshot.transform().getSequence());
+        Assert.assertEquals(100, snapshot.transform().getTime());
+        Assert.assertEquals(
+            Arrays.asList("org.Main.main:10", "org.Service.call:20", "org.Dao.query:30"),
+            snapshot.transform().getStack().getCodeSignaturesList()
+        );
+        // the thread is not alive
+        Assert.assertNull(profiler.buildSnapshot(new StackTraceElement[0], 110));
+    }
+
+    @Test
+    public void testReuseStackOfLastDump() {
+        ThreadProfiler profiler = newProfiler(Thread.currentThread());
+        List<String> first = stackList(profiler.buildSnapshot(new StackTraceElement[] {DAO, SERVICE, MAIN}, 100));
+        List<String> same = stackList(profiler.buildSnapshot(new StackTraceElement[] {DAO, SERVICE, MAIN}, 110));
+        Assert.assertSame(first, same);
+
+        List<String> deeper = stackList(
+            profiler.buildSnapshot(new StackTraceElement[] {CACHE, DAO, SERVICE, MAIN}, 120));
+        Assert.assertNotSame(first, deeper);
+        Assert.assertEquals(
+            Arrays.asList("org.Main.main:10", "org.Service.call:20", "org.Dao.query:30", "org.Cache.get:40"), deeper);
+        for (int i = 0; i < first.size(); i++) {
+            Assert.assertSame(first.get(i), deeper.get(i));
+        }
+
+        List<String> returned = stackList(profiler.buildSnapshot(new StackTraceElement[] {SERVICE, MAIN}, 130));
+        Assert.assertEquals(Arrays.asList("org.Main.main:10", "org.Service.call:20"), returned);
+        Assert.assertEquals(
+            Arrays.asList("org.Main.main:10", "org.Service.call:20", "org.Dao.query:30", "org.Cache.get:40"), deeper);
+    }
+
+    @Test
+    public void testMaxStackDepth() {
+        Config.Profile.DUMP_MAX_STACK_DEPTH = 2;
+        ThreadProfiler profiler = newProfiler(Thread.currentThread());
+        Assert.assertEquals(
+            Arrays.asList("org.Service.call:20", "org.Dao.query:30"),
+            stackList(profiler.buildSnapshot(new StackTraceElement[] {DAO, SERVICE, MAIN}, 100))
+        );
+    }
+
+    @Test
+    public void testBuildSnapshotByThread() {
+        ThreadProfiler profiler = newProfiler(Thread.currentThread());
+        TracingThreadSnapshot snapshot = profiler.buildSnapshot();
+        Assert.assertTrue(snapshot.transform().getStack().getCodeSignaturesCount() > 0);
+    }
+
+    private static List<String> stackList(TracingThreadSnapshot snapshot) {
+        return Whitebox.getInternalState(snapshot, "stackList");
+    }
+
+    /**
+     * Create a profiler in profiling status, of the given thread.
+     */
+    static ThreadProfiler newProfiler(Thread thread) {
+        ProfileTask task = new ProfileTask();
+        task.setTaskId("task");
+        ProfileTaskExecutionContext executionContext = mock(ProfileTaskExecutionContext.class);
+        when(executionContext.getTask()).thenReturn(task);
+        when(executionContext.isStartProfileable()).thenReturn(true);
+        TracingContext tracingContext = mock(TracingContext.class);
+        when(tracingContext.profileStatus()).thenReturn(ProfileStatusReference.createWithPending());
+
+        ThreadProfiler profiler = new ThreadProfiler(tracingContext, "segment", thread, executionContext);
+        profiler.startProfilingIfNeed();
+        return profiler;
+    }
+}
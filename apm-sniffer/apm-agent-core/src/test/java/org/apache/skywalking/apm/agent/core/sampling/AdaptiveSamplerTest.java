@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveSamplerTest {
+    @Test
+    public void testFairShareDuringSpike() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10);
+        // The only endpoint owns the whole budget.
+        Assert.assertEquals(10, sampled(sampler, "/hot", 1000));
+
+        // The global budget is drained by the hot endpoint, but the new endpoint still has its fair share.
+        Assert.assertEquals(5, sampled(sampler, "/cold", 1000));
+        Assert.assertEquals(0, sampled(sampler, "/hot", 1000));
+        Assert.assertEquals(2, sampler.getEndpointCount());
+    }
+
+    @Test
+    public void testForceSampledTakesGlobalBudget() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10);
+        sampler.setSegmentsPerSecond(4);
+        for (int i = 0; i < 4; i++) {
+            sampler.forceSampled();
+        }
+        // The fair share is granted, but nothing can be borrowed from the drained global bucket.
+        Assert.assertEquals(4, sampled(sampler, "/api", 1000));
+    }
+
+    @Test
+    public void testEffectiveRate() throws InterruptedException {
+        AdaptiveSampler sampler = new AdaptiveSampler(1000);
+        Assert.assertEquals(100, sampled(sampler, "/api", 100));
+        Thread.sleep(10);
+        sampler.refresh();
+        Assert.assertTrue(sampler.getEffectiveRate() > 0);
+        sampler.refresh();
+        Assert.assertEquals(0, sampler.getEffectiveRate(), 0);
+    }
+
+    private static int sampled(AdaptiveSampler sampler, String endpoint, int times) {
+        int sampled = 0;
+        for (int i = 0; i < times; i++) {
+            if (sampler.trySampling(endpoint)) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenBucketTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testRefill() {
+        TokenBucket bucket = new TokenBucket(10, 10, 0);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(bucket.tryAcquire(0));
+        }
+        Assert.assertFalse(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(99 * MILLIS));
+        Assert.assertTrue(bucket.tryAcquire(100 * MILLIS));
+        Assert.assertFalse(bucket.tryAcquire(100 * MILLIS));
+
+        // Idle time doesn't make the bucket hold more than its capacity.
+        long later = TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(bucket.tryAcquire(later));
+        }
+        Assert.assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    public void testAcquireAboveHalf() {
+        TokenBucket bucket = new TokenBucket(10, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(bucket.tryAcquireAboveHalf(0));
+        }
+        Assert.assertFalse(bucket.tryAcquireAboveHalf(0));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(bucket.tryAcquire(0));
+        }
+        Assert.assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    public void testForceAcquireDebt() {
+        TokenBucket bucket = new TokenBucket(10, 10, 0);
+        for (int i = 0; i < 100; i++) {
+            bucket.forceAcquire(0);
+        }
+        // The debt is capped at one bucket, paid back in one second.
+        Assert.assertFalse(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(1)));
+        Assert.assertTrue(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(1) + 100 * MILLIS));
+    }
+
+    @Test
+    public void testSetRate() {
+        TokenBucket bucket = new TokenBucket(10, 10, 0);
+        bucket.setRate(2, 2);
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(499 * MILLIS));
+        Assert.assertTrue(bucket.tryAcquire(500 * MILLIS));
+    }
+}
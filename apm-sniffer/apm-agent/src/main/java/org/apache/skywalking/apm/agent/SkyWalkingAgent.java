@@ -18,10 +18,12 @@
 
 package org.apache.skywalking.apm.agent;
 
+import java.io.File;
 import java.lang.instrument.Instrumentation;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.builder.AgentBuilder;
@@ -33,12 +35,14 @@ import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 import org.apache.skywalking.apm.agent.core.boot.AgentPackageNotFoundException;
+import org.apache.skywalking.apm.agent.core.boot.AgentPackagePath;
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.SnifferConfigInitializer;
 import org.apache.skywalking.apm.agent.core.jvm.LoadedLibraryCollector;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
+import org.apache.skywalking.apm.agent.core.meter.MeterFactory;
 import org.apache.skywalking.apm.agent.core.plugin.AbstractClassEnhancePluginDefine;
 import org.apache.skywalking.apm.agent.core.plugin.EnhanceContext;
 import org.apache.skywalking.apm.agent.core.plugin.InstrumentDebuggingClass;
@@ -47,7 +51,9 @@ import org.apache.skywalking.apm.agent.core.plugin.PluginException;
 import org.apache.skywalking.apm.agent.core.plugin.PluginFinder;
 import org.apache.skywalking.apm.agent.core.plugin.bootstrap.BootstrapInstrumentBoost;
 import org.apache.skywalking.apm.agent.core.plugin.bytebuddy.CacheableTransformerDecorator;
+import org.apache.skywalking.apm.agent.core.plugin.bytebuddy.PersistentClassCacheDecorator;
 import org.apache.skywalking.apm.agent.core.plugin.jdk9module.JDK9ModuleExporter;
+import org.apache.skywalking.apm.util.StringUtil;
 
 import static net.bytebuddy.matcher.ElementMatchers.nameContains;
 import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
@@ -67,6 +73,7 @@ public class SkyWalkingAgent {
     // Main入口. 使用byte-buddy字节码增强plugins
     public static void premain(String agentArgs, Instrumentation instrumentation) throws PluginException {
         final PluginFinder pluginFinder;
+        final List<String> pluginDefineNames;
         try {
             // 初始化配置文件信息
             SnifferConfigInitializer.initializeCoreConfig(agentArgs);
@@ -83,7 +90,9 @@ public class SkyWalkingAgent {
 
         try {
             // 加载所有插件
-            pluginFinder = new PluginFinder(new PluginBootstrap().loadPlugins());
+            List<AbstractClassEnhancePluginDefine> plugins = new PluginBootstrap().loadPlugins();
+            pluginDefineNames = plugins.stream().map(plugin -> plugin.getClass().getName()).collect(Collectors.toList());
+            pluginFinder = new PluginFinder(plugins);
         } catch (AgentPackageNotFoundException ape) {
             LOGGER.error(ape, "Locate agent.jar failure. Shutting down.");
             return;
@@ -131,6 +140,21 @@ public class SkyWalkingAgent {
                 LOGGER.error(e, "SkyWalking agent can't active class cache.");
             }
         }
+        PersistentClassCacheDecorator persistentClassCache = null;
+        if (StringUtil.isNotEmpty(Config.Agent.PERSISTENT_CLASS_CACHE_PATH)) {
+            try {
+                File cacheRoot = new File(Config.Agent.PERSISTENT_CLASS_CACHE_PATH);
+                if (!cacheRoot.isAbsolute()) {
+                    cacheRoot = new File(AgentPackagePath.getPath(), Config.Agent.PERSISTENT_CLASS_CACHE_PATH);
+                }
+                persistentClassCache = new PersistentClassCacheDecorator(
+                    cacheRoot, PersistentClassCacheDecorator.fingerprint(pluginDefineNames));
+                agentBuilder = agentBuilder.with(persistentClassCache).with(persistentClassCache.listener());
+                LOGGER.info("SkyWalking agent persistent class cache [{}] activated.", cacheRoot);
+            } catch (Exception e) {
+                LOGGER.error(e, "SkyWalking agent can't active persistent class cache.");
+            }
+        }
         // 通过插件增强的类
         agentBuilder.type(pluginFinder.buildMatch())
                     //Transformer 实际增强的方法
@@ -147,6 +171,16 @@ public class SkyWalkingAgent {
         } catch (Exception e) {
             LOGGER.error(e, "Skywalking agent boot failure.");
         }
+        if (persistentClassCache != null) {
+            final PersistentClassCacheDecorator classCache = persistentClassCache;
+            MeterFactory.gauge("persistent_class_cache_hits", () -> (double) classCache.getHits()).build();
+            MeterFactory.gauge("persistent_class_cache_misses", () -> (double) classCache.getMisses()).build();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                classCache.flush();
+                LOGGER.info(
+                    "Persistent class cache: {} hits, {} misses.", classCache.getHits(), classCache.getMisses());
+            }, "skywalking class cache flush thread"));
+        }
         // 注册JVM的关闭钩子，当服务关闭时，调用shutdown方法释放资源。
         Runtime.getRuntime()
                 .addShutdownHook(new Thread(ServiceManager.INSTANCE::shutdown, "skywalking service shutdown thread"));
@@ -127,6 +127,13 @@ public class KafkaProducerManager implements BootService, Runnable {
                 return;
             }
     
+            if (KafkaReporterPluginConfig.Plugin.Kafka.SEGMENT_ENVELOPE_ENABLE
+                && !properties.containsKey(ProducerConfig.COMPRESSION_TYPE_CONFIG)) {
+                properties.setProperty(
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG,
+                    KafkaReporterPluginConfig.Plugin.Kafka.SEGMENT_ENVELOPE_COMPRESSION_TYPE
+                );
+            }
             try {
                 producer = new KafkaProducer<>(properties, new StringSerializer(), new BytesSerializer());
             } catch (Exception e) {
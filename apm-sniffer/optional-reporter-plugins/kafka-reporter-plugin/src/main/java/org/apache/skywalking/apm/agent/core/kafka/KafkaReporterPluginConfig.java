@@ -50,6 +50,29 @@ public class KafkaReporterPluginConfig {
              * Timeout period of reading topics from the Kafka server, the unit is second.
              */
             public static int GET_TOPIC_TIMEOUT = 10;
+
+            /**
+             * Pack many segments into one record, as a SegmentCollection, instead of one record per segment. The OAP
+             * kafka fetcher must be able to decode the envelopes, so upgrade the OAP first.
+             */
+            public static boolean SEGMENT_ENVELOPE_ENABLE = false;
+
+            /**
+             * The max size of an envelope in bytes, before compression. Keep it less than <B>max.request.size</B> of
+             * the producer.
+             */
+            public static int SEGMENT_ENVELOPE_MAX_SIZE = 512 * 1024;
+
+            /**
+             * The max time a segment waits in the envelope before sent, the unit is millisecond.
+             */
+            public static long SEGMENT_ENVELOPE_LINGER_MS = 1000;
+
+            /**
+             * The <B>compression.type</B> of the producer, when the envelopes are enabled and it isn't set in {@link
+             * #PRODUCER_CONFIG}. The whole envelope is compressed in one record batch, lz4 and zstd are recommended.
+             */
+            public static String SEGMENT_ENVELOPE_COMPRESSION_TYPE = "lz4";
         }
     }
 }
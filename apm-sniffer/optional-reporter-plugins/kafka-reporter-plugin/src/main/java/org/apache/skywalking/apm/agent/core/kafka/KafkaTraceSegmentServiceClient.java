@@ -28,20 +28,22 @@ import org.apache.skywalking.apm.agent.core.boot.OverrideImplementor;
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
 import org.apache.skywalking.apm.agent.core.context.TracingContext;
 import org.apache.skywalking.apm.agent.core.context.TracingContextListener;
+import org.apache.skywalking.apm.agent.core.context.trace.SegmentObjectWriter;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
+import org.apache.skywalking.apm.agent.core.context.trace.TracingObjectPool;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
 import org.apache.skywalking.apm.agent.core.remote.TraceSegmentServiceClient;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
-import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
 
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.BUFFER_SIZE;
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.CHANNEL_SIZE;
 
 /**
- * A tracing segment data reporter.
+ * A tracing segment data reporter. Sends one record per segment, or packs the segments into {@link SegmentEnvelope}s,
+ * flushed when full or expired, if {@link KafkaReporterPluginConfig.Plugin.Kafka#SEGMENT_ENVELOPE_ENABLE}.
  */
 @OverrideImplementor(TraceSegmentServiceClient.class)
 public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<TraceSegment>, TracingContextListener, KafkaConnectionStatusListener {
@@ -51,6 +53,14 @@ public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<Tr
     private KafkaProducer<String, Bytes> producer;
 
     private volatile DataCarrier<TraceSegment> carrier;
+    /**
+     * Only used by the consumer thread.
+     */
+    private final SegmentObjectWriter segmentWriter = new SegmentObjectWriter();
+    /**
+     * Only used by the consumer thread, null if the envelopes are disabled.
+     */
+    private SegmentEnvelope envelope;
 
     @Override
     public void prepare() {
@@ -61,6 +71,12 @@ public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<Tr
 
     @Override
     public void boot() {
+        if (KafkaReporterPluginConfig.Plugin.Kafka.SEGMENT_ENVELOPE_ENABLE) {
+            envelope = new SegmentEnvelope(
+                KafkaReporterPluginConfig.Plugin.Kafka.SEGMENT_ENVELOPE_MAX_SIZE,
+                KafkaReporterPluginConfig.Plugin.Kafka.SEGMENT_ENVELOPE_LINGER_MS
+            );
+        }
         carrier = new DataCarrier<>(CHANNEL_SIZE, BUFFER_SIZE, BufferStrategy.IF_POSSIBLE);
         carrier.consume(this, 1);
     }
@@ -86,18 +102,46 @@ public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<Tr
         if (producer == null) {
             return;
         }
+        long now = System.currentTimeMillis();
         data.forEach(traceSegment -> {
-            SegmentObject upstreamSegment = traceSegment.transform();
-            ProducerRecord<String, Bytes> record = new ProducerRecord<>(
-                topic,
-                upstreamSegment.getTraceSegmentId(),
-                Bytes.wrap(upstreamSegment.toByteArray())
-            );
-            producer.send(record, (m, e) -> {
-                if (Objects.nonNull(e)) {
-                    LOGGER.error("Failed to report TraceSegment.", e);
-                }
-            });
+            String traceSegmentId = traceSegment.getTraceSegmentId();
+            byte[] upstreamSegment = segmentWriter.write(traceSegment);
+            TracingObjectPool.recycle(traceSegment);
+            if (envelope == null) {
+                send(traceSegmentId, upstreamSegment);
+                return;
+            }
+            if (!envelope.hasRoomFor(upstreamSegment)) {
+                sendEnvelope();
+            }
+            envelope.add(traceSegmentId, upstreamSegment, now);
+        });
+        if (envelope != null && envelope.isExpired(now)) {
+            sendEnvelope();
+        }
+    }
+
+    @Override
+    public void nothingToConsume() {
+        if (envelope != null && envelope.isExpired(System.currentTimeMillis()) && producer != null) {
+            sendEnvelope();
+        }
+    }
+
+    private void sendEnvelope() {
+        if (LOGGER.isDebugEnable()) {
+            LOGGER.debug("Trace segment envelope reporting, segments: {}", envelope.count());
+        }
+        String key = envelope.key();
+        send(key, envelope.drain());
+    }
+
+    private void send(String key, byte[] value) {
+        ProducerRecord<String, Bytes> record = new ProducerRecord<>(topic, key, Bytes.wrap(value));
+        producer.send(record, (m, e) -> {
+            if (Objects.nonNull(e)) {
+                LOGGER.error("Failed to report TraceSegment.", e);
+            }
         });
     }
 
@@ -108,7 +152,9 @@ public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<Tr
 
     @Override
     public void onExit() {
-
+        if (envelope != null && !envelope.isEmpty() && producer != null) {
+            sendEnvelope();
+        }
     }
 
     @Override
@@ -119,9 +165,12 @@ public class KafkaTraceSegmentServiceClient implements BootService, IConsumer<Tr
 
         if (traceSegment.isIgnore()) {
             LOGGER.debug("Trace[TraceId={}] is ignored.", traceSegment.getTraceSegmentId());
+            TracingObjectPool.recycle(traceSegment);
             return;
         }
-        carrier.produce(traceSegment);
+        if (!carrier.produce(traceSegment)) {
+            TracingObjectPool.recycle(traceSegment);
+        }
     }
 
     @Override
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.kafka;
+
+import java.io.ByteArrayOutputStream;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
+
+/**
+ * Packs the serialized segments into one {@link SegmentCollection}, which is sent as one record. The segment bytes are
+ * appended as they are, each one after the tag and the length of the repeated message field, as protobuf encodes it.
+ * <p>
+ * The key of an envelope record starts with {@link #KEY_PREFIX}, followed by the id of its first segment, so the
+ * fetcher could tell it from the record of a single segment, keyed by the segment id.
+ * <p>
+ * Not thread safe, only used by the consumer thread of {@link KafkaTraceSegmentServiceClient}.
+ */
+class SegmentEnvelope {
+    static final String KEY_PREFIX = "envelope-";
+    /**
+     * The field number and the length-delimited wire type.
+     */
+    private static final int SEGMENTS_TAG = SegmentCollection.SEGMENTS_FIELD_NUMBER << 3 | 2;
+
+    private final int maxSize;
+    private final long lingerMillis;
+    private final ByteArrayOutputStream buffer;
+    private String key;
+    private int size;
+    private int count;
+    private long firstAddTime;
+
+    SegmentEnvelope(int maxSize, long lingerMillis) {
+        this.maxSize = maxSize;
+        this.lingerMillis = lingerMillis;
+        this.buffer = new ByteArrayOutputStream(Math.min(maxSize, 64 * 1024));
+    }
+
+    /**
+     * @return true if the segment could be added without exceeding the max size. An empty envelope takes any segment.
+     */
+    boolean hasRoomFor(byte[] segment) {
+        return count == 0 || size + sizeOf(segment) <= maxSize;
+    }
+
+    void add(String segmentId, byte[] segment, long now) {
+        if (count == 0) {
+            key = KEY_PREFIX + segmentId;
+            firstAddTime = now;
+        }
+        writeVarint(SEGMENTS_TAG);
+        writeVarint(segment.length);
+        buffer.write(segment, 0, segment.length);
+        size += sizeOf(segment);
+        count++;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return true if the first segment has waited for {@link #lingerMillis}.
+     */
+    boolean isExpired(long now) {
+        return count > 0 && now - firstAddTime >= lingerMillis;
+    }
+
+    String key() {
+        return key;
+    }
+
+    /**
+     * @return the serialized {@link SegmentCollection}, and empty the envelope.
+     */
+    byte[] drain() {
+        byte[] collection = buffer.toByteArray();
+        buffer.reset();
+        key = null;
+        size = 0;
+        count = 0;
+        return collection;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.write(value);
+    }
+
+    private static int sizeOf(byte[] segment) {
+        return varintSize(SEGMENTS_TAG) + varintSize(segment.length) + segment.length;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.agent.core.kafka;
+
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentEnvelopeTest {
+    @Test
+    public void testPackSegments() throws Exception {
+        SegmentEnvelope envelope = new SegmentEnvelope(1024, 1000);
+        assertTrue(envelope.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            envelope.add("segment-" + i, segment(i).toByteArray(), 100);
+        }
+        assertEquals(3, envelope.count());
+        assertEquals(SegmentEnvelope.KEY_PREFIX + "segment-0", envelope.key());
+
+        SegmentCollection collection = SegmentCollection.parseFrom(envelope.drain());
+        assertEquals(3, collection.getSegmentsCount());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(segment(i), collection.getSegments(i));
+        }
+        assertTrue(envelope.isEmpty());
+        assertNull(envelope.key());
+
+        envelope.add("segment-3", segment(3).toByteArray(), 200);
+        collection = SegmentCollection.parseFrom(envelope.drain());
+        assertEquals(1, collection.getSegmentsCount());
+        assertEquals(segment(3), collection.getSegments(0));
+    }
+
+    @Test
+    public void testMaxSize() {
+        byte[] segment = segment(0).toByteArray();
+        SegmentEnvelope envelope = new SegmentEnvelope(segment.length * 2 + 4, 1000);
+        assertTrue(envelope.hasRoomFor(new byte[4096]));
+        envelope.add("segment-0", segment, 100);
+        assertTrue(envelope.hasRoomFor(segment));
+        envelope.add("segment-1", segment, 100);
+        assertFalse(envelope.hasRoomFor(segment));
+    }
+
+    @Test
+    public void testExpired() {
+        SegmentEnvelope envelope = new SegmentEnvelope(1024, 1000);
+        assertFalse(envelope.isExpired(5000));
+        envelope.add("segment-0", segment(0).toByteArray(), 100);
+        envelope.add("segment-1", segment(1).toByteArray(), 900);
+        assertFalse(envelope.isExpired(1099));
+        assertTrue(envelope.isExpired(1100));
+    }
+
+    private static SegmentObject segment(int index) {
+        return SegmentObject.newBuilder()
+                            .setTraceId("trace-" + index)
+                            .setTraceSegmentId("segment-" + index)
+                            .setService("service")
+                            .setServiceInstance("instance")
+                            .build();
+    }
+}
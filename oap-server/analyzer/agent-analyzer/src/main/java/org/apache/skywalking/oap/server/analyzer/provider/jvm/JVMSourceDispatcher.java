@@ -101,7 +101,7 @@ public class JVMSourceDispatcher {
             serviceInstanceJVMGC.setServiceId(serviceId);
             serviceInstanceJVMGC.setServiceName(service);
 
-            switch (gc.getPhrase()) {
+            switch (gc.getPhase()) {
                 case NEW:
                     serviceInstanceJVMGC.setPhrase(GCPhrase.NEW);
                     break;
@@ -52,6 +52,18 @@ public class CoreModuleConfig extends ModuleConfig {
      * The period of L1 aggregation flush. Unit is ms.
      */
     private long l1FlushPeriod = 500;
+    /**
+     * Use the lock-free ring queue as the buffer of L1 aggregation, rather than the ArrayBlockingQueue.
+     *
+     * @since 8.7.0
+     */
+    private boolean enableL1AggregationRingBuffer = false;
+    /**
+     * How the L1 and L2 aggregation consumer threads wait when nothing to consume. SLEEP, BACKOFF or SIGNAL.
+     *
+     * @since 8.7.0
+     */
+    private String aggregationWaitStrategy = "SLEEP";
     /**
      * Enable database flush session.
      */
@@ -89,6 +101,12 @@ public class CoreModuleConfig extends ModuleConfig {
      */
 
     private int remoteTimeout = 20;
+    /**
+     * Send the metrics to other OAP nodes in the compact binary encoding, if the remote node supports it.
+     *
+     * @since 8.7.0
+     */
+    private boolean enableRemoteCompactEncoding = true;
     /**
      * The size of network address alias.
      */
@@ -163,6 +181,83 @@ public class CoreModuleConfig extends ModuleConfig {
     @Getter
     private int prepareThreads = 2;
 
+    /**
+     * Schedule the persistence of every model independently. The prepare stage of the next round could overlap the
+     * flush stage of the previous round, except for the metrics models, which merge with the flushed rows. A slow model
+     * doesn't hold other models from being persisted.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private boolean enablePersistencePipeline = false;
+
+    /**
+     * The max number of metrics cached in the L2 aggregation session of every metrics and down sampling. No limit if
+     * it is not positive.
+     * <p>
+     * A bounded cache keeps a frequency sketch to choose the evicted metrics. It takes 8 bytes per cached metrics,
+     * grows with the cached metrics, and is capped at this limit rounded up to the power of 2 and 1M entries, which is
+     * 8MB. The limit of every worker should be set with the number of metrics and down samplings in mind.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private long metricsSessionCacheMaxEntries = 0;
+
+    /**
+     * The max estimated bytes of metrics cached in the L2 aggregation session of every metrics and down sampling. No
+     * limit if it is not positive.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private long metricsSessionCacheMaxBytes = 0;
+
+    /**
+     * Keep the L2 aggregation session cache in the direct memory, as the serialized metrics. The metrics are
+     * deserialized only when they are merged.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private boolean enableMetricsSessionCacheOffHeap = false;
+
+    /**
+     * The number of stripes of the L2 aggregation cache of every metrics. The writer threads are spread into the stripes
+     * by thread id, so they don't wait for each other. 1 means no stripe.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private int l2AggregationCacheStripes = 1;
+
+    /**
+     * The max number of the time bucket values cached by the metrics queries. The values of a time bucket are cached
+     * once it is persisted, two persistent periods since it ended for the minute step, and six for the hour and day
+     * steps, as the down sampling metrics are persisted every four periods. The queries only read the rest time
+     * buckets from the storage. 0 means no cache.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private long metricsQueryCacheMaxEntries = 0;
+
+    /**
+     * The cached values of the metrics queries expire after this period, so the late metrics of a cached time bucket
+     * are shown eventually. Unit is second.
+     *
+     * @since 8.7.0
+     */
+    @Setter
+    @Getter
+    private long metricsQueryCacheExpireAfterWrite = 600;
+
     @Getter
     @Setter
     private boolean enableEndpointNameGroupingByOpenapi = true;
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.WaitStrategyType;
 import org.apache.skywalking.oap.server.configuration.api.ConfigurationModule;
 import org.apache.skywalking.oap.server.configuration.api.DynamicConfigurationService;
 import org.apache.skywalking.oap.server.core.analysis.ApdexThresholdConfig;
@@ -258,7 +259,7 @@ public class CoreModuleProvider extends ModuleProvider {
         // skywalking - ui面板查询相关
         this.registerServiceImplementation(TopologyQueryService.class, new TopologyQueryService(getManager()));
         this.registerServiceImplementation(MetricsMetadataQueryService.class, new MetricsMetadataQueryService());
-        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager()));
+        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager(), moduleConfig));
         this.registerServiceImplementation(TraceQueryService.class, new TraceQueryService(getManager()));
         this.registerServiceImplementation(BrowserLogQueryService.class, new BrowserLogQueryService(getManager()));
         this.registerServiceImplementation(LogQueryService.class, new LogQueryService(getManager()));
@@ -291,6 +292,7 @@ public class CoreModuleProvider extends ModuleProvider {
         } else {
             this.remoteClientManager = new RemoteClientManager(getManager(), moduleConfig.getRemoteTimeout());
         }
+        this.remoteClientManager.setCompactEncoding(moduleConfig.isEnableRemoteCompactEncoding());
         this.registerServiceImplementation(RemoteClientManager.class, remoteClientManager);
 
         // Management
@@ -309,8 +311,15 @@ public class CoreModuleProvider extends ModuleProvider {
         final MetricsStreamProcessor metricsStreamProcessor = MetricsStreamProcessor.getInstance();
         metricsStreamProcessor.setEnableDatabaseSession(moduleConfig.isEnableDatabaseSession());
         metricsStreamProcessor.setL1FlushPeriod(moduleConfig.getL1FlushPeriod());
+        metricsStreamProcessor.setEnableL1AggregationRingBuffer(moduleConfig.isEnableL1AggregationRingBuffer());
+        metricsStreamProcessor.setAggregationWaitStrategy(
+            WaitStrategyType.fromName(moduleConfig.getAggregationWaitStrategy()));
         metricsStreamProcessor.setStorageSessionTimeout(moduleConfig.getStorageSessionTimeout());
         metricsStreamProcessor.setMetricsDataTTL(moduleConfig.getMetricsDataTTL());
+        metricsStreamProcessor.setSessionCacheMaxEntries(moduleConfig.getMetricsSessionCacheMaxEntries());
+        metricsStreamProcessor.setSessionCacheMaxBytes(moduleConfig.getMetricsSessionCacheMaxBytes());
+        metricsStreamProcessor.setSessionCacheOffHeap(moduleConfig.isEnableMetricsSessionCacheOffHeap());
+        metricsStreamProcessor.setL2CacheStripes(moduleConfig.getL2AggregationCacheStripes());
         TopNStreamProcessor.getInstance().setTopNWorkerReportCycle(moduleConfig.getTopNReportPeriod());
         apdexThresholdConfig = new ApdexThresholdConfig(this);
         ApdexMetrics.setDICT(apdexThresholdConfig);
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+/**
+ * FrequencySketch is a count-min sketch of 4-bit counters, estimating the popularity of the keys in a bounded space.
+ * All counters are halved once the number of increments reaches 10 times of the capacity, so the history fades out.
+ * This is the admission filter of TinyLFU, used by {@link MetricsSessionCache}.
+ * <p>
+ * The table takes 8 bytes per key of the capacity. It starts small and grows with the observed number of cached keys
+ * through {@link #ensureCapacity(int)}, up to the max capacity, so a cache which never fills up doesn't pay for the
+ * sketch of its bound.
+ * <p>
+ * Not thread safe.
+ */
+class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+    private static final int MIN_CAPACITY = 16;
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {
+        0x97cb3127,
+        0xab3f6b59,
+        0xc2b2ae35,
+        0x27d4eb2f
+    };
+
+    /**
+     * Two 4-bit counters per byte.
+     */
+    private final int maxCapacity;
+    private byte[] table;
+    private int mask;
+    private int sampleSize;
+    private int increments;
+
+    /**
+     * @param maxSize the max number of cached keys. There are 16 counters per key, so the keys out of the cache could
+     *                be counted with less collision, same as the sketch of Caffeine.
+     */
+    FrequencySketch(int maxSize) {
+        this.maxCapacity = ceilingPowerOfTwo(Math.max(maxSize, MIN_CAPACITY));
+        resize(MIN_CAPACITY);
+    }
+
+    /**
+     * Grow the table when the number of cached keys exceeds the capacity, the popularity counted so far is dropped,
+     * same as the sketch of Caffeine. The capacity doubles, so this is cheap to call for every new key.
+     */
+    void ensureCapacity(int size) {
+        int capacity = capacity();
+        if (size <= capacity || capacity >= maxCapacity) {
+            return;
+        }
+        resize(Math.min(ceilingPowerOfTwo(size), maxCapacity));
+    }
+
+    /**
+     * @return the number of keys the table is sized for.
+     */
+    int capacity() {
+        return table.length / 8;
+    }
+
+    private void resize(int capacity) {
+        int counters = capacity * 16;
+        this.table = new byte[counters / 2];
+        this.mask = counters - 1;
+        this.sampleSize = capacity * 10;
+        this.increments = 0;
+    }
+
+    /**
+     * Increase the popularity of the key, and fade out the history once the sample size is reached.
+     */
+    void increment(Object key) {
+        increment(key.hashCode());
+    }
+
+    void increment(int keyHash) {
+        int hash = spread(keyHash);
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            added |= incrementAt(indexOf(hash, i));
+        }
+        if (added && ++increments >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @return the estimated popularity of the key, between 0 and 15.
+     */
+    int frequency(Object key) {
+        return frequency(key.hashCode());
+    }
+
+    int frequency(int keyHash) {
+        int hash = spread(keyHash);
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, counterAt(indexOf(hash, i)));
+        }
+        return frequency;
+    }
+
+    private int indexOf(int hash, int depth) {
+        int h = hash * SEEDS[depth];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private int counterAt(int index) {
+        return (table[index >>> 1] >>> ((index & 1) << 2)) & 0x0f;
+    }
+
+    private boolean incrementAt(int index) {
+        int count = counterAt(index);
+        if (count == MAX_COUNT) {
+            return false;
+        }
+        table[index >>> 1] += (byte) (1 << ((index & 1) << 2));
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            // Halve both 4-bit counters in the byte.
+            table[i] = (byte) ((table[i] >>> 1) & 0x77);
+        }
+        increments /= 2;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * The session cache of the L2 aggregation, holding the metrics loaded from the storage, so the following rounds merge
+ * into them without reading the storage again. The implementations are not thread safe, they are only accessed by the
+ * persistence round of one worker.
+ */
+public interface IMetricsSessionCache {
+    /**
+     * @return the cached metrics with the same ID, or null if absent.
+     */
+    Metrics get(Metrics key);
+
+    /**
+     * Cache the metrics, the existing one with the same ID is replaced. The cache may evict entries to keep in the
+     * bounds, including the given one.
+     */
+    void put(Metrics metrics);
+
+    /**
+     * Notify the cache that the metrics returned by {@link #get(Metrics)} has been changed, the implementations not
+     * holding the metrics object need to save it again.
+     */
+    void update(Metrics metrics);
+
+    void remove(Metrics key);
+
+    void clear();
+
+    /**
+     * Remove the metrics not updated in the session timeout.
+     *
+     * @param timestamp the current time in ms.
+     */
+    void expire(long timestamp);
+
+    void setSessionTimeout(long sessionTimeout);
+
+    int size();
+
+    /**
+     * @return the estimated bytes of the cached metrics.
+     */
+    long estimatedBytes();
+}
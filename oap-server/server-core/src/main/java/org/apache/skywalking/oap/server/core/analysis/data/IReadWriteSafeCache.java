@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.List;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+
+/**
+ * The read/write isolated cache of the persistence workers. The writes are accepted into the write buffer, and every
+ * {@link #read()} switches the buffers once and drains the data written before it.
+ */
+public interface IReadWriteSafeCache<T> {
+    /**
+     * Count the writes and reads waiting for the lock.
+     */
+    void setContentionCounter(CounterMetrics contentionCounter);
+
+    /**
+     * Write the data into the write buffer.
+     */
+    void write(T data);
+
+    /**
+     * Write the collection of data into the write buffer.
+     */
+    void write(List<T> data);
+
+    /**
+     * @return the data written since the last read.
+     */
+    List<T> read();
+}
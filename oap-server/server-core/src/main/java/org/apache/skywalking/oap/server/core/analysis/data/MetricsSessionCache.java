@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+
+/**
+ * MetricsSessionCache is the on-heap {@link IMetricsSessionCache}, holding the metrics objects.
+ * <p>
+ * The cache could be bounded by the number of entries and the estimated bytes. The estimated bytes of an entry is the
+ * serialized size of the metrics plus a fixed overhead, computed when the entry is added. Beyond the bounds, the
+ * entries are evicted in the W-TinyLFU way. New entries get into a small LRU window first, the entry leaving the
+ * window is only admitted into the main LRU area when it is accessed more frequently than the victim of the main area,
+ * according to the {@link FrequencySketch}. So the metrics reported once don't flush out the active ones.
+ * <p>
+ * The session timeout is checked through a hashed time wheel. Every entry is checked in the slot of its expected
+ * expiration time, and rescheduled if it is updated later. {@link #expire(long)} only visits the due slots, rather
+ * than all entries.
+ */
+public class MetricsSessionCache implements IMetricsSessionCache {
+    /**
+     * The estimated object overhead of a cached metrics besides its serialized size.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long TICK_MILLIS = 1000;
+    /**
+     * The percentage of the window area.
+     */
+    private static final int WINDOW_PERCENT = 1;
+
+    private final long maxEntries;
+    private final long maxBytes;
+    private final Map<Metrics, Node> data;
+    private final FrequencySketch sketch;
+    private final AccessQueue window;
+    private final AccessQueue main;
+    private final List<Node>[] wheel;
+    private long lastTick;
+    private long sessionTimeout;
+    private long estimatedBytes;
+
+    private final SessionCacheTelemetry telemetry;
+
+    /**
+     * @param maxEntries     the max number of cached metrics, no limit if it is not positive.
+     * @param maxBytes       the max estimated bytes of cached metrics, no limit if it is not positive.
+     * @param sessionTimeout the metrics not updated in this period expire. Unit is ms.
+     * @param metricsCreator creates the hit, miss and eviction telemetry of the cache.
+     * @param metricsName    the name of the cached metrics, as the tag of the telemetry.
+     * @param downsampling   the down sampling of the cached metrics, as the tag of the telemetry.
+     */
+    @SuppressWarnings("unchecked")
+    public MetricsSessionCache(long maxEntries, long maxBytes, long sessionTimeout, MetricsCreator metricsCreator,
+                               String metricsName, String downsampling) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.sessionTimeout = sessionTimeout;
+        this.data = new HashMap<>(100);
+        this.window = new AccessQueue();
+        this.main = new AccessQueue();
+        if (isBounded()) {
+            // Without the entry limit, assume every metrics takes 1KB to bound the sketch.
+            long expectedSize = maxEntries > 0 ? maxEntries : maxBytes / 1024;
+            this.sketch = new FrequencySketch((int) Math.min(expectedSize, 1 << 20));
+        } else {
+            this.sketch = null;
+        }
+        this.wheel = new List[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.lastTick = System.currentTimeMillis() / TICK_MILLIS;
+        this.telemetry = new SessionCacheTelemetry(metricsCreator, metricsName, downsampling);
+    }
+
+    @Override
+    public void setSessionTimeout(long sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * Look up the cached metrics with the same ID, and record the access in the hit/miss telemetry and the popularity.
+     */
+    @Override
+    public Metrics get(Metrics key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Node node = data.get(key);
+        if (node == null) {
+            telemetry.missCounter.inc();
+            return null;
+        }
+        telemetry.hitCounter.inc();
+        node.queue.moveToTail(node);
+        return node.metrics;
+    }
+
+    /**
+     * Same as {@link #get(Metrics)}, but the access is not recorded.
+     */
+    public Metrics peek(Metrics key) {
+        Node node = data.get(key);
+        return node == null ? null : node.metrics;
+    }
+
+    @Override
+    public void put(Metrics metrics) {
+        Node node = data.get(metrics);
+        if (node != null) {
+            AccessQueue queue = node.queue;
+            queue.remove(node);
+            node.metrics = metrics;
+            updateWeight(node);
+            queue.add(node);
+        } else {
+            node = new Node(metrics);
+            updateWeight(node);
+            data.put(metrics, node);
+            window.add(node);
+            schedule(node, System.currentTimeMillis() / TICK_MILLIS);
+            if (sketch != null) {
+                sketch.ensureCapacity(data.size());
+            }
+        }
+        evictIfNeeded();
+        updateGauges();
+    }
+
+    /**
+     * The cached metrics object is changed in place, nothing to do.
+     */
+    @Override
+    public void update(Metrics metrics) {
+    }
+
+    @Override
+    public void remove(Metrics key) {
+        Node node = data.remove(key);
+        if (node != null) {
+            unlink(node);
+            updateGauges();
+        }
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+        window.clear();
+        main.clear();
+        for (List<Node> slot : wheel) {
+            slot.clear();
+        }
+        estimatedBytes = 0;
+        updateGauges();
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Remove the metrics not updated in the session timeout, by visiting the slots passed since the last call.
+     */
+    @Override
+    public void expire(long timestamp) {
+        long currentTick = timestamp / TICK_MILLIS;
+        long fromTick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            int index = (int) (tick & (WHEEL_SLOTS - 1));
+            List<Node> slot = wheel[index];
+            wheel[index] = new ArrayList<>();
+            for (Node node : slot) {
+                if (node.removed) {
+                    continue;
+                }
+                if (node.scheduledTick > currentTick) {
+                    // Scheduled in the following revolutions.
+                    wheel[index].add(node);
+                } else if (node.metrics.isExpired(timestamp, sessionTimeout)) {
+                    data.remove(node.metrics);
+                    unlink(node);
+                } else {
+                    schedule(node, currentTick);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+        updateGauges();
+    }
+
+    /**
+     * Put the node into the slot of its expected expiration, at least the next tick of the current one.
+     */
+    private void schedule(Node node, long currentTick) {
+        long tick = (node.metrics.getLastUpdateTimestamp() + sessionTimeout) / TICK_MILLIS + 1;
+        node.scheduledTick = Math.max(tick, currentTick + 1);
+        wheel[(int) (node.scheduledTick & (WHEEL_SLOTS - 1))].add(node);
+    }
+
+    private void updateWeight(Node node) {
+        estimatedBytes -= node.weight;
+        node.weight = maxBytes > 0 ? ENTRY_OVERHEAD_BYTES + node.metrics.serialize().build().getSerializedSize() : 0;
+        estimatedBytes += node.weight;
+    }
+
+    private boolean isBounded() {
+        return maxEntries > 0 || maxBytes > 0;
+    }
+
+    private boolean isOverflow() {
+        return (maxEntries > 0 && data.size() > maxEntries) || (maxBytes > 0 && estimatedBytes > maxBytes);
+    }
+
+    private boolean isWindowOverflow() {
+        return (maxEntries > 0 && window.size > Math.max(1, maxEntries * WINDOW_PERCENT / 100))
+            || (maxBytes > 0 && window.bytes > maxBytes * WINDOW_PERCENT / 100);
+    }
+
+    private void evictIfNeeded() {
+        if (!isBounded()) {
+            return;
+        }
+        while (isWindowOverflow()) {
+            Node candidate = window.head;
+            Node victim = main.head;
+            if (!isOverflow() || victim == null
+                || sketch.frequency(candidate.metrics) > sketch.frequency(victim.metrics)) {
+                window.remove(candidate);
+                main.add(candidate);
+                if (isOverflow() && victim != null) {
+                    evict(victim);
+                }
+            } else {
+                evict(candidate);
+            }
+        }
+        while (isOverflow()) {
+            evict(main.head != null ? main.head : window.head);
+        }
+    }
+
+    private void evict(Node node) {
+        data.remove(node.metrics);
+        unlink(node);
+        telemetry.evictionCounter.inc();
+    }
+
+    /**
+     * Remove the node from the access queue, and leave it in the time wheel to be dropped lazily.
+     */
+    private void unlink(Node node) {
+        node.queue.remove(node);
+        node.removed = true;
+        estimatedBytes -= node.weight;
+    }
+
+    private void updateGauges() {
+        telemetry.update(data.size(), estimatedBytes);
+    }
+
+    private static class Node {
+        private Metrics metrics;
+        private long weight;
+        private long scheduledTick;
+        private boolean removed;
+        private AccessQueue queue;
+        private Node prev;
+        private Node next;
+
+        private Node(Metrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Doubly linked list of the nodes in the access order, the head is the least recently used.
+     */
+    private static class AccessQueue {
+        private Node head;
+        private Node tail;
+        private int size;
+        private long bytes;
+
+        private void add(Node node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+            bytes += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+            bytes -= node.weight;
+        }
+
+        private void moveToTail(Node node) {
+            if (tail != node) {
+                remove(node);
+                add(node);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+            bytes = 0;
+        }
+    }
+}
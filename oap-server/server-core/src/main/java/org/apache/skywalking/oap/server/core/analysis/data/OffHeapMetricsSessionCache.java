@@ -0,0 +1,511 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+
+/**
+ * OffHeapMetricsSessionCache is the {@link IMetricsSessionCache} keeping the metrics out of the heap. Every metrics is
+ * stored in direct memory as a record of its {@link Metrics#id()} and the serialized {@link RemoteData}, which is
+ * the format the metrics are transferred between OAP nodes. A metrics object is only deserialized when it is looked
+ * up to combine, and saved back through {@link #update(Metrics)}. So millions of cached metrics don't stay in the old
+ * generation.
+ * <p>
+ * The records are appended into direct {@link ByteBuffer} segments, the first one is 64KB and the following ones
+ * double up to 32MB. A record reserves 25% more space for the growing metrics, and is moved when it doesn't fit
+ * anymore. The segments are compacted once more than half of the allocated space is garbage.
+ * <p>
+ * The index is an open addressing table of primitive arrays, holding the hash and the address of every record. The
+ * bounds are applied through the sampled eviction, the least frequently used one of 5 entries at the clock hand is
+ * evicted, according to the {@link FrequencySketch}. The session timeout is checked by scanning the index, without
+ * deserializing any metrics.
+ */
+@Slf4j
+public class OffHeapMetricsSessionCache implements IMetricsSessionCache {
+    /**
+     * The header of a record: capacity(int), hash(int), key length(int), value length(int), last update
+     * timestamp(long). The capacity is the reserved bytes of the key and the value.
+     */
+    private static final int HEADER_SIZE = 24;
+    private static final int CAPACITY_OFFSET = 0;
+    private static final int HASH_OFFSET = 4;
+    private static final int KEY_LENGTH_OFFSET = 8;
+    private static final int VALUE_LENGTH_OFFSET = 12;
+    private static final int TIMESTAMP_OFFSET = 16;
+
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 32 * 1024 * 1024;
+    private static final int INITIAL_INDEX_CAPACITY = 64;
+    private static final int EVICTION_SAMPLES = 5;
+    /**
+     * The address in the index is increased by 1, so 0 means an empty slot.
+     */
+    private static final long EMPTY = 0;
+
+    private final Class<? extends Metrics> metricsClass;
+    private final long maxEntries;
+    private final long maxBytes;
+    private final FrequencySketch sketch;
+    private final SessionCacheTelemetry telemetry;
+    private long sessionTimeout;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private int writeOffset;
+    /**
+     * The bytes of all records in the segments, including the removed ones.
+     */
+    private long allocatedBytes;
+    /**
+     * The bytes of the records in the index.
+     */
+    private long liveBytes;
+
+    private int[] hashes;
+    private long[] addresses;
+    private int size;
+    private int clockHand;
+
+    /**
+     * @param metricsClass   the class of the cached metrics, to deserialize the records.
+     * @param maxEntries     the max number of cached metrics, no limit if it is not positive.
+     * @param maxBytes       the max bytes of the records, no limit if it is not positive.
+     * @param sessionTimeout the metrics not updated in this period expire. Unit is ms.
+     * @param metricsCreator creates the hit, miss and eviction telemetry of the cache.
+     * @param metricsName    the name of the cached metrics, as the tag of the telemetry.
+     * @param downsampling   the down sampling of the cached metrics, as the tag of the telemetry.
+     */
+    public OffHeapMetricsSessionCache(Class<? extends Metrics> metricsClass, long maxEntries, long maxBytes,
+                                      long sessionTimeout, MetricsCreator metricsCreator, String metricsName,
+                                      String downsampling) {
+        this.metricsClass = metricsClass;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.sessionTimeout = sessionTimeout;
+        if (maxEntries > 0 || maxBytes > 0) {
+            // Without the entry limit, assume every record takes 256 bytes to bound the sketch.
+            long expectedSize = maxEntries > 0 ? maxEntries : maxBytes / 256;
+            this.sketch = new FrequencySketch((int) Math.min(expectedSize, 1 << 20));
+        } else {
+            this.sketch = null;
+        }
+        this.telemetry = new SessionCacheTelemetry(metricsCreator, metricsName, downsampling);
+        resetIndex(INITIAL_INDEX_CAPACITY);
+    }
+
+    @Override
+    public void setSessionTimeout(long sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    @Override
+    public Metrics get(Metrics key) {
+        final String id = key.id();
+        final int hash = hash(id);
+        if (sketch != null) {
+            sketch.increment(hash);
+        }
+        final int slot = find(hash, id.getBytes(StandardCharsets.UTF_8));
+        if (slot < 0) {
+            telemetry.missCounter.inc();
+            return null;
+        }
+        final long address = addresses[slot] - 1;
+        try {
+            final Metrics metrics = metricsClass.newInstance();
+            metrics.deserialize(RemoteData.parseFrom(readValue(address)));
+            metrics.setLastUpdateTimestamp(segment(address).getLong(offset(address) + TIMESTAMP_OFFSET));
+            telemetry.hitCounter.inc();
+            return metrics;
+        } catch (Exception e) {
+            log.warn("Failed to deserialize the cached metrics {}, drop it.", id, e);
+            removeAt(slot);
+            telemetry.missCounter.inc();
+            return null;
+        }
+    }
+
+    @Override
+    public void put(Metrics metrics) {
+        final String id = metrics.id();
+        final int hash = hash(id);
+        final byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        final byte[] value = metrics.serialize().build().toByteArray();
+        final int slot = find(hash, key);
+        if (slot >= 0) {
+            final long address = addresses[slot] - 1;
+            final ByteBuffer segment = segment(address);
+            final int offset = offset(address);
+            if (key.length + value.length <= segment.getInt(offset + CAPACITY_OFFSET)) {
+                // Overwrite in place, the key is the same.
+                segment.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+                segment.putLong(offset + TIMESTAMP_OFFSET, metrics.getLastUpdateTimestamp());
+                write(segment, offset + HEADER_SIZE + key.length, value);
+                updateGauges();
+                return;
+            }
+            // Move the record, the old one becomes garbage.
+            final int oldRecordSize = recordSize(address);
+            liveBytes -= oldRecordSize;
+            final long newAddress = allocate(hash, key, value, metrics.getLastUpdateTimestamp());
+            if (newAddress < 0) {
+                liveBytes += oldRecordSize;
+                removeAt(slot);
+            } else {
+                addresses[slot] = newAddress + 1;
+            }
+        } else {
+            if (!admit(hash, HEADER_SIZE + reservedCapacity(key.length + value.length))) {
+                updateGauges();
+                return;
+            }
+            final long newAddress = allocate(hash, key, value, metrics.getLastUpdateTimestamp());
+            if (newAddress >= 0) {
+                insert(hash, newAddress);
+                if (sketch != null) {
+                    sketch.ensureCapacity(size);
+                }
+            }
+        }
+        evictIfNeeded();
+        updateGauges();
+    }
+
+    /**
+     * The metrics returned by {@link #get(Metrics)} is a copy, save the changes.
+     */
+    @Override
+    public void update(Metrics metrics) {
+        put(metrics);
+    }
+
+    @Override
+    public void remove(Metrics key) {
+        final String id = key.id();
+        final int slot = find(hash(id), id.getBytes(StandardCharsets.UTF_8));
+        if (slot >= 0) {
+            removeAt(slot);
+            updateGauges();
+        }
+    }
+
+    @Override
+    public void clear() {
+        segments.clear();
+        writeOffset = 0;
+        allocatedBytes = 0;
+        liveBytes = 0;
+        resetIndex(INITIAL_INDEX_CAPACITY);
+        updateGauges();
+    }
+
+    @Override
+    public void expire(long timestamp) {
+        int i = 0;
+        while (i < addresses.length) {
+            final long address = addresses[i] - 1;
+            if (address >= 0
+                && timestamp - segment(address).getLong(offset(address) + TIMESTAMP_OFFSET) > sessionTimeout) {
+                // The following entry may be shifted into this slot, check it again.
+                removeAt(i);
+                continue;
+            }
+            i++;
+        }
+        updateGauges();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * @return the bytes of the allocated direct memory.
+     */
+    public long allocatedMemory() {
+        long memory = 0;
+        for (ByteBuffer segment : segments) {
+            memory += segment.capacity();
+        }
+        return memory;
+    }
+
+    private static int hash(String id) {
+        final int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static ByteBuffer duplicate(ByteBuffer segment, int offset) {
+        final ByteBuffer buffer = segment.duplicate();
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private static void write(ByteBuffer segment, int offset, byte[] bytes) {
+        duplicate(segment, offset).put(bytes);
+    }
+
+    private ByteBuffer segment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private int recordSize(long address) {
+        return HEADER_SIZE + segment(address).getInt(offset(address) + CAPACITY_OFFSET);
+    }
+
+    private byte[] readValue(long address) {
+        final ByteBuffer segment = segment(address);
+        final int offset = offset(address);
+        final byte[] value = new byte[segment.getInt(offset + VALUE_LENGTH_OFFSET)];
+        duplicate(segment, offset + HEADER_SIZE + segment.getInt(offset + KEY_LENGTH_OFFSET)).get(value);
+        return value;
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        final ByteBuffer segment = segment(address);
+        final int offset = offset(address);
+        if (segment.getInt(offset + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        final int keyOffset = offset + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (segment.get(keyOffset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the slot of the key in the index, or -1 if absent.
+     */
+    private int find(int hash, byte[] key) {
+        final int mask = addresses.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final long address = addresses[i];
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (hashes[i] == hash && keyEquals(address - 1, key)) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(int hash, long address) {
+        if ((size + 1) * 2 > addresses.length) {
+            final int[] oldHashes = hashes;
+            final long[] oldAddresses = addresses;
+            resetIndex(addresses.length * 2);
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] != EMPTY) {
+                    insert(oldHashes[i], oldAddresses[i] - 1);
+                }
+            }
+        }
+        final int mask = addresses.length - 1;
+        int i = hash & mask;
+        while (addresses[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        addresses[i] = address + 1;
+        size++;
+    }
+
+    /**
+     * Remove the entry through the backward shift deletion of the linear probing.
+     */
+    private void removeAt(int slot) {
+        liveBytes -= recordSize(addresses[slot] - 1);
+        final int mask = addresses.length - 1;
+        int hole = slot;
+        addresses[hole] = EMPTY;
+        size--;
+        for (int i = (hole + 1) & mask; addresses[i] != EMPTY; i = (i + 1) & mask) {
+            final int ideal = hashes[i] & mask;
+            final boolean stay = hole <= i ? ideal > hole && ideal <= i : ideal > hole || ideal <= i;
+            if (!stay) {
+                hashes[hole] = hashes[i];
+                addresses[hole] = addresses[i];
+                addresses[i] = EMPTY;
+                hole = i;
+            }
+        }
+    }
+
+    private void resetIndex(int capacity) {
+        hashes = new int[capacity];
+        addresses = new long[capacity];
+        size = 0;
+        clockHand = 0;
+    }
+
+    /**
+     * Append a new record.
+     *
+     * @return the address of the record, or -1 if the record is larger than a segment.
+     */
+    private long allocate(int hash, byte[] key, byte[] value, long lastUpdateTimestamp) {
+        final int length = key.length + value.length;
+        final long capacity = reservedCapacity(length);
+        if (length > capacity) {
+            log.warn("The size of the metrics {} is too large to be cached, {} bytes.", metricsClass, length);
+            return -1;
+        }
+        final long address = reserve(HEADER_SIZE + (int) capacity);
+        final ByteBuffer segment = segment(address);
+        final int offset = offset(address);
+        segment.putInt(offset + CAPACITY_OFFSET, (int) capacity);
+        segment.putInt(offset + HASH_OFFSET, hash);
+        segment.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+        segment.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+        segment.putLong(offset + TIMESTAMP_OFFSET, lastUpdateTimestamp);
+        write(segment, offset + HEADER_SIZE, key);
+        write(segment, offset + HEADER_SIZE + key.length, value);
+        liveBytes += HEADER_SIZE + capacity;
+        return address;
+    }
+
+    private static long reservedCapacity(int length) {
+        return Math.min(length + (long) length / 4, MAX_SEGMENT_SIZE - HEADER_SIZE);
+    }
+
+    private long reserve(int recordSize) {
+        if (segments.isEmpty() || writeOffset + recordSize > segments.get(segments.size() - 1).capacity()) {
+            if (allocatedBytes - liveBytes > liveBytes && allocatedBytes > MIN_SEGMENT_SIZE) {
+                compact();
+            }
+            if (segments.isEmpty() || writeOffset + recordSize > segments.get(segments.size() - 1).capacity()) {
+                addSegment(recordSize);
+            }
+        }
+        final long address = ((long) (segments.size() - 1) << 32) | writeOffset;
+        writeOffset += recordSize;
+        allocatedBytes += recordSize;
+        return address;
+    }
+
+    private void addSegment(int recordSize) {
+        int segmentSize = segments.isEmpty()
+            ? MIN_SEGMENT_SIZE
+            : Math.min(segments.get(segments.size() - 1).capacity() * 2, MAX_SEGMENT_SIZE);
+        segments.add(ByteBuffer.allocateDirect(Math.max(segmentSize, recordSize)));
+        writeOffset = 0;
+    }
+
+    /**
+     * Copy the records in the index into new segments, and release the old ones.
+     */
+    private void compact() {
+        final List<ByteBuffer> oldSegments = new ArrayList<>(segments);
+        segments.clear();
+        writeOffset = 0;
+        allocatedBytes = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i] == EMPTY) {
+                continue;
+            }
+            final long oldAddress = addresses[i] - 1;
+            final ByteBuffer oldSegment = oldSegments.get((int) (oldAddress >>> 32));
+            final int oldOffset = offset(oldAddress);
+            final int recordSize = HEADER_SIZE + oldSegment.getInt(oldOffset + CAPACITY_OFFSET);
+            if (segments.isEmpty() || writeOffset + recordSize > segments.get(segments.size() - 1).capacity()) {
+                addSegment(recordSize);
+            }
+            final ByteBuffer source = duplicate(oldSegment, oldOffset);
+            source.limit(oldOffset + recordSize);
+            duplicate(segments.get(segments.size() - 1), writeOffset).put(source);
+            addresses[i] = (((long) (segments.size() - 1) << 32) | writeOffset) + 1;
+            writeOffset += recordSize;
+            allocatedBytes += recordSize;
+        }
+    }
+
+    private boolean isOverflow(int newEntries, long newBytes) {
+        return (maxEntries > 0 && size + newEntries > maxEntries)
+            || (maxBytes > 0 && liveBytes + newBytes > maxBytes);
+    }
+
+    /**
+     * The TinyLFU admission, a new entry is only admitted when it is more popular than the evicted ones.
+     */
+    private boolean admit(int hash, long recordSize) {
+        while (size > 0 && isOverflow(1, recordSize)) {
+            final int victim = sampleVictim();
+            if (sketch.frequency(hash) <= sketch.frequency(hashes[victim])) {
+                telemetry.evictionCounter.inc();
+                return false;
+            }
+            removeAt(victim);
+            telemetry.evictionCounter.inc();
+        }
+        return true;
+    }
+
+    private void evictIfNeeded() {
+        while (size > 0 && isOverflow(0, 0)) {
+            removeAt(sampleVictim());
+            telemetry.evictionCounter.inc();
+        }
+    }
+
+    /**
+     * @return the slot of the least frequently used one of the samples from the clock hand.
+     */
+    private int sampleVictim() {
+        final int mask = addresses.length - 1;
+        int victim = -1;
+        int victimFrequency = Integer.MAX_VALUE;
+        int samples = 0;
+        for (int i = clockHand; samples < EVICTION_SAMPLES && samples < size; i = (i + 1) & mask) {
+            if (addresses[i] == EMPTY) {
+                continue;
+            }
+            samples++;
+            final int frequency = sketch.frequency(hashes[i]);
+            if (frequency < victimFrequency) {
+                victim = i;
+                victimFrequency = frequency;
+            }
+            clockHand = (i + 1) & mask;
+        }
+        return victim;
+    }
+
+    private void updateGauges() {
+        telemetry.update(size, liveBytes);
+    }
+}
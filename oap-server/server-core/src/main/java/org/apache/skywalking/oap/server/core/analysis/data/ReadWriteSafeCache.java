@@ -20,11 +20,12 @@ package org.apache.skywalking.oap.server.core.analysis.data;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
 
 /**
  * ReadWriteSafeCache provides a read/write isolated cache.
  */
-public class ReadWriteSafeCache<T> {
+public class ReadWriteSafeCache<T> implements IReadWriteSafeCache<T> {
     /**
      * Pointer of read buffer.
      */
@@ -37,6 +38,10 @@ public class ReadWriteSafeCache<T> {
      * Read/Write lock.
      */
     private final ReentrantLock lock;
+    /**
+     * Count the writes and reads waiting for the lock. Optional.
+     */
+    private volatile CounterMetrics contentionCounter;
 
     /**
      * Build the Cache through two given buffer instances.
@@ -50,13 +55,29 @@ public class ReadWriteSafeCache<T> {
         lock = new ReentrantLock();
     }
 
+    @Override
+    public void setContentionCounter(CounterMetrics contentionCounter) {
+        this.contentionCounter = contentionCounter;
+    }
+
+    private void lock() {
+        if (!lock.tryLock()) {
+            final CounterMetrics counter = contentionCounter;
+            if (counter != null) {
+                counter.inc();
+            }
+            lock.lock();
+        }
+    }
+
     /**
      * Write the into the {@link #writeBufferPointer} buffer.
      *
      * @param data to enqueue.
      */
+    @Override
     public void write(T data) {
-        lock.lock();
+        lock();
         try {
             writeBufferPointer.accept(data);
         } finally {
@@ -69,8 +90,9 @@ public class ReadWriteSafeCache<T> {
      *
      * @param data to enqueue.
      */
+    @Override
     public void write(List<T> data) {
-        lock.lock();
+        lock();
         try {
             data.forEach(writeBufferPointer::accept);
         } finally {
@@ -78,8 +100,9 @@ public class ReadWriteSafeCache<T> {
         }
     }
 
+    @Override
     public List<T> read() {
-        lock.lock();
+        lock();
         try {
             // Switch the read and write pointers, when there is no writing.
             BufferedData<T> tempPointer = writeBufferPointer;
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * The telemetry shared by the implementations of {@link IMetricsSessionCache}.
+ */
+class SessionCacheTelemetry {
+    final CounterMetrics hitCounter;
+    final CounterMetrics missCounter;
+    final CounterMetrics evictionCounter;
+    final GaugeMetrics sizeGauge;
+    final GaugeMetrics bytesGauge;
+
+    SessionCacheTelemetry(MetricsCreator metricsCreator, String metricsName, String downsampling) {
+        MetricsTag.Keys keys = new MetricsTag.Keys("metricName", "dimensionality");
+        MetricsTag.Values values = new MetricsTag.Values(metricsName, downsampling);
+        hitCounter = metricsCreator.createCounter(
+            "metrics_session_cache_hit", "The number of metrics found in the L2 session cache", keys, values);
+        missCounter = metricsCreator.createCounter(
+            "metrics_session_cache_miss", "The number of metrics not found in the L2 session cache", keys, values);
+        evictionCounter = metricsCreator.createCounter(
+            "metrics_session_cache_eviction", "The number of metrics evicted from the L2 session cache by the bounds",
+            keys, values
+        );
+        sizeGauge = metricsCreator.createGauge(
+            "metrics_session_cache_size", "The number of metrics in the L2 session cache", keys, values);
+        bytesGauge = metricsCreator.createGauge(
+            "metrics_session_cache_bytes", "The estimated bytes of metrics in the L2 session cache", keys, values);
+    }
+
+    void update(int size, long bytes) {
+        sizeGauge.setValue(size);
+        bytesGauge.setValue(bytes);
+    }
+}
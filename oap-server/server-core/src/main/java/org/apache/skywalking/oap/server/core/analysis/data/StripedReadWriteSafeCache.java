@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+
+/**
+ * StripedReadWriteSafeCache spreads the writes of different threads into several {@link ReadWriteSafeCache}s, chosen
+ * by the thread id, so the writer threads don't wait for the same lock. Every stripe keeps the read/write isolated
+ * double buffers. {@link #read()} switches the buffers of all stripes, and merges the data of them through a new
+ * buffer, e.g. the metrics with the same ID from different stripes are combined by {@link MergableBufferedData}.
+ */
+public class StripedReadWriteSafeCache<T> implements IReadWriteSafeCache<T> {
+    private final ReadWriteSafeCache<T>[] stripes;
+    private final int mask;
+    private final Supplier<BufferedData<T>> bufferSupplier;
+
+    /**
+     * @param stripes        the number of stripes, rounded up to the power of 2.
+     * @param bufferSupplier creates the buffers of the stripes, and the buffer to merge the stripes when reading.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedReadWriteSafeCache(int stripes, Supplier<BufferedData<T>> bufferSupplier) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReadWriteSafeCache[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReadWriteSafeCache<>(bufferSupplier.get(), bufferSupplier.get());
+        }
+        this.mask = size - 1;
+        this.bufferSupplier = bufferSupplier;
+    }
+
+    @Override
+    public void setContentionCounter(CounterMetrics contentionCounter) {
+        for (ReadWriteSafeCache<T> stripe : stripes) {
+            stripe.setContentionCounter(contentionCounter);
+        }
+    }
+
+    @Override
+    public void write(T data) {
+        stripe().write(data);
+    }
+
+    @Override
+    public void write(List<T> data) {
+        stripe().write(data);
+    }
+
+    @Override
+    public List<T> read() {
+        List<T> firstNotEmpty = null;
+        BufferedData<T> merged = null;
+        for (ReadWriteSafeCache<T> stripe : stripes) {
+            final List<T> data = stripe.read();
+            if (data.isEmpty()) {
+                continue;
+            }
+            if (firstNotEmpty == null) {
+                // Most likely only one stripe has data, return it without merging.
+                firstNotEmpty = data;
+                continue;
+            }
+            if (merged == null) {
+                merged = bufferSupplier.get();
+                firstNotEmpty.forEach(merged::accept);
+            }
+            data.forEach(merged::accept);
+        }
+        if (merged != null) {
+            return merged.read();
+        }
+        return firstNotEmpty == null ? Collections.emptyList() : firstNotEmpty;
+    }
+
+    private ReadWriteSafeCache<T> stripe() {
+        return stripes[(int) Thread.currentThread().getId() & mask];
+    }
+}
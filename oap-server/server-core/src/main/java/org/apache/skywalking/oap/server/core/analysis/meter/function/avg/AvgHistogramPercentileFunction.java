@@ -19,15 +19,10 @@
 package org.apache.skywalking.oap.server.core.analysis.meter.function.avg;
 
 import com.google.common.base.Strings;
-import io.vavr.Tuple;
-import io.vavr.Tuple2;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collector;
 import java.util.stream.IntStream;
 import lombok.Getter;
 import lombok.Setter;
@@ -42,14 +37,12 @@ import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
 import org.apache.skywalking.oap.server.core.analysis.metrics.IntList;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.analysis.metrics.MultiIntValuesHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.SortedBucketTable;
 import org.apache.skywalking.oap.server.core.query.type.Bucket;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.storage.StorageHashMapBuilder;
 import org.apache.skywalking.oap.server.core.storage.annotation.Column;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-
 /**
  * AvgPercentile intends to calculate percentile based on the average of raw values over the interval(minute, hour or day).
  *
@@ -137,15 +130,15 @@ public abstract class AvgHistogramPercentileFunction extends Metrics implements
 
         this.entityId = entity.id();
 
-        String template = "%s";
+        String prefix = "";
         if (!Strings.isNullOrEmpty(value.getBucketedValues().getGroup())) {
-            template  = value.getBucketedValues().getGroup() + ":%s";
+            prefix = value.getBucketedValues().getGroup() + ":";
         }
         final long[] values = value.getBucketedValues().getValues();
         for (int i = 0; i < values.length; i++) {
             long bucket = value.getBucketedValues().getBuckets()[i];
             String bucketName = bucket == Long.MIN_VALUE ? Bucket.INFINITE_NEGATIVE : String.valueOf(bucket);
-            String key = String.format(template, bucketName);
+            String key = prefix + bucketName;
             summation.valueAccumulation(key, values[i]);
             count.valueAccumulation(key, 1L);
         }
@@ -182,74 +175,63 @@ public abstract class AvgHistogramPercentileFunction extends Metrics implements
     @Override
     public void calculate() {
         if (!isCalculated) {
-            final Set<String> keys = summation.keys();
-            for (String key : keys) {
+            final Map<String, SortedBucketTable> groupedDataset = new HashMap<>();
+            for (String key : summation.keys()) {
                 long value = 0;
-                if (count.get(key) != 0) {
-                    value = summation.get(key) / count.get(key);
-                    if (value == 0L && summation.get(key) > 0L) {
+                final long countOfKey = count.get(key);
+                if (countOfKey != 0) {
+                    final long summationOfKey = summation.get(key);
+                    value = summationOfKey / countOfKey;
+                    if (value == 0L && summationOfKey > 0L) {
                         value = 1;
                     }
                 }
                 dataset.put(key, value);
-            }
-            dataset.keys().stream()
-                   .map(key -> {
-                       if (key.contains(":")) {
-                           int index = key.lastIndexOf(":");
-                           return Tuple.of(key.substring(0, index), key);
-                       } else {
-                           return Tuple.of(DEFAULT_GROUP, key);
-                       }
-                   })
-                   .collect(groupingBy(Tuple2::_1, mapping(Tuple2::_2, Collector.of(
-                       DataTable::new,
-                       (dt, key) -> {
-                           String v;
-                           if (key.contains(":")) {
-                               int index = key.lastIndexOf(":");
-                               v = key.substring(index + 1);
-                           } else {
-                               v = key;
-                           }
-                           dt.put(v, dataset.get(key));
-                       },
-                       DataTable::append
-                   ))))
-                   .forEach((group, subDataset) -> {
-                       long total;
-                       total = subDataset.sumOfValues();
-
-                    int[] roofs = new int[ranks.size()];
-                    for (int i = 0; i < ranks.size(); i++) {
-                        roofs[i] = Math.round(total * ranks.get(i) * 1.0f / 100);
-                    }
 
-                    int count = 0;
-                    final List<String> sortedKeys = subDataset.sortedKeys(Comparator.comparingLong(Long::parseLong));
+                // Parse every key only once, the buckets of every group are kept sorted by the table.
+                final String group;
+                final String bucketName;
+                int index = key.lastIndexOf(':');
+                if (index >= 0) {
+                    group = key.substring(0, index);
+                    bucketName = key.substring(index + 1);
+                } else {
+                    group = DEFAULT_GROUP;
+                    bucketName = key;
+                }
+                final long bucket = Bucket.INFINITE_NEGATIVE.equals(bucketName) ? Long.MIN_VALUE : Long.parseLong(
+                    bucketName);
+                groupedDataset.computeIfAbsent(group, g -> new SortedBucketTable()).put(bucket, value);
+            }
 
-                    int loopIndex = 0;
+            groupedDataset.forEach((group, subDataset) -> {
+                long total = subDataset.sumOfValues();
 
-                    for (String key : sortedKeys) {
-                        final Long value = subDataset.get(key);
+                int[] roofs = new int[ranks.size()];
+                for (int i = 0; i < ranks.size(); i++) {
+                    roofs[i] = Math.round(total * ranks.get(i) * 1.0f / 100);
+                }
 
-                        count += value;
-                        for (int rankIdx = loopIndex; rankIdx < roofs.length; rankIdx++) {
-                            int roof = roofs[rankIdx];
+                int count = 0;
+                int loopIndex = 0;
+                for (int i = 0; i < subDataset.size(); i++) {
+                    count += subDataset.valueAt(i);
+                    for (int rankIdx = loopIndex; rankIdx < roofs.length; rankIdx++) {
+                        int roof = roofs[rankIdx];
 
-                            if (count >= roof) {
-                                if (group.equals(DEFAULT_GROUP)) {
-                                    percentileValues.put(String.valueOf(ranks.get(rankIdx)), Long.parseLong(key));
-                                } else {
-                                    percentileValues.put(String.format("%s:%s", group, ranks.get(rankIdx)), Long.parseLong(key));
-                                }
-                                loopIndex++;
+                        if (count >= roof) {
+                            if (group.equals(DEFAULT_GROUP)) {
+                                percentileValues.put(String.valueOf(ranks.get(rankIdx)), subDataset.keyAt(i));
                             } else {
-                                break;
+                                percentileValues.put(group + ":" + ranks.get(rankIdx), subDataset.keyAt(i));
                             }
+                            loopIndex++;
+                        } else {
+                            break;
                         }
                     }
-                });
+                }
+            });
         }
     }
 
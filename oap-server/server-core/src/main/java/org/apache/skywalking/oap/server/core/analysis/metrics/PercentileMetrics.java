@@ -19,7 +19,6 @@
 package org.apache.skywalking.oap.server.core.analysis.metrics;
 
 import java.util.Comparator;
-import java.util.List;
 import java.util.stream.IntStream;
 import lombok.Getter;
 import lombok.Setter;
@@ -46,6 +45,13 @@ public abstract class PercentileMetrics extends Metrics implements MultiIntValue
         95,
         99
     };
+    private static final String[] RANK_LABELS = {
+        "0",
+        "1",
+        "2",
+        "3",
+        "4"
+    };
 
     @Getter
     @Setter
@@ -58,13 +64,13 @@ public abstract class PercentileMetrics extends Metrics implements MultiIntValue
     @Getter
     @Setter
     @Column(columnName = DATASET, storageOnly = true)
-    private DataTable dataset;
+    private SortedBucketTable dataset;
 
     private boolean isCalculated;
 
     public PercentileMetrics() {
         percentileValues = new DataTable(RANKS.length);
-        dataset = new DataTable(30);
+        dataset = new SortedBucketTable(30);
     }
 
     @Entrance
@@ -72,8 +78,7 @@ public abstract class PercentileMetrics extends Metrics implements MultiIntValue
         this.isCalculated = false;
         this.precision = precision;
 
-        String index = String.valueOf(value / precision);
-        dataset.valueAccumulation(index, 1L);
+        dataset.valueAccumulation(value / precision, 1L);
     }
 
     @Override
@@ -96,18 +101,14 @@ public abstract class PercentileMetrics extends Metrics implements MultiIntValue
             }
 
             int count = 0;
-            final List<String> sortedKeys = dataset.sortedKeys(Comparator.comparingInt(Integer::parseInt));
-
             int loopIndex = 0;
-            for (String key : sortedKeys) {
-                final Long value = dataset.get(key);
-
-                count += value;
+            for (int i = 0; i < dataset.size(); i++) {
+                count += dataset.valueAt(i);
                 for (int rankIdx = loopIndex; rankIdx < roofs.length; rankIdx++) {
                     int roof = roofs[rankIdx];
 
                     if (count >= roof) {
-                        percentileValues.put(String.valueOf(rankIdx), Long.parseLong(key) * precision);
+                        percentileValues.put(RANK_LABELS[rankIdx], dataset.keyAt(i) * precision);
                         loopIndex++;
                     } else {
                         break;
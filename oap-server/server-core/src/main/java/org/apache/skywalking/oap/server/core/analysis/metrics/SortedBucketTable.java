@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.metrics;
+
+import java.util.Arrays;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.storage.type.StorageDataComplexObject;
+
+/**
+ * SortedBucketTable is the primitive alternative of {@link DataTable} for the numeric bucket keys, such as the
+ * percentile and histogram dataset. The keys and values are kept in two parallel arrays, ordered by the key, so
+ * accumulating a value is a binary search without boxing or string conversion, and the iteration is always in the key
+ * order without sorting.
+ * <p>
+ * The string format of {@link #toStorageData()} is the same as {@link DataTable}, so the stored data is readable by
+ * both.
+ */
+public class SortedBucketTable implements StorageDataComplexObject<SortedBucketTable> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    public SortedBucketTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SortedBucketTable(int initialCapacity) {
+        keys = new long[Math.max(initialCapacity, 1)];
+        values = new long[keys.length];
+    }
+
+    public SortedBucketTable(String data) {
+        this();
+        toObject(data);
+    }
+
+    /**
+     * @return the value of the given key, or 0 if the key doesn't exist.
+     */
+    public long get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? 0L : values[index];
+    }
+
+    public boolean hasKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public void put(long key, long value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] = value;
+        } else {
+            insert(-index - 1, key, value);
+        }
+    }
+
+    /**
+     * Accumulate the value with existing value in the same given key.
+     */
+    public void valueAccumulation(long key, long value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] += value;
+        } else {
+            insert(-index - 1, key, value);
+        }
+    }
+
+    /**
+     * @return the key at the given position, in the ascending order of keys.
+     */
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return the value at the given position, in the ascending order of keys.
+     */
+    public long valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the sum of all values.
+     */
+    public long sumOfValues() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    public boolean keysEqual(SortedBucketTable that) {
+        if (this.size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (this.keys[i] != that.keys[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasData() {
+        return size > 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Accumulate all values of the given table into this one.
+     */
+    public SortedBucketTable append(SortedBucketTable that) {
+        if (that.size == 0) {
+            return this;
+        }
+        if (keysEqual(that)) {
+            // Most merges happen between the tables of the same steps, no structure change is required.
+            for (int i = 0; i < size; i++) {
+                values[i] += that.values[i];
+            }
+            return this;
+        }
+
+        long[] mergedKeys = new long[this.size + that.size];
+        long[] mergedValues = new long[mergedKeys.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < this.size && j < that.size) {
+            if (this.keys[i] < that.keys[j]) {
+                mergedKeys[k] = this.keys[i];
+                mergedValues[k++] = this.values[i++];
+            } else if (this.keys[i] > that.keys[j]) {
+                mergedKeys[k] = that.keys[j];
+                mergedValues[k++] = that.values[j++];
+            } else {
+                mergedKeys[k] = this.keys[i];
+                mergedValues[k++] = this.values[i++] + that.values[j++];
+            }
+        }
+        while (i < this.size) {
+            mergedKeys[k] = this.keys[i];
+            mergedValues[k++] = this.values[i++];
+        }
+        while (j < that.size) {
+            mergedKeys[k] = that.keys[j];
+            mergedValues[k++] = that.values[j++];
+        }
+        this.keys = mergedKeys;
+        this.values = mergedValues;
+        this.size = k;
+        return this;
+    }
+
+    @Override
+    public String toStorageData() {
+        StringBuilder builder = new StringBuilder(size * 8);
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                builder.append(Const.ARRAY_SPLIT);
+            }
+            builder.append(keys[i]).append(Const.KEY_VALUE_SPLIT).append(values[i]);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void toObject(String data) {
+        int start = 0;
+        final int length = data.length();
+        while (start < length) {
+            int end = data.indexOf(Const.ARRAY_SPLIT, start);
+            if (end < 0) {
+                end = length;
+            }
+            int split = data.indexOf(Const.KEY_VALUE_SPLIT, start);
+            if (split > start && split < end - 1) {
+                valueAccumulation(
+                    Long.parseLong(data.substring(start, split)), Long.parseLong(data.substring(split + 1, end)));
+            }
+            start = end + 1;
+        }
+    }
+
+    @Override
+    public void copyFrom(final SortedBucketTable source) {
+        this.append(source);
+    }
+
+    private int indexOf(long key) {
+        // Fast path for appending the keys in the ascending order, such as the histogram steps.
+        if (size == 0 || keys[size - 1] < key) {
+            return -size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int index, long key, long value) {
+        if (size == keys.length) {
+            int newCapacity = keys.length << 1;
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+        if (index < size) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SortedBucketTable)) {
+            return false;
+        }
+        SortedBucketTable that = (SortedBucketTable) o;
+        if (!keysEqual(that)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (this.values[i] != that.values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Long.hashCode(keys[i]);
+            result = 31 * result + Long.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SortedBucketTable(" + toStorageData() + ")";
+    }
+}
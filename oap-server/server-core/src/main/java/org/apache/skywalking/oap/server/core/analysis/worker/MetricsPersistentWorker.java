@@ -18,23 +18,27 @@
 
 package org.apache.skywalking.oap.server.core.analysis.worker;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.BulkConsumePool;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.ConsumerPoolFactory;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.WaitStrategyType;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.oap.server.core.analysis.data.IMetricsSessionCache;
 import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
 import org.apache.skywalking.oap.server.core.analysis.data.ReadWriteSafeCache;
+import org.apache.skywalking.oap.server.core.analysis.data.StripedReadWriteSafeCache;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.exporter.ExportEvent;
 import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
@@ -52,13 +56,18 @@ import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
  */
 @Slf4j
 public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
+    /**
+     * The down sampling level workers execute every this number of periods.
+     */
+    public static final int DOWNSAMPLING_PERSISTENT_MOD = 4;
     /**
      * The counter of MetricsPersistentWorker instance, to calculate session timeout offset.
      */
     private static long SESSION_TIMEOUT_OFFSITE_COUNTER = 0;
 
+    @Getter
     private final Model model;
-    private final Map<Metrics, Metrics> context;
+    private final IMetricsSessionCache context;
     private final IMetricsDAO metricsDAO;
     private final Optional<AbstractWorker<Metrics>> nextAlarmWorker;
     private final Optional<AbstractWorker<ExportEvent>> nextExportWorker;
@@ -86,10 +95,13 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
     MetricsPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IMetricsDAO metricsDAO,
                             AbstractWorker<Metrics> nextAlarmWorker, AbstractWorker<ExportEvent> nextExportWorker,
                             MetricsTransWorker transWorker, boolean enableDatabaseSession, boolean supportUpdate,
-                            long storageSessionTimeout, int metricsDataTTL) {
-        super(moduleDefineHolder, new ReadWriteSafeCache<>(new MergableBufferedData(), new MergableBufferedData()));
+                            long storageSessionTimeout, int metricsDataTTL, WaitStrategyType waitStrategyType,
+                            int cacheStripes, IMetricsSessionCache sessionCache) {
+        super(moduleDefineHolder, cacheStripes > 1
+            ? new StripedReadWriteSafeCache<>(cacheStripes, MergableBufferedData::new)
+            : new ReadWriteSafeCache<>(new MergableBufferedData(), new MergableBufferedData()));
         this.model = model;
-        this.context = new HashMap<>(100);
+        this.context = sessionCache;
         this.enableDatabaseSession = enableDatabaseSession;
         this.metricsDAO = metricsDAO;
         this.nextAlarmWorker = Optional.ofNullable(nextAlarmWorker);
@@ -106,7 +118,7 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
         if (size == 0) {
             size = 1;
         }
-        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, size, 20);
+        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, size, 20, waitStrategyType);
         try {
             ConsumerPoolFactory.INSTANCE.createIfAbsent(name, creator);
         } catch (Exception e) {
@@ -124,6 +136,11 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
             new MetricsTag.Keys("metricName", "level", "dimensionality"),
             new MetricsTag.Values(model.getName(), "2", model.getDownsampling().getName())
         );
+        getCache().setContentionCounter(metricsCreator.createCounter(
+            "metrics_persistent_cache_contention", "The number of lock waits of the L2 aggregation cache",
+            new MetricsTag.Keys("metricName", "dimensionality"),
+            new MetricsTag.Values(model.getName(), model.getDownsampling().getName())
+        ));
         SESSION_TIMEOUT_OFFSITE_COUNTER++;
     }
 
@@ -136,17 +153,22 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
                             boolean enableDatabaseSession,
                             boolean supportUpdate,
                             long storageSessionTimeout,
-                            int metricsDataTTL) {
+                            int metricsDataTTL,
+                            WaitStrategyType waitStrategyType,
+                            int cacheStripes,
+                            IMetricsSessionCache sessionCache) {
         this(moduleDefineHolder, model, metricsDAO,
              null, null, null,
-             enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL
+             enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL, waitStrategyType,
+             cacheStripes, sessionCache
         );
         // For a down-sampling metrics, we prolong the session timeout for 4 times, nearly 5 minutes.
         // And add offset according to worker creation sequence, to avoid context clear overlap,
         // eventually optimize load of IDs reading.
         this.sessionTimeout = this.sessionTimeout * 4 + SESSION_TIMEOUT_OFFSITE_COUNTER * 200;
+        this.context.setSessionTimeout(this.sessionTimeout);
         // The down sampling level worker executes every 4 periods.
-        this.persistentMod = 4;
+        this.persistentMod = DOWNSAMPLING_PERSISTENT_MOD;
     }
 
     /**
@@ -158,12 +180,21 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
         dataCarrier.produce(metrics);
     }
 
+    /**
+     * Only the rounds really started by the timer reach here, the rounds skipped by the pipelined timer are not
+     * counted. The data of the rounds out of {@link #persistentMod} stays in the cache, and is merged into the next
+     * executed round.
+     */
     @Override
-    public List<PrepareRequest> prepareBatch(Collection<Metrics> lastCollection) {
+    public List<PrepareRequest> buildBatchRequests() {
         if (persistentCounter++ % persistentMod != 0) {
             return Collections.EMPTY_LIST;
         }
+        return super.buildBatchRequests();
+    }
 
+    @Override
+    public List<PrepareRequest> prepareBatch(Collection<Metrics> lastCollection) {
         long start = System.currentTimeMillis();
         if (lastCollection.size() == 0) {
             return Collections.EMPTY_LIST;
@@ -177,8 +208,6 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
         List<Metrics> metricsList = new ArrayList<>();
         List<PrepareRequest> prepareRequests = new ArrayList<>(lastCollection.size());
         for (Metrics data : lastCollection) {
-            transWorker.ifPresent(metricsTransWorker -> metricsTransWorker.in(data));
-
             metricsList.add(data);
 
             if (metricsList.size() == batchSize) {
@@ -202,11 +231,23 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
     private void flushDataToStorage(List<Metrics> metricsList,
                                     List<PrepareRequest> prepareRequests) {
         try {
-            loadFromStorage(metricsList);
+            final Map<Metrics, Metrics> loadedMetrics;
+            try {
+                loadedMetrics = loadFromStorage(metricsList);
+            } catch (IOException e) {
+                // The unread metrics would be inserted as new ones, overwriting the stored values. Merge them with
+                // the next round instead, they are passed to the down sampling workers once they are persisted.
+                log.error("Failed to load metrics of {} for merging, retry {} metrics in the next round",
+                          model.getName(), metricsList.size(), e
+                );
+                getCache().write(metricsList);
+                return;
+            }
+            metricsList.forEach(data -> transWorker.ifPresent(metricsTransWorker -> metricsTransWorker.in(data)));
 
             long timestamp = System.currentTimeMillis();
             for (Metrics metrics : metricsList) {
-                Metrics cachedMetrics = context.get(metrics);
+                Metrics cachedMetrics = loadedMetrics.get(metrics);
                 if (cachedMetrics != null) {
                     /*
                      * If the metrics is not supportUpdate, defined through MetricsExtension#supportUpdate,
@@ -226,6 +267,7 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
                     prepareRequests.add(metricsDAO.prepareBatchUpdate(model, cachedMetrics));
                     nextWorker(cachedMetrics);
                     cachedMetrics.setLastUpdateTimestamp(timestamp);
+                    context.update(cachedMetrics);
                 } else {
                     metrics.calculate();
                     prepareRequests.add(metricsDAO.prepareBatchInsert(model, metrics));
@@ -254,63 +296,70 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> {
 
     /**
      * Load data from the storage, if {@link #enableDatabaseSession} == true, only load data when the id doesn't exist.
+     *
+     * @return the existing metrics of the given ones, from the cache or the storage. The session cache is bounded, so
+     * it could evict some of them while loading, the returned map keeps them for the current batch.
+     * @throws IOException when the storage fails to read the metrics.
      */
-    private void loadFromStorage(List<Metrics> metrics) {
+    private Map<Metrics, Metrics> loadFromStorage(List<Metrics> metrics) throws IOException {
         final long currentTimeMillis = System.currentTimeMillis();
-        try {
-            List<Metrics> notInCacheMetrics =
-                metrics.stream()
-                       .filter(m -> {
-                           final Metrics cachedValue = context.get(m);
-                           // Not cached or session disabled, the metric could be tagged `not in cache`.
-                           if (cachedValue == null || !enableDatabaseSession) {
+        final Map<Metrics, Metrics> loadedMetrics = new HashMap<>(metrics.size());
+        List<Metrics> notInCacheMetrics =
+            metrics.stream()
+                   .filter(m -> {
+                       final Metrics cachedValue = context.get(m);
+                       // Not cached or session disabled, the metric could be tagged `not in cache`.
+                       if (cachedValue == null || !enableDatabaseSession) {
+                           return true;
+                       }
+                       // The metric is in the cache, but still we have to check
+                       // whether the cache is expired due to TTL.
+                       // This is a cache-DB inconsistent case:
+                       // Metrics keep coming due to traffic, but the entity in the
+                       // database has been removed due to TTL.
+                       if (!model.isTimeRelativeID() && supportUpdate) {
+                           // Mostly all updatable metadata level metrics are required to do this check.
+
+                           if (metricsDAO.isExpiredCache(model, cachedValue, currentTimeMillis, metricsDataTTL)) {
+                               // The expired metrics should be removed from the context and tagged `not in cache` directly.
+                               context.remove(m);
                                return true;
                            }
-                           // The metric is in the cache, but still we have to check
-                           // whether the cache is expired due to TTL.
-                           // This is a cache-DB inconsistent case:
-                           // Metrics keep coming due to traffic, but the entity in the
-                           // database has been removed due to TTL.
-                           if (!model.isTimeRelativeID() && supportUpdate) {
-                               // Mostly all updatable metadata level metrics are required to do this check.
-
-                               if (metricsDAO.isExpiredCache(model, cachedValue, currentTimeMillis, metricsDataTTL)) {
-                                   // The expired metrics should be removed from the context and tagged `not in cache` directly.
-                                   context.remove(m);
-                                   return true;
-                               }
-                           }
-
-                           return false;
-                       })
-                       .collect(Collectors.toList());
-            if (notInCacheMetrics.isEmpty()) {
-                return;
-            }
+                       }
+
+                       loadedMetrics.put(cachedValue, cachedValue);
+                       return false;
+                   })
+                   .collect(Collectors.toList());
+        if (notInCacheMetrics.isEmpty()) {
+            return loadedMetrics;
+        }
 
-            final List<Metrics> dbMetrics = metricsDAO.multiGet(model, notInCacheMetrics);
-            if (!enableDatabaseSession) {
-                // Clear the cache only after results from DB are returned successfully.
-                context.clear();
-            }
-            dbMetrics.forEach(m -> context.put(m, m));
-        } catch (final Exception e) {
-            log.error("Failed to load metrics for merging", e);
+        final List<Metrics> dbMetrics = metricsDAO.multiGet(model, notInCacheMetrics);
+        if (!enableDatabaseSession) {
+            // Clear the cache only after results from DB are returned successfully.
+            context.clear();
         }
+        dbMetrics.forEach(m -> {
+            context.put(m);
+            loadedMetrics.put(m, m);
+        });
+        return loadedMetrics;
+    }
+
+    /**
+     * The existing metrics are loaded to merge, the rows inserted by the previous round have to be there, otherwise
+     * they are inserted again.
+     */
+    @Override
+    public boolean isPrepareAfterFlush() {
+        return true;
     }
 
     @Override
     public void endOfRound() {
         if (enableDatabaseSession) {
-            Iterator<Metrics> iterator = context.values().iterator();
-            long timestamp = System.currentTimeMillis();
-            while (iterator.hasNext()) {
-                Metrics metrics = iterator.next();
-
-                if (metrics.isExpired(timestamp, sessionTimeout)) {
-                    iterator.remove();
-                }
-            }
+            context.expire(System.currentTimeMillis());
         }
     }
 
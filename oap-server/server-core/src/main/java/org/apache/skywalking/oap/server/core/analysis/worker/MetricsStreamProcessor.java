@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.WaitStrategyType;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.analysis.DownSampling;
@@ -32,6 +33,9 @@ import org.apache.skywalking.oap.server.core.analysis.MetricsExtension;
 import org.apache.skywalking.oap.server.core.analysis.Stream;
 import org.apache.skywalking.oap.server.core.analysis.StreamDefinition;
 import org.apache.skywalking.oap.server.core.analysis.StreamProcessor;
+import org.apache.skywalking.oap.server.core.analysis.data.IMetricsSessionCache;
+import org.apache.skywalking.oap.server.core.analysis.data.MetricsSessionCache;
+import org.apache.skywalking.oap.server.core.analysis.data.OffHeapMetricsSessionCache;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.config.DownSamplingConfigService;
 import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
@@ -45,6 +49,8 @@ import org.apache.skywalking.oap.server.core.storage.model.ModelCreator;
 import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 /**
  * MetricsStreamProcessor represents the entrance and creator of the metrics streaming aggregation work flow.
@@ -76,6 +82,18 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
     @Setter
     @Getter
     private long l1FlushPeriod = 500;
+    /**
+     * Hold and forward CoreModuleConfig#enableL1AggregationRingBuffer to the aggregate worker.
+     */
+    @Setter
+    @Getter
+    private boolean enableL1AggregationRingBuffer;
+    /**
+     * Hold and forward CoreModuleConfig#aggregationWaitStrategy to the aggregate and persistent workers.
+     */
+    @Setter
+    @Getter
+    private WaitStrategyType aggregationWaitStrategy = WaitStrategyType.SLEEP;
     /**
      * Hold and forward CoreModuleConfig#enableDatabaseSession to the persistent worker.
      */
@@ -92,6 +110,26 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
      */
     @Setter
     private int metricsDataTTL = 3;
+    /**
+     * Hold and forward CoreModuleConfig#metricsSessionCacheMaxEntries to the persistent worker.
+     */
+    @Setter
+    private long sessionCacheMaxEntries = 0;
+    /**
+     * Hold and forward CoreModuleConfig#metricsSessionCacheMaxBytes to the persistent worker.
+     */
+    @Setter
+    private long sessionCacheMaxBytes = 0;
+    /**
+     * Hold and forward CoreModuleConfig#enableMetricsSessionCacheOffHeap to the persistent worker.
+     */
+    @Setter
+    private boolean sessionCacheOffHeap = false;
+    /**
+     * Hold and forward CoreModuleConfig#l2AggregationCacheStripes to the persistent worker.
+     */
+    @Setter
+    private int l2CacheStripes = 1;
 
     public static MetricsStreamProcessor getInstance() {
         return PROCESSOR;
@@ -165,14 +203,16 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                     metricsClass, stream.getScopeId(), new Storage(stream.getName(), timeRelativeID, DownSampling.Hour),
                     false
                 );
-                hourPersistentWorker = downSamplingWorker(moduleDefineHolder, metricsDAO, model, supportUpdate);
+                hourPersistentWorker = downSamplingWorker(
+                    moduleDefineHolder, metricsDAO, model, metricsClass, supportUpdate);
             }
             if (configService.shouldToDay()) {
                 Model model = modelSetter.add(
                     metricsClass, stream.getScopeId(), new Storage(stream.getName(), timeRelativeID, DownSampling.Day),
                     false
                 );
-                dayPersistentWorker = downSamplingWorker(moduleDefineHolder, metricsDAO, model, supportUpdate);
+                dayPersistentWorker = downSamplingWorker(
+                    moduleDefineHolder, metricsDAO, model, metricsClass, supportUpdate);
             }
 
             transWorker = new MetricsTransWorker(
@@ -184,7 +224,7 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
             false
         );
         MetricsPersistentWorker minutePersistentWorker = minutePersistentWorker(
-            moduleDefineHolder, metricsDAO, model, transWorker, supportUpdate);
+            moduleDefineHolder, metricsDAO, model, metricsClass, transWorker, supportUpdate);
 
         String remoteReceiverWorkerName = stream.getName() + "_rec";
         IWorkerInstanceSetter workerInstanceSetter = moduleDefineHolder.find(CoreModule.NAME)
@@ -194,7 +234,9 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
 
         MetricsRemoteWorker remoteWorker = new MetricsRemoteWorker(moduleDefineHolder, remoteReceiverWorkerName);
         MetricsAggregateWorker aggregateWorker = new MetricsAggregateWorker(
-            moduleDefineHolder, remoteWorker, stream.getName(), l1FlushPeriod);
+            moduleDefineHolder, remoteWorker, stream.getName(), l1FlushPeriod, enableL1AggregationRingBuffer,
+            aggregationWaitStrategy
+        );
 
         entryWorkers.put(metricsClass, aggregateWorker);
     }
@@ -202,6 +244,7 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
     private MetricsPersistentWorker minutePersistentWorker(ModuleDefineHolder moduleDefineHolder,
                                                            IMetricsDAO metricsDAO,
                                                            Model model,
+                                                           Class<? extends Metrics> metricsClass,
                                                            MetricsTransWorker transWorker,
                                                            boolean supportUpdate) {
         AlarmNotifyWorker alarmNotifyWorker = new AlarmNotifyWorker(moduleDefineHolder);
@@ -209,7 +252,8 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
 
         MetricsPersistentWorker minutePersistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO, alarmNotifyWorker, exportWorker, transWorker,
-            enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL
+            enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL, aggregationWaitStrategy,
+            l2CacheStripes, sessionCache(moduleDefineHolder, metricsClass, model)
         );
         persistentWorkers.add(minutePersistentWorker);
 
@@ -219,13 +263,33 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
     private MetricsPersistentWorker downSamplingWorker(ModuleDefineHolder moduleDefineHolder,
                                                        IMetricsDAO metricsDAO,
                                                        Model model,
+                                                       Class<? extends Metrics> metricsClass,
                                                        boolean supportUpdate) {
         MetricsPersistentWorker persistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO,
-            enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL
+            enableDatabaseSession, supportUpdate, storageSessionTimeout, metricsDataTTL, aggregationWaitStrategy,
+            l2CacheStripes, sessionCache(moduleDefineHolder, metricsClass, model)
         );
         persistentWorkers.add(persistentWorker);
 
         return persistentWorker;
     }
+
+    private IMetricsSessionCache sessionCache(ModuleDefineHolder moduleDefineHolder,
+                                              Class<? extends Metrics> metricsClass,
+                                              Model model) {
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        if (sessionCacheOffHeap) {
+            return new OffHeapMetricsSessionCache(
+                metricsClass, sessionCacheMaxEntries, sessionCacheMaxBytes, storageSessionTimeout, metricsCreator,
+                model.getName(), model.getDownsampling().getName()
+            );
+        }
+        return new MetricsSessionCache(
+            sessionCacheMaxEntries, sessionCacheMaxBytes, storageSessionTimeout, metricsCreator, model.getName(),
+            model.getDownsampling().getName()
+        );
+    }
 }
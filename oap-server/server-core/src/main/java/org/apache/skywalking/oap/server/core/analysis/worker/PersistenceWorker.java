@@ -23,8 +23,9 @@ import java.util.List;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.skywalking.oap.server.core.analysis.data.ReadWriteSafeCache;
+import org.apache.skywalking.oap.server.core.analysis.data.IReadWriteSafeCache;
 import org.apache.skywalking.oap.server.core.storage.StorageData;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
@@ -38,9 +39,9 @@ import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 @Slf4j
 public abstract class PersistenceWorker<INPUT extends StorageData> extends AbstractWorker<INPUT> {
     @Getter(AccessLevel.PROTECTED)
-    private final ReadWriteSafeCache<INPUT> cache;
+    private final IReadWriteSafeCache<INPUT> cache;
 
-    PersistenceWorker(ModuleDefineHolder moduleDefineHolder, ReadWriteSafeCache<INPUT> cache) {
+    PersistenceWorker(ModuleDefineHolder moduleDefineHolder, IReadWriteSafeCache<INPUT> cache) {
         super(moduleDefineHolder);
         this.cache = cache;
     }
@@ -66,6 +67,20 @@ public abstract class PersistenceWorker<INPUT extends StorageData> extends Abstr
      */
     public abstract List<PrepareRequest> prepareBatch(Collection<INPUT> lastCollection);
 
+    /**
+     * @return the model persisted by this worker, which identifies the worker in the persistence telemetry.
+     */
+    public abstract Model getModel();
+
+    /**
+     * @return true if the prepare stage reads what the previous round flushed, such as the metrics merged with the
+     * existing rows. Then the pipelined {@link org.apache.skywalking.oap.server.core.storage.PersistenceTimer} doesn't
+     * prepare the next round of this worker until the previous one is flushed.
+     */
+    public boolean isPrepareAfterFlush() {
+        return false;
+    }
+
     public List<PrepareRequest> buildBatchRequests() {
         final List<INPUT> dataList = getCache().read();
         return prepareBatch(dataList);
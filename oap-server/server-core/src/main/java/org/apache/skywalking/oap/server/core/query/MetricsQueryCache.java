@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.oap.server.core.analysis.DownSampling;
+import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * Cache the values of the metrics queries of {@link MetricsQueryService} by time bucket. A time bucket is closed when
+ * it ended longer than the closed delay of its step ago, as the L2 aggregation has persisted its metrics, then its
+ * values are cached until they expire or are evicted by the size. A query reads the time buckets from the first
+ * uncached or open one to the end of the duration from the storage, so the dashboards refreshing the latest duration
+ * only read the open tail.
+ * <p>
+ * The late metrics of a closed time bucket are not shown until its values expire or are evicted.
+ */
+class MetricsQueryCache {
+    private final Cache<PointKey, Object> cache;
+    private final ToLongFunction<Step> closedDelay;
+    private final LongSupplier clock;
+    private final CounterMetrics hitCounter;
+    private final CounterMetrics missCounter;
+
+    /**
+     * @param closedDelay      in milliseconds of every step, the time bucket ended longer than it ago is closed.
+     * @param expireAfterWrite in milliseconds, the cached values expire after it.
+     */
+    MetricsQueryCache(long maxEntries,
+                      ToLongFunction<Step> closedDelay,
+                      long expireAfterWrite,
+                      MetricsCreator metricsCreator) {
+        this(maxEntries, closedDelay, expireAfterWrite, metricsCreator, System::currentTimeMillis);
+    }
+
+    MetricsQueryCache(long maxEntries,
+                      ToLongFunction<Step> closedDelay,
+                      long expireAfterWrite,
+                      MetricsCreator metricsCreator,
+                      LongSupplier clock) {
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(maxEntries)
+                                 .expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                                 .ticker(new Ticker() {
+                                     @Override
+                                     public long read() {
+                                         return TimeUnit.MILLISECONDS.toNanos(clock.getAsLong());
+                                     }
+                                 })
+                                 .build();
+        this.closedDelay = closedDelay;
+        this.clock = clock;
+        this.hitCounter = metricsCreator.createCounter(
+            "metrics_query_cache_hit_count", "The number of the time buckets of the metrics queries read from the cache.",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        this.missCounter = metricsCreator.createCounter(
+            "metrics_query_cache_miss_count",
+            "The number of the time buckets of the metrics queries read from the storage.",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+    }
+
+    /**
+     * Read the values of the closed time buckets from the cache, and others through the reader.
+     *
+     * @param kind  the kind of the query, the values of different kinds of queries of the same metrics differ.
+     * @param split split the result into the values of every time bucket, in the order of the time buckets, or null
+     *              if it couldn't.
+     * @param merge merge the values of the time buckets into the result, or null if they couldn't.
+     */
+    <T, V> T read(String kind,
+                  MetricsCondition condition,
+                  Duration duration,
+                  Reader<T> reader,
+                  Function<T, List<V>> split,
+                  Function<List<V>, T> merge) throws IOException {
+        final List<PointOfTime> points = duration.assembleDurationPoints();
+        final String entityId = condition.getEntity().buildId();
+        final long closedTimeBucket = closedTimeBucket(duration.getStep());
+
+        List<V> values = new ArrayList<>(points.size());
+        int cached = 0;
+        for (; cached < points.size(); cached++) {
+            final PointOfTime point = points.get(cached);
+            if (point.getPoint() >= closedTimeBucket) {
+                break;
+            }
+            @SuppressWarnings("unchecked")
+            V value = (V) cache.getIfPresent(new PointKey(kind, condition.getName(), entityId, point.getPoint()));
+            if (value == null) {
+                break;
+            }
+            values.add(value);
+        }
+
+        if (cached == points.size()) {
+            T result = merge.apply(values);
+            if (result != null) {
+                hitCounter.inc(cached);
+                return result;
+            }
+            // The cached values couldn't be merged, all are read from the storage.
+            missCounter.inc(points.size());
+            return reader.read(duration);
+        }
+        if (cached == 0) {
+            missCounter.inc(points.size());
+            T result = reader.read(duration);
+            put(kind, condition, entityId, points, 0, closedTimeBucket, split.apply(result));
+            return result;
+        }
+
+        Duration tail = new Duration();
+        tail.setStart(DurationUtils.INSTANCE.convertToDateString(duration.getStep(), points.get(cached).getPoint()));
+        tail.setEnd(duration.getEnd());
+        tail.setStep(duration.getStep());
+        List<V> tailValues = split.apply(reader.read(tail));
+        if (tailValues != null && tailValues.size() == points.size() - cached) {
+            put(kind, condition, entityId, points, cached, closedTimeBucket, tailValues);
+            values.addAll(tailValues);
+            T result = merge.apply(values);
+            if (result != null) {
+                hitCounter.inc(cached);
+                missCounter.inc(points.size() - cached);
+                return result;
+            }
+        }
+        // The cached values don't match the values read, fail safe.
+        missCounter.inc(points.size());
+        return reader.read(duration);
+    }
+
+    private <V> void put(String kind,
+                         MetricsCondition condition,
+                         String entityId,
+                         List<PointOfTime> points,
+                         int from,
+                         long closedTimeBucket,
+                         List<V> values) {
+        if (values == null || values.size() != points.size() - from) {
+            return;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            final long point = points.get(from + i).getPoint();
+            if (point >= closedTimeBucket) {
+                return;
+            }
+            cache.put(new PointKey(kind, condition.getName(), entityId, point), values.get(i));
+        }
+    }
+
+    /**
+     * @return the time bucket of the step ended the closed delay ago, the time buckets before it are closed.
+     */
+    private long closedTimeBucket(Step step) {
+        final long closedTime = clock.getAsLong() - closedDelay.applyAsLong(step);
+        switch (step) {
+            case DAY:
+                return TimeBucket.getTimeBucket(closedTime, DownSampling.Day);
+            case HOUR:
+                return TimeBucket.getTimeBucket(closedTime, DownSampling.Hour);
+            case MINUTE:
+                return TimeBucket.getTimeBucket(closedTime, DownSampling.Minute);
+            case SECOND:
+                return TimeBucket.getTimeBucket(closedTime, DownSampling.Second);
+        }
+        throw new UnexpectedException("Unsupported step " + step.name());
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    interface Reader<T> {
+        T read(Duration duration) throws IOException;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class PointKey {
+        private final String kind;
+        private final String name;
+        private final String entityId;
+        private final long point;
+    }
+}
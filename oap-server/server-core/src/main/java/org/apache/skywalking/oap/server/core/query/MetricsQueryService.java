@@ -18,26 +18,67 @@
 
 package org.apache.skywalking.oap.server.core.query;
 
+import com.google.common.base.Strings;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
+import org.apache.skywalking.oap.server.core.analysis.worker.MetricsPersistentWorker;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
 import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.Bucket;
 import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
 import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
 import org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 @Slf4j
 public class MetricsQueryService implements Service {
+    private static final String METRICS_VALUES = "values";
+    private static final String LABELED_METRICS_VALUES = "labeled:";
+    private static final String HEAT_MAP = "heatmap";
+
     private final ModuleManager moduleManager;
+    private final long queryCacheMaxEntries;
+    private final long persistentPeriod;
+    private final long l1FlushPeriod;
+    private final long queryCacheExpireAfterWrite;
     private IMetricsQueryDAO metricQueryDAO;
+    private volatile MetricsQueryCache queryCache;
 
-    public MetricsQueryService(ModuleManager moduleManager) {
+    public MetricsQueryService(ModuleManager moduleManager, CoreModuleConfig moduleConfig) {
         this.moduleManager = moduleManager;
+        this.queryCacheMaxEntries = moduleConfig.getMetricsQueryCacheMaxEntries();
+        this.persistentPeriod = moduleConfig.getPersistentPeriod() * 1000;
+        this.l1FlushPeriod = moduleConfig.getL1FlushPeriod();
+        this.queryCacheExpireAfterWrite = moduleConfig.getMetricsQueryCacheExpireAfterWrite() * 1000;
+    }
+
+    /**
+     * @return in milliseconds, the time bucket of the step ended longer than it ago has been persisted. The metrics
+     * are flushed by the L1 aggregation, then persisted in the next period of the minute L2 aggregation, which passes
+     * them to the down sampling workers persisting every {@link MetricsPersistentWorker#DOWNSAMPLING_PERSISTENT_MOD}
+     * periods. One more period is for the late metrics.
+     */
+    long queryCacheClosedDelay(Step step) {
+        switch (step) {
+            case HOUR:
+            case DAY:
+                return (MetricsPersistentWorker.DOWNSAMPLING_PERSISTENT_MOD + 2) * persistentPeriod + l1FlushPeriod;
+            default:
+                return 2 * persistentPeriod + l1FlushPeriod;
+        }
     }
 
     private IMetricsQueryDAO getMetricQueryDAO() {
@@ -47,6 +88,27 @@ public class MetricsQueryService implements Service {
         return metricQueryDAO;
     }
 
+    /**
+     * @return the cache of the values of the closed time buckets, or null if it is disabled.
+     */
+    private MetricsQueryCache getQueryCache() {
+        if (queryCacheMaxEntries <= 0) {
+            return null;
+        }
+        if (queryCache == null) {
+            synchronized (this) {
+                if (queryCache == null) {
+                    MetricsCreator metricsCreator = moduleManager.find(TelemetryModule.NAME)
+                                                                 .provider()
+                                                                 .getService(MetricsCreator.class);
+                    queryCache = new MetricsQueryCache(
+                        queryCacheMaxEntries, this::queryCacheClosedDelay, queryCacheExpireAfterWrite, metricsCreator);
+                }
+            }
+        }
+        return queryCache;
+    }
+
     /**
      * Read metrics single value in the duration of required metrics
      */
@@ -59,8 +121,17 @@ public class MetricsQueryService implements Service {
      * Read time-series values in the duration of required metrics
      */
     public MetricsValues readMetricsValues(MetricsCondition condition, Duration duration) throws IOException {
-        return getMetricQueryDAO().readMetricsValues(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        final MetricsQueryCache cache = getQueryCache();
+        if (cache == null) {
+            return getMetricQueryDAO().readMetricsValues(condition, valueCName, duration);
+        }
+        return cache.read(
+            METRICS_VALUES, condition, duration,
+            d -> getMetricQueryDAO().readMetricsValues(condition, valueCName, d),
+            MetricsQueryService::splitMetricsValues,
+            MetricsQueryService::mergeMetricsValues
+        );
     }
 
     /**
@@ -71,15 +142,158 @@ public class MetricsQueryService implements Service {
     public List<MetricsValues> readLabeledMetricsValues(MetricsCondition condition,
                                                         List<String> labels,
                                                         Duration duration) throws IOException {
-        return getMetricQueryDAO().readLabeledMetricsValues(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), labels, duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        final MetricsQueryCache cache = getQueryCache();
+        // All labels of the duration are read without the given labels, which can't be composed by time bucket.
+        if (cache == null || labels == null || labels.isEmpty() || labels.stream().anyMatch(Strings::isNullOrEmpty)) {
+            return getMetricQueryDAO().readLabeledMetricsValues(condition, valueCName, labels, duration);
+        }
+        return cache.read(
+            LABELED_METRICS_VALUES + String.join(",", new TreeSet<>(labels)), condition, duration,
+            d -> getMetricQueryDAO().readLabeledMetricsValues(condition, valueCName, labels, d),
+            MetricsQueryService::splitLabeledMetricsValues,
+            MetricsQueryService::mergeLabeledMetricsValues
+        );
     }
 
     /**
      * Heatmap is bucket based value statistic result.
      */
     public HeatMap readHeatMap(MetricsCondition condition, Duration duration) throws IOException {
-        return getMetricQueryDAO().readHeatMap(
-            condition, ValueColumnMetadata.INSTANCE.getValueCName(condition.getName()), duration);
+        final String valueCName = ValueColumnMetadata.INSTANCE.getValueCName(condition.getName());
+        final MetricsQueryCache cache = getQueryCache();
+        if (cache == null) {
+            return getMetricQueryDAO().readHeatMap(condition, valueCName, duration);
+        }
+        final int defaultValue = ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName());
+        return cache.read(
+            HEAT_MAP, condition, duration,
+            d -> getMetricQueryDAO().readHeatMap(condition, valueCName, d),
+            MetricsQueryService::splitHeatMap,
+            columns -> mergeHeatMap(columns, defaultValue)
+        );
+    }
+
+    /**
+     * @return the metrics values of every time bucket, including one value only.
+     */
+    private static List<MetricsValues> splitMetricsValues(MetricsValues metricsValues) {
+        List<MetricsValues> split = new ArrayList<>(metricsValues.getValues().getValues().size());
+        for (KVInt kv : metricsValues.getValues().getValues()) {
+            MetricsValues point = new MetricsValues();
+            point.setLabel(metricsValues.getLabel());
+            point.getValues().addKVInt(kv);
+            split.add(point);
+        }
+        return split;
+    }
+
+    private static MetricsValues mergeMetricsValues(List<MetricsValues> points) {
+        MetricsValues metricsValues = new MetricsValues();
+        if (!points.isEmpty()) {
+            metricsValues.setLabel(points.get(0).getLabel());
+        }
+        points.forEach(point -> point.getValues().getValues().forEach(metricsValues.getValues()::addKVInt));
+        return metricsValues;
+    }
+
+    /**
+     * @return the metrics values of all labels of every time bucket, or null if the number of values of the labels
+     * differ.
+     */
+    private static List<List<MetricsValues>> splitLabeledMetricsValues(List<MetricsValues> labeledValues) {
+        if (labeledValues.isEmpty()) {
+            return null;
+        }
+        final int size = labeledValues.get(0).getValues().getValues().size();
+        List<List<MetricsValues>> split = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            split.add(new ArrayList<>(labeledValues.size()));
+        }
+        for (MetricsValues metricsValues : labeledValues) {
+            List<KVInt> values = metricsValues.getValues().getValues();
+            if (values.size() != size) {
+                return null;
+            }
+            for (int i = 0; i < size; i++) {
+                MetricsValues point = new MetricsValues();
+                point.setLabel(metricsValues.getLabel());
+                point.getValues().addKVInt(values.get(i));
+                split.get(i).add(point);
+            }
+        }
+        return split;
+    }
+
+    private static List<MetricsValues> mergeLabeledMetricsValues(List<List<MetricsValues>> points) {
+        List<MetricsValues> labeledValues = new ArrayList<>();
+        if (points.isEmpty()) {
+            return labeledValues;
+        }
+        for (MetricsValues label : points.get(0)) {
+            MetricsValues metricsValues = new MetricsValues();
+            metricsValues.setLabel(label.getLabel());
+            labeledValues.add(metricsValues);
+        }
+        for (List<MetricsValues> point : points) {
+            if (point.size() != labeledValues.size()) {
+                return null;
+            }
+            for (int i = 0; i < point.size(); i++) {
+                if (!Objects.equals(point.get(i).getLabel(), labeledValues.get(i).getLabel())) {
+                    return null;
+                }
+                point.get(i).getValues().getValues().forEach(labeledValues.get(i).getValues()::addKVInt);
+            }
+        }
+        return labeledValues;
+    }
+
+    private static List<HeatMapPoint> splitHeatMap(HeatMap heatMap) {
+        List<HeatMapPoint> split = new ArrayList<>(heatMap.getValues().size());
+        heatMap.getValues().forEach(column -> split.add(new HeatMapPoint(column, heatMap.getBuckets())));
+        return split;
+    }
+
+    /**
+     * @return the heatmap, or null if the buckets of the time buckets differ.
+     */
+    private static HeatMap mergeHeatMap(List<HeatMapPoint> points, int defaultValue) {
+        List<Bucket> buckets = null;
+        for (HeatMapPoint point : points) {
+            if (point.buckets.isEmpty()) {
+                continue;
+            }
+            if (buckets == null) {
+                buckets = point.buckets;
+            } else if (buckets.size() != point.buckets.size()) {
+                return null;
+            }
+        }
+
+        HeatMap heatMap = new HeatMap();
+        if (buckets == null) {
+            points.forEach(point -> heatMap.getValues().add(point.column));
+            return heatMap;
+        }
+        buckets.forEach(heatMap::addBucket);
+        for (HeatMapPoint point : points) {
+            if (point.buckets.isEmpty()) {
+                // The column of the missing time bucket, built without the buckets.
+                HeatMap.HeatMapColumn column = new HeatMap.HeatMapColumn();
+                column.setId(point.column.getId());
+                buckets.forEach(bucket -> column.addValue((long) defaultValue));
+                heatMap.getValues().add(column);
+            } else {
+                heatMap.getValues().add(point.column);
+            }
+        }
+        return heatMap;
+    }
+
+    @RequiredArgsConstructor
+    private static class HeatMapPoint {
+        private final HeatMap.HeatMapColumn column;
+        private final List<Bucket> buckets;
     }
 }
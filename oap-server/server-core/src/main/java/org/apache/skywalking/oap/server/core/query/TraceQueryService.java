@@ -19,18 +19,26 @@
 package org.apache.skywalking.oap.server.core.query;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
-import org.apache.skywalking.oap.server.core.Const;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.analysis.manual.searchtag.Tag;
 import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
 import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogService;
-import org.apache.skywalking.oap.server.core.query.type.KeyValue;
-import org.apache.skywalking.oap.server.core.query.type.LogEntity;
+import org.apache.skywalking.oap.server.core.query.input.TraceSpanCondition;
 import org.apache.skywalking.oap.server.core.query.type.Pagination;
 import org.apache.skywalking.oap.server.core.query.type.QueryOrder;
 import org.apache.skywalking.oap.server.core.query.type.Ref;
@@ -38,6 +46,7 @@ import org.apache.skywalking.oap.server.core.query.type.RefType;
 import org.apache.skywalking.oap.server.core.query.type.Span;
 import org.apache.skywalking.oap.server.core.query.type.Trace;
 import org.apache.skywalking.oap.server.core.query.type.TraceBrief;
+import org.apache.skywalking.oap.server.core.query.type.TraceSpans;
 import org.apache.skywalking.oap.server.core.query.type.TraceState;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
@@ -94,46 +103,86 @@ public class TraceQueryService implements Service {
         );
     }
 
-    //
     public Trace queryTrace(final String traceId) throws IOException {
         Trace trace = new Trace();
 
         List<SegmentRecord> segmentRecords = getTraceQueryDAO().queryByTraceId(traceId);
         if (segmentRecords.isEmpty()) {
-            trace.getSpans().addAll(getTraceQueryDAO().doFlexibleTraceQuery(traceId));
+            List<Span> spans = getTraceQueryDAO().doFlexibleTraceQuery(traceId);
+            if (CollectionUtils.isNotEmpty(spans)) {
+                trace.getSpans().addAll(sortSpans(spans, Span::getSegmentSpanId, Span::getSegmentParentSpanId));
+            }
         } else {
+            List<Span> spans = new ArrayList<>();
             for (SegmentRecord segment : segmentRecords) {
                 if (nonNull(segment)) {
                     SegmentObject segmentObject = SegmentObject.parseFrom(segment.getDataBinary());
-                    trace.getSpans()
-                         .addAll(buildSpanList(segmentObject));
+                    spans.addAll(buildSpanList(segmentObject, 0, Long.MAX_VALUE));
                 }
             }
+            trace.getSpans().addAll(sortSpans(spans, SegmentSpanKey::of, SegmentSpanKey::parentOf));
+        }
+        return trace;
+    }
+
+    /**
+     * Query one page of the spans of the trace, in the same order as {@link #queryTrace(String)}. A huge trace could be
+     * shown by the skeleton, the spans limited by {@link TraceSpanCondition#getMaxDepth()}, first, then page by page or
+     * time range by time range. Only the segments overlapping with the time range are loaded from the storage.
+     */
+    public TraceSpans queryTraceSpans(final TraceSpanCondition condition) throws IOException {
+        final String traceId = condition.getTraceId();
+        final long startTime = condition.getStartTime() == null ? 0 : condition.getStartTime();
+        final long endTime = condition.getEndTime() == null ? Long.MAX_VALUE : condition.getEndTime();
+        final int maxDepth = condition.getMaxDepth() == null ? Integer.MAX_VALUE : condition.getMaxDepth();
+
+        List<SegmentRecord> segmentRecords;
+        if (startTime > 0 || endTime < Long.MAX_VALUE) {
+            segmentRecords = getTraceQueryDAO().queryByTraceId(traceId, startTime, endTime);
+        } else {
+            segmentRecords = getTraceQueryDAO().queryByTraceId(traceId);
         }
 
-        List<Span> sortedSpans = new LinkedList<>();
-        if (CollectionUtils.isNotEmpty(trace.getSpans())) {
-            List<Span> rootSpans = findRoot(trace.getSpans());
-
-            if (CollectionUtils.isNotEmpty(rootSpans)) {
-                rootSpans.forEach(span -> {
-                    List<Span> childrenSpan = new ArrayList<>();
-                    childrenSpan.add(span);
-                    findChildren(trace.getSpans(), span, childrenSpan);
-                    sortedSpans.addAll(childrenSpan);
-                });
+        List<Span> sortedSpans;
+        if (segmentRecords.isEmpty()) {
+            List<Span> spans = new ArrayList<>();
+            List<Span> flexibleSpans = getTraceQueryDAO().doFlexibleTraceQuery(traceId);
+            if (CollectionUtils.isNotEmpty(flexibleSpans)) {
+                for (Span span : flexibleSpans) {
+                    if (span.getEndTime() >= startTime && span.getStartTime() <= endTime) {
+                        spans.add(span);
+                    }
+                }
+            }
+            sortedSpans = sortSpans(spans, Span::getSegmentSpanId, Span::getSegmentParentSpanId, maxDepth);
+        } else {
+            List<Span> spans = new ArrayList<>();
+            for (SegmentRecord segment : segmentRecords) {
+                if (nonNull(segment)) {
+                    SegmentObject segmentObject = SegmentObject.parseFrom(segment.getDataBinary());
+                    spans.addAll(buildSpanList(segmentObject, startTime, endTime));
+                }
             }
+            sortedSpans = sortSpans(spans, SegmentSpanKey::of, SegmentSpanKey::parentOf, maxDepth);
         }
 
-        trace.getSpans().clear();
-        trace.getSpans().addAll(sortedSpans);
-        return trace;
+        TraceSpans traceSpans = new TraceSpans();
+        traceSpans.setTotal(sortedSpans.size());
+        PaginationUtils.Page page = PaginationUtils.INSTANCE.exchange(condition.getPaging());
+        if (page.getFrom() < sortedSpans.size()) {
+            traceSpans.getSpans().addAll(
+                sortedSpans.subList(page.getFrom(), Math.min(page.getFrom() + page.getLimit(), sortedSpans.size())));
+        }
+        return traceSpans;
     }
 
-    private List<Span> buildSpanList(SegmentObject segmentObject) {
+    private List<Span> buildSpanList(SegmentObject segmentObject, long startTime, long endTime) {
         List<Span> spans = new ArrayList<>();
 
         segmentObject.getSpansList().forEach(spanObject -> {
+            if (spanObject.getEndTime() < startTime || spanObject.getStartTime() > endTime) {
+                return;
+            }
             Span span = new Span();
             span.setTraceId(segmentObject.getTraceId());
             span.setSegmentId(segmentObject.getTraceSegmentId());
@@ -145,12 +194,6 @@ public class TraceQueryService implements Service {
             span.setLayer(spanObject.getSpanLayer().name());
             span.setType(spanObject.getSpanType().name());
 
-            String segmentSpanId = segmentObject.getTraceSegmentId() + Const.SEGMENT_SPAN_SPLIT + spanObject.getSpanId();
-            span.setSegmentSpanId(segmentSpanId);
-
-            String segmentParentSpanId = segmentObject.getTraceSegmentId() + Const.SEGMENT_SPAN_SPLIT + spanObject.getParentSpanId();
-            span.setSegmentParentSpanId(segmentParentSpanId);
-
             span.setPeer(spanObject.getPeer());
 
             span.setEndpointName(spanObject.getOperationName());
@@ -175,32 +218,10 @@ public class TraceQueryService implements Service {
                 }
                 ref.setParentSpanId(reference.getParentSpanId());
 
-                span.setSegmentParentSpanId(
-                    ref.getParentSegmentId() + Const.SEGMENT_SPAN_SPLIT + ref.getParentSpanId());
-
                 span.getRefs().add(ref);
             });
 
-            spanObject.getTagsList().forEach(tag -> {
-                KeyValue keyValue = new KeyValue();
-                keyValue.setKey(tag.getKey());
-                keyValue.setValue(tag.getValue());
-                span.getTags().add(keyValue);
-            });
-
-            spanObject.getLogsList().forEach(log -> {
-                LogEntity logEntity = new LogEntity();
-                logEntity.setTime(log.getTime());
-
-                log.getDataList().forEach(data -> {
-                    KeyValue keyValue = new KeyValue();
-                    keyValue.setKey(data.getKey());
-                    keyValue.setValue(data.getValue());
-                    logEntity.getData().add(keyValue);
-                });
-
-                span.getLogs().add(logEntity);
-            });
+            span.setDetailSource(spanObject);
 
             spans.add(span);
         });
@@ -208,42 +229,98 @@ public class TraceQueryService implements Service {
         return spans;
     }
 
-    private List<Span> findRoot(List<Span> spans) {
-        List<Span> rootSpans = new ArrayList<>();
-        spans.forEach(span -> {
-            String segmentParentSpanId = span.getSegmentParentSpanId();
-
-            boolean hasParent = false;
-            for (Span subSpan : spans) {
-                if (segmentParentSpanId.equals(subSpan.getSegmentSpanId())) {
-                    hasParent = true;
-                    // if find parent, quick exit
-                    break;
-                }
-            }
+    /**
+     * Sort the spans in the pre-order of the trace tree, with an index of the children of every span, rather than
+     * searching the parent and the children of every span in the whole list.
+     * <p>
+     * The span whose parent isn't in the list is a root. In some cases, there are segment fragments, which could not be
+     * linked by Ref, because of two kinds of reasons.
+     * 1. Multiple leaf segments have no particular order in the storage.
+     * 2. Lost in sampling, agent fail safe, segment lost, even bug.
+     * Sorting the roots by the start time makes the trace view more readable. The children keep the order of the
+     * list.
+     *
+     * @param idOf       the id of the span
+     * @param parentIdOf the id of the parent span
+     * @return the sorted spans, every span appears once at most.
+     */
+    static <K> List<Span> sortSpans(List<Span> spans, Function<Span, K> idOf, Function<Span, K> parentIdOf) {
+        return sortSpans(spans, idOf, parentIdOf, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #sortSpans(List, Function, Function)}, and skip the spans deeper than the max depth, the depth of
+     * the root spans is 0.
+     */
+    static <K> List<Span> sortSpans(List<Span> spans,
+                                    Function<Span, K> idOf,
+                                    Function<Span, K> parentIdOf,
+                                    int maxDepth) {
+        Set<K> ids = new HashSet<>(spans.size() * 2);
+        for (Span span : spans) {
+            ids.add(idOf.apply(span));
+        }
 
-            if (!hasParent) {
+        List<Span> rootSpans = new ArrayList<>();
+        Map<K, List<Span>> childrenOfParent = new HashMap<>(spans.size() * 2);
+        for (Span span : spans) {
+            K parentId = parentIdOf.apply(span);
+            if (ids.contains(parentId)) {
+                childrenOfParent.computeIfAbsent(parentId, key -> new ArrayList<>(2)).add(span);
+            } else {
                 span.setRoot(true);
                 rootSpans.add(span);
             }
-        });
-        /*
-         * In some cases, there are segment fragments, which could not be linked by Ref,
-         * because of two kinds of reasons.
-         * 1. Multiple leaf segments have no particular order in the storage.
-         * 2. Lost in sampling, agent fail safe, segment lost, even bug.
-         * Sorting the segments makes the trace view more readable.
-         */
+        }
         rootSpans.sort(Comparator.comparing(Span::getStartTime));
-        return rootSpans;
+
+        List<Span> sortedSpans = new ArrayList<>(spans.size());
+        Set<Span> visited = Collections.newSetFromMap(new IdentityHashMap<>(spans.size() * 2));
+        Deque<Span> stack = new ArrayDeque<>();
+        Deque<Integer> depthStack = new ArrayDeque<>();
+        for (Span rootSpan : rootSpans) {
+            stack.push(rootSpan);
+            depthStack.push(0);
+            while (!stack.isEmpty()) {
+                Span span = stack.pop();
+                int depth = depthStack.pop();
+                // Duplicate or circular references don't make a span show twice.
+                if (!visited.add(span)) {
+                    continue;
+                }
+                sortedSpans.add(span);
+                List<Span> children = depth < maxDepth ? childrenOfParent.get(idOf.apply(span)) : null;
+                if (children != null) {
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(children.get(i));
+                        depthStack.push(depth + 1);
+                    }
+                }
+            }
+        }
+        return sortedSpans;
     }
 
-    private void findChildren(List<Span> spans, Span parentSpan, List<Span> childrenSpan) {
-        spans.forEach(span -> {
-            if (span.getSegmentParentSpanId().equals(parentSpan.getSegmentSpanId())) {
-                childrenSpan.add(span);
-                findChildren(spans, span, childrenSpan);
+    /**
+     * The id of the span in the segment, to index the spans without building the id strings.
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static final class SegmentSpanKey {
+        private final String segmentId;
+        private final int spanId;
+
+        static SegmentSpanKey of(Span span) {
+            return new SegmentSpanKey(span.getSegmentId(), span.getSpanId());
+        }
+
+        static SegmentSpanKey parentOf(Span span) {
+            List<Ref> refs = span.getRefs();
+            if (refs.isEmpty()) {
+                return new SegmentSpanKey(span.getSegmentId(), span.getParentSpanId());
             }
-        });
+            Ref ref = refs.get(refs.size() - 1);
+            return new SegmentSpanKey(ref.getParentSegmentId(), ref.getParentSpanId());
+        }
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query.input;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.skywalking.oap.server.core.query.type.Pagination;
+
+/**
+ * The window of the spans of a trace, to query a huge trace page by page.
+ */
+@Getter
+@Setter
+public class TraceSpanCondition {
+    private String traceId;
+    /**
+     * Only the spans not deeper than it in the trace tree, the depth of the root spans is 0. Null means no limit.
+     */
+    private Integer maxDepth;
+    /**
+     * Only the spans overlapping with the time range, in milliseconds. Null means no limit.
+     */
+    private Long startTime;
+    private Long endTime;
+    private Pagination paging;
+}
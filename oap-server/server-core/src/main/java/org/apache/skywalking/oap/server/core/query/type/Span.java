@@ -20,8 +20,11 @@ package org.apache.skywalking.oap.server.core.query.type;
 
 import java.util.ArrayList;
 import java.util.List;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.oap.server.core.Const;
 
 @Getter
 public class Span {
@@ -58,14 +61,78 @@ public class Span {
     private final List<LogEntity> logs;
     @Setter
     private boolean isRoot;
+    /**
+     * Built from the segment id and the span id on the first read, if not set.
+     */
     @Setter
+    @Getter(AccessLevel.NONE)
     private String segmentSpanId;
+    /**
+     * Built from the last ref, or the segment id and the parent span id, on the first read, if not set.
+     */
     @Setter
+    @Getter(AccessLevel.NONE)
     private String segmentParentSpanId;
+    /**
+     * The tags and the logs are built from the span object on the first read, as most of the spans of a big trace
+     * are never displayed in detail.
+     */
+    @Getter(AccessLevel.NONE)
+    private SpanObject detailSource;
 
     public Span() {
         this.refs = new ArrayList<>();
         this.tags = new ArrayList<>();
         this.logs = new ArrayList<>();
     }
+
+    /**
+     * Build the tags and the logs from the span object when they are read, rather than now.
+     */
+    public synchronized void setDetailSource(SpanObject detailSource) {
+        this.detailSource = detailSource;
+    }
+
+    public String getSegmentSpanId() {
+        if (segmentSpanId == null && segmentId != null) {
+            segmentSpanId = segmentId + Const.SEGMENT_SPAN_SPLIT + spanId;
+        }
+        return segmentSpanId;
+    }
+
+    public String getSegmentParentSpanId() {
+        if (segmentParentSpanId == null && segmentId != null) {
+            if (refs.isEmpty()) {
+                segmentParentSpanId = segmentId + Const.SEGMENT_SPAN_SPLIT + parentSpanId;
+            } else {
+                Ref ref = refs.get(refs.size() - 1);
+                segmentParentSpanId = ref.getParentSegmentId() + Const.SEGMENT_SPAN_SPLIT + ref.getParentSpanId();
+            }
+        }
+        return segmentParentSpanId;
+    }
+
+    public List<KeyValue> getTags() {
+        buildDetail();
+        return tags;
+    }
+
+    public List<LogEntity> getLogs() {
+        buildDetail();
+        return logs;
+    }
+
+    private synchronized void buildDetail() {
+        if (detailSource == null) {
+            return;
+        }
+        detailSource.getTagsList().forEach(tag -> tags.add(new KeyValue(tag.getKey(), tag.getValue())));
+        detailSource.getLogsList().forEach(log -> {
+            LogEntity logEntity = new LogEntity();
+            logEntity.setTime(log.getTime());
+            log.getDataList().forEach(data -> logEntity.getData().add(new KeyValue(data.getKey(), data.getValue())));
+            logs.add(logEntity);
+        });
+        detailSource = null;
+    }
 }
@@ -21,10 +21,15 @@ package org.apache.skywalking.oap.server.core.remote;
 import io.grpc.stub.StreamObserver;
 import java.util.Objects;
 import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.remote.codec.CompactRemoteData;
+import org.apache.skywalking.oap.server.core.remote.codec.CompactRemoteDataDecoder;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.BatchRemoteMessage;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteCapability;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageGroup;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
@@ -97,45 +102,49 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
      */
     @Override
     public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
-        if (Objects.isNull(workerInstanceGetter)) {
-            synchronized (RemoteServiceHandler.class) {
-                if (Objects.isNull(workerInstanceGetter)) {
-                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
-                                                             .provider()
-                                                             .getService(IWorkerInstanceGetter.class);
-                }
-            }
-        }
+        initWorkerInstanceGetter();
 
         return new StreamObserver<RemoteMessage>() {
+            private final CompactRemoteDataDecoder decoder = new CompactRemoteDataDecoder();
+
             @Override
             public void onNext(RemoteMessage message) {
-                remoteInCounter.inc();
-                HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
-                try {
-                    String nextWorkerName = message.getNextWorkerName();
-                    RemoteData remoteData = message.getRemoteData();
-
-                    try {
-                        RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
-                        if (handleWorker != null) {
-                            AbstractWorker nextWorker = handleWorker.getWorker();
-                            StreamData streamData = handleWorker.getStreamDataClass().newInstance();
-                            streamData.deserialize(remoteData);
-                            nextWorker.in(streamData);
-                        } else {
-                            remoteInTargetNotFoundCounter.inc();
-                            LOGGER.warn(
-                                "Work name [{}] not found. Check OAL script, make sure they are same in the whole cluster.",
-                                nextWorkerName
-                            );
-                        }
-                    } catch (Throwable t) {
-                        remoteInErrorCounter.inc();
-                        LOGGER.error(t.getMessage(), t);
+                String nextWorkerName = message.getNextWorkerName();
+                handle(nextWorkerName, workerInstanceGetter.get(nextWorkerName), decoder, message.getRemoteData());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                LOGGER.error(throwable.getMessage(), throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(Empty.newBuilder().build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * gRPC handler of {@link RemoteServiceGrpc}. Same as {@link #call(StreamObserver)}, but every frame carries the
+     * metrics grouped by the next worker, and the stream is kept open by the client.
+     */
+    @Override
+    public StreamObserver<BatchRemoteMessage> batchCall(StreamObserver<Empty> responseObserver) {
+        initWorkerInstanceGetter();
+
+        return new StreamObserver<BatchRemoteMessage>() {
+            private final CompactRemoteDataDecoder decoder = new CompactRemoteDataDecoder();
+
+            @Override
+            public void onNext(BatchRemoteMessage batch) {
+                for (RemoteMessageGroup group : batch.getGroupsList()) {
+                    String nextWorkerName = group.getNextWorkerName();
+                    RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
+                    for (RemoteData remoteData : group.getRemoteDataList()) {
+                        handle(nextWorkerName, handleWorker, decoder, remoteData);
                     }
-                } finally {
-                    timer.finish();
                 }
             }
 
@@ -151,4 +160,57 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
             }
         };
     }
+
+    /**
+     * gRPC handler of {@link RemoteServiceGrpc}. Tell the client the capabilities of the current OAP node.
+     */
+    @Override
+    public void negotiate(RemoteCapability request, StreamObserver<RemoteCapability> responseObserver) {
+        responseObserver.onNext(RemoteCapability.newBuilder()
+                                                .setCompactVersion(CompactRemoteData.VERSION)
+                                                .setBatchCall(true)
+                                                .build());
+        responseObserver.onCompleted();
+    }
+
+    private void initWorkerInstanceGetter() {
+        if (Objects.isNull(workerInstanceGetter)) {
+            synchronized (RemoteServiceHandler.class) {
+                if (Objects.isNull(workerInstanceGetter)) {
+                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
+                                                             .provider()
+                                                             .getService(IWorkerInstanceGetter.class);
+                }
+            }
+        }
+    }
+
+    private void handle(String nextWorkerName,
+                        RemoteHandleWorker handleWorker,
+                        CompactRemoteDataDecoder decoder,
+                        RemoteData remoteData) {
+        remoteInCounter.inc();
+        HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
+        try {
+            // Decode before checking the worker, the dictionary of the stream must be kept in sync.
+            remoteData = decoder.decode(remoteData);
+            if (handleWorker != null) {
+                AbstractWorker nextWorker = handleWorker.getWorker();
+                StreamData streamData = handleWorker.getStreamDataClass().newInstance();
+                streamData.deserialize(remoteData);
+                nextWorker.in(streamData);
+            } else {
+                remoteInTargetNotFoundCounter.inc();
+                LOGGER.warn(
+                    "Work name [{}] not found. Check OAL script, make sure they are same in the whole cluster.",
+                    nextWorkerName
+                );
+            }
+        } catch (Throwable t) {
+            remoteInErrorCounter.inc();
+            LOGGER.error(t.getMessage(), t);
+        } finally {
+            timer.finish();
+        }
+    }
 }
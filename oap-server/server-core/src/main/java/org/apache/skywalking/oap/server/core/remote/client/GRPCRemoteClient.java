@@ -18,19 +18,34 @@
 
 package org.apache.skywalking.oap.server.core.remote.client;
 
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import io.netty.handler.ssl.SslContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
+import org.apache.skywalking.oap.server.core.remote.codec.CompactRemoteData;
+import org.apache.skywalking.oap.server.core.remote.codec.CompactRemoteDataEncoder;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.BatchRemoteMessage;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteCapability;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageGroup;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.library.client.grpc.GRPCClient;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
@@ -45,6 +60,12 @@ import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
  */
 @Slf4j
 public class GRPCRemoteClient implements RemoteClient {
+    /**
+     * The max size of the metrics in one frame of the batch call, far below the default 4M max message size of gRPC.
+     */
+    private static final int MAX_BATCH_BYTES = 512 * 1024;
+    private static final long READY_WAIT_MILLIS = 100;
+
     private final int channelSize;
     private final int bufferSize;
     private final Address address;
@@ -56,6 +77,16 @@ public class GRPCRemoteClient implements RemoteClient {
     private CounterMetrics remoteOutCounter;
     private CounterMetrics remoteOutErrorCounter;
     private int remoteTimeout;
+    private final boolean compactEncoding;
+    /**
+     * The negotiated capabilities of the remote OAP node, null means unknown. It is reset when the connection is lost
+     * or a call is not implemented, as the node may come back with another release.
+     */
+    private volatile RemoteCapability capability;
+    /**
+     * The long-lived stream of the batch call, only accessed by the consumer thread.
+     */
+    private BatchStream batchStream;
 
     public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
                             final Address address,
@@ -63,8 +94,23 @@ public class GRPCRemoteClient implements RemoteClient {
                             final int bufferSize,
                             final int remoteTimeout,
                             final SslContext sslContext) {
+        this(moduleDefineHolder, address, channelSize, bufferSize, remoteTimeout, sslContext, false);
+    }
+
+    /**
+     * @param compactEncoding try to negotiate the compact RemoteData encoding with the remote OAP node, and fall back
+     *                        to the original format if it is not supported there.
+     */
+    public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
+                            final Address address,
+                            final int channelSize,
+                            final int bufferSize,
+                            final int remoteTimeout,
+                            final SslContext sslContext,
+                            final boolean compactEncoding) {
 
         this.address = address;
+        this.compactEncoding = compactEncoding;
         this.channelSize = channelSize;
         this.bufferSize = bufferSize;
         this.remoteTimeout = remoteTimeout;
@@ -96,6 +142,8 @@ public class GRPCRemoteClient implements RemoteClient {
     public void connect() {
         if (!isConnect) {
             this.getClient().connect();
+            ManagedChannel channel = getChannel();
+            resetCapabilityOnReconnect(channel, channel.getState(false));
             this.getDataCarrier().consume(new RemoteMessageConsumer(), 1);
             this.isConnect = true;
         }
@@ -159,12 +207,11 @@ public class GRPCRemoteClient implements RemoteClient {
         @Override
         public void consume(List<RemoteMessage> remoteMessages) {
             try {
-                StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
-                for (RemoteMessage remoteMessage : remoteMessages) {
-                    remoteOutCounter.inc();
-                    streamObserver.onNext(remoteMessage);
+                if (negotiate().getBatchCall()) {
+                    sendInBatch(remoteMessages);
+                } else {
+                    sendInStream(remoteMessages);
                 }
-                streamObserver.onCompleted();
             } catch (Throwable t) {
                 remoteOutErrorCounter.inc();
                 log.error(t.getMessage(), t);
@@ -181,6 +228,150 @@ public class GRPCRemoteClient implements RemoteClient {
         }
     }
 
+    /**
+     * Send the messages through a new stream, one message per frame. Used when the remote OAP node doesn't support
+     * the batch call.
+     */
+    private void sendInStream(List<RemoteMessage> remoteMessages) throws IOException {
+        // The dictionary of the compact encoding is shared by the messages in one stream only.
+        CompactRemoteDataEncoder encoder = negotiateCompactVersion() > 0 ? new CompactRemoteDataEncoder() : null;
+        StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
+        for (RemoteMessage remoteMessage : remoteMessages) {
+            remoteOutCounter.inc();
+            if (encoder != null) {
+                remoteMessage = RemoteMessage.newBuilder()
+                                             .setNextWorkerName(remoteMessage.getNextWorkerName())
+                                             .setRemoteData(encoder.encode(remoteMessage.getRemoteData()))
+                                             .build();
+            }
+            streamObserver.onNext(remoteMessage);
+        }
+        streamObserver.onCompleted();
+    }
+
+    /**
+     * Send the messages through the long-lived stream, grouped by the next worker name. A frame is sent when it
+     * reaches {@link #MAX_BATCH_BYTES}, or all messages are grouped.
+     */
+    private void sendInBatch(List<RemoteMessage> remoteMessages) throws IOException {
+        Map<String, List<RemoteData>> groups = new LinkedHashMap<>();
+        for (RemoteMessage remoteMessage : remoteMessages) {
+            groups.computeIfAbsent(remoteMessage.getNextWorkerName(), name -> new ArrayList<>())
+                  .add(remoteMessage.getRemoteData());
+        }
+
+        BatchStream stream = getBatchStream();
+        BatchRemoteMessage.Builder batch = BatchRemoteMessage.newBuilder();
+        int batchBytes = 0;
+        for (Map.Entry<String, List<RemoteData>> entry : groups.entrySet()) {
+            RemoteMessageGroup.Builder group = RemoteMessageGroup.newBuilder().setNextWorkerName(entry.getKey());
+            for (RemoteData remoteData : entry.getValue()) {
+                remoteOutCounter.inc();
+                // Encode in the order of the frame, which is the order the remote node decodes in.
+                if (stream.encoder != null) {
+                    remoteData = stream.encoder.encode(remoteData);
+                }
+                group.addRemoteData(remoteData);
+                batchBytes += remoteData.getSerializedSize();
+                if (batchBytes >= MAX_BATCH_BYTES) {
+                    batch.addGroups(group);
+                    stream.send(batch.build());
+                    batch = BatchRemoteMessage.newBuilder();
+                    group = RemoteMessageGroup.newBuilder().setNextWorkerName(entry.getKey());
+                    batchBytes = 0;
+                }
+            }
+            if (group.getRemoteDataCount() > 0) {
+                batch.addGroups(group);
+            }
+        }
+        if (batch.getGroupsCount() > 0) {
+            stream.send(batch.build());
+        }
+    }
+
+    private BatchStream getBatchStream() {
+        if (batchStream == null || batchStream.closed) {
+            batchStream = new BatchStream(negotiateCompactVersion() > 0 ? new CompactRemoteDataEncoder() : null);
+        }
+        return batchStream;
+    }
+
+    /**
+     * Ask the remote OAP node for its capabilities until they are reset. The node of the previous release doesn't
+     * implement the negotiation, then the original format and the call are used.
+     */
+    RemoteCapability negotiate() {
+        RemoteCapability capability = this.capability;
+        if (capability != null) {
+            return capability;
+        }
+        try {
+            capability = RemoteServiceGrpc.newBlockingStub(getChannel())
+                                          .withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
+                                          .negotiate(RemoteCapability.newBuilder()
+                                                                     .setCompactVersion(CompactRemoteData.VERSION)
+                                                                     .setBatchCall(true)
+                                                                     .build());
+        } catch (StatusRuntimeException e) {
+            if (Status.Code.UNIMPLEMENTED.equals(e.getStatus().getCode())) {
+                capability = RemoteCapability.getDefaultInstance();
+            } else {
+                // Keep it unknown, and try again in the next batch.
+                log.warn("Negotiate with remote OAP node [{}] failed, {}", address, e.getMessage());
+                return RemoteCapability.getDefaultInstance();
+            }
+        }
+        this.capability = capability;
+        log.info("Remote OAP node [{}] capabilities, compact encoding version: {}, batch call: {}.", address,
+                 capability.getCompactVersion(), capability.getBatchCall()
+        );
+        return capability;
+    }
+
+    /**
+     * Forget the negotiated capabilities, then negotiate again before the next batch.
+     */
+    void resetCapability() {
+        capability = null;
+    }
+
+    /**
+     * Watch the state of the channel, and reset the capabilities once the ready connection is lost. The reconnected
+     * node may be restarted with another release.
+     */
+    private void resetCapabilityOnReconnect(ManagedChannel channel, ConnectivityState state) {
+        if (ConnectivityState.SHUTDOWN.equals(state)) {
+            return;
+        }
+        channel.notifyWhenStateChanged(state, () -> {
+            if (ConnectivityState.READY.equals(state)) {
+                resetCapability();
+            }
+            resetCapabilityOnReconnect(channel, channel.getState(false));
+        });
+    }
+
+    /**
+     * A call which is not implemented means the capabilities are out of date.
+     */
+    private void onCallError(Throwable throwable) {
+        if (Status.Code.UNIMPLEMENTED.equals(Status.fromThrowable(throwable).getCode())) {
+            resetCapability();
+        }
+        log.error(throwable.getMessage(), throwable);
+    }
+
+    /**
+     * @return the version of the compact encoding to use, 0 means the original format.
+     */
+    int negotiateCompactVersion() {
+        if (!compactEncoding) {
+            return 0;
+        }
+        return Math.min(CompactRemoteData.VERSION, negotiate().getCompactVersion());
+    }
+
     /**
      * Create a gRPC stream observer to sending stream data, one stream observer could send multiple stream data by a
      * single consume. The max number of concurrency allowed at the same time is 10.
@@ -221,7 +412,7 @@ public class GRPCRemoteClient implements RemoteClient {
                            @Override
                            public void onError(Throwable throwable) {
                                concurrentStreamObserverNumber.addAndGet(-1);
-                               log.error(throwable.getMessage(), throwable);
+                               onCallError(throwable);
                            }
 
                            @Override
@@ -233,11 +424,90 @@ public class GRPCRemoteClient implements RemoteClient {
         return remoteMessageStreamObserver;
     }
 
+    /**
+     * The long-lived stream of {@link RemoteServiceGrpc.RemoteServiceStub#batchCall(StreamObserver)}. Rather than
+     * limiting the number of concurrent streams, the sender waits for the gRPC flow control to be ready, so the
+     * throughput follows what the remote node could receive.
+     */
+    private class BatchStream implements ClientResponseObserver<BatchRemoteMessage, Empty> {
+        private final CompactRemoteDataEncoder encoder;
+        private final ClientCallStreamObserver<BatchRemoteMessage> requestObserver;
+        private final Object readyLock = new Object();
+        private volatile boolean closed;
+
+        private BatchStream(CompactRemoteDataEncoder encoder) {
+            this.encoder = encoder;
+            this.requestObserver = (ClientCallStreamObserver<BatchRemoteMessage>) getStub().batchCall(this);
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<BatchRemoteMessage> requestStream) {
+            requestStream.setOnReadyHandler(this::wakeUp);
+        }
+
+        private void send(BatchRemoteMessage batch) {
+            long waitTotalMillis = 0;
+            synchronized (readyLock) {
+                while (!closed && !requestObserver.isReady()) {
+                    try {
+                        readyLock.wait(READY_WAIT_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    waitTotalMillis += READY_WAIT_MILLIS;
+                    if (waitTotalMillis > 60000) {
+                        log.warn("Remote client [{}] waits for the stream to be ready over 60 seconds.", address);
+                        // Reset waitTotalMillis to avoid too many warn logs.
+                        waitTotalMillis = 0;
+                    }
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("The batch stream to remote OAP node [" + address + "] is closed.");
+            }
+            requestObserver.onNext(batch);
+        }
+
+        private void complete() {
+            if (!closed) {
+                closed = true;
+                requestObserver.onCompleted();
+            }
+        }
+
+        private void wakeUp() {
+            synchronized (readyLock) {
+                readyLock.notifyAll();
+            }
+        }
+
+        @Override
+        public void onNext(Empty empty) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            closed = true;
+            wakeUp();
+            onCallError(throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            closed = true;
+            wakeUp();
+        }
+    }
+
     @Override
     public void close() {
         if (Objects.nonNull(this.carrier)) {
             this.carrier.shutdownConsumers();
         }
+        if (Objects.nonNull(this.batchStream)) {
+            this.batchStream.complete();
+        }
         if (Objects.nonNull(this.client)) {
             this.client.shutdown();
         }
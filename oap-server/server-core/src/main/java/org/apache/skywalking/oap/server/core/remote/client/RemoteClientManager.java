@@ -63,6 +63,11 @@ public class RemoteClientManager implements Service {
     private volatile List<RemoteClient> usingClients;
     private GaugeMetrics gauge;
     private int remoteTimeout;
+    /**
+     * Negotiate the compact RemoteData encoding with the new connected OAP nodes.
+     */
+    @Setter
+    private boolean compactEncoding;
 
     /**
      * Initial the manager for all remote communication clients.
@@ -233,7 +238,8 @@ public class RemoteClientManager implements Service {
                         newRemoteClients.add(client);
                     } else {
                         RemoteClient client;
-                        client = new GRPCRemoteClient(moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext);
+                        client = new GRPCRemoteClient(
+                            moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext, compactEncoding);
                         client.connect();
                         newRemoteClients.add(client);
                     }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.codec;
+
+/**
+ * The constants of the compact binary encoding of {@link org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData}.
+ * <p>
+ * Version 1 layout of the compactData field, all counts and lengths are unsigned varints.
+ * <pre>
+ * strings: count, then for each one a dictionary reference, 0 means a literal (length + UTF-8 bytes) follows,
+ *          n means the (n-1)th literal of the current stream.
+ * longs:   count, then zigzag varints.
+ * doubles: count, then fixed 64-bit values.
+ * ints:    count, then zigzag varints.
+ * objects: count, then for each one a format byte,
+ *          {@link #OBJECT_RAW} is followed by the length and UTF-8 bytes,
+ *          {@link #OBJECT_PACKED_BUCKETS} is followed by the number of "key,value" pairs, then the zigzag varint of
+ *          the key delta and the value of each pair.
+ * </pre>
+ * The dictionary lives as long as one gRPC stream, so the encoder and decoder must be created per stream and used in
+ * the message order.
+ */
+public final class CompactRemoteData {
+    /**
+     * The highest version supported by this OAP node. 0 represents the original format.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The max number of dictionary entries per stream, new strings after it are always sent as literal.
+     */
+    static final int MAX_DICTIONARY_SIZE = 10_000;
+
+    static final int OBJECT_RAW = 0;
+    static final int OBJECT_PACKED_BUCKETS = 1;
+
+    private CompactRemoteData() {
+    }
+}
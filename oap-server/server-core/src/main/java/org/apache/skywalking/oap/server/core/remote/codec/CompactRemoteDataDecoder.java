@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.codec;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+
+/**
+ * Decode the compact binary format, see {@link CompactRemoteData}, back to the original {@link RemoteData} fields. Not
+ * thread safe, one decoder serves one stream.
+ */
+public class CompactRemoteDataDecoder {
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * @return the given data if it is in the original format, or the decoded one.
+     * @throws IOException if the version is not supported, or the data is broken.
+     */
+    public RemoteData decode(RemoteData remoteData) throws IOException {
+        final int version = remoteData.getCompactVersion();
+        if (version == 0) {
+            return remoteData;
+        }
+        if (version > CompactRemoteData.VERSION) {
+            throw new IOException("Unsupported compact RemoteData version " + version);
+        }
+
+        CodedInputStream input = remoteData.getCompactData().newCodedInput();
+        RemoteData.Builder builder = RemoteData.newBuilder();
+
+        int count = input.readUInt32();
+        for (int i = 0; i < count; i++) {
+            builder.addDataStrings(readDictionaryString(input));
+        }
+
+        count = input.readUInt32();
+        for (int i = 0; i < count; i++) {
+            builder.addDataLongs(input.readSInt64());
+        }
+
+        count = input.readUInt32();
+        for (int i = 0; i < count; i++) {
+            builder.addDataDoubles(input.readDouble());
+        }
+
+        count = input.readUInt32();
+        for (int i = 0; i < count; i++) {
+            builder.addDataIntegers(input.readSInt32());
+        }
+
+        count = input.readUInt32();
+        for (int i = 0; i < count; i++) {
+            builder.addDataObjectStrings(readObjectString(input));
+        }
+        return builder.build();
+    }
+
+    private String readDictionaryString(CodedInputStream input) throws IOException {
+        int reference = input.readUInt32();
+        if (reference != 0) {
+            if (reference > dictionary.size()) {
+                throw new IOException("Unknown dictionary reference " + reference);
+            }
+            return dictionary.get(reference - 1);
+        }
+        String string = input.readString();
+        if (dictionary.size() < CompactRemoteData.MAX_DICTIONARY_SIZE) {
+            dictionary.add(string);
+        }
+        return string;
+    }
+
+    private static String readObjectString(CodedInputStream input) throws IOException {
+        int format = input.readUInt32();
+        switch (format) {
+            case CompactRemoteData.OBJECT_RAW:
+                return input.readString();
+            case CompactRemoteData.OBJECT_PACKED_BUCKETS:
+                int pairCount = input.readUInt32();
+                StringBuilder builder = new StringBuilder(pairCount * 8);
+                long key = 0;
+                for (int i = 0; i < pairCount; i++) {
+                    key += input.readSInt64();
+                    if (i != 0) {
+                        builder.append(Const.ARRAY_SPLIT);
+                    }
+                    builder.append(key).append(Const.KEY_VALUE_SPLIT).append(input.readSInt64());
+                }
+                return builder.toString();
+            default:
+                throw new IOException("Unknown object format " + format);
+        }
+    }
+}
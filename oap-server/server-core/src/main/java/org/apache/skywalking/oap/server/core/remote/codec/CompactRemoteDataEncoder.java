@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.codec;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+
+/**
+ * Encode {@link RemoteData} into the compact binary format, see {@link CompactRemoteData}. Not thread safe, one encoder
+ * serves one stream.
+ */
+public class CompactRemoteDataEncoder {
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final ByteString.Output buffer = ByteString.newOutput(256);
+
+    public RemoteData encode(RemoteData remoteData) throws IOException {
+        buffer.reset();
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer, 256);
+
+        output.writeUInt32NoTag(remoteData.getDataStringsCount());
+        for (String string : remoteData.getDataStringsList()) {
+            writeDictionaryString(output, string);
+        }
+
+        output.writeUInt32NoTag(remoteData.getDataLongsCount());
+        for (Long value : remoteData.getDataLongsList()) {
+            output.writeSInt64NoTag(value);
+        }
+
+        output.writeUInt32NoTag(remoteData.getDataDoublesCount());
+        for (Double value : remoteData.getDataDoublesList()) {
+            output.writeDoubleNoTag(value);
+        }
+
+        output.writeUInt32NoTag(remoteData.getDataIntegersCount());
+        for (Integer value : remoteData.getDataIntegersList()) {
+            output.writeSInt32NoTag(value);
+        }
+
+        output.writeUInt32NoTag(remoteData.getDataObjectStringsCount());
+        for (String object : remoteData.getDataObjectStringsList()) {
+            writeObjectString(output, object);
+        }
+
+        output.flush();
+        return RemoteData.newBuilder()
+                         .setCompactVersion(CompactRemoteData.VERSION)
+                         .setCompactData(buffer.toByteString())
+                         .build();
+    }
+
+    private void writeDictionaryString(CodedOutputStream output, String string) throws IOException {
+        Integer index = dictionary.get(string);
+        if (index != null) {
+            output.writeUInt32NoTag(index + 1);
+            return;
+        }
+        output.writeUInt32NoTag(0);
+        output.writeStringNoTag(string);
+        if (dictionary.size() < CompactRemoteData.MAX_DICTIONARY_SIZE) {
+            dictionary.put(string, dictionary.size());
+        }
+    }
+
+    /**
+     * The bucket tables, such as {@link org.apache.skywalking.oap.server.core.analysis.metrics.DataTable}, are packed
+     * as numbers when all keys and values are in the canonical long format, so the decoder could restore the exactly
+     * same string. Others are sent as they are.
+     */
+    private static void writeObjectString(CodedOutputStream output, String object) throws IOException {
+        long[] pairs = parseBuckets(object);
+        if (pairs == null) {
+            output.writeUInt32NoTag(CompactRemoteData.OBJECT_RAW);
+            output.writeStringNoTag(object);
+            return;
+        }
+        output.writeUInt32NoTag(CompactRemoteData.OBJECT_PACKED_BUCKETS);
+        output.writeUInt32NoTag(pairs.length / 2);
+        long previousKey = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            output.writeSInt64NoTag(pairs[i] - previousKey);
+            output.writeSInt64NoTag(pairs[i + 1]);
+            previousKey = pairs[i];
+        }
+    }
+
+    /**
+     * @return the key value pairs in the flat array, or null if the string can't be restored from the numbers.
+     */
+    static long[] parseBuckets(String object) {
+        if (object.isEmpty()) {
+            return null;
+        }
+        int pairCount = 1;
+        for (int i = 0; i < object.length(); i++) {
+            if (object.charAt(i) == Const.ARRAY_SPLIT.charAt(0)) {
+                pairCount++;
+            }
+        }
+        long[] pairs = new long[pairCount * 2];
+        int start = 0;
+        for (int i = 0; i < pairCount; i++) {
+            int end = object.indexOf(Const.ARRAY_SPLIT, start);
+            if (end < 0) {
+                end = object.length();
+            }
+            int split = object.indexOf(Const.KEY_VALUE_SPLIT, start);
+            if (split < 0 || split >= end) {
+                return null;
+            }
+            if (!parseCanonicalLong(object, start, split, pairs, i * 2)
+                || !parseCanonicalLong(object, split + 1, end, pairs, i * 2 + 1)) {
+                return null;
+            }
+            start = end + 1;
+        }
+        return pairs;
+    }
+
+    private static boolean parseCanonicalLong(String string, int start, int end, long[] target, int index) {
+        if (start >= end || end - start > 20) {
+            return false;
+        }
+        boolean negative = string.charAt(start) == '-';
+        int digitStart = negative ? start + 1 : start;
+        if (digitStart >= end) {
+            return false;
+        }
+        // Leading zero and "-0" can't be restored by Long#toString.
+        if (string.charAt(digitStart) == '0' && (end - digitStart > 1 || negative)) {
+            return false;
+        }
+        long value = 0;
+        for (int i = digitStart; i < end; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            int digit = c - '0';
+            // Accumulate negatively to cover Long.MIN_VALUE, and reject the overflow.
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return false;
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                return false;
+            }
+            value = -value;
+        }
+        target[index] = value;
+        return true;
+    }
+
+    int dictionarySize() {
+        return dictionary.size();
+    }
+}
@@ -21,21 +21,27 @@ package org.apache.skywalking.oap.server.core.storage;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
 import org.apache.skywalking.oap.server.core.CoreModuleConfig;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
 import org.apache.skywalking.oap.server.core.analysis.worker.PersistenceWorker;
 import org.apache.skywalking.oap.server.core.analysis.worker.TopNStreamProcessor;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
 import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
@@ -43,13 +49,24 @@ import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 @Slf4j
 public enum PersistenceTimer {
     INSTANCE;
+    /**
+     * In the pipeline mode, one round of a worker could be flushing while the next round is preparing, or waiting for
+     * the flush, see {@link PersistenceWorker#isPrepareAfterFlush()}. More rounds are skipped, the data stays in the
+     * cache of the worker and is merged into the next round.
+     */
+    private static final int MAX_ROUNDS_IN_FLIGHT = 2;
+
     @VisibleForTesting
     boolean isStarted = false;
     private CounterMetrics errorCounter;
+    private CounterMetrics skippedRoundCounter;
     private HistogramMetrics prepareLatency;
     private HistogramMetrics executeLatency;
     private HistogramMetrics allLatency;
     private ExecutorService prepareExecutorService;
+    private ExecutorService flushExecutorService;
+    private MetricsCreator metricsCreator;
+    private final Map<PersistenceWorker<? extends StorageData>, WorkerPipeline> pipelines = new ConcurrentHashMap<>();
 
     PersistenceTimer() {
     }
@@ -58,13 +75,18 @@ public enum PersistenceTimer {
         log.info("persistence timer start");
         IBatchDAO batchDAO = moduleManager.find(StorageModule.NAME).provider().getService(IBatchDAO.class);
 
-        MetricsCreator metricsCreator = moduleManager.find(TelemetryModule.NAME)
-                                                     .provider()
-                                                     .getService(MetricsCreator.class);
+        metricsCreator = moduleManager.find(TelemetryModule.NAME)
+                                      .provider()
+                                      .getService(MetricsCreator.class);
         errorCounter = metricsCreator.createCounter(
             "persistence_timer_bulk_error_count", "Error execution of the prepare stage in persistence timer",
             MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
         );
+        skippedRoundCounter = metricsCreator.createCounter(
+            "persistence_timer_skipped_round_count",
+            "Rounds of models skipped in persistence timer pipeline, because of the previous rounds not finished",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
         prepareLatency = metricsCreator.createHistogramMetric(
             "persistence_timer_bulk_prepare_latency", "Latency of the prepare stage in persistence timer",
             MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
@@ -79,10 +101,19 @@ public enum PersistenceTimer {
         );
 
         prepareExecutorService = Executors.newFixedThreadPool(moduleConfig.getPrepareThreads());
+        if (moduleConfig.isEnablePersistencePipeline()) {
+            flushExecutorService = Executors.newFixedThreadPool(moduleConfig.getPrepareThreads());
+        }
         if (!isStarted) {
+            final Runnable persistence;
+            if (moduleConfig.isEnablePersistencePipeline()) {
+                persistence = () -> extractDataAndSaveInPipeline(batchDAO);
+            } else {
+                persistence = () -> extractDataAndSave(batchDAO);
+            }
             Executors.newSingleThreadScheduledExecutor()
                      .scheduleWithFixedDelay(
-                         new RunnableWithExceptionProtection(() -> extractDataAndSave(batchDAO), t -> log
+                         new RunnableWithExceptionProtection(persistence, t -> log
                              .error("Extract data and save failure.", t)), 5, moduleConfig.getPersistentPeriod(),
                          TimeUnit.SECONDS
                      );
@@ -99,36 +130,13 @@ public enum PersistenceTimer {
         long startTime = System.currentTimeMillis();
 
         try (HistogramMetrics.Timer allTimer = allLatency.createTimer()) {
-            List<PersistenceWorker<? extends StorageData>> persistenceWorkers = new ArrayList<>();
-            persistenceWorkers.addAll(TopNStreamProcessor.getInstance().getPersistentWorkers());
-            persistenceWorkers.addAll(MetricsStreamProcessor.getInstance().getPersistentWorkers());
+            List<PersistenceWorker<? extends StorageData>> persistenceWorkers = getPersistenceWorkers();
 
             CountDownLatch countDownLatch = new CountDownLatch(persistenceWorkers.size());
             persistenceWorkers.forEach(worker -> {
                 prepareExecutorService.submit(() -> {
-                    List<PrepareRequest> innerPrepareRequests = null;
                     try {
-                        // Prepare stage
-                        try (HistogramMetrics.Timer timer = prepareLatency.createTimer()) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("extract {} worker data and save", worker.getClass().getName());
-                            }
-
-                            innerPrepareRequests = worker.buildBatchRequests();
-
-                            worker.endOfRound();
-                        } catch (Throwable e) {
-                            log.error(e.getMessage(), e);
-                        }
-
-                        // Execution stage
-                        try (HistogramMetrics.Timer executeLatencyTimer = executeLatency.createTimer()) {
-                            if (CollectionUtils.isNotEmpty(innerPrepareRequests)) {
-                                batchDAO.flush(innerPrepareRequests);
-                            }
-                        } catch (Throwable e) {
-                            log.error(e.getMessage(), e);
-                        }
+                        flush(batchDAO, prepare(worker));
                     } finally {
                         countDownLatch.countDown();
                     }
@@ -147,4 +155,119 @@ public enum PersistenceTimer {
 
         log.debug("Batch persistence duration: {} ms", System.currentTimeMillis() - startTime);
     }
+
+    /**
+     * Start a new round for every worker without waiting for any of them. The rounds of one worker are flushed in
+     * order, while the workers don't wait for each other.
+     */
+    private void extractDataAndSaveInPipeline(IBatchDAO batchDAO) {
+        if (log.isDebugEnabled()) {
+            log.debug("Extract data and save in pipeline");
+        }
+
+        long roundStartTime = System.currentTimeMillis();
+        for (PersistenceWorker<? extends StorageData> worker : getPersistenceWorkers()) {
+            pipelines.computeIfAbsent(worker, w -> new WorkerPipeline(w, roundStartTime))
+                     .nextRound(batchDAO, roundStartTime);
+        }
+    }
+
+    private List<PersistenceWorker<? extends StorageData>> getPersistenceWorkers() {
+        List<PersistenceWorker<? extends StorageData>> persistenceWorkers = new ArrayList<>();
+        persistenceWorkers.addAll(TopNStreamProcessor.getInstance().getPersistentWorkers());
+        persistenceWorkers.addAll(MetricsStreamProcessor.getInstance().getPersistentWorkers());
+        return persistenceWorkers;
+    }
+
+    /**
+     * Prepare stage, never throws.
+     */
+    private List<PrepareRequest> prepare(PersistenceWorker<? extends StorageData> worker) {
+        try (HistogramMetrics.Timer timer = prepareLatency.createTimer()) {
+            if (log.isDebugEnabled()) {
+                log.debug("extract {} worker data and save", worker.getClass().getName());
+            }
+
+            List<PrepareRequest> innerPrepareRequests = worker.buildBatchRequests();
+
+            worker.endOfRound();
+            return innerPrepareRequests;
+        } catch (Throwable e) {
+            log.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Execution stage, never throws.
+     */
+    private void flush(IBatchDAO batchDAO, List<PrepareRequest> innerPrepareRequests) {
+        try (HistogramMetrics.Timer executeLatencyTimer = executeLatency.createTimer()) {
+            if (CollectionUtils.isNotEmpty(innerPrepareRequests)) {
+                batchDAO.flush(innerPrepareRequests);
+            }
+        } catch (Throwable e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The persistence state of one worker in the pipeline mode. The lag gauge is the time since the start of the last
+     * round flushed, it keeps growing when the storage of the model is stuck.
+     */
+    private class WorkerPipeline {
+        private final PersistenceWorker<? extends StorageData> worker;
+        private final GaugeMetrics lag;
+        private final AtomicInteger roundsInFlight = new AtomicInteger(0);
+        /**
+         * The prepare and flush of the last started round. Only accessed by the timer thread.
+         */
+        private CompletableFuture<Void> lastPrepare = CompletableFuture.completedFuture(null);
+        private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+        private volatile long lastFlushedRoundStartTime;
+
+        private WorkerPipeline(PersistenceWorker<? extends StorageData> worker, long createTime) {
+            this.worker = worker;
+            this.lastFlushedRoundStartTime = createTime;
+            final Model model = worker.getModel();
+            this.lag = metricsCreator.createGauge(
+                "persistence_timer_model_lag", "The time since the start of the last persisted round of the model",
+                new MetricsTag.Keys("model"),
+                new MetricsTag.Values(model == null ? worker.getClass().getSimpleName() : model.getName())
+            );
+        }
+
+        private void nextRound(IBatchDAO batchDAO, long roundStartTime) {
+            lag.setValue(roundStartTime - lastFlushedRoundStartTime);
+            if (roundsInFlight.incrementAndGet() > MAX_ROUNDS_IN_FLIGHT) {
+                roundsInFlight.decrementAndGet();
+                skippedRoundCounter.inc();
+                if (log.isDebugEnabled()) {
+                    log.debug("Skip the round of {}, the previous rounds are not finished", worker.getClass().getName());
+                }
+                return;
+            }
+
+            // The worker isn't thread safe, the prepare stage of the round has to wait for the previous one, or even
+            // the previous flush if the worker reads the flushed data.
+            CompletableFuture<Void> previousStage = worker.isPrepareAfterFlush() ? lastFlush : lastPrepare;
+            CompletableFuture<List<PrepareRequest>> prepared = previousStage.thenApplyAsync(
+                previous -> prepare(worker), prepareExecutorService);
+            // Don't hold the prepared requests after the flush.
+            lastPrepare = prepared.thenApply(innerPrepareRequests -> null);
+            lastFlush = lastFlush.thenCombineAsync(prepared, (previous, innerPrepareRequests) -> {
+                flush(batchDAO, innerPrepareRequests);
+                return null;
+            }, flushExecutorService).handle((ignored, t) -> {
+                if (t != null) {
+                    errorCounter.inc();
+                    log.error(t.getMessage(), t);
+                }
+                lastFlushedRoundStartTime = roundStartTime;
+                lag.setValue(System.currentTimeMillis() - roundStartTime);
+                roundsInFlight.decrementAndGet();
+                return null;
+            });
+        }
+    }
 }
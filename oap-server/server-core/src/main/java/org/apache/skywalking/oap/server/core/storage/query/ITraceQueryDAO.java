@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.core.storage.query;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.skywalking.oap.server.core.analysis.manual.searchtag.Tag;
 import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
 import org.apache.skywalking.oap.server.core.query.type.QueryOrder;
@@ -47,6 +48,22 @@ public interface ITraceQueryDAO extends Service {
 
     List<SegmentRecord> queryByTraceId(String traceId) throws IOException;
 
+    /**
+     * Query the segments of the trace which overlap with the time range, to load a window of a huge trace only. The
+     * default implementation filters the result of {@link #queryByTraceId(String)}, the storage implementations should
+     * filter by {@link SegmentRecord#START_TIME} and {@link SegmentRecord#END_TIME} in the query.
+     *
+     * @param startTime the start of the time range in milliseconds, inclusive.
+     * @param endTime   the end of the time range in milliseconds, inclusive.
+     * @since 8.7.0
+     */
+    default List<SegmentRecord> queryByTraceId(String traceId, long startTime, long endTime) throws IOException {
+        return queryByTraceId(traceId).stream()
+                                      .filter(segment -> segment.getEndTime() >= startTime
+                                          && segment.getStartTime() <= endTime)
+                                      .collect(Collectors.toList());
+    }
+
     /**
      * This method gives more flexible for 3rd trace without segment concept, which can't search data through {@link #queryByTraceId(String)}
      */
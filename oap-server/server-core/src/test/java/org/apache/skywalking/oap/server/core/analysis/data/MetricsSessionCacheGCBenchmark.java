@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongAvgMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+
+/**
+ * Compare the GC pauses of {@link MetricsSessionCache} and {@link OffHeapMetricsSessionCache}, holding 5M metrics by
+ * default. The GC pause is measured through the GC notifications rather than JMH, as it is a property of the whole
+ * heap instead of an operation.
+ * <p>
+ * Every round looks up and merges a random part of the cached metrics, like the L2 aggregation, while the incoming
+ * metrics become garbage. A full GC is triggered at last to show the cost of the live cached objects.
+ * <p>
+ * Run every mode in a separate JVM, e.g. with {@code -Xmx6g -XX:MaxDirectMemorySize=4g -XX:+UseG1GC}, and the
+ * arguments {@code <heap|offheap> [entries] [rounds]}.
+ */
+public class MetricsSessionCacheGCBenchmark {
+    private static final int MERGES_PER_ROUND = 500_000;
+    private static final long TIME_BUCKET = 202110171230L;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "heap";
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        IMetricsSessionCache cache;
+        if ("offheap".equals(mode)) {
+            cache = new OffHeapMetricsSessionCache(
+                BenchmarkMetrics.class, 0, 0, Long.MAX_VALUE, new MetricsCreatorNoop(), "benchmark", "minute");
+        } else {
+            cache = new MetricsSessionCache(0, 0, Long.MAX_VALUE, new MetricsCreatorNoop(), "benchmark", "minute");
+        }
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < entries; i++) {
+            cache.put(newMetrics(i));
+        }
+        System.out.printf("mode=%s, %d metrics cached in %d ms%n", mode, entries, System.currentTimeMillis() - start);
+
+        List<Long> pauses = new ArrayList<>();
+        AtomicLong totalPause = new AtomicLong();
+        NotificationListener listener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                    (CompositeData) notification.getUserData());
+                synchronized (pauses) {
+                    pauses.add(info.getGcInfo().getDuration());
+                }
+                totalPause.addAndGet(info.getGcInfo().getDuration());
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+
+        Random random = new Random(7);
+        start = System.currentTimeMillis();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < MERGES_PER_ROUND; i++) {
+                Metrics incoming = newMetrics(random.nextInt(entries));
+                Metrics cached = cache.get(incoming);
+                if (cached != null) {
+                    cached.combine(incoming);
+                    cached.calculate();
+                    cached.setLastUpdateTimestamp(System.currentTimeMillis());
+                    cache.update(cached);
+                }
+            }
+        }
+        long roundsTime = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        System.gc();
+        long fullGcTime = System.currentTimeMillis() - start;
+
+        long maxPause;
+        int gcCount;
+        synchronized (pauses) {
+            maxPause = pauses.stream().mapToLong(Long::longValue).max().orElse(0);
+            gcCount = pauses.size();
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf(
+            "mode=%s, rounds: %d ms, GC count: %d, GC total pause: %d ms, GC max pause: %d ms, "
+                + "explicit full GC: %d ms, heap used after GC: %d MB, cache bytes: %d MB%n",
+            mode, roundsTime, gcCount, totalPause.get(), maxPause, fullGcTime, heap.getUsed() >> 20,
+            cache.estimatedBytes() >> 20
+        );
+    }
+
+    public static BenchmarkMetrics newMetrics(int entity) {
+        BenchmarkMetrics metrics = new BenchmarkMetrics();
+        metrics.entityId = "c2VydmljZS1wcm92aWRlcg==.1_L2FwaS91c2Vycy97aWR9LzEyMw==" + entity;
+        metrics.setTimeBucket(TIME_BUCKET);
+        metrics.combine(entity % 1000, 1);
+        return metrics;
+    }
+
+    /**
+     * Same fields and serialization as the generated endpoint avg metrics.
+     */
+    public static class BenchmarkMetrics extends LongAvgMetrics {
+        private String entityId;
+
+        @Override
+        protected String id0() {
+            return getTimeBucket() + "_" + entityId;
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+            entityId = remoteData.getDataStrings(0);
+            setSummation(remoteData.getDataLongs(0));
+            setCount(remoteData.getDataLongs(1));
+            setValue(remoteData.getDataLongs(2));
+            setTimeBucket(remoteData.getDataLongs(3));
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder()
+                             .addDataStrings(entityId)
+                             .addDataLongs(getSummation())
+                             .addDataLongs(getCount())
+                             .addDataLongs(getValue())
+                             .addDataLongs(getTimeBucket());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BenchmarkMetrics)) {
+                return false;
+            }
+            BenchmarkMetrics metrics = (BenchmarkMetrics) o;
+            return getTimeBucket() == metrics.getTimeBucket() && entityId.equals(metrics.entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * entityId.hashCode() + Long.hashCode(getTimeBucket());
+        }
+    }
+}
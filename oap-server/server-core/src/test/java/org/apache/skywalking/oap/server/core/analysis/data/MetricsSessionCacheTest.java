@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.Objects;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+public class MetricsSessionCacheTest {
+    private static final long SESSION_TIMEOUT = 70_000;
+
+    @Test
+    public void testUnbounded() {
+        MetricsSessionCache cache = newCache(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new MockMetrics("m" + i));
+        }
+        Assert.assertEquals(1000, cache.size());
+
+        MockMetrics cached = new MockMetrics("m1");
+        cache.put(cached);
+        Assert.assertSame(cached, cache.get(new MockMetrics("m1")));
+        Assert.assertSame(cached, cache.peek(new MockMetrics("m1")));
+        Assert.assertNull(cache.get(new MockMetrics("absent")));
+        Assert.assertEquals(1000, cache.size());
+
+        cache.remove(new MockMetrics("m1"));
+        Assert.assertNull(cache.peek(new MockMetrics("m1")));
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFrequentMetricsNotFlushedByOneOffMetrics() {
+        MetricsSessionCache cache = newCache(100, 0);
+        // The active metrics are looked up in every round.
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                MockMetrics metrics = new MockMetrics("active" + i);
+                if (cache.get(metrics) == null) {
+                    cache.put(metrics);
+                }
+            }
+        }
+        // Every one-off metrics is looked up once, then loaded.
+        for (int i = 0; i < 1000; i++) {
+            MockMetrics metrics = new MockMetrics("once" + i);
+            Assert.assertNull(cache.get(metrics));
+            cache.put(metrics);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+
+        int activeCached = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.peek(new MockMetrics("active" + i)) != null) {
+                activeCached++;
+            }
+        }
+        Assert.assertTrue("Only " + activeCached + " active metrics are cached", activeCached >= 95);
+    }
+
+    @Test
+    public void testSketchGrowsWithCachedMetrics() {
+        MetricsSessionCache cache = newCache(1_000_000, 0);
+        FrequencySketch sketch = Whitebox.getInternalState(cache, "sketch");
+        Assert.assertEquals(16, sketch.capacity());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(new MockMetrics("m" + i));
+        }
+        Assert.assertEquals(128, sketch.capacity());
+
+        FrequencySketch capped = new FrequencySketch(100);
+        capped.ensureCapacity(10_000);
+        Assert.assertEquals(128, capped.capacity());
+    }
+
+    @Test
+    public void testBytesBound() {
+        // Same length IDs, so all metrics have the same estimated bytes.
+        MockMetrics sample = new MockMetrics("m000");
+        long entryBytes = 128 + sample.serialize().build().getSerializedSize();
+        MetricsSessionCache cache = newCache(0, entryBytes * 50);
+        for (int i = 0; i < 200; i++) {
+            cache.put(new MockMetrics(String.format("m%03d", i)));
+        }
+        Assert.assertTrue(cache.estimatedBytes() <= entryBytes * 50);
+        Assert.assertEquals(cache.size() * entryBytes, cache.estimatedBytes());
+    }
+
+    @Test
+    public void testExpire() {
+        long now = System.currentTimeMillis();
+        MetricsSessionCache cache = newCache(0, 0);
+        MockMetrics idle = new MockMetrics("idle");
+        idle.setLastUpdateTimestamp(now);
+        MockMetrics active = new MockMetrics("active");
+        active.setLastUpdateTimestamp(now);
+        cache.put(idle);
+        cache.put(active);
+
+        cache.expire(now + 10_000);
+        Assert.assertEquals(2, cache.size());
+
+        active.setLastUpdateTimestamp(now + 60_000);
+        cache.expire(now + SESSION_TIMEOUT + 5_000);
+        Assert.assertNull(cache.peek(idle));
+        Assert.assertSame(active, cache.peek(active));
+
+        cache.expire(now + 60_000 + SESSION_TIMEOUT + 5_000);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static MetricsSessionCache newCache(long maxEntries, long maxBytes) {
+        return new MetricsSessionCache(
+            maxEntries, maxBytes, SESSION_TIMEOUT, new MetricsCreatorNoop(), "mock_metrics", "minute");
+    }
+
+    private static class MockMetrics extends Metrics {
+        private final String id;
+
+        private MockMetrics(String id) {
+            this.id = id;
+        }
+
+        @Override
+        protected String id0() {
+            return id;
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder().addDataStrings(id);
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MockMetrics && Objects.equals(id, ((MockMetrics) o).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
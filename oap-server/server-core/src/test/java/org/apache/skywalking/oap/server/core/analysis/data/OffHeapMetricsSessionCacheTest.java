@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapMetricsSessionCacheTest {
+    private static final long SESSION_TIMEOUT = 70_000;
+
+    @Test
+    public void testPutAndGet() {
+        OffHeapMetricsSessionCache cache = newCache(0, 0);
+        SerializableMetrics metrics = new SerializableMetrics("service-1", 10, "");
+        metrics.setLastUpdateTimestamp(1000);
+        cache.put(metrics);
+
+        SerializableMetrics cached = (SerializableMetrics) cache.get(new SerializableMetrics("service-1", 0, ""));
+        Assert.assertNotSame(metrics, cached);
+        Assert.assertEquals("service-1", cached.entityId);
+        Assert.assertEquals(10, cached.value);
+        Assert.assertEquals(1000, cached.getLastUpdateTimestamp());
+        Assert.assertNull(cache.get(new SerializableMetrics("service-2", 0, "")));
+
+        // The returned metrics is a copy, the change is saved through update.
+        cached.value = 20;
+        cached.setLastUpdateTimestamp(2000);
+        cache.update(cached);
+        cached = (SerializableMetrics) cache.get(metrics);
+        Assert.assertEquals(20, cached.value);
+        Assert.assertEquals(2000, cached.getLastUpdateTimestamp());
+
+        // Larger than the reserved space, the record is moved.
+        cached.data = repeat('x', 1000);
+        cache.update(cached);
+        cached = (SerializableMetrics) cache.get(metrics);
+        Assert.assertEquals(1000, cached.data.length());
+        Assert.assertEquals(1, cache.size());
+
+        cache.remove(metrics);
+        Assert.assertNull(cache.get(metrics));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.estimatedBytes());
+    }
+
+    @Test
+    public void testManyEntriesWithCompaction() {
+        OffHeapMetricsSessionCache cache = newCache(0, 0);
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            cache.put(new SerializableMetrics("service-" + i, i, ""));
+        }
+        for (int i = 0; i < count; i += 2) {
+            cache.remove(new SerializableMetrics("service-" + i, 0, ""));
+        }
+        // Every update moves the record, leaving garbage behind.
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 1; i < count; i += 2) {
+                cache.update(new SerializableMetrics("service-" + i, i * 10 + round, repeat('x', round * 50)));
+            }
+        }
+
+        Assert.assertEquals(count / 2, cache.size());
+        for (int i = 0; i < count; i++) {
+            SerializableMetrics cached = (SerializableMetrics) cache.get(new SerializableMetrics("service-" + i, 0, ""));
+            if (i % 2 == 0) {
+                Assert.assertNull(cached);
+            } else {
+                Assert.assertEquals(i * 10 + 3, cached.value);
+                Assert.assertEquals(150, cached.data.length());
+            }
+        }
+        // The garbage is compacted, the allocated memory is not beyond 4 times of the live records.
+        Assert.assertTrue(cache.allocatedMemory() <= cache.estimatedBytes() * 4);
+    }
+
+    @Test
+    public void testBounds() {
+        OffHeapMetricsSessionCache cache = newCache(100, 0);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                SerializableMetrics metrics = new SerializableMetrics("active-" + i, i, "");
+                if (cache.get(metrics) == null) {
+                    cache.put(metrics);
+                }
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            SerializableMetrics metrics = new SerializableMetrics("once-" + i, i, "");
+            Assert.assertNull(cache.get(metrics));
+            cache.put(metrics);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        int activeCached = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get(new SerializableMetrics("active-" + i, 0, "")) != null) {
+                activeCached++;
+            }
+        }
+        Assert.assertTrue("Only " + activeCached + " active metrics are cached", activeCached >= 80);
+
+        cache = newCache(0, 10_000);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new SerializableMetrics("service-" + i, i, ""));
+            Assert.assertTrue(cache.estimatedBytes() <= 10_000);
+        }
+    }
+
+    @Test
+    public void testExpire() {
+        long now = System.currentTimeMillis();
+        OffHeapMetricsSessionCache cache = newCache(0, 0);
+        for (int i = 0; i < 100; i++) {
+            SerializableMetrics metrics = new SerializableMetrics("service-" + i, i, "");
+            metrics.setLastUpdateTimestamp(i % 2 == 0 ? now : now + 60_000);
+            cache.put(metrics);
+        }
+
+        cache.expire(now + SESSION_TIMEOUT + 5_000);
+        Assert.assertEquals(50, cache.size());
+        for (int i = 1; i < 100; i += 2) {
+            Assert.assertNotNull(cache.get(new SerializableMetrics("service-" + i, 0, "")));
+        }
+
+        cache.expire(now + 60_000 + SESSION_TIMEOUT + 5_000);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static String repeat(char c, int times) {
+        StringBuilder builder = new StringBuilder(times);
+        for (int i = 0; i < times; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static OffHeapMetricsSessionCache newCache(long maxEntries, long maxBytes) {
+        return new OffHeapMetricsSessionCache(
+            SerializableMetrics.class, maxEntries, maxBytes, SESSION_TIMEOUT, new MetricsCreatorNoop(),
+            "mock_metrics", "minute"
+        );
+    }
+
+    public static class SerializableMetrics extends Metrics {
+        private String entityId;
+        private long value;
+        private String data;
+
+        public SerializableMetrics() {
+        }
+
+        SerializableMetrics(String entityId, long value, String data) {
+            this.entityId = entityId;
+            this.value = value;
+            this.data = data;
+        }
+
+        @Override
+        protected String id0() {
+            return entityId;
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            value += ((SerializableMetrics) metrics).value;
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+            entityId = remoteData.getDataStrings(0);
+            data = remoteData.getDataStrings(1);
+            value = remoteData.getDataLongs(0);
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder().addDataStrings(entityId).addDataStrings(data).addDataLongs(value);
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SerializableMetrics && entityId.equals(((SerializableMetrics) o).entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
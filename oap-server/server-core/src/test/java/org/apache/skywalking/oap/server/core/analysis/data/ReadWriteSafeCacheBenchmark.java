@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the write throughput of {@link ReadWriteSafeCache} with {@link StripedReadWriteSafeCache}, from 1 to 64
+ * writer threads. A background thread reads the cache every 10ms, like the persistence timer does. The lock waits
+ * are printed after every iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReadWriteSafeCacheBenchmark {
+    private static final int ENTITIES = 10_000;
+    private static final int STRIPES = 64;
+
+    @Param({
+        "PLAIN",
+        "STRIPED"
+    })
+    private String type;
+
+    private IReadWriteSafeCache<Metrics> cache;
+    private final AtomicLong contention = new AtomicLong();
+    private volatile boolean running;
+    private Thread reader;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        if ("STRIPED".equals(type)) {
+            cache = new StripedReadWriteSafeCache<>(STRIPES, MergableBufferedData::new);
+        } else {
+            cache = new ReadWriteSafeCache<>(new MergableBufferedData<>(), new MergableBufferedData<>());
+        }
+        contention.set(0);
+        cache.setContentionCounter(new CounterMetrics() {
+            @Override
+            public void inc() {
+                contention.incrementAndGet();
+            }
+
+            @Override
+            public void inc(double value) {
+                contention.addAndGet((long) value);
+            }
+        });
+        running = true;
+        reader = new Thread(() -> {
+            while (running) {
+                cache.read();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        reader.join();
+        System.out.printf("%n%s lock waits: %d%n", type, contention.get());
+    }
+
+    @Benchmark
+    public void write() {
+        cache.write(MetricsSessionCacheGCBenchmark.newMetrics(ThreadLocalRandom.current().nextInt(ENTITIES)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {
+            1,
+            4,
+            16,
+            64
+        }) {
+            Options opt = new OptionsBuilder().include(ReadWriteSafeCacheBenchmark.class.getSimpleName())
+                                              .threads(threads)
+                                              .build();
+            new Runner(opt).run();
+        }
+    }
+}
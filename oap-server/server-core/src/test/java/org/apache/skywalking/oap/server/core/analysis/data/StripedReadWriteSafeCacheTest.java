@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongAvgMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedReadWriteSafeCacheTest {
+    @Test
+    public void testMergeStripesInRead() throws InterruptedException {
+        final StripedReadWriteSafeCache<Metrics> cache = new StripedReadWriteSafeCache<>(64, MergableBufferedData::new);
+        final int writerNum = 8;
+        final CountDownLatch finished = new CountDownLatch(writerNum);
+        for (int w = 0; w < writerNum; w++) {
+            new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    cache.write(MetricsSessionCacheGCBenchmark.newMetrics(i));
+                }
+                finished.countDown();
+            }).start();
+        }
+        finished.await();
+
+        List<Metrics> result = cache.read();
+        Assert.assertEquals(10, result.size());
+        for (Metrics metrics : result) {
+            Assert.assertEquals(writerNum, ((LongAvgMetrics) metrics).getCount());
+        }
+        Assert.assertTrue(cache.read().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentWriteAndRead() throws InterruptedException {
+        final StripedReadWriteSafeCache<Metrics> cache = new StripedReadWriteSafeCache<>(4, MergableBufferedData::new);
+        final int writerNum = 8;
+        final int writesPerWriter = 20000;
+        final CountDownLatch finished = new CountDownLatch(writerNum);
+        final AtomicBoolean failed = new AtomicBoolean();
+        for (int w = 0; w < writerNum; w++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < writesPerWriter; i++) {
+                        cache.write(MetricsSessionCacheGCBenchmark.newMetrics(i % 100));
+                    }
+                } catch (Throwable t) {
+                    failed.set(true);
+                } finally {
+                    finished.countDown();
+                }
+            }).start();
+        }
+
+        long count = 0;
+        while (finished.getCount() > 0) {
+            count += sumCount(cache.read());
+        }
+        count += sumCount(cache.read());
+
+        Assert.assertFalse(failed.get());
+        Assert.assertEquals((long) writerNum * writesPerWriter, count);
+    }
+
+    @Test
+    public void testSwitchEveryStripeOncePerRead() {
+        final AtomicInteger bufferReads = new AtomicInteger();
+        final StripedReadWriteSafeCache<Metrics> cache = new StripedReadWriteSafeCache<>(4, () -> {
+            final MergableBufferedData<Metrics> buffer = new MergableBufferedData<>();
+            return new BufferedData<Metrics>() {
+                @Override
+                public void accept(Metrics data) {
+                    buffer.accept(data);
+                }
+
+                @Override
+                public List<Metrics> read() {
+                    bufferReads.incrementAndGet();
+                    return buffer.read();
+                }
+            };
+        });
+
+        Assert.assertTrue(cache.read().isEmpty());
+        Assert.assertEquals(4, bufferReads.get());
+
+        cache.write(MetricsSessionCacheGCBenchmark.newMetrics(1));
+        Assert.assertEquals(1, cache.read().size());
+        Assert.assertEquals(8, bufferReads.get());
+        // The written data is drained by the previous read.
+        Assert.assertTrue(cache.read().isEmpty());
+        Assert.assertTrue(cache.read().isEmpty());
+        Assert.assertEquals(16, bufferReads.get());
+    }
+
+    private static long sumCount(List<Metrics> metricsList) {
+        long count = 0;
+        for (Metrics metrics : metricsList) {
+            count += ((LongAvgMetrics) metrics).getCount();
+        }
+        return count;
+    }
+}
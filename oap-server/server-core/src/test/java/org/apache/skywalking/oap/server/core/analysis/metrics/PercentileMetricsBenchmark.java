@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the {@link SortedBucketTable} based {@link PercentileMetrics} with the previous {@link DataTable} based
+ * implementation, which is reproduced in {@link #legacyCombine(DataTable, int, int)} and {@link
+ * #legacyCalculate(DataTable)}. Every invocation combines {@link #SPANS} latencies of one minute then calculates the
+ * percentiles. Run with the {@link GCProfiler} to get the allocation per span, "gc.alloc.rate.norm" divided by {@link
+ * #SPANS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PercentileMetricsBenchmark {
+    private static final int SPANS = 1000;
+    private static final int PRECISION = 10;
+    private static final int[] RANKS = {
+        50,
+        75,
+        90,
+        95,
+        99
+    };
+
+    private final int[] latencies = new int[SPANS];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < SPANS; i++) {
+            latencies[i] = ThreadLocalRandom.current().nextInt(3000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SPANS)
+    public void sortedBucketTable(Blackhole blackhole) {
+        PercentileMetricsMocker metrics = new PercentileMetricsMocker();
+        for (int latency : latencies) {
+            metrics.combine(latency, PRECISION);
+        }
+        metrics.calculate();
+        blackhole.consume(metrics.getPercentileValues());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SPANS)
+    public void dataTable(Blackhole blackhole) {
+        DataTable dataset = new DataTable(30);
+        for (int latency : latencies) {
+            legacyCombine(dataset, latency, PRECISION);
+        }
+        blackhole.consume(legacyCalculate(dataset));
+    }
+
+    private static void legacyCombine(DataTable dataset, int value, int precision) {
+        String index = String.valueOf(value / precision);
+        dataset.valueAccumulation(index, 1L);
+    }
+
+    private static DataTable legacyCalculate(DataTable dataset) {
+        DataTable percentileValues = new DataTable(RANKS.length);
+        long total = dataset.sumOfValues();
+
+        int[] roofs = new int[RANKS.length];
+        for (int i = 0; i < RANKS.length; i++) {
+            roofs[i] = Math.round(total * RANKS[i] * 1.0f / 100);
+        }
+
+        int count = 0;
+        final List<String> sortedKeys = dataset.sortedKeys(Comparator.comparingInt(Integer::parseInt));
+
+        int loopIndex = 0;
+        for (String key : sortedKeys) {
+            final Long value = dataset.get(key);
+
+            count += value;
+            for (int rankIdx = loopIndex; rankIdx < roofs.length; rankIdx++) {
+                int roof = roofs[rankIdx];
+
+                if (count >= roof) {
+                    percentileValues.put(String.valueOf(rankIdx), Long.parseLong(key) * PRECISION);
+                    loopIndex++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return percentileValues;
+    }
+
+    public static class PercentileMetricsMocker extends PercentileMetrics {
+
+        @Override
+        protected String id0() {
+            return null;
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return 0;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(PercentileMetricsBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
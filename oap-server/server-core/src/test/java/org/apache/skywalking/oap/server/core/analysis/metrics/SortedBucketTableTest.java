@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SortedBucketTableTest {
+
+    private SortedBucketTable table;
+
+    @Before
+    public void init() {
+        table = new SortedBucketTable(2);
+        table.valueAccumulation(5, 500L);
+        table.valueAccumulation(6, 600L);
+        table.valueAccumulation(1, 100L);
+        table.valueAccumulation(2, 200L);
+        table.valueAccumulation(7, 700L);
+    }
+
+    @Test
+    public void toStorageData() {
+        Assert.assertEquals("1,100|2,200|5,500|6,600|7,700", table.toStorageData());
+    }
+
+    @Test
+    public void toObject() {
+        SortedBucketTable table = new SortedBucketTable("7,700|1,100|2,200|5,500|6,600");
+
+        Assert.assertEquals(5, table.size());
+        Assert.assertEquals(100, table.get(1));
+        Assert.assertEquals(200, table.get(2));
+        Assert.assertEquals(500, table.get(5));
+        Assert.assertEquals(600, table.get(6));
+        Assert.assertEquals(700, table.get(7));
+        Assert.assertEquals(0, table.get(3));
+        Assert.assertEquals(this.table, table);
+
+        Assert.assertFalse(new SortedBucketTable("").hasData());
+    }
+
+    @Test
+    public void compatibleWithDataTable() {
+        DataTable dataTable = new DataTable(table.toStorageData());
+        Assert.assertEquals(700, dataTable.get("7").longValue());
+
+        SortedBucketTable table = new SortedBucketTable(dataTable.toStorageData());
+        Assert.assertEquals(this.table, table);
+    }
+
+    @Test
+    public void valueAccumulation() {
+        table.valueAccumulation(5, 1L);
+        table.valueAccumulation(0, 1L);
+        Assert.assertEquals("0,1|1,100|2,200|5,501|6,600|7,700", table.toStorageData());
+        Assert.assertEquals(2102, table.sumOfValues());
+        Assert.assertEquals(0, table.keyAt(0));
+        Assert.assertEquals(700, table.valueAt(5));
+    }
+
+    @Test
+    public void append() {
+        SortedBucketTable sameKeys = new SortedBucketTable();
+        sameKeys.append(table);
+        sameKeys.append(table);
+        Assert.assertEquals("1,200|2,400|5,1000|6,1200|7,1400", sameKeys.toStorageData());
+
+        SortedBucketTable differentKeys = new SortedBucketTable();
+        differentKeys.valueAccumulation(3, 3L);
+        differentKeys.valueAccumulation(7, 7L);
+        differentKeys.valueAccumulation(9, 9L);
+        differentKeys.copyFrom(table);
+        Assert.assertEquals("1,100|2,200|3,3|5,500|6,600|7,707|9,9", differentKeys.toStorageData());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.WaitStrategyType;
+import org.apache.skywalking.oap.server.core.analysis.DownSampling;
+import org.apache.skywalking.oap.server.core.analysis.data.MetricsSessionCache;
+import org.apache.skywalking.oap.server.core.analysis.data.MetricsSessionCacheGCBenchmark;
+import org.apache.skywalking.oap.server.core.analysis.metrics.LongAvgMetrics;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
+import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetricsPersistentWorkerTest {
+    @Test
+    public void testRetryMetricsFailedToLoad() throws IOException {
+        ModuleDefineHolder moduleDefineHolder = mock(ModuleDefineHolder.class, RETURNS_DEEP_STUBS);
+        when(moduleDefineHolder.find(TelemetryModule.NAME).provider().getService(MetricsCreator.class))
+            .thenReturn(new MetricsCreatorNoop());
+        Model model = new Model("test_metrics", Collections.emptyList(), Collections.emptyList(), 0,
+                                DownSampling.Minute, false, false, null, true
+        );
+        IMetricsDAO metricsDAO = mock(IMetricsDAO.class);
+        when(metricsDAO.multiGet(any(), any())).thenThrow(new IOException("mock failure"))
+                                               .thenReturn(Collections.emptyList());
+        when(metricsDAO.prepareBatchInsert(any(), any())).thenReturn(mock(InsertRequest.class));
+        MetricsTransWorker transWorker = mock(MetricsTransWorker.class);
+        MetricsPersistentWorker worker = new MetricsPersistentWorker(
+            moduleDefineHolder, model, metricsDAO, null, null, transWorker, true, true, 70_000, 3,
+            WaitStrategyType.SLEEP, 1,
+            new MetricsSessionCache(0, 0, 70_000, new MetricsCreatorNoop(), model.getName(), "minute")
+        );
+
+        worker.getCache().write(Arrays.asList(
+            MetricsSessionCacheGCBenchmark.newMetrics(1), MetricsSessionCacheGCBenchmark.newMetrics(2)));
+        // The unread metrics are not inserted as new ones, which would overwrite the stored values.
+        Assert.assertTrue(worker.buildBatchRequests().isEmpty());
+        verify(metricsDAO, never()).prepareBatchInsert(any(), any());
+        verify(transWorker, never()).in(any());
+
+        // They are merged with the next round.
+        worker.getCache().write(MetricsSessionCacheGCBenchmark.newMetrics(1));
+        Assert.assertEquals(2, worker.buildBatchRequests().size());
+        verify(transWorker, times(2)).in(any());
+        ArgumentCaptor<Metrics> inserted = ArgumentCaptor.forClass(Metrics.class);
+        verify(metricsDAO, times(2)).prepareBatchInsert(any(), inserted.capture());
+        List<Metrics> metrics = inserted.getAllValues();
+        long count = metrics.stream().mapToLong(m -> ((LongAvgMetrics) m).getCount()).sum();
+        Assert.assertEquals(3, count);
+    }
+}
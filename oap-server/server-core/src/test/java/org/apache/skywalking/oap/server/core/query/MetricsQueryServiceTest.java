@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.joda.time.format.DateTimeFormat;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+public class MetricsQueryServiceTest {
+    private static final String METRICS_NAME = "service_resp_time";
+    private static final int DEFAULT_VALUE = 0;
+    /**
+     * With the 50.5s closed delay of the minute step, the time buckets before 202110171229 are closed.
+     */
+    private static final long NOW = parse("20211017123030");
+
+    private RecordingMetricsQueryDAO metricsQueryDAO;
+    private MetricsQueryService service;
+    private MetricsQueryCache cache;
+    private long now = NOW;
+
+    @Before
+    public void setup() {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            METRICS_NAME, "value", Column.ValueDataType.COMMON_VALUE, Function.Avg, DEFAULT_VALUE, 1);
+        CoreModuleConfig moduleConfig = new CoreModuleConfig();
+        moduleConfig.setMetricsQueryCacheMaxEntries(100);
+        metricsQueryDAO = new RecordingMetricsQueryDAO();
+        service = new MetricsQueryService(null, moduleConfig);
+        cache = new MetricsQueryCache(
+            100, service::queryCacheClosedDelay, 600_000, new MetricsCreatorNoop(), () -> now);
+        Whitebox.setInternalState(service, "metricQueryDAO", metricsQueryDAO);
+        Whitebox.setInternalState(service, "queryCache", cache);
+    }
+
+    @Test
+    public void testReadMetricsValuesOfClosedTimeBucketsFromCache() throws IOException {
+        MetricsValues first = service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Collections.singletonList("2021-10-17 1220"), metricsQueryDAO.starts);
+        Assert.assertEquals(11, first.getValues().getValues().size());
+        // 1220 to 1228 are closed.
+        Assert.assertEquals(9, cache.size());
+
+        MetricsValues second = service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1229"), metricsQueryDAO.starts);
+        Assert.assertEquals(toString(first), toString(second));
+
+        // The uncached time buckets before the cached ones are read with all the rest.
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 1218"));
+        Assert.assertEquals("2021-10-17 1218", metricsQueryDAO.starts.get(2));
+        Assert.assertEquals(11, cache.size());
+    }
+
+    @Test
+    public void testReadLabeledMetricsValuesFromCache() throws IOException {
+        List<String> labels = Arrays.asList("99", "50");
+        List<MetricsValues> first = service.readLabeledMetricsValues(
+            newCondition(), labels, newDuration("2021-10-17 1220"));
+        List<MetricsValues> second = service.readLabeledMetricsValues(
+            newCondition(), labels, newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1229"), metricsQueryDAO.starts);
+        Assert.assertEquals(2, second.size());
+        Assert.assertEquals("50", second.get(0).getLabel());
+        Assert.assertEquals(toString(first.get(0)), toString(second.get(0)));
+        Assert.assertEquals(toString(first.get(1)), toString(second.get(1)));
+
+        // The other labels are cached independently, all labels are never cached.
+        service.readLabeledMetricsValues(newCondition(), Collections.singletonList("50"), newDuration("2021-10-17 1220"));
+        service.readLabeledMetricsValues(newCondition(), Collections.emptyList(), newDuration("2021-10-17 1220"));
+        service.readLabeledMetricsValues(newCondition(), Collections.emptyList(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(
+            Arrays.asList(
+                "2021-10-17 1220", "2021-10-17 1229", "2021-10-17 1220", "2021-10-17 1220", "2021-10-17 1220"),
+            metricsQueryDAO.starts
+        );
+    }
+
+    @Test
+    public void testReadHeatMapFromCache() throws IOException {
+        HeatMap first = service.readHeatMap(newCondition(), newDuration("2021-10-17 1220"));
+        HeatMap second = service.readHeatMap(newCondition(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1229"), metricsQueryDAO.starts);
+        Assert.assertEquals(first.getBuckets().size(), second.getBuckets().size());
+        Assert.assertEquals(11, second.getValues().size());
+        for (int i = 0; i < first.getValues().size(); i++) {
+            Assert.assertEquals(first.getValues().get(i).getId(), second.getValues().get(i).getId());
+            Assert.assertEquals(first.getValues().get(i).getValues(), second.getValues().get(i).getValues());
+        }
+    }
+
+    @Test
+    public void testHourTimeBucketCachedAfterDownSamplingPersistence() throws IOException {
+        // Hour 12 ended 75s, three periods, ago, but the hour metrics are persisted every four periods.
+        now = parse("20211017130115");
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 10", "2021-10-17 13", Step.HOUR));
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 10", "2021-10-17 13", Step.HOUR));
+        Assert.assertEquals(Arrays.asList("2021-10-17 10", "2021-10-17 12"), metricsQueryDAO.starts);
+        Assert.assertEquals(2, cache.size());
+
+        // Closed after the 150.5s delay of the hour step.
+        now = parse("20211017130231");
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 10", "2021-10-17 13", Step.HOUR));
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 10", "2021-10-17 13", Step.HOUR));
+        Assert.assertEquals(
+            Arrays.asList("2021-10-17 10", "2021-10-17 12", "2021-10-17 12", "2021-10-17 13"), metricsQueryDAO.starts);
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testCachedValuesExpire() throws IOException {
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        now += 600_000;
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1220"), metricsQueryDAO.starts);
+    }
+
+    @Test
+    public void testUnmergedCachedValuesCountedAsMisses() throws IOException {
+        final Map<String, AtomicLong> counters = new HashMap<>();
+        final MetricsQueryCache countingCache = new MetricsQueryCache(
+            100, service::queryCacheClosedDelay, 600_000, new MetricsCreatorNoop() {
+                @Override
+                public CounterMetrics createCounter(String name, String tips, MetricsTag.Keys tagKeys,
+                                                    MetricsTag.Values tagValues) {
+                    final AtomicLong counter = counters.computeIfAbsent(name, key -> new AtomicLong());
+                    return new CounterMetrics() {
+                        @Override
+                        public void inc() {
+                            counter.incrementAndGet();
+                        }
+
+                        @Override
+                        public void inc(double value) {
+                            counter.addAndGet((long) value);
+                        }
+                    };
+                }
+            }, () -> now);
+        // All time buckets are closed.
+        final Duration duration = newDuration("2021-10-17 1220", "2021-10-17 1228", Step.MINUTE);
+        final MetricsQueryCache.Reader<List<Long>> reader = d -> {
+            metricsQueryDAO.starts.add(d.getStart());
+            return d.assembleDurationPoints().stream().map(PointOfTime::getPoint).collect(Collectors.toList());
+        };
+
+        countingCache.<List<Long>, Long>read(
+            "test", newCondition(), duration, reader, values -> values, values -> null);
+        countingCache.<List<Long>, Long>read(
+            "test", newCondition(), duration, reader, values -> values, values -> null);
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1220"), metricsQueryDAO.starts);
+        Assert.assertEquals(0, counters.get("metrics_query_cache_hit_count").get());
+        Assert.assertEquals(18, counters.get("metrics_query_cache_miss_count").get());
+    }
+
+    @Test
+    public void testCacheDisabled() throws IOException {
+        Whitebox.setInternalState(service, "queryCacheMaxEntries", 0L);
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        service.readMetricsValues(newCondition(), newDuration("2021-10-17 1220"));
+        Assert.assertEquals(Arrays.asList("2021-10-17 1220", "2021-10-17 1220"), metricsQueryDAO.starts);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static MetricsCondition newCondition() {
+        Entity entity = new Entity();
+        entity.setScope(Scope.Service);
+        entity.setServiceName("service");
+        entity.setNormal(true);
+        MetricsCondition condition = new MetricsCondition();
+        condition.setName(METRICS_NAME);
+        condition.setEntity(entity);
+        return condition;
+    }
+
+    private static Duration newDuration(String start) {
+        return newDuration(start, "2021-10-17 1230", Step.MINUTE);
+    }
+
+    private static Duration newDuration(String start, String end, Step step) {
+        Duration duration = new Duration();
+        duration.setStart(start);
+        duration.setEnd(end);
+        duration.setStep(step);
+        return duration;
+    }
+
+    private static long parse(String time) {
+        return DateTimeFormat.forPattern("yyyyMMddHHmmss").parseMillis(time);
+    }
+
+    private static String toString(MetricsValues metricsValues) {
+        return metricsValues.getLabel() + metricsValues.getValues()
+                                                       .getValues()
+                                                       .stream()
+                                                       .map(kv -> kv.getId() + "=" + kv.getValue())
+                                                       .collect(Collectors.toList());
+    }
+
+    /**
+     * The value of every time bucket is the minute of it, and records the start of the durations read.
+     */
+    private static class RecordingMetricsQueryDAO implements IMetricsQueryDAO {
+        private final List<String> starts = new ArrayList<>();
+
+        @Override
+        public long readMetricsValue(MetricsCondition condition, String valueColumnName, Duration duration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MetricsValues readMetricsValues(MetricsCondition condition,
+                                               String valueColumnName,
+                                               Duration duration) {
+            starts.add(duration.getStart());
+            MetricsValues metricsValues = new MetricsValues();
+            for (PointOfTime point : duration.assembleDurationPoints()) {
+                KVInt kv = new KVInt();
+                kv.setId(point.id(condition.getEntity().buildId()));
+                kv.setValue(point.getPoint() % 100);
+                metricsValues.getValues().addKVInt(kv);
+            }
+            return metricsValues;
+        }
+
+        @Override
+        public List<MetricsValues> readLabeledMetricsValues(MetricsCondition condition,
+                                                            String valueColumnName,
+                                                            List<String> labels,
+                                                            Duration duration) {
+            starts.add(duration.getStart());
+            List<String> ids = new ArrayList<>();
+            List<DataTable> dataTables = new ArrayList<>();
+            for (PointOfTime point : duration.assembleDurationPoints()) {
+                ids.add(point.id(condition.getEntity().buildId()));
+                dataTables.add(new DataTable("50," + point.getPoint() % 100 + "|99," + point.getPoint() % 100 * 2));
+            }
+            Map<String, DataTable> idMap = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                idMap.put(ids.get(i), dataTables.get(i));
+            }
+            return Util.composeLabelValue(condition, labels, ids, idMap);
+        }
+
+        @Override
+        public HeatMap readHeatMap(MetricsCondition condition, String valueColumnName, Duration duration) {
+            starts.add(duration.getStart());
+            HeatMap heatMap = new HeatMap();
+            List<String> ids = new ArrayList<>();
+            for (PointOfTime point : duration.assembleDurationPoints()) {
+                String id = point.id(condition.getEntity().buildId());
+                ids.add(id);
+                // Every other time bucket has no data.
+                if (point.getPoint() % 2 == 0) {
+                    heatMap.buildColumn(id, "0," + point.getPoint() % 100 + "|100,1", DEFAULT_VALUE);
+                }
+            }
+            heatMap.fixMissingColumns(ids, DEFAULT_VALUE);
+            return heatMap;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.language.agent.v3.Log;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentReference;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.LogEntity;
+import org.apache.skywalking.oap.server.core.query.type.Ref;
+import org.apache.skywalking.oap.server.core.query.type.Span;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the trace assembly of {@link TraceQueryService#sortSpans} with the previous implementation, which is
+ * reproduced in {@link #legacy()}. Every invocation builds the spans from a synthetic trace, which has {@link
+ * #SPANS_PER_SEGMENT} spans in every segment and every segment refs a random span of the previous segments, then sorts
+ * them in the tree order. Run with the {@link GCProfiler} to get the allocation per trace.
+ * <p>
+ * The previous implementation is quadratic, it isn't run with more than 10k spans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TraceQueryBenchmark {
+    private static final int SPANS_PER_SEGMENT = 10;
+    private static final int LEGACY_MAX_SPANS = 10000;
+
+    @Param({
+        "1000",
+        "10000",
+        "100000"
+    })
+    private int spans;
+
+    private final List<SegmentObject> segments = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        segments.clear();
+        for (int segment = 0; segment < spans / SPANS_PER_SEGMENT; segment++) {
+            SegmentObject.Builder builder = SegmentObject.newBuilder()
+                                                         .setTraceId("trace")
+                                                         .setTraceSegmentId("segment-" + segment)
+                                                         .setService("service")
+                                                         .setServiceInstance("instance");
+            for (int spanId = 0; spanId < SPANS_PER_SEGMENT; spanId++) {
+                SpanObject.Builder span = SpanObject.newBuilder()
+                                                    .setSpanId(spanId)
+                                                    .setParentSpanId(spanId - 1)
+                                                    .setStartTime(segment * 100L + spanId)
+                                                    .setEndTime(segment * 100L + spanId + 10)
+                                                    .setOperationName("/endpoint")
+                                                    .addTags(KeyStringValuePair.newBuilder()
+                                                                               .setKey("url")
+                                                                               .setValue("/endpoint"))
+                                                    .addLogs(Log.newBuilder().setTime(segment).addData(
+                                                        KeyStringValuePair.newBuilder()
+                                                                          .setKey("event")
+                                                                          .setValue("error")));
+                if (spanId == 0 && segment > 0) {
+                    span.addRefs(SegmentReference.newBuilder()
+                                                 .setTraceId("trace")
+                                                 .setParentTraceSegmentId("segment-" + random.nextInt(segment))
+                                                 .setParentSpanId(random.nextInt(SPANS_PER_SEGMENT)));
+                }
+                builder.addSpans(span);
+            }
+            segments.add(builder.build());
+        }
+    }
+
+    @Benchmark
+    public List<Span> indexed() {
+        List<Span> spanList = new ArrayList<>(spans);
+        for (SegmentObject segment : segments) {
+            for (SpanObject spanObject : segment.getSpansList()) {
+                Span span = newSpan(segment, spanObject);
+                span.setDetailSource(spanObject);
+                spanList.add(span);
+            }
+        }
+        return TraceQueryService.sortSpans(
+            spanList, TraceQueryService.SegmentSpanKey::of, TraceQueryService.SegmentSpanKey::parentOf);
+    }
+
+    @Benchmark
+    public List<Span> legacy() {
+        List<Span> sortedSpans = new ArrayList<>();
+        if (spans > LEGACY_MAX_SPANS) {
+            return sortedSpans;
+        }
+        List<Span> spanList = new ArrayList<>(spans);
+        for (SegmentObject segment : segments) {
+            for (SpanObject spanObject : segment.getSpansList()) {
+                Span span = newSpan(segment, spanObject);
+                span.setSegmentSpanId(segment.getTraceSegmentId() + Const.SEGMENT_SPAN_SPLIT + spanObject.getSpanId());
+                span.setSegmentParentSpanId(
+                    segment.getTraceSegmentId() + Const.SEGMENT_SPAN_SPLIT + spanObject.getParentSpanId());
+                for (Ref ref : span.getRefs()) {
+                    span.setSegmentParentSpanId(
+                        ref.getParentSegmentId() + Const.SEGMENT_SPAN_SPLIT + ref.getParentSpanId());
+                }
+                spanObject.getTagsList().forEach(tag -> span.getTags().add(new KeyValue(tag.getKey(), tag.getValue())));
+                spanObject.getLogsList().forEach(log -> {
+                    LogEntity logEntity = new LogEntity();
+                    logEntity.setTime(log.getTime());
+                    log.getDataList().forEach(
+                        data -> logEntity.getData().add(new KeyValue(data.getKey(), data.getValue())));
+                    span.getLogs().add(logEntity);
+                });
+                spanList.add(span);
+            }
+        }
+
+        List<Span> rootSpans = new ArrayList<>();
+        spanList.forEach(span -> {
+            boolean hasParent = false;
+            for (Span subSpan : spanList) {
+                if (span.getSegmentParentSpanId().equals(subSpan.getSegmentSpanId())) {
+                    hasParent = true;
+                    break;
+                }
+            }
+            if (!hasParent) {
+                span.setRoot(true);
+                rootSpans.add(span);
+            }
+        });
+        rootSpans.sort(Comparator.comparing(Span::getStartTime));
+        rootSpans.forEach(span -> {
+            sortedSpans.add(span);
+            legacyFindChildren(spanList, span, sortedSpans);
+        });
+        return sortedSpans;
+    }
+
+    private static void legacyFindChildren(List<Span> spans, Span parentSpan, List<Span> childrenSpan) {
+        spans.forEach(span -> {
+            if (span.getSegmentParentSpanId().equals(parentSpan.getSegmentSpanId())) {
+                childrenSpan.add(span);
+                legacyFindChildren(spans, span, childrenSpan);
+            }
+        });
+    }
+
+    private static Span newSpan(SegmentObject segment, SpanObject spanObject) {
+        Span span = new Span();
+        span.setTraceId(segment.getTraceId());
+        span.setSegmentId(segment.getTraceSegmentId());
+        span.setSpanId(spanObject.getSpanId());
+        span.setParentSpanId(spanObject.getParentSpanId());
+        span.setStartTime(spanObject.getStartTime());
+        span.setEndTime(spanObject.getEndTime());
+        span.setEndpointName(spanObject.getOperationName());
+        span.setServiceCode(segment.getService());
+        span.setServiceInstanceName(segment.getServiceInstance());
+        spanObject.getRefsList().forEach(reference -> {
+            Ref ref = new Ref();
+            ref.setTraceId(reference.getTraceId());
+            ref.setParentSegmentId(reference.getParentTraceSegmentId());
+            ref.setParentSpanId(reference.getParentSpanId());
+            span.getRefs().add(ref);
+        });
+        return span;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(TraceQueryBenchmark.class.getSimpleName())
+                                          .addProfiler(GCProfiler.class)
+                                          .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.language.agent.v3.Log;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentReference;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
+import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogService;
+import org.apache.skywalking.oap.server.core.query.input.TraceSpanCondition;
+import org.apache.skywalking.oap.server.core.query.type.Pagination;
+import org.apache.skywalking.oap.server.core.query.type.Ref;
+import org.apache.skywalking.oap.server.core.query.type.Span;
+import org.apache.skywalking.oap.server.core.query.type.TraceSpans;
+import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TraceQueryServiceTest {
+    private static final String TRACE_ID = "trace";
+
+    @Test
+    public void testQueryTraceSpans() throws IOException {
+        ITraceQueryDAO traceQueryDAO = mock(ITraceQueryDAO.class);
+        List<SegmentRecord> segments = Arrays.asList(
+            newSegment("seg-b", newSpanObject(0, -1, 35, 45, "seg-a", 1), newSpanObject(1, 0, 36, 38, null, 0)),
+            newSegment("seg-a", newSpanObject(0, -1, 10, 100, null, 0), newSpanObject(1, 0, 20, 50, null, 0),
+                       newSpanObject(2, 1, 30, 40, null, 0)
+            )
+        );
+        when(traceQueryDAO.queryByTraceId(TRACE_ID)).thenReturn(segments);
+        when(traceQueryDAO.queryByTraceId(TRACE_ID, 41L, 100L)).thenReturn(segments);
+        IComponentLibraryCatalogService componentLibraryCatalogService = mock(IComponentLibraryCatalogService.class);
+        TraceQueryService service = new TraceQueryService(null);
+        Whitebox.setInternalState(service, "traceQueryDAO", traceQueryDAO);
+        Whitebox.setInternalState(service, "componentLibraryCatalogService", componentLibraryCatalogService);
+
+        TraceSpanCondition condition = new TraceSpanCondition();
+        condition.setTraceId(TRACE_ID);
+        condition.setPaging(new Pagination(1, 10, true));
+        TraceSpans traceSpans = service.queryTraceSpans(condition);
+        Assert.assertEquals(5, traceSpans.getTotal());
+        assertSpans(traceSpans, "seg-a.0", "seg-a.1", "seg-b.0", "seg-b.1", "seg-a.2");
+
+        // The skeleton.
+        condition.setMaxDepth(1);
+        traceSpans = service.queryTraceSpans(condition);
+        Assert.assertEquals(2, traceSpans.getTotal());
+        assertSpans(traceSpans, "seg-a.0", "seg-a.1");
+
+        condition.setMaxDepth(2);
+        condition.setPaging(new Pagination(2, 2, true));
+        traceSpans = service.queryTraceSpans(condition);
+        Assert.assertEquals(4, traceSpans.getTotal());
+        assertSpans(traceSpans, "seg-b.0", "seg-a.2");
+
+        condition.setMaxDepth(null);
+        condition.setPaging(new Pagination(1, 10, true));
+        condition.setStartTime(41L);
+        condition.setEndTime(100L);
+        traceSpans = service.queryTraceSpans(condition);
+        Assert.assertEquals(3, traceSpans.getTotal());
+        assertSpans(traceSpans, "seg-a.0", "seg-a.1", "seg-b.0");
+        Assert.assertEquals(1, traceSpans.getSpans().get(2).getTags().size());
+        verify(traceQueryDAO).queryByTraceId(TRACE_ID, 41L, 100L);
+
+        condition.setPaging(new Pagination(3, 10, true));
+        traceSpans = service.queryTraceSpans(condition);
+        Assert.assertEquals(3, traceSpans.getTotal());
+        Assert.assertTrue(traceSpans.getSpans().isEmpty());
+    }
+
+    @Test
+    public void testSortSpans() {
+        List<Span> sorted = TraceQueryService.sortSpans(
+            buildTrace(), TraceQueryService.SegmentSpanKey::of, TraceQueryService.SegmentSpanKey::parentOf);
+        assertOrder(sorted);
+
+        List<Span> sortedByString = TraceQueryService.sortSpans(
+            buildTrace(), Span::getSegmentSpanId, Span::getSegmentParentSpanId);
+        assertOrder(sortedByString);
+    }
+
+    @Test
+    public void testLazySegmentSpanId() {
+        Span span = newSpan("seg-b", 1, 0, 0);
+        Assert.assertEquals("seg-bS1", span.getSegmentSpanId());
+        Assert.assertEquals("seg-bS0", span.getSegmentParentSpanId());
+
+        Span refSpan = newSpan("seg-b", 0, -1, 0);
+        refSpan.getRefs().add(newRef("seg-a", 2));
+        Assert.assertEquals("seg-aS2", refSpan.getSegmentParentSpanId());
+
+        Span flexibleSpan = new Span();
+        flexibleSpan.setSegmentSpanId("zipkin-id");
+        flexibleSpan.setSegmentParentSpanId("");
+        Assert.assertEquals("zipkin-id", flexibleSpan.getSegmentSpanId());
+        Assert.assertEquals("", flexibleSpan.getSegmentParentSpanId());
+    }
+
+    @Test
+    public void testLazyTagsAndLogs() {
+        Span span = new Span();
+        span.setDetailSource(SpanObject.newBuilder()
+                                       .addTags(KeyStringValuePair.newBuilder().setKey("db.type").setValue("sql"))
+                                       .addLogs(Log.newBuilder().setTime(100L).addData(
+                                           KeyStringValuePair.newBuilder().setKey("event").setValue("error")))
+                                       .build());
+
+        Assert.assertEquals(1, span.getTags().size());
+        Assert.assertEquals("db.type", span.getTags().get(0).getKey());
+        Assert.assertEquals("sql", span.getTags().get(0).getValue());
+        Assert.assertEquals(1, span.getLogs().size());
+        Assert.assertEquals(100L, span.getLogs().get(0).getTime());
+        Assert.assertEquals("error", span.getLogs().get(0).getData().get(0).getValue());
+        // Built once only.
+        Assert.assertEquals(1, span.getTags().size());
+    }
+
+    @Test
+    public void testDuplicateAndCircularSpans() {
+        Span a = newSpan("seg-a", 0, 1, 0);
+        Span b = newSpan("seg-a", 1, 0, 1);
+        List<Span> sorted = TraceQueryService.sortSpans(
+            Arrays.asList(a, b), Span::getSegmentSpanId, Span::getSegmentParentSpanId);
+        // Both spans have the parent, no root, nothing to show.
+        Assert.assertTrue(sorted.isEmpty());
+
+        Span root = newSpan("seg-c", 0, -1, 0);
+        Span child = newSpan("seg-c", 1, 0, 1);
+        Span duplicatedRoot = newSpan("seg-c", 0, -1, 0);
+        sorted = TraceQueryService.sortSpans(
+            Arrays.asList(root, child, duplicatedRoot), Span::getSegmentSpanId, Span::getSegmentParentSpanId);
+        Assert.assertEquals(Arrays.asList(root, child, duplicatedRoot), sorted);
+    }
+
+    /**
+     * seg-a: a0 <- a1 <- a2, seg-b refs a1: b0 <- b1, seg-c is a fragment whose parent is lost, started earlier than
+     * seg-a.
+     */
+    private static List<Span> buildTrace() {
+        List<Span> spans = new ArrayList<>();
+        Span b1 = newSpan("seg-b", 1, 0, 40);
+        spans.add(b1);
+        spans.add(newSpan("seg-a", 2, 1, 30));
+        Span b0 = newSpan("seg-b", 0, -1, 35);
+        b0.getRefs().add(newRef("seg-a", 1));
+        spans.add(b0);
+        spans.add(newSpan("seg-a", 1, 0, 20));
+        spans.add(newSpan("seg-a", 0, -1, 10));
+        Span c0 = newSpan("seg-c", 0, -1, 5);
+        c0.getRefs().add(newRef("seg-lost", 3));
+        spans.add(c0);
+        return spans;
+    }
+
+    private static void assertOrder(List<Span> sorted) {
+        Assert.assertEquals(
+            Arrays.asList("seg-c.0", "seg-a.0", "seg-a.1", "seg-a.2", "seg-b.0", "seg-b.1"),
+            sorted.stream().map(span -> span.getSegmentId() + "." + span.getSpanId()).collect(Collectors.toList())
+        );
+        Assert.assertTrue(sorted.get(0).isRoot());
+        Assert.assertTrue(sorted.get(1).isRoot());
+        Assert.assertFalse(sorted.get(2).isRoot());
+    }
+
+    private static void assertSpans(TraceSpans traceSpans, String... expected) {
+        Assert.assertEquals(
+            Arrays.asList(expected),
+            traceSpans.getSpans()
+                      .stream()
+                      .map(span -> span.getSegmentId() + "." + span.getSpanId())
+                      .collect(Collectors.toList())
+        );
+    }
+
+    private static SegmentRecord newSegment(String segmentId, SpanObject... spans) {
+        SegmentRecord segment = new SegmentRecord();
+        segment.setSegmentId(segmentId);
+        segment.setTraceId(TRACE_ID);
+        segment.setDataBinary(SegmentObject.newBuilder()
+                                           .setTraceId(TRACE_ID)
+                                           .setTraceSegmentId(segmentId)
+                                           .addAllSpans(Arrays.asList(spans))
+                                           .build()
+                                           .toByteArray());
+        return segment;
+    }
+
+    private static SpanObject newSpanObject(int spanId, int parentSpanId, long startTime, long endTime,
+                                            String refSegmentId, int refSpanId) {
+        SpanObject.Builder span = SpanObject.newBuilder()
+                                            .setSpanId(spanId)
+                                            .setParentSpanId(parentSpanId)
+                                            .setStartTime(startTime)
+                                            .setEndTime(endTime)
+                                            .addTags(KeyStringValuePair.newBuilder().setKey("url").setValue("/"));
+        if (refSegmentId != null) {
+            span.addRefs(SegmentReference.newBuilder()
+                                         .setTraceId(TRACE_ID)
+                                         .setParentTraceSegmentId(refSegmentId)
+                                         .setParentSpanId(refSpanId));
+        }
+        return span.build();
+    }
+
+    private static Span newSpan(String segmentId, int spanId, int parentSpanId, long startTime) {
+        Span span = new Span();
+        span.setSegmentId(segmentId);
+        span.setSpanId(spanId);
+        span.setParentSpanId(parentSpanId);
+        span.setStartTime(startTime);
+        return span;
+    }
+
+    private static Ref newRef(String parentSegmentId, int parentSpanId) {
+        Ref ref = new Ref();
+        ref.setParentSegmentId(parentSegmentId);
+        ref.setParentSpanId(parentSpanId);
+        return ref;
+    }
+}
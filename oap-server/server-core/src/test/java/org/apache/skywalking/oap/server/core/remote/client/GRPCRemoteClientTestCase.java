@@ -18,12 +18,20 @@
 
 package org.apache.skywalking.oap.server.core.remote.client;
 
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
 import io.grpc.testing.GrpcServerRule;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
+import org.apache.skywalking.oap.server.core.remote.codec.CompactRemoteData;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.BatchRemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteCapability;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
@@ -50,6 +58,7 @@ public class GRPCRemoteClientTestCase {
 
     private final String nextWorkerName = "mock-worker";
     private ModuleManagerTesting moduleManager;
+    private final AtomicInteger received = new AtomicInteger();
     @Rule
     public final GrpcServerRule grpcServerRule = new GrpcServerRule().directExecutor();
 
@@ -69,6 +78,143 @@ public class GRPCRemoteClientTestCase {
 
     @Test
     public void testPush() throws InterruptedException {
+        mockTelemetry();
+
+        grpcServerRule.getServiceRegistry().addService(new RemoteServiceHandler(moduleManager));
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
+        remoteClient.connect();
+
+        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+        Assert.assertTrue(remoteClient.negotiate().getBatchCall());
+        Assert.assertEquals(0, remoteClient.negotiateCompactVersion());
+        Assert.assertEquals(12, received.get());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testPushWithCompactEncoding() throws InterruptedException {
+        mockTelemetry();
+
+        grpcServerRule.getServiceRegistry().addService(new RemoteServiceHandler(moduleManager));
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null, true));
+        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
+        remoteClient.connect();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+        Assert.assertEquals(CompactRemoteData.VERSION, remoteClient.negotiateCompactVersion());
+        Assert.assertEquals(12, received.get());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testPushWithoutBatchCall() throws InterruptedException {
+        mockTelemetry();
+
+        // The handler of the previous release, which only supports the call.
+        grpcServerRule.getServiceRegistry().addService(new RemoteServiceHandler(moduleManager) {
+            @Override
+            public void negotiate(RemoteCapability request, StreamObserver<RemoteCapability> responseObserver) {
+                responseObserver.onError(Status.UNIMPLEMENTED.asRuntimeException());
+            }
+        });
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null, true));
+        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
+        remoteClient.connect();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        TimeUnit.SECONDS.sleep(2);
+        Assert.assertFalse(remoteClient.negotiate().getBatchCall());
+        Assert.assertEquals(0, remoteClient.negotiateCompactVersion());
+        Assert.assertEquals(12, received.get());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testRenegotiateAfterUnimplementedCall() throws InterruptedException {
+        mockTelemetry();
+
+        AtomicInteger negotiated = new AtomicInteger();
+        // The node claims the batch call, but it is replaced by the previous release behind the same address.
+        grpcServerRule.getServiceRegistry().addService(new RemoteServiceHandler(moduleManager) {
+            @Override
+            public void negotiate(RemoteCapability request, StreamObserver<RemoteCapability> responseObserver) {
+                if (negotiated.incrementAndGet() == 1) {
+                    super.negotiate(request, responseObserver);
+                } else {
+                    responseObserver.onError(Status.UNIMPLEMENTED.asRuntimeException());
+                }
+            }
+
+            @Override
+            public StreamObserver<BatchRemoteMessage> batchCall(StreamObserver<Empty> responseObserver) {
+                responseObserver.onError(Status.UNIMPLEMENTED.asRuntimeException());
+                return new StreamObserver<BatchRemoteMessage>() {
+                    @Override
+                    public void onNext(BatchRemoteMessage batch) {
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                };
+            }
+        });
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null, true));
+        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
+        remoteClient.connect();
+
+        remoteClient.push(nextWorkerName, new TestStreamData());
+        TimeUnit.SECONDS.sleep(1);
+        remoteClient.push(nextWorkerName, new TestStreamData());
+        TimeUnit.SECONDS.sleep(1);
+
+        Assert.assertEquals(2, negotiated.get());
+        Assert.assertFalse(remoteClient.negotiate().getBatchCall());
+        Assert.assertEquals(1, received.get());
+        remoteClient.close();
+    }
+
+    @Test
+    public void testFallbackWithoutNegotiation() {
+        mockTelemetry();
+
+        // The handler of the previous release, which doesn't implement the negotiation.
+        grpcServerRule.getServiceRegistry().addService(new RemoteServiceGrpc.RemoteServiceImplBase() {
+        });
+
+        Address address = new Address("not-important", 11, false);
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null, true));
+        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
+
+        Assert.assertEquals(0, remoteClient.negotiateCompactVersion());
+    }
+
+    private void mockTelemetry() {
         MetricsCreator metricsCreator = mock(MetricsCreator.class);
         when(metricsCreator.createCounter(any(), any(), any(), any())).thenReturn(new CounterMetrics() {
             @Override
@@ -97,20 +243,6 @@ public class GRPCRemoteClientTestCase {
         ModuleDefineTesting telemetryModuleDefine = new ModuleDefineTesting();
         moduleManager.put(TelemetryModule.NAME, telemetryModuleDefine);
         telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
-
-        grpcServerRule.getServiceRegistry().addService(new RemoteServiceHandler(moduleManager));
-
-        Address address = new Address("not-important", 11, false);
-        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
-        remoteClient.connect();
-
-        doReturn(grpcServerRule.getChannel()).when(remoteClient).getChannel();
-
-        for (int i = 0; i < 12; i++) {
-            remoteClient.push(nextWorkerName, new TestStreamData());
-        }
-
-        TimeUnit.SECONDS.sleep(2);
     }
 
     public static class TestStreamData extends StreamData {
@@ -145,6 +277,7 @@ public class GRPCRemoteClientTestCase {
         public void in(Object o) {
             TestStreamData streamData = (TestStreamData) o;
             Assert.assertEquals(987, streamData.value);
+            received.incrementAndGet();
         }
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.codec;
+
+import java.io.IOException;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactRemoteDataTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        CompactRemoteDataEncoder encoder = new CompactRemoteDataEncoder();
+        CompactRemoteDataDecoder decoder = new CompactRemoteDataDecoder();
+
+        for (int i = 0; i < 3; i++) {
+            RemoteData origin = RemoteData.newBuilder()
+                                          .addDataStrings("ZTJlLXNlcnZpY2UtcHJvdmlkZXI=.1")
+                                          .addDataStrings("")
+                                          .addDataStrings("entity-" + i)
+                                          .addDataLongs(202110171230L)
+                                          .addDataLongs(-1L)
+                                          .addDataLongs(Long.MIN_VALUE)
+                                          .addDataDoubles(0.95D)
+                                          .addDataIntegers(10)
+                                          .addDataIntegers(-10)
+                                          .addDataObjectStrings("0,3|100,2|200,0|-300,1")
+                                          .addDataObjectStrings("-9223372036854775808,1|9223372036854775807,2")
+                                          .addDataObjectStrings("pD:50,3|pD:99,5")
+                                          .addDataObjectStrings("01,1|2,")
+                                          .addDataObjectStrings("")
+                                          .build();
+
+            RemoteData encoded = encoder.encode(origin);
+            Assert.assertEquals(CompactRemoteData.VERSION, encoded.getCompactVersion());
+            Assert.assertEquals(0, encoded.getDataStringsCount());
+            Assert.assertEquals(origin, decoder.decode(encoded));
+        }
+        // The repeated strings are sent as the dictionary references.
+        Assert.assertEquals(5, encoder.dictionarySize());
+    }
+
+    @Test
+    public void testOriginalFormat() throws IOException {
+        RemoteData origin = RemoteData.newBuilder().addDataStrings("id").addDataLongs(1L).build();
+        Assert.assertSame(origin, new CompactRemoteDataDecoder().decode(origin));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws IOException {
+        new CompactRemoteDataDecoder().decode(
+            RemoteData.newBuilder().setCompactVersion(CompactRemoteData.VERSION + 1).build());
+    }
+
+    @Test
+    public void testParseBuckets() {
+        Assert.assertArrayEquals(new long[] {
+            0,
+            3,
+            100,
+            2
+        }, CompactRemoteDataEncoder.parseBuckets("0,3|100,2"));
+        Assert.assertNull(CompactRemoteDataEncoder.parseBuckets("-0,1"));
+        Assert.assertNull(CompactRemoteDataEncoder.parseBuckets("9223372036854775808,1"));
+        Assert.assertNull(CompactRemoteDataEncoder.parseBuckets("1,2|"));
+        Assert.assertNull(CompactRemoteDataEncoder.parseBuckets("a,1"));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.codec;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.oap.server.core.analysis.metrics.SortedBucketTable;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The CPU time per metric of the remote path in the original and the compact encoding. Every invocation encodes or
+ * decodes one stream of {@link #METRICS} percentile-like metrics, which share {@link #ENTITIES} entity IDs. The bytes
+ * per metric of both formats are printed by {@link #main(String[])} before running.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RemoteDataEncodingBenchmark {
+    private static final int METRICS = 1000;
+    private static final int ENTITIES = 100;
+    private static final String WORKER_NAME = "endpoint_percentile";
+
+    private List<RemoteMessage> messages;
+    private List<byte[]> originalBytes;
+    private List<byte[]> compactBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        messages = buildMessages();
+        originalBytes = new ArrayList<>(METRICS);
+        for (RemoteMessage message : messages) {
+            originalBytes.add(message.toByteArray());
+        }
+        compactBytes = encodeCompact(messages);
+    }
+
+    private static List<RemoteMessage> buildMessages() {
+        List<RemoteMessage> messages = new ArrayList<>(METRICS);
+        for (int i = 0; i < METRICS; i++) {
+            SortedBucketTable dataset = new SortedBucketTable(30);
+            for (int bucket = 0; bucket < 30; bucket++) {
+                dataset.put(bucket * 3 + i % 7, (i * 31 + bucket * 17) % 500);
+            }
+            SortedBucketTable percentileValues = new SortedBucketTable(5);
+            for (int rank = 0; rank < 5; rank++) {
+                percentileValues.put(rank, 100 + rank * 50 + i % 10);
+            }
+            RemoteData remoteData = RemoteData.newBuilder()
+                                              .addDataStrings(
+                                                  "c2VydmljZS1wcm92aWRlci0" + (i % ENTITIES) + "=.1_L2FwaS91c2Vycy97aWR9")
+                                              .addDataLongs(202110171230L)
+                                              .addDataIntegers(10)
+                                              .addDataObjectStrings(percentileValues.toStorageData())
+                                              .addDataObjectStrings(dataset.toStorageData())
+                                              .build();
+            messages.add(RemoteMessage.newBuilder().setNextWorkerName(WORKER_NAME).setRemoteData(remoteData).build());
+        }
+        return messages;
+    }
+
+    private static List<byte[]> encodeCompact(List<RemoteMessage> messages) throws IOException {
+        CompactRemoteDataEncoder encoder = new CompactRemoteDataEncoder();
+        List<byte[]> result = new ArrayList<>(messages.size());
+        for (RemoteMessage message : messages) {
+            result.add(RemoteMessage.newBuilder()
+                                    .setNextWorkerName(message.getNextWorkerName())
+                                    .setRemoteData(encoder.encode(message.getRemoteData()))
+                                    .build()
+                                    .toByteArray());
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METRICS)
+    public void originalEncode(Blackhole blackhole) {
+        for (RemoteMessage message : messages) {
+            blackhole.consume(message.toByteArray());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METRICS)
+    public void compactEncode(Blackhole blackhole) throws IOException {
+        blackhole.consume(encodeCompact(messages));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METRICS)
+    public void originalDecode(Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (byte[] bytes : originalBytes) {
+            blackhole.consume(RemoteMessage.parseFrom(bytes).getRemoteData());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METRICS)
+    public void compactDecode(Blackhole blackhole) throws IOException {
+        CompactRemoteDataDecoder decoder = new CompactRemoteDataDecoder();
+        for (byte[] bytes : compactBytes) {
+            blackhole.consume(decoder.decode(RemoteMessage.parseFrom(bytes).getRemoteData()));
+        }
+    }
+
+    private static long totalSize(List<byte[]> bytes) {
+        return bytes.stream().mapToLong(b -> b.length).sum();
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        RemoteDataEncodingBenchmark benchmark = new RemoteDataEncodingBenchmark();
+        benchmark.setup();
+        System.out.printf(
+            "Bytes per metric, original: %d, compact: %d%n",
+            totalSize(benchmark.originalBytes) / METRICS, totalSize(benchmark.compactBytes) / METRICS
+        );
+
+        Options opt = new OptionsBuilder().include(RemoteDataEncodingBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -21,8 +21,13 @@ package org.apache.skywalking.oap.server.core.storage;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import lombok.Data;
 import org.apache.skywalking.oap.server.core.CoreModuleConfig;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsPersistentWorker;
@@ -37,6 +42,7 @@ import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.powermock.reflect.Whitebox;
 
@@ -44,9 +50,17 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class PersistenceTimerTest {
 
+    @Before
+    public void clearWorkers() {
+        MetricsStreamProcessor.getInstance().getPersistentWorkers().clear();
+        TopNStreamProcessor.getInstance().getPersistentWorkers().clear();
+    }
+
     @Test
     public void testExtractDataAndSave() throws Exception {
         Set<PrepareRequest> result = new HashSet();
@@ -84,7 +98,129 @@ public class PersistenceTimerTest {
         Assert.assertEquals(count * workCount * 2, result.size());
     }
 
+    @Test
+    public void testSlowModelNotBlockOthersInPipeline() throws Exception {
+        int count = 10;
+        int fastWorkCount = 3;
+        CoreModuleConfig moduleConfig = new CoreModuleConfig();
+        moduleConfig.setPersistentPeriod(Integer.MAX_VALUE);
+        moduleConfig.setEnablePersistencePipeline(true);
+        CountDownLatch slowStorage = new CountDownLatch(1);
+        Map<String, AtomicInteger> flushedRounds = new ConcurrentHashMap<>();
+        IBatchDAO iBatchDAO = new IBatchDAO() {
+            @Override
+            public void insert(InsertRequest insertRequest) {
+
+            }
+
+            @Override
+            public void flush(final List<PrepareRequest> prepareRequests) {
+                String worker = ((MockStorageData) prepareRequests.get(0)).getId().split(" ")[0];
+                if ("slow".equals(worker)) {
+                    try {
+                        slowStorage.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                flushedRounds.computeIfAbsent(worker, w -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+        MetricsPersistentWorker slowWorker = genWorkers("slow", count);
+        MetricsStreamProcessor.getInstance().getPersistentWorkers().add(slowWorker);
+        for (int i = 0; i < fastWorkCount; i++) {
+            MetricsStreamProcessor.getInstance().getPersistentWorkers().add(genWorkers(String.valueOf(i), count));
+        }
+        ModuleManager moduleManager = mock(ModuleManager.class);
+        ModuleServiceHolder moduleServiceHolder = mock(ModuleServiceHolder.class);
+        doReturn((ModuleProviderHolder) () -> moduleServiceHolder).when(moduleManager).find(anyString());
+        doReturn(new MetricsCreatorNoop()).when(moduleServiceHolder).getService(MetricsCreator.class);
+        doReturn(iBatchDAO).when(moduleServiceHolder).getService(IBatchDAO.class);
+        PersistenceTimer.INSTANCE.isStarted = true;
+
+        PersistenceTimer.INSTANCE.start(moduleManager, moduleConfig);
+        for (int round = 1; round <= 2; round++) {
+            Whitebox.invokeMethod(PersistenceTimer.INSTANCE, "extractDataAndSaveInPipeline", iBatchDAO);
+            final int expectedRounds = round;
+            waitFor(() -> {
+                for (int i = 0; i < fastWorkCount; i++) {
+                    AtomicInteger flushed = flushedRounds.get(String.valueOf(i));
+                    if (flushed == null || flushed.get() < expectedRounds) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+        Assert.assertNull(flushedRounds.get("slow"));
+
+        // One round of the slow worker is flushing, and the other one is waiting, so the third round is skipped.
+        Whitebox.invokeMethod(PersistenceTimer.INSTANCE, "extractDataAndSaveInPipeline", iBatchDAO);
+        waitFor(() -> flushedRounds.get("0").get() == 3);
+        verify(slowWorker, times(2)).buildBatchRequests();
+
+        slowStorage.countDown();
+        waitFor(() -> flushedRounds.get("slow") != null && flushedRounds.get("slow").get() == 2);
+    }
+
+    @Test
+    public void testPrepareAfterFlushInPipeline() throws Exception {
+        CoreModuleConfig moduleConfig = new CoreModuleConfig();
+        moduleConfig.setPersistentPeriod(Integer.MAX_VALUE);
+        moduleConfig.setEnablePersistencePipeline(true);
+        CountDownLatch slowStorage = new CountDownLatch(1);
+        AtomicInteger flushedRounds = new AtomicInteger();
+        IBatchDAO iBatchDAO = new IBatchDAO() {
+            @Override
+            public void insert(InsertRequest insertRequest) {
+
+            }
+
+            @Override
+            public void flush(final List<PrepareRequest> prepareRequests) {
+                try {
+                    slowStorage.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                flushedRounds.incrementAndGet();
+            }
+        };
+        MetricsPersistentWorker worker = genWorkers("merging", 10);
+        doReturn(true).when(worker).isPrepareAfterFlush();
+        MetricsStreamProcessor.getInstance().getPersistentWorkers().add(worker);
+        ModuleManager moduleManager = mock(ModuleManager.class);
+        ModuleServiceHolder moduleServiceHolder = mock(ModuleServiceHolder.class);
+        doReturn((ModuleProviderHolder) () -> moduleServiceHolder).when(moduleManager).find(anyString());
+        doReturn(new MetricsCreatorNoop()).when(moduleServiceHolder).getService(MetricsCreator.class);
+        doReturn(iBatchDAO).when(moduleServiceHolder).getService(IBatchDAO.class);
+        PersistenceTimer.INSTANCE.isStarted = true;
+
+        PersistenceTimer.INSTANCE.start(moduleManager, moduleConfig);
+        Whitebox.invokeMethod(PersistenceTimer.INSTANCE, "extractDataAndSaveInPipeline", iBatchDAO);
+        Whitebox.invokeMethod(PersistenceTimer.INSTANCE, "extractDataAndSaveInPipeline", iBatchDAO);
+        Thread.sleep(200);
+        // The second round reads what the first round flushes, it can't be prepared before that.
+        verify(worker, times(1)).buildBatchRequests();
+
+        slowStorage.countDown();
+        waitFor(() -> flushedRounds.get() == 2);
+        verify(worker, times(2)).buildBatchRequests();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timeout", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
     private MetricsPersistentWorker genWorkers(int num, int count) {
+        return genWorkers(String.valueOf(num), count);
+    }
+
+    private MetricsPersistentWorker genWorkers(String num, int count) {
         MetricsPersistentWorker persistenceWorker = mock(MetricsPersistentWorker.class);
         doAnswer(invocation -> {
             List<MockStorageData> results = new ArrayList<>(count);
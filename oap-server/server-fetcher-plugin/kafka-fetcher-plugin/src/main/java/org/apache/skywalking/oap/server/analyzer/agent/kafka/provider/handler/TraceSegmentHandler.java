@@ -22,6 +22,7 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
 import org.apache.skywalking.oap.server.analyzer.agent.kafka.module.KafkaFetcherConfig;
 import org.apache.skywalking.oap.server.analyzer.module.AnalyzerModule;
@@ -34,10 +35,13 @@ import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 /**
- * A handler deserializes the message of the trace segment data and pushes it to downstream.
+ * A handler deserializes the message of the trace segment data and pushes it to downstream. The message is a {@link
+ * SegmentObject}, or an envelope of many segments as a {@link SegmentCollection} if its key starts with {@link
+ * #ENVELOPE_KEY_PREFIX}.
  */
 @Slf4j
 public class TraceSegmentHandler extends AbstractKafkaHandler {
+    static final String ENVELOPE_KEY_PREFIX = "envelope-";
 
     private final ISegmentParserService segmentParserService;
 
@@ -70,21 +74,31 @@ public class TraceSegmentHandler extends AbstractKafkaHandler {
     @Override
     public void handle(final ConsumerRecord<String, Bytes> record) {
         try (HistogramMetrics.Timer ignore = histogram.createTimer()) {
-            SegmentObject segment = SegmentObject.parseFrom(record.value().get());
-            if (log.isDebugEnabled()) {
-                log.debug(
-                    "Fetched a tracing segment[{}] from service instance[{}].",
-                    segment.getTraceSegmentId(),
-                    segment.getServiceInstance()
-                );
+            if (record.key() != null && record.key().startsWith(ENVELOPE_KEY_PREFIX)) {
+                SegmentCollection collection = SegmentCollection.parseFrom(record.value().get());
+                for (SegmentObject segment : collection.getSegmentsList()) {
+                    send(segment);
+                }
+            } else {
+                send(SegmentObject.parseFrom(record.value().get()));
             }
-            segmentParserService.send(segment);
         } catch (InvalidProtocolBufferException e) {
             errorCounter.inc();
             log.error("handle record failed", e);
         }
     }
 
+    private void send(SegmentObject segment) {
+        if (log.isDebugEnabled()) {
+            log.debug(
+                "Fetched a tracing segment[{}] from service instance[{}].",
+                segment.getTraceSegmentId(),
+                segment.getServiceInstance()
+            );
+        }
+        segmentParserService.send(segment);
+    }
+
     @Override
     protected String getPlainTopic() {
         return config.getTopicNameOfTracingSegments();
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.mock.MockModuleManager;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.mock.MockModuleProvider;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.module.KafkaFetcherConfig;
+import org.apache.skywalking.oap.server.analyzer.module.AnalyzerModule;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.ISegmentParserService;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TraceSegmentHandlerTest {
+    private static final String TOPIC_NAME = "skywalking-segments";
+    private final List<SegmentObject> received = new ArrayList<>();
+    private TraceSegmentHandler handler;
+
+    @Before
+    public void setup() {
+        ModuleManager manager = new MockModuleManager() {
+            @Override
+            protected void init() {
+                register(AnalyzerModule.NAME, () -> new MockModuleProvider() {
+                    @Override
+                    protected void register() {
+                        registerServiceImplementation(
+                            ISegmentParserService.class, (ISegmentParserService) received::add);
+                    }
+                });
+                register(TelemetryModule.NAME, () -> new MockModuleProvider() {
+                    @Override
+                    protected void register() {
+                        registerServiceImplementation(MetricsCreator.class, new MetricsCreatorNoop());
+                    }
+                });
+            }
+        };
+        handler = new TraceSegmentHandler(manager, new KafkaFetcherConfig());
+    }
+
+    @Test
+    public void testTopicName() {
+        Assert.assertEquals(TOPIC_NAME, handler.getTopic());
+    }
+
+    @Test
+    public void testHandleSegment() {
+        SegmentObject segment = segment(0);
+        handler.handle(new ConsumerRecord<>(
+            TOPIC_NAME, 0, 0, segment.getTraceSegmentId(), Bytes.wrap(segment.toByteArray())));
+
+        Assert.assertEquals(1, received.size());
+        Assert.assertEquals(segment, received.get(0));
+    }
+
+    @Test
+    public void testHandleEnvelope() {
+        SegmentCollection collection = SegmentCollection.newBuilder()
+                                                        .addSegments(segment(0))
+                                                        .addSegments(segment(1))
+                                                        .addSegments(segment(2))
+                                                        .build();
+        handler.handle(new ConsumerRecord<>(
+            TOPIC_NAME, 0, 0, TraceSegmentHandler.ENVELOPE_KEY_PREFIX + "segment-0",
+            Bytes.wrap(collection.toByteArray())
+        ));
+
+        Assert.assertEquals(collection.getSegmentsList(), received);
+    }
+
+    private static SegmentObject segment(int index) {
+        return SegmentObject.newBuilder()
+                            .setTraceId("trace-" + index)
+                            .setTraceSegmentId("segment-" + index)
+                            .setService("service")
+                            .setServiceInstance("instance")
+                            .build();
+    }
+}
@@ -41,6 +41,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.net.ssl.SSLContext;
 import lombok.RequiredArgsConstructor;
@@ -69,6 +70,7 @@ import org.apache.skywalking.oap.server.library.client.healthcheck.HealthCheckab
 import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
 import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
 import org.apache.skywalking.oap.server.library.util.HealthChecker;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
@@ -82,6 +84,8 @@ import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
@@ -98,6 +102,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 /**
  * ElasticSearchClient connects to the ES server by using ES client APIs.
@@ -501,6 +506,69 @@ public class ElasticSearchClient implements Client, HealthCheckable {
         }
     }
 
+    /**
+     * Get the documents of the given IDs from one concrete index through the async {@code _mget}, only the given
+     * fields are included in the sources.
+     */
+    public CompletableFuture<MultiGetResponse> multiGetAsync(String indexName, String[] ids, String[] includes) {
+        indexName = formatIndexName(indexName);
+        FetchSourceContext fetchSource = new FetchSourceContext(true, includes, null);
+        MultiGetRequest request = new MultiGetRequest();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(indexName, TYPE, id).fetchSourceContext(fetchSource));
+        }
+        CompletableFuture<MultiGetResponse> future = new CompletableFuture<>();
+        try {
+            client.multiGetAsync(request, asyncListener(future));
+        } catch (Throwable t) {
+            healthChecker.unHealth(t);
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    /**
+     * The async version of {@link #ids(String, String[])}, only the given fields are included in the sources. Different
+     * from {@code _mget}, the index name could be an alias of several indices.
+     */
+    public CompletableFuture<SearchResponse> idsAsync(String indexName, String[] ids, String[] includes) {
+        indexName = formatIndexName(indexName);
+
+        SearchRequest searchRequest = new SearchRequest(indexName);
+        searchRequest.types(TYPE);
+        searchRequest.source()
+                     .query(QueryBuilders.idsQuery().addIds(ids))
+                     .size(ids.length)
+                     .fetchSource(includes, null);
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        try {
+            client.searchAsync(searchRequest, asyncListener(future));
+        } catch (Throwable t) {
+            healthChecker.unHealth(t);
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    /**
+     * Complete the future by the response of the async request, and update the health status.
+     */
+    protected <T> ActionListener<T> asyncListener(CompletableFuture<T> future) {
+        return new ActionListener<T>() {
+            @Override
+            public void onResponse(final T response) {
+                healthChecker.health();
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(final Exception e) {
+                healthChecker.unHealth(e);
+                future.completeExceptionally(e);
+            }
+        };
+    }
+
     public void forceInsert(String indexName, String id, XContentBuilder source) throws IOException {
         IndexRequest request = (IndexRequest) prepareInsert(indexName, id, source);
         request.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
@@ -39,6 +39,10 @@ import org.slf4j.LoggerFactory;
  */
 public class JDBCHikariCPClient implements Client, HealthCheckable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JDBCHikariCPClient.class);
+    /**
+     * The default max size of the connection pool of HikariCP.
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
 
     private final HikariConfig hikariConfig;
     private final DelegatedHealthChecker healthChecker;
@@ -58,6 +62,17 @@ public class JDBCHikariCPClient implements Client, HealthCheckable {
     public void shutdown() {
     }
 
+    /**
+     * @return the max size of the connection pool. HikariCP resolves the unset size when the data source is created in
+     * {@link #connect()}, resolve it the same way before that.
+     */
+    public int getMaximumPoolSize() {
+        if (hikariConfig.getMaximumPoolSize() >= 1) {
+            return hikariConfig.getMaximumPoolSize();
+        }
+        return hikariConfig.getMinimumIdle() <= 0 ? DEFAULT_POOL_SIZE : hikariConfig.getMinimumIdle();
+    }
+
     /**
      * Default getConnection is set in auto-commit.
      */
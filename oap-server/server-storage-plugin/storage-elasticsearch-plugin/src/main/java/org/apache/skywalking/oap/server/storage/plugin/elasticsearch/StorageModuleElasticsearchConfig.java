@@ -84,6 +84,20 @@ public class StorageModuleElasticsearchConfig extends ModuleConfig {
      */
     private int flushInterval = 15;
     private int concurrentRequests = 2;
+    /**
+     * The timeout of reading the existing metrics to merge in one round of the persistence. A timeout fails the round
+     * of the metrics. Unit is ms.
+     *
+     * @since 8.7.0
+     */
+    private int multiGetTimeout = 30000;
+    /**
+     * The max number of concurrent requests of reading the existing metrics of one model, each request reads 500
+     * metrics at most.
+     *
+     * @since 8.7.0
+     */
+    private int multiGetConcurrentRequests = 4;
     /**
      * @since 7.0.0 This could be managed inside {@link #secretsManagementFile}
      */
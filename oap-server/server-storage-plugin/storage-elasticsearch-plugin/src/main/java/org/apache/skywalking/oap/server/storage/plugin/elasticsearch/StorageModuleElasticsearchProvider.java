@@ -170,7 +170,8 @@ public class StorageModuleElasticsearchProvider extends ModuleProvider {
             new BatchProcessEsDAO(elasticSearchClient, config.getBulkActions(), config
                 .getFlushInterval(), config.getConcurrentRequests())
         );
-        this.registerServiceImplementation(StorageDAO.class, new StorageEsDAO(elasticSearchClient));
+        this.registerServiceImplementation(StorageDAO.class, new StorageEsDAO(
+            elasticSearchClient, config.getMultiGetTimeout(), config.getMultiGetConcurrentRequests()));
         this.registerServiceImplementation(
             IHistoryDeleteDAO.class, new HistoryDeleteEsDAO(elasticSearchClient));
         this.registerServiceImplementation(
@@ -23,7 +23,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.analysis.DownSampling;
 import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
@@ -35,20 +40,46 @@ import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSear
 import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
 import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.IndicesMetadataCache;
-import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.joda.time.DateTime;
 
 import static java.util.stream.Collectors.groupingBy;
 
 @Slf4j
 public class MetricsEsDAO extends EsDAO implements IMetricsDAO {
+    /**
+     * The max number of IDs in one request of {@link #multiGet(Model, List)}.
+     */
+    private static final int MULTI_GET_CHUNK_SIZE = 500;
+    private static final int DEFAULT_MULTI_GET_TIMEOUT = 30000;
+    private static final int DEFAULT_MULTI_GET_CONCURRENT_REQUESTS = 4;
+
     protected final StorageHashMapBuilder<Metrics> storageBuilder;
+    private final Map<String, String[]> sourceIncludes = new ConcurrentHashMap<>();
+    /**
+     * The timeout of all requests of one {@link #multiGet(Model, List)}. Unit is ms.
+     */
+    private final int multiGetTimeout;
+    /**
+     * The max number of the chunk requests of one {@link #multiGet(Model, List)} in flight.
+     */
+    private final int multiGetConcurrentRequests;
 
     protected MetricsEsDAO(ElasticSearchClient client,
                            StorageHashMapBuilder<Metrics> storageBuilder) {
+        this(client, storageBuilder, DEFAULT_MULTI_GET_TIMEOUT, DEFAULT_MULTI_GET_CONCURRENT_REQUESTS);
+    }
+
+    protected MetricsEsDAO(ElasticSearchClient client,
+                           StorageHashMapBuilder<Metrics> storageBuilder,
+                           int multiGetTimeout,
+                           int multiGetConcurrentRequests) {
         super(client);
         this.storageBuilder = storageBuilder;
+        this.multiGetTimeout = multiGetTimeout;
+        this.multiGetConcurrentRequests = Math.max(1, multiGetConcurrentRequests);
     }
 
     @Override
@@ -84,24 +115,109 @@ public class MetricsEsDAO extends EsDAO implements IMetricsDAO {
                      );
 
         // The groupIndices mostly include one or two group,
-        // the current day and the T-1 day(if at the edge between days)
+        // the current day and the T-1 day(if at the edge between days).
+        // Every group is split into chunks, at most multiGetConcurrentRequests requests of the chunks are in flight.
+        // A failed chunk or a timeout fails the whole multiGet, rather than treating the unread metrics as new ones.
+        final long deadline = System.currentTimeMillis() + multiGetTimeout;
+        final Semaphore inFlight = new Semaphore(multiGetConcurrentRequests);
+        final String aliasName = IndexController.INSTANCE.getTableName(model);
+        final String[] includes = sourceIncludes(model);
+        List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>();
+        for (Map.Entry<String, List<Metrics>> group : groupIndices.entrySet()) {
+            final String tableName = group.getKey();
+            final List<Metrics> metricList = group.getValue();
+            for (int from = 0; from < metricList.size(); from += MULTI_GET_CHUNK_SIZE) {
+                String[] ids = metricList.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, metricList.size()))
+                                         .stream()
+                                         .map(item -> IndexController.INSTANCE.generateDocId(model, item.id()))
+                                         .toArray(String[]::new);
+                try {
+                    if (!inFlight.tryAcquire(remainingMillis(deadline), TimeUnit.MILLISECONDS)) {
+                        throw new IOException("multiGet from " + tableName + " timeout, " + multiGetTimeout + "ms");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("multiGet from " + tableName + " is interrupted.", e);
+                }
+                // _mget can't read through an alias of several indices, use the ids search instead.
+                CompletableFuture<List<Map<String, Object>>> future = tableName.equals(aliasName)
+                    ? searchByIds(tableName, ids, includes)
+                    : multiGet(tableName, ids, includes);
+                futures.add(future.whenComplete((sources, t) -> {
+                    inFlight.release();
+                    if (t != null) {
+                        log.error("multiGet id=" + Arrays.toString(ids) + " from " + tableName + " fails.", t);
+                    }
+                }));
+            }
+        }
+
         List<Metrics> result = new ArrayList<>(metrics.size());
-        groupIndices.forEach((tableName, metricList) -> {
-            String[] ids = metricList.stream()
-                                     .map(item -> IndexController.INSTANCE.generateDocId(model, item.id()))
-                                     .toArray(String[]::new);
+        for (CompletableFuture<List<Map<String, Object>>> future : futures) {
+            final List<Map<String, Object>> sources;
             try {
-                SearchResponse response = getClient().ids(tableName, ids);
-                for (int i = 0; i < response.getHits().getHits().length; i++) {
-                    Metrics source = storageBuilder.storage2Entity(response.getHits().getAt(i).getSourceAsMap());
-                    result.add(source);
+                sources = future.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new IOException("multiGet of " + model.getName() + " timeout, " + multiGetTimeout + "ms", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("multiGet of " + model.getName() + " is interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IOException("multiGet of " + model.getName() + " fails.", e.getCause());
+            }
+            for (Map<String, Object> source : sources) {
+                result.add(storageBuilder.storage2Entity(source));
+            }
+        }
+        return result;
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> multiGet(String indexName, String[] ids, String[] includes) {
+        return getClient().multiGetAsync(indexName, ids, includes).thenCompose(response -> {
+            List<Map<String, Object>> sources = new ArrayList<>(ids.length);
+            List<String> failedIds = new ArrayList<>();
+            for (MultiGetItemResponse item : response.getResponses()) {
+                if (item.isFailed()) {
+                    failedIds.add(item.getId());
+                } else if (item.getResponse().isExists()) {
+                    sources.add(item.getResponse().getSourceAsMap());
                 }
-            } catch (IOException e) {
-                log.error("multiGet id=" + Arrays.toString(ids) + " from " + tableName + " fails.", e);
             }
+            if (failedIds.isEmpty()) {
+                return CompletableFuture.completedFuture(sources);
+            }
+            // Retry the failed items through the ids search, which the multiGet used before.
+            return searchByIds(indexName, failedIds.toArray(new String[0]), includes).thenApply(found -> {
+                sources.addAll(found);
+                return sources;
+            });
         });
+    }
 
-        return result;
+    private CompletableFuture<List<Map<String, Object>>> searchByIds(String indexName,
+                                                                    String[] ids,
+                                                                    String[] includes) {
+        return getClient().idsAsync(indexName, ids, includes).thenApply(response -> {
+            List<Map<String, Object>> sources = new ArrayList<>(response.getHits().getHits().length);
+            for (SearchHit hit : response.getHits().getHits()) {
+                sources.add(hit.getSourceAsMap());
+            }
+            return sources;
+        });
+    }
+
+    /**
+     * Only the columns of the model are required to build the metrics, the others are filtered out of the sources.
+     */
+    private String[] sourceIncludes(Model model) {
+        return sourceIncludes.computeIfAbsent(
+            model.getName(),
+            name -> model.getColumns().stream().map(column -> column.getColumnName().getName()).toArray(String[]::new)
+        );
     }
 
     @Override
@@ -32,14 +32,19 @@ import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
 
 public class StorageEsDAO extends EsDAO implements StorageDAO {
+    private final int multiGetTimeout;
+    private final int multiGetConcurrentRequests;
 
-    public StorageEsDAO(ElasticSearchClient client) {
+    public StorageEsDAO(ElasticSearchClient client, int multiGetTimeout, int multiGetConcurrentRequests) {
         super(client);
+        this.multiGetTimeout = multiGetTimeout;
+        this.multiGetConcurrentRequests = multiGetConcurrentRequests;
     }
 
     @Override
     public IMetricsDAO newMetricsDao(StorageBuilder storageBuilder) {
-        return new MetricsEsDAO(getClient(), (StorageHashMapBuilder<Metrics>) storageBuilder);
+        return new MetricsEsDAO(
+            getClient(), (StorageHashMapBuilder<Metrics>) storageBuilder, multiGetTimeout, multiGetConcurrentRequests);
     }
 
     @Override
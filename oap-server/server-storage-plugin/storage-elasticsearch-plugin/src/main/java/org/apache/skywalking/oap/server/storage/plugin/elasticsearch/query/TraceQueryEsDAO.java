@@ -162,9 +162,22 @@ public class TraceQueryEsDAO extends EsDAO implements ITraceQueryDAO {
     // 通过traceId查询,默认segment=200个
     @Override
     public List<SegmentRecord> queryByTraceId(String traceId) throws IOException {
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
         // traceId精确匹配
-        sourceBuilder.query(QueryBuilders.termQuery(SegmentRecord.TRACE_ID, traceId));
+        return querySegments(QueryBuilders.termQuery(SegmentRecord.TRACE_ID, traceId));
+    }
+
+    @Override
+    public List<SegmentRecord> queryByTraceId(String traceId, long startTime, long endTime) throws IOException {
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+        boolQueryBuilder.must().add(QueryBuilders.termQuery(SegmentRecord.TRACE_ID, traceId));
+        boolQueryBuilder.must().add(QueryBuilders.rangeQuery(SegmentRecord.END_TIME).gte(startTime));
+        boolQueryBuilder.must().add(QueryBuilders.rangeQuery(SegmentRecord.START_TIME).lte(endTime));
+        return querySegments(boolQueryBuilder);
+    }
+
+    private List<SegmentRecord> querySegments(QueryBuilder queryBuilder) throws IOException {
+        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
+        sourceBuilder.query(queryBuilder);
         // 默认segment=200个
         sourceBuilder.size(segmentQueryMaxSize);
 
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.apache.skywalking.oap.server.core.analysis.DownSampling;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.storage.StorageHashMapBuilder;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
+import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.IndicesMetadataCache;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetricsEsDAOTest {
+    private static final long TIME_BUCKET = 202110171230L;
+    private static final String FAILED_ID = "m0007";
+
+    private ElasticSearchClient client;
+    private MetricsEsDAO dao;
+
+    @Before
+    public void setUp() {
+        client = mock(ElasticSearchClient.class);
+        when(client.formatIndexName(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(client.multiGetAsync(anyString(), any(), any())).thenAnswer(invocation -> {
+            String[] ids = invocation.getArgument(1);
+            MultiGetItemResponse[] items = new MultiGetItemResponse[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                MultiGetItemResponse item = mock(MultiGetItemResponse.class);
+                when(item.getId()).thenReturn(ids[i]);
+                if (FAILED_ID.equals(ids[i])) {
+                    when(item.isFailed()).thenReturn(true);
+                } else {
+                    GetResponse getResponse = mock(GetResponse.class);
+                    when(getResponse.isExists()).thenReturn(true);
+                    when(getResponse.getSourceAsMap()).thenReturn(Collections.singletonMap("id", ids[i]));
+                    when(item.getResponse()).thenReturn(getResponse);
+                }
+                items[i] = item;
+            }
+            return CompletableFuture.completedFuture(new MultiGetResponse(items));
+        });
+        when(client.idsAsync(anyString(), any(), any())).thenAnswer(MetricsEsDAOTest::searchByIds);
+        dao = new MetricsEsDAO(client, new MockStorageBuilder());
+    }
+
+    @Test
+    public void testMultiGetInChunks() throws IOException {
+        Model model = model(true);
+        IndicesMetadataCache.INSTANCE.update(
+            Collections.singletonList(TimeSeriesUtils.writeIndexName(model, TIME_BUCKET)));
+
+        List<Metrics> metrics = mockMetricsList(1200);
+        Set<String> ids = idSet(dao.multiGet(model, metrics));
+
+        Assert.assertEquals(idSet(metrics), ids);
+        verify(client, times(3)).multiGetAsync(
+            eq(TimeSeriesUtils.writeIndexName(model, TIME_BUCKET)), any(), eq(new String[] {"id"}));
+        // The failed item is read again through the ids search.
+        verify(client, times(1)).idsAsync(anyString(), eq(new String[] {FAILED_ID}), any());
+    }
+
+    @Test
+    public void testSearchAlias() throws IOException {
+        Model model = model(false);
+        List<Metrics> metrics = mockMetricsList(600);
+
+        Set<String> ids = idSet(dao.multiGet(model, metrics));
+
+        verify(client, never()).multiGetAsync(anyString(), any(), any());
+        verify(client, times(2)).idsAsync(eq(IndexController.INSTANCE.getTableName(model)), any(), any());
+        Assert.assertEquals(idSet(metrics), ids);
+    }
+
+    @Test
+    public void testFailedChunkFails() {
+        Model model = model(false);
+        List<Metrics> metrics = mockMetricsList(600);
+        CompletableFuture<SearchResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException("mock failure"));
+        doReturn(failed).doAnswer(MetricsEsDAOTest::searchByIds).when(client).idsAsync(anyString(), any(), any());
+
+        try {
+            dao.multiGet(model, metrics);
+            Assert.fail("The multiGet should fail, rather than treating the unread metrics as new ones.");
+        } catch (IOException e) {
+            Assert.assertEquals("mock failure", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testBoundedConcurrentRequests() throws IOException {
+        Model model = model(false);
+        List<Metrics> metrics = mockMetricsList(3000);
+        List<CompletableFuture<SearchResponse>> pending = new ArrayList<>();
+        doAnswer(invocation -> {
+            CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }).when(client).idsAsync(anyString(), any(), any());
+        MetricsEsDAO boundedDao = new MetricsEsDAO(client, new MockStorageBuilder(), 200, 2);
+
+        try {
+            boundedDao.multiGet(model, metrics);
+            Assert.fail("The multiGet should timeout.");
+        } catch (IOException e) {
+            // The requests of 6 chunks never complete, only 2 of them are sent.
+            Assert.assertEquals(2, pending.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTimeoutFails() throws IOException {
+        Model model = model(false);
+        doReturn(new CompletableFuture<>()).when(client).idsAsync(anyString(), any(), any());
+        MetricsEsDAO timeoutDao = new MetricsEsDAO(client, new MockStorageBuilder(), 100, 4);
+
+        timeoutDao.multiGet(model, mockMetricsList(10));
+    }
+
+    private static CompletableFuture<SearchResponse> searchByIds(InvocationOnMock invocation) {
+        String[] ids = invocation.getArgument(1);
+        SearchHit[] hits = new SearchHit[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            hits[i] = new SearchHit(i).sourceRef(new BytesArray("{\"id\":\"" + ids[i] + "\"}"));
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, hits.length, 0));
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static Model model(boolean timeRelativeID) {
+        List<ModelColumn> columns = new ArrayList<>();
+        columns.add(new ModelColumn(
+            new ColumnName("test_metrics", "id"), String.class, String.class, false, false, false, 0, null));
+        return new Model("test_metrics", columns, Collections.emptyList(), 0, DownSampling.Minute, false, false,
+                         null, timeRelativeID
+        );
+    }
+
+    private static List<Metrics> mockMetricsList(int size) {
+        List<Metrics> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            metrics.add(mockMetrics(String.format("m%04d", i)));
+        }
+        return metrics;
+    }
+
+    private static Metrics mockMetrics(String id) {
+        Metrics metrics = mock(Metrics.class);
+        when(metrics.id()).thenReturn(id);
+        when(metrics.getTimeBucket()).thenReturn(TIME_BUCKET);
+        return metrics;
+    }
+
+    private static Set<String> idSet(List<Metrics> metrics) {
+        Set<String> ids = new HashSet<>();
+        metrics.forEach(m -> ids.add(m.id()));
+        return ids;
+    }
+
+    private static class MockStorageBuilder implements StorageHashMapBuilder<Metrics> {
+        @Override
+        public Metrics storage2Entity(final Map<String, Object> dbMap) {
+            return mockMetrics((String) dbMap.get("id"));
+        }
+
+        @Override
+        public Map<String, Object> entity2Storage(final Metrics storageData) {
+            return new HashMap<>();
+        }
+    }
+}
@@ -169,7 +169,8 @@ public class StorageModuleElasticsearch7Provider extends ModuleProvider {
                 elasticSearch7Client, config.getBulkActions(), config.getFlushInterval(), config.getConcurrentRequests()
             )
         );
-        this.registerServiceImplementation(StorageDAO.class, new StorageEs7DAO(elasticSearch7Client));
+        this.registerServiceImplementation(StorageDAO.class, new StorageEs7DAO(
+            elasticSearch7Client, config.getMultiGetTimeout(), config.getMultiGetConcurrentRequests()));
         this.registerServiceImplementation(
             IHistoryDeleteDAO.class, new HistoryDeleteEsDAO(elasticSearch7Client));
         this.registerServiceImplementation(
@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
@@ -53,6 +54,8 @@ import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
@@ -77,6 +80,7 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryRequest;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 @Slf4j
 public class ElasticSearch7Client extends ElasticSearchClient {
@@ -339,6 +343,43 @@ public class ElasticSearch7Client extends ElasticSearchClient {
         }
     }
 
+    @Override
+    public CompletableFuture<MultiGetResponse> multiGetAsync(String indexName, String[] ids, String[] includes) {
+        indexName = formatIndexName(indexName);
+        FetchSourceContext fetchSource = new FetchSourceContext(true, includes, null);
+        MultiGetRequest request = new MultiGetRequest();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(indexName, id).fetchSourceContext(fetchSource));
+        }
+        CompletableFuture<MultiGetResponse> future = new CompletableFuture<>();
+        try {
+            client.multiGetAsync(request, RequestOptions.DEFAULT, asyncListener(future));
+        } catch (Throwable t) {
+            healthChecker.unHealth(t);
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<SearchResponse> idsAsync(String indexName, String[] ids, String[] includes) {
+        indexName = formatIndexName(indexName);
+
+        SearchRequest searchRequest = new SearchRequest(indexName);
+        searchRequest.source()
+                     .query(QueryBuilders.idsQuery().addIds(ids))
+                     .size(ids.length)
+                     .fetchSource(includes, null);
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        try {
+            client.searchAsync(searchRequest, RequestOptions.DEFAULT, asyncListener(future));
+        } catch (Throwable t) {
+            healthChecker.unHealth(t);
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
     @Override
     public void forceInsert(String indexName, String id, XContentBuilder source) throws IOException {
         IndexRequest request = (IndexRequest) prepareInsert(indexName, id, source);
@@ -25,7 +25,8 @@ import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.Metric
 
 public class MetricsEs7DAO extends MetricsEsDAO {
 
-    MetricsEs7DAO(ElasticSearchClient client, StorageHashMapBuilder<Metrics> storageBuilder) {
-        super(client, storageBuilder);
+    MetricsEs7DAO(ElasticSearchClient client, StorageHashMapBuilder<Metrics> storageBuilder, int multiGetTimeout,
+                  int multiGetConcurrentRequests) {
+        super(client, storageBuilder, multiGetTimeout, multiGetConcurrentRequests);
     }
 }
@@ -36,14 +36,19 @@ import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.NoneSt
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.RecordEsDAO;
 
 public class StorageEs7DAO extends EsDAO implements StorageDAO {
+    private final int multiGetTimeout;
+    private final int multiGetConcurrentRequests;
 
-    public StorageEs7DAO(ElasticSearchClient client) {
+    public StorageEs7DAO(ElasticSearchClient client, int multiGetTimeout, int multiGetConcurrentRequests) {
         super(client);
+        this.multiGetTimeout = multiGetTimeout;
+        this.multiGetConcurrentRequests = multiGetConcurrentRequests;
     }
 
     @Override
     public IMetricsDAO newMetricsDao(StorageBuilder storageBuilder) {
-        return new MetricsEs7DAO(getClient(), (StorageHashMapBuilder<Metrics>) storageBuilder);
+        return new MetricsEs7DAO(
+            getClient(), (StorageHashMapBuilder<Metrics>) storageBuilder, multiGetTimeout, multiGetConcurrentRequests);
     }
 
     @Override
@@ -34,24 +34,46 @@ public class SQLExecutor implements InsertRequest, UpdateRequest {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SQLExecutor.class);
 
+    private String tableName;
     private String sql;
     private List<Object> param;
 
-    public SQLExecutor(String sql, List<Object> param) {
+    public SQLExecutor(String tableName, String sql, List<Object> param) {
+        this.tableName = tableName;
         this.sql = sql;
         this.param = param;
     }
 
     public void invoke(Connection connection) throws SQLException {
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            setParameters(preparedStatement);
 
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("execute sql in batch: {}, parameters: {}", sql, param);
+            }
+            preparedStatement.execute();
+        }
+    }
+
+    /**
+     * Bind the parameters to the statement prepared by {@link #getSql()}, for executing in the JDBC batch.
+     */
+    public void setParameters(PreparedStatement preparedStatement) throws SQLException {
         for (int i = 0; i < param.size(); i++) {
             preparedStatement.setObject(i + 1, param.get(i));
         }
+    }
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("execute sql in batch: {}, parameters: {}", sql, param);
-        }
-        preparedStatement.execute();
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public String toString() {
+        return "sql: " + sql + ", parameters: " + param;
     }
 }
@@ -59,4 +59,17 @@ public class H2StorageConfig extends ModuleConfig {
      * @since 8.2.0
      */
     private int numOfSearchableValuesPerTag = 2;
+    /**
+     * The max num of SQL statements sent in one JDBC batch, when the persistence round is flushed into the database.
+     *
+     * @since 8.7.0
+     */
+    private int maxSizeOfBatchSql = 100;
+    /**
+     * The num of threads flushing the asynchronous inserts of the records. The records are partitioned by table, and
+     * every thread holds a connection during the flush, so it is limited by the max size of the connection pool.
+     *
+     * @since 8.7.0
+     */
+    private int asyncBatchPersistentPoolSize = 4;
 }
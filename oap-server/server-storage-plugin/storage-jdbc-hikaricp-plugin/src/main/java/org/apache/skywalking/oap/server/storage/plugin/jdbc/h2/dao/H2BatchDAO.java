@@ -19,14 +19,17 @@
 package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
-import org.apache.skywalking.apm.commons.datacarrier.consumer.BulkConsumePool;
-import org.apache.skywalking.apm.commons.datacarrier.consumer.ConsumerPoolFactory;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
-import org.apache.skywalking.oap.server.core.UnexpectedException;
+import org.apache.skywalking.apm.commons.datacarrier.partition.IDataPartitioner;
 import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
 import org.apache.skywalking.oap.server.library.client.jdbc.JDBCClientException;
 import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
@@ -34,25 +37,53 @@ import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
 import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
-
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+
+/**
+ * Execute the SQL statements of a persistence round through JDBC batches. The statements are grouped by the SQL, which
+ * includes the table and the columns, so every group is prepared once and sent in the batches of {@link
+ * #maxSizeOfBatchSql} statements, rather than one round trip per statement. Every batch is committed as a transaction.
+ * <p>
+ * A failure doesn't stop the rest of the round, the failed batch is rolled back and executed one by one, so only the
+ * broken statements are lost.
+ * <p>
+ * The asynchronous inserts of the records are partitioned by table, and flushed by {@link #asyncBatchPersistentPoolSize}
+ * threads in parallel, each of which holds its own connection during the flush.
+ */
 @Slf4j
 public class H2BatchDAO implements IBatchDAO {
     private JDBCHikariCPClient h2Client;
     private final DataCarrier<PrepareRequest> dataCarrier;
+    private final int maxSizeOfBatchSql;
+    private final int asyncBatchPersistentPoolSize;
+    private volatile MetricsCreator metricsCreator = new MetricsCreatorNoop();
+    private final Map<String, TableMetrics> tableMetrics = new ConcurrentHashMap<>();
 
-    public H2BatchDAO(JDBCHikariCPClient h2Client) {
+    public H2BatchDAO(JDBCHikariCPClient h2Client, int maxSizeOfBatchSql, int asyncBatchPersistentPoolSize) {
         this.h2Client = h2Client;
+        this.maxSizeOfBatchSql = Math.max(1, maxSizeOfBatchSql);
+        // Every consumer thread holds a connection during the flush, don't exhaust the connection pool.
+        this.asyncBatchPersistentPoolSize = Math.max(
+            1, Math.min(asyncBatchPersistentPoolSize, h2Client.getMaximumPoolSize()));
+
+        // A consumer pool assigns all channels of a carrier to one thread, so every channel gets its own thread.
+        this.dataCarrier = new DataCarrier<>(
+            "H2_ASYNCHRONOUS_BATCH_PERSISTENT", this.asyncBatchPersistentPoolSize, 10000);
+        this.dataCarrier.setPartitioner(new TablePartitioner());
+        this.dataCarrier.consume(new H2BatchDAO.H2BatchConsumer(this), this.asyncBatchPersistentPoolSize, 20);
+    }
 
-        String name = "H2_ASYNCHRONOUS_BATCH_PERSISTENT";
-        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, 1, 20);
-        try {
-            ConsumerPoolFactory.INSTANCE.createIfAbsent(name, creator);
-        } catch (Exception e) {
-            throw new UnexpectedException(e.getMessage(), e);
-        }
-
-        this.dataCarrier = new DataCarrier<>(1, 10000);
-        this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(name), new H2BatchDAO.H2BatchConsumer(this));
+    /**
+     * Create the metrics of the flushed rows and the flush latency per table through the telemetry module. Before
+     * this, the no-op metrics are used.
+     */
+    public void initMetrics(MetricsCreator metricsCreator) {
+        this.metricsCreator = metricsCreator;
+        tableMetrics.clear();
     }
 
     @Override
@@ -65,18 +96,90 @@ public class H2BatchDAO implements IBatchDAO {
             log.debug("batch sql statements execute, data size: {}", prepareRequests.size());
         }
 
-        try (Connection connection = h2Client.getConnection()) {
-            for (PrepareRequest prepareRequest : prepareRequests) {
+        try (Connection connection = h2Client.getTransactionConnection()) {
+            for (List<SQLExecutor> executors : groupBySql(prepareRequests).values()) {
+                executeBatch(connection, executors);
+            }
+        } catch (SQLException | JDBCClientException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Group the executors by the SQL, keep the order of the first appearance of every SQL and the order of the
+     * executors in every group.
+     */
+    private static Map<String, List<SQLExecutor>> groupBySql(List<PrepareRequest> prepareRequests) {
+        Map<String, List<SQLExecutor>> groups = new LinkedHashMap<>();
+        for (PrepareRequest prepareRequest : prepareRequests) {
+            SQLExecutor sqlExecutor = (SQLExecutor) prepareRequest;
+            groups.computeIfAbsent(sqlExecutor.getSql(), sql -> new ArrayList<>()).add(sqlExecutor);
+        }
+        return groups;
+    }
+
+    private void executeBatch(Connection connection, List<SQLExecutor> executors) {
+        final SQLExecutor first = executors.get(0);
+        final TableMetrics metrics = tableMetrics.computeIfAbsent(first.getTableName(), TableMetrics::new);
+        try (HistogramMetrics.Timer timer = metrics.latency.createTimer();
+             PreparedStatement preparedStatement = connection.prepareStatement(first.getSql())) {
+            for (int from = 0; from < executors.size(); from += maxSizeOfBatchSql) {
+                List<SQLExecutor> batch = executors.subList(from, Math.min(from + maxSizeOfBatchSql, executors.size()));
                 try {
-                    SQLExecutor sqlExecutor = (SQLExecutor) prepareRequest;
-                    sqlExecutor.invoke(connection);
+                    for (SQLExecutor sqlExecutor : batch) {
+                        sqlExecutor.setParameters(preparedStatement);
+                        preparedStatement.addBatch();
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("execute sql in batch: {}, size: {}", first.getSql(), batch.size());
+                    }
+                    preparedStatement.executeBatch();
+                    connection.commit();
+                    metrics.rows.inc(batch.size());
                 } catch (SQLException e) {
-                    // Just avoid one execution failure makes the rest of batch failure.
-                    log.error(e.getMessage(), e);
+                    clearBatch(preparedStatement);
+                    rollback(connection);
+                    log.warn("Failed to execute the batch of {} statements, execute them one by one. {}",
+                             batch.size(), e.getMessage()
+                    );
+                    executeOneByOne(connection, batch, metrics);
                 }
             }
-        } catch (SQLException | JDBCClientException e) {
-            log.error(e.getMessage(), e);
+        } catch (SQLException e) {
+            // All statements of the group share the SQL, which can't be prepared.
+            log.error("Failed to prepare {}, {} statements are dropped", first.getSql(), executors.size(), e);
+            metrics.errors.inc(executors.size());
+        }
+    }
+
+    private void executeOneByOne(Connection connection, List<SQLExecutor> executors, TableMetrics metrics) {
+        for (SQLExecutor sqlExecutor : executors) {
+            try {
+                sqlExecutor.invoke(connection);
+                connection.commit();
+                metrics.rows.inc();
+            } catch (SQLException e) {
+                // Just avoid one execution failure makes the rest of batch failure.
+                log.error(e.getMessage(), e);
+                rollback(connection);
+                metrics.errors.inc();
+            }
+        }
+    }
+
+    private static void clearBatch(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.clearBatch();
+        } catch (SQLException e) {
+            log.warn("Failed to clear the batch. {}", e.getMessage());
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Failed to rollback. {}", e.getMessage());
         }
     }
 
@@ -85,6 +188,42 @@ public class H2BatchDAO implements IBatchDAO {
         this.dataCarrier.produce(insertRequest);
     }
 
+    /**
+     * The flush metrics of one table.
+     */
+    private class TableMetrics {
+        private final CounterMetrics rows;
+        private final CounterMetrics errors;
+        private final HistogramMetrics latency;
+
+        private TableMetrics(String tableName) {
+            final MetricsTag.Keys keys = new MetricsTag.Keys("table");
+            final MetricsTag.Values values = new MetricsTag.Values(tableName);
+            rows = metricsCreator.createCounter(
+                "jdbc_batch_flushed_rows", "The number of rows flushed into the table", keys, values);
+            errors = metricsCreator.createCounter(
+                "jdbc_batch_flush_error_rows", "The number of rows failed to flush into the table", keys, values);
+            latency = metricsCreator.createHistogramMetric(
+                "jdbc_batch_flush_latency", "Latency of flushing the rows of a round into the table", keys, values);
+        }
+    }
+
+    /**
+     * Keep the records of one table in the same channel, so they are flushed in the same batches, while the tables
+     * are flushed in parallel.
+     */
+    private static class TablePartitioner implements IDataPartitioner<PrepareRequest> {
+        @Override
+        public int partition(int total, PrepareRequest data) {
+            return Math.abs(((SQLExecutor) data).getTableName().hashCode() % total);
+        }
+
+        @Override
+        public int maxRetryCount() {
+            return 1;
+        }
+    }
+
     private class H2BatchConsumer implements IConsumer<PrepareRequest> {
 
         private final H2BatchDAO h2BatchDAO;
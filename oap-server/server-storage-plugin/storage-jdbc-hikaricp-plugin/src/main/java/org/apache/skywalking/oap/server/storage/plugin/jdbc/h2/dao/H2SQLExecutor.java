@@ -145,7 +145,7 @@ public class H2SQLExecutor {
         }
         sqlBuilder.append(")");
 
-        return new SQLExecutor(sqlBuilder.toString(), param);
+        return new SQLExecutor(modelName, sqlBuilder.toString(), param);
     }
 
     protected <T extends StorageData> SQLExecutor getUpdateExecutor(String modelName, T metrics,
@@ -172,6 +172,6 @@ public class H2SQLExecutor {
         sqlBuilder.append(" WHERE id = ?");
         param.add(metrics.id());
 
-        return new SQLExecutor(sqlBuilder.toString(), param);
+        return new SQLExecutor(modelName, sqlBuilder.toString(), param);
     }
 }
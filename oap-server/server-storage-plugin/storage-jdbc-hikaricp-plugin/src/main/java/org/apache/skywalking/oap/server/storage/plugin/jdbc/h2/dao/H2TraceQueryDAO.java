@@ -215,6 +215,17 @@ public class H2TraceQueryDAO implements ITraceQueryDAO {
 
     @Override
     public List<SegmentRecord> queryByTraceId(String traceId) throws IOException {
+        return querySegments(" where " + SegmentRecord.TRACE_ID + " = ?", traceId);
+    }
+
+    @Override
+    public List<SegmentRecord> queryByTraceId(String traceId, long startTime, long endTime) throws IOException {
+        return querySegments(
+            " where " + SegmentRecord.TRACE_ID + " = ? and " + SegmentRecord.END_TIME + " >= ? and "
+                + SegmentRecord.START_TIME + " <= ?", traceId, startTime, endTime);
+    }
+
+    private List<SegmentRecord> querySegments(String where, Object... parameters) throws IOException {
         List<SegmentRecord> segmentRecords = new ArrayList<>();
         try (Connection connection = h2Client.getConnection()) {
 
@@ -230,7 +241,7 @@ public class H2TraceQueryDAO implements ITraceQueryDAO {
                             SegmentRecord.IS_ERROR + ", " +
                             SegmentRecord.DATA_BINARY + ", " +
                             SegmentRecord.VERSION +  " from " +
-                            SegmentRecord.INDEX_NAME + " where " + SegmentRecord.TRACE_ID + " = ?", traceId
+                            SegmentRecord.INDEX_NAME + where, parameters
             )) {
                 while (resultSet.next()) {
                     SegmentRecord segmentRecord = new SegmentRecord();
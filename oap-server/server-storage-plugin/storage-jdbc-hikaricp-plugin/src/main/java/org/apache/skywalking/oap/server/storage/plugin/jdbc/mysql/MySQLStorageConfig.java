@@ -39,5 +39,17 @@ public class MySQLStorageConfig extends ModuleConfig {
      * @since 8.2.0
      */
     private int numOfSearchableValuesPerTag = 2;
+    /**
+     * Inherit from {@link org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.H2StorageConfig#getMaxSizeOfBatchSql()}
+     *
+     * @since 8.7.0
+     */
+    private int maxSizeOfBatchSql = 100;
+    /**
+     * Inherit from {@link org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.H2StorageConfig#getAsyncBatchPersistentPoolSize()}
+     *
+     * @since 8.7.0
+     */
+    private int asyncBatchPersistentPoolSize = 4;
     private Properties properties;
 }
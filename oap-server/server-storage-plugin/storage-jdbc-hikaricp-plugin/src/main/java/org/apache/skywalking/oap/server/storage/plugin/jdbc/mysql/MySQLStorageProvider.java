@@ -63,6 +63,8 @@ import org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao.H2StorageDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao.H2TopNRecordsQueryDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao.H2TopologyQueryDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao.H2UITemplateManagementDAO;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 /**
  * MySQL storage provider should be secondary choice for production usage as SkyWalking storage solution. It enhanced
@@ -77,6 +79,7 @@ public class MySQLStorageProvider extends ModuleProvider {
 
     private MySQLStorageConfig config;
     private JDBCHikariCPClient mysqlClient;
+    private H2BatchDAO batchDAO;
 
     public MySQLStorageProvider() {
         config = new MySQLStorageConfig();
@@ -103,7 +106,9 @@ public class MySQLStorageProvider extends ModuleProvider {
 
         mysqlClient = new JDBCHikariCPClient(config.getProperties());
 
-        this.registerServiceImplementation(IBatchDAO.class, new H2BatchDAO(mysqlClient));
+        batchDAO = new H2BatchDAO(
+            mysqlClient, config.getMaxSizeOfBatchSql(), config.getAsyncBatchPersistentPoolSize());
+        this.registerServiceImplementation(IBatchDAO.class, batchDAO);
         this.registerServiceImplementation(
             StorageDAO.class,
             new H2StorageDAO(
@@ -181,6 +186,11 @@ public class MySQLStorageProvider extends ModuleProvider {
                     + "]. Potential out of bound in the runtime.");
         }
 
+        MetricsCreator metricCreator = getManager().find(TelemetryModule.NAME)
+                                                   .provider()
+                                                   .getService(MetricsCreator.class);
+        batchDAO.initMetrics(metricCreator);
+
         try {
             mysqlClient.connect();
 
@@ -69,6 +69,8 @@ import org.apache.skywalking.oap.server.storage.plugin.jdbc.postgresql.dao.Postg
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.postgresql.dao.PostgreSQLLogQueryDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.postgresql.dao.PostgreSQLMetricsQueryDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.postgresql.dao.PostgreSQLTraceQueryDAO;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 /**
  * PostgreSQL storage enhanced and came from MySQLStorageProvider to support PostgreSQL.
@@ -77,6 +79,7 @@ import org.apache.skywalking.oap.server.storage.plugin.jdbc.postgresql.dao.Postg
 public class PostgreSQLStorageProvider extends ModuleProvider {
     private PostgreSQLStorageConfig config;
     private JDBCHikariCPClient postgresqlClient;
+    private H2BatchDAO batchDAO;
 
     public PostgreSQLStorageProvider() {
         config = new PostgreSQLStorageConfig();
@@ -103,7 +106,9 @@ public class PostgreSQLStorageProvider extends ModuleProvider {
 
         postgresqlClient = new JDBCHikariCPClient(config.getProperties());
 
-        this.registerServiceImplementation(IBatchDAO.class, new H2BatchDAO(postgresqlClient));
+        batchDAO = new H2BatchDAO(
+            postgresqlClient, config.getMaxSizeOfBatchSql(), config.getAsyncBatchPersistentPoolSize());
+        this.registerServiceImplementation(IBatchDAO.class, batchDAO);
         this.registerServiceImplementation(
                 StorageDAO.class,
                 new H2StorageDAO(
@@ -181,6 +186,11 @@ public class PostgreSQLStorageProvider extends ModuleProvider {
                     + "]. Potential out of bound in the runtime.");
         }
 
+        MetricsCreator metricCreator = getManager().find(TelemetryModule.NAME)
+                                                   .provider()
+                                                   .getService(MetricsCreator.class);
+        batchDAO.initMetrics(metricCreator);
+
         try {
             postgresqlClient.connect();
 
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
+import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
+import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the throughput of {@link H2BatchDAO#flush(List)} against executing the same statements one by one, on an
+ * embedded H2 database. Every invocation inserts {@link #ROWS} rows into an empty table. The score is the average time
+ * per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class H2BatchDAOBenchmark {
+    private static final int ROWS = 10000;
+
+    private JDBCHikariCPClient client;
+    private H2BatchDAO batchDAO;
+    private List<PrepareRequest> requests;
+
+    @Setup
+    public void setup() throws Exception {
+        client = H2BatchDAOTest.newClient("h2-batch-dao-benchmark");
+        batchDAO = new H2BatchDAO(client, 100, 1);
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new SQLExecutor(H2BatchDAOTest.TABLE, H2BatchDAOTest.INSERT_SQL, Arrays.asList("id-" + i, (long) i)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws Exception {
+        try (Connection connection = client.getConnection()) {
+            client.execute(connection, "TRUNCATE TABLE batch_test");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void flushInBatches() {
+        batchDAO.flush(requests);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void executeOneByOne() throws Exception {
+        try (Connection connection = client.getConnection()) {
+            for (PrepareRequest request : requests) {
+                try {
+                    ((SQLExecutor) request).invoke(connection);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder().include(H2BatchDAOBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
+import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
+import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class H2BatchDAOTest {
+    static final String TABLE = "batch_test";
+    static final String INSERT_SQL = "INSERT INTO batch_test VALUES(?,?)";
+    static final String UPDATE_SQL = "UPDATE batch_test SET value= ? WHERE id = ?";
+
+    private JDBCHikariCPClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = newClient("h2-batch-dao-test");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Connection connection = client.getConnection()) {
+            client.execute(connection, "DROP TABLE batch_test");
+        }
+    }
+
+    @Test
+    public void testFlushInBatches() throws Exception {
+        final H2BatchDAO batchDAO = new H2BatchDAO(client, 100, 1);
+        List<PrepareRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            requests.add(new SQLExecutor(TABLE, INSERT_SQL, Arrays.asList("id-" + i, (long) i)));
+        }
+        batchDAO.flush(requests);
+
+        requests.clear();
+        for (int i = 0; i < 250; i += 2) {
+            requests.add(new SQLExecutor(TABLE, UPDATE_SQL, Arrays.asList(i * 10L, "id-" + i)));
+        }
+        requests.add(new SQLExecutor(TABLE, INSERT_SQL, Arrays.asList("id-250", 250L)));
+        batchDAO.flush(requests);
+
+        Assert.assertEquals(251, count("1 = 1"));
+        Assert.assertEquals(1L, value("id-1"));
+        Assert.assertEquals(20L, value("id-2"));
+        Assert.assertEquals(2480L, value("id-248"));
+        Assert.assertEquals(250L, value("id-250"));
+    }
+
+    @Test
+    public void testFailedStatementDoesNotBreakTheRest() throws Exception {
+        final H2BatchDAO batchDAO = new H2BatchDAO(client, 10, 1);
+        final RecordingMetricsCreator metricsCreator = new RecordingMetricsCreator();
+        batchDAO.initMetrics(metricsCreator);
+        List<PrepareRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            requests.add(new SQLExecutor(TABLE, INSERT_SQL, Arrays.asList("id-" + i, (long) i)));
+            if (i == 5 || i == 15) {
+                // Duplicate primary key
+                requests.add(new SQLExecutor(TABLE, INSERT_SQL, Arrays.asList("id-" + i, -1L)));
+            }
+        }
+        requests.add(new SQLExecutor("absent_table", "INSERT INTO absent_table VALUES(?)", Arrays.asList("id")));
+        requests.add(new SQLExecutor(TABLE, UPDATE_SQL, Arrays.asList(100L, "id-0")));
+        batchDAO.flush(requests);
+
+        Assert.assertEquals(30, count("1 = 1"));
+        Assert.assertEquals(0, count("value < 0"));
+        Assert.assertEquals(100L, value("id-0"));
+        Assert.assertEquals(31, metricsCreator.get("jdbc_batch_flushed_rows", TABLE), 0);
+        Assert.assertEquals(2, metricsCreator.get("jdbc_batch_flush_error_rows", TABLE), 0);
+        Assert.assertEquals(1, metricsCreator.get("jdbc_batch_flush_error_rows", "absent_table"), 0);
+    }
+
+    @Test
+    public void testAsyncInsertPartitionedByTable() throws Exception {
+        try (Connection connection = client.getConnection()) {
+            client.execute(connection, "CREATE TABLE batch_test_2 (id VARCHAR(64) PRIMARY KEY, value BIGINT)");
+        }
+        try {
+            final H2BatchDAO batchDAO = new H2BatchDAO(client, 100, 2);
+            for (int i = 0; i < 500; i++) {
+                batchDAO.insert(new SQLExecutor(TABLE, INSERT_SQL, Arrays.asList("id-" + i, (long) i)));
+                batchDAO.insert(new SQLExecutor(
+                    "batch_test_2", "INSERT INTO batch_test_2 VALUES(?,?)", Arrays.asList("id-" + i, (long) i)));
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((count("1 = 1") < 500 || count("batch_test_2", "1 = 1") < 500)
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(500, count("1 = 1"));
+            Assert.assertEquals(500, count("batch_test_2", "1 = 1"));
+        } finally {
+            try (Connection connection = client.getConnection()) {
+                client.execute(connection, "DROP TABLE batch_test_2");
+            }
+        }
+    }
+
+    @Test
+    public void testAsyncInsertFlushedInParallelBeforeConnect() throws Exception {
+        final List<String> tables = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tables.add("batch_test_p" + i);
+        }
+        // The providers create the DAO before the client connects.
+        final JDBCHikariCPClient unconnected = newUnconnectedClient("h2-batch-dao-parallel-test");
+        final Set<String> flushThreads = ConcurrentHashMap.newKeySet();
+        final H2BatchDAO batchDAO = new H2BatchDAO(unconnected, 100, 4) {
+            @Override
+            public void flush(List<PrepareRequest> prepareRequests) {
+                flushThreads.add(Thread.currentThread().getName());
+                super.flush(prepareRequests);
+            }
+        };
+        unconnected.connect();
+        try (Connection connection = unconnected.getConnection()) {
+            for (String table : tables) {
+                unconnected.execute(connection, "CREATE TABLE " + table + " (id VARCHAR(64) PRIMARY KEY, value BIGINT)");
+            }
+        }
+
+        for (int i = 0; i < 100; i++) {
+            for (String table : tables) {
+                batchDAO.insert(new SQLExecutor(
+                    table, "INSERT INTO " + table + " VALUES(?,?)", Arrays.asList("id-" + i, (long) i)));
+            }
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        int flushed = 0;
+        while (flushed < 800 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            flushed = 0;
+            try (Connection connection = unconnected.getConnection()) {
+                for (String table : tables) {
+                    try (ResultSet rs = unconnected.executeQuery(connection, "SELECT COUNT(*) FROM " + table)) {
+                        rs.next();
+                        flushed += rs.getInt(1);
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(800, flushed);
+        Assert.assertTrue("Flushed by " + flushThreads, flushThreads.size() > 1);
+    }
+
+    static JDBCHikariCPClient newClient(String database) throws Exception {
+        JDBCHikariCPClient client = newUnconnectedClient(database);
+        client.connect();
+        try (Connection connection = client.getConnection()) {
+            client.execute(connection, "CREATE TABLE batch_test (id VARCHAR(64) PRIMARY KEY, value BIGINT)");
+        }
+        return client;
+    }
+
+    private static JDBCHikariCPClient newUnconnectedClient(String database) {
+        Properties settings = new Properties();
+        settings.setProperty("dataSourceClassName", "org.h2.jdbcx.JdbcDataSource");
+        settings.setProperty("dataSource.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        settings.setProperty("dataSource.user", "sa");
+        return new JDBCHikariCPClient(settings);
+    }
+
+    private int count(String condition) throws Exception {
+        return count(TABLE, condition);
+    }
+
+    private int count(String table, String condition) throws Exception {
+        try (Connection connection = client.getConnection();
+             ResultSet rs = client.executeQuery(connection, "SELECT COUNT(*) FROM " + table + " WHERE " + condition)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private long value(String id) throws Exception {
+        try (Connection connection = client.getConnection();
+             ResultSet rs = client.executeQuery(connection, "SELECT value FROM batch_test WHERE id = ?", id)) {
+            Assert.assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Sum the counters by the name and the table.
+     */
+    private static class RecordingMetricsCreator extends MetricsCreatorNoop {
+        private final Map<String, DoubleAdder> counters = new ConcurrentHashMap<>();
+
+        @Override
+        public CounterMetrics createCounter(String name, String tips, MetricsTag.Keys tagKeys,
+                                            MetricsTag.Values tagValues) {
+            final DoubleAdder counter = counters.computeIfAbsent(
+                name + tagValues.getValues()[0], key -> new DoubleAdder());
+            return new CounterMetrics() {
+                @Override
+                public void inc() {
+                    counter.add(1);
+                }
+
+                @Override
+                public void inc(double value) {
+                    counter.add(value);
+                }
+            };
+        }
+
+        private double get(String name, String table) {
+            final DoubleAdder counter = counters.get(name + table);
+            return counter == null ? 0 : counter.sum();
+        }
+    }
+}
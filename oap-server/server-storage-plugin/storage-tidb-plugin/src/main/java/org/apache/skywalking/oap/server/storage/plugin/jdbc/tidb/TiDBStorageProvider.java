@@ -69,6 +69,8 @@ import org.apache.skywalking.oap.server.storage.plugin.jdbc.mysql.MySQLLogQueryD
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.mysql.MySQLTableInstaller;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.mysql.MySQLTraceQueryDAO;
 import org.apache.skywalking.oap.server.storage.plugin.jdbc.mysql.MysqlBrowserLogQueryDAO;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 
 /**
  * TiDB storage enhanced and came from MySQLStorageProvider to support TiDB.
@@ -80,6 +82,7 @@ public class TiDBStorageProvider extends ModuleProvider {
 
     private TiDBStorageConfig config;
     private JDBCHikariCPClient mysqlClient;
+    private H2BatchDAO batchDAO;
 
     public TiDBStorageProvider() {
         config = new TiDBStorageConfig();
@@ -106,7 +109,9 @@ public class TiDBStorageProvider extends ModuleProvider {
         
         mysqlClient = new JDBCHikariCPClient(config.getProperties());
 
-        this.registerServiceImplementation(IBatchDAO.class, new H2BatchDAO(mysqlClient));
+        batchDAO = new H2BatchDAO(
+            mysqlClient, config.getMaxSizeOfBatchSql(), config.getAsyncBatchPersistentPoolSize());
+        this.registerServiceImplementation(IBatchDAO.class, batchDAO);
         this.registerServiceImplementation(
             StorageDAO.class,
             new H2StorageDAO(
@@ -186,6 +191,11 @@ public class TiDBStorageProvider extends ModuleProvider {
                     + "]. Potential out of bound in the runtime.");
         }
 
+        MetricsCreator metricCreator = getManager().find(TelemetryModule.NAME)
+                                                   .provider()
+                                                   .getService(MetricsCreator.class);
+        batchDAO.initMetrics(metricCreator);
+
         try {
             mysqlClient.connect();
 